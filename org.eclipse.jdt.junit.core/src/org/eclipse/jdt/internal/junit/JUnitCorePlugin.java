@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,8 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 
+import org.eclipse.jdt.internal.junit.launcher.ChangedUnitsTracker;
+import org.eclipse.jdt.internal.junit.launcher.JUnit4TestIndex;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
 
 /**
@@ -79,6 +81,10 @@ public class JUnitCorePlugin extends Plugin {
 
 	private final JUnitModel fJUnitModel= new JUnitModel();
 
+	private final JUnit4TestIndex fJUnit4TestIndex= new JUnit4TestIndex();
+
+	private final ChangedUnitsTracker fChangedUnitsTracker= new ChangedUnitsTracker();
+
 
 	/**
 	 * List storing the registered test run listeners
@@ -123,6 +129,7 @@ public class JUnitCorePlugin extends Plugin {
 		super.start(context);
 		fBundleContext= context;
 		fJUnitModel.start();
+		fChangedUnitsTracker.start();
 	}
 
 	/**
@@ -133,6 +140,8 @@ public class JUnitCorePlugin extends Plugin {
 		try {
 			InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).flush();
 			fJUnitModel.stop();
+			fJUnit4TestIndex.stop();
+			fChangedUnitsTracker.stop();
 		} finally {
 			super.stop(context);
 		}
@@ -157,6 +166,27 @@ public class JUnitCorePlugin extends Plugin {
 		return getDefault().fJUnitModel;
 	}
 
+	/**
+	 * Returns the index of JUnit 4 tests. The index is started on the first call.
+	 *
+	 * @return the index of JUnit 4 tests, or <code>null</code> if the plug-in is not active
+	 */
+	public static JUnit4TestIndex getJUnit4TestIndex() {
+		JUnitCorePlugin plugin= getDefault();
+		if (plugin == null || fIsStopped)
+			return null;
+		plugin.fJUnit4TestIndex.start();
+		return plugin.fJUnit4TestIndex;
+	}
+
+	/**
+	 * @return the tracker of changed compilation units, or <code>null</code> if the plug-in is not active
+	 */
+	public static ChangedUnitsTracker getChangedUnitsTracker() {
+		JUnitCorePlugin plugin= getDefault();
+		return plugin != null && !fIsStopped ? plugin.fChangedUnitsTracker : null;
+	}
+
 	/**
 	 * Initializes TestRun Listener extensions
 	 * @deprecated to avoid deprecation warning
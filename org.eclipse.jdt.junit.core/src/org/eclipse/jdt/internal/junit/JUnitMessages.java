@@ -17,6 +17,8 @@ public final class JUnitMessages extends NLS {
 
 	private static final String BUNDLE_NAME= "org.eclipse.jdt.internal.junit.JUnitMessages";//$NON-NLS-1$
 
+	public static String AffectedTestsFinder_searching;
+
 	public static String JUnit4TestFinder_searching_description;
 
 	public static String JUnitContainerInitializer_description_initializer_junit3;
@@ -41,6 +43,8 @@ public final class JUnitMessages extends NLS {
 
 	public static String JUnitLaunchConfigurationDelegate_error_no_socket;
 
+	public static String JUnitLaunchConfigurationDelegate_error_no_affected_tests;
+
 	public static String JUnitLaunchConfigurationDelegate_error_notests_kind;
 
 	public static String JUnitLaunchConfigurationDelegate_error_wrong_input;
@@ -53,6 +53,12 @@ public class JUnitPreferencesConstants {
 	 */
 	public static final String PREF_INACTIVE_FILTERS_LIST = JUnitCorePlugin.PLUGIN_ID + ".inactive_filters"; //$NON-NLS-1$
 
+	/**
+	 * Boolean preference controlling whether the test runner should report results in the
+	 * binary protocol. If disabled, the line-oriented text protocol is used.
+	 */
+	public static final String BINARY_PROTOCOL= JUnitCorePlugin.PLUGIN_ID + ".binary_protocol"; //$NON-NLS-1$
+
 	/**
 	 * Maximum number of remembered test runs.
 	 */
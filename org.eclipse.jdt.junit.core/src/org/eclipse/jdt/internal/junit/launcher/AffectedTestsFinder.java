@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.junit.JUnitMessages;
+
+/**
+ * Finds the tests that are affected by changed compilation units.
+ * <p>
+ * A test is affected if its compilation unit changed or references a type of a changed
+ * compilation unit, directly or through the source types of its project and the projects
+ * it requires. References are found with the Java search engine, one search per level of
+ * indirection.
+ * </p>
+ */
+public class AffectedTestsFinder {
+
+	private static class ReferencingUnitsCollector extends SearchRequestor {
+		private final HashSet fAffectedUnits;
+		private final List fNewUnits;
+
+		public ReferencingUnitsCollector(HashSet affectedUnits, List newUnits) {
+			fAffectedUnits= affectedUnits;
+			fNewUnits= newUnits;
+		}
+
+		public void acceptSearchMatch(SearchMatch match) throws CoreException {
+			Object element= match.getElement();
+			if (!(element instanceof IJavaElement))
+				return;
+			ICompilationUnit unit= (ICompilationUnit) ((IJavaElement) element).getAncestor(IJavaElement.COMPILATION_UNIT);
+			if (unit != null && fAffectedUnits.add(unit))
+				fNewUnits.add(unit);
+		}
+	}
+
+	private AffectedTestsFinder() {
+	}
+
+	/**
+	 * Returns the tests that are affected by the given changed compilation units.
+	 *
+	 * @param tests the tests, as returned by {@link ITestFinder#findTestsInContainer(IJavaElement, java.util.Set, IProgressMonitor)}
+	 * @param changedUnits the changed compilation units
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @return the affected tests. Tests that are not declared in a compilation unit are always affected.
+	 * @throws CoreException if searching fails
+	 */
+	public static IMember[] findAffectedTests(IMember[] tests, ICompilationUnit[] changedUnits, IProgressMonitor pm) throws CoreException {
+		if (pm == null)
+			pm= new NullProgressMonitor();
+		pm.beginTask(JUnitMessages.AffectedTestsFinder_searching, IProgressMonitor.UNKNOWN);
+		try {
+			HashSet affectedUnits= new HashSet(Arrays.asList(changedUnits));
+			if (!affectedUnits.isEmpty()) {
+				IJavaSearchScope scope= createScope(tests);
+				SearchParticipant[] participants= new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() };
+				List newUnits= new ArrayList(affectedUnits);
+				while (!newUnits.isEmpty()) {
+					SearchPattern pattern= createReferencesPattern(newUnits);
+					newUnits= new ArrayList();
+					if (pattern == null)
+						break;
+					SearchRequestor requestor= new ReferencingUnitsCollector(affectedUnits, newUnits);
+					new SearchEngine().search(pattern, participants, scope, requestor, new SubProgressMonitor(pm, 1));
+				}
+			}
+
+			ArrayList result= new ArrayList();
+			for (int i= 0; i < tests.length; i++) {
+				ICompilationUnit unit= tests[i].getCompilationUnit();
+				if (unit == null || affectedUnits.contains(unit))
+					result.add(tests[i]);
+			}
+			return (IMember[]) result.toArray(new IMember[result.size()]);
+		} finally {
+			pm.done();
+		}
+	}
+
+	private static IJavaSearchScope createScope(IMember[] tests) {
+		HashSet projects= new HashSet();
+		for (int i= 0; i < tests.length; i++) {
+			projects.add(tests[i].getJavaProject());
+		}
+		IJavaElement[] elements= (IJavaElement[]) projects.toArray(new IJavaElement[projects.size()]);
+		return SearchEngine.createJavaSearchScope(elements, IJavaSearchScope.SOURCES | IJavaSearchScope.REFERENCED_PROJECTS);
+	}
+
+	private static SearchPattern createReferencesPattern(List units) throws CoreException {
+		SearchPattern result= null;
+		for (Iterator iter= units.iterator(); iter.hasNext();) {
+			ICompilationUnit unit= (ICompilationUnit) iter.next();
+			if (!unit.exists())
+				continue;
+			IType[] types= unit.getAllTypes();
+			for (int i= 0; i < types.length; i++) {
+				SearchPattern pattern= SearchPattern.createPattern(types[i], IJavaSearchConstants.REFERENCES);
+				result= result == null ? pattern : SearchPattern.createOrPattern(result, pattern);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Records the compilation units that changed since the last run of a test launch,
+ * see {@link AffectedTestsFinder}.
+ * <p>
+ * Every Java element delta increments a modification count. Changed compilation units
+ * are stored with the modification count of their last change, and test launches remember
+ * the modification count at the time they were started. Changes that can affect arbitrary
+ * tests (e.g. class path changes or removed compilation units) are recorded as structure
+ * changes; after a structure change, all tests have to be run again.
+ * </p>
+ * <p>
+ * The tracker only lives in memory: the first run of a launch after a restart runs all tests.
+ * </p>
+ */
+public class ChangedUnitsTracker implements IElementChangedListener {
+
+	private static final int PROJECT_STRUCTURE_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+	private static final int ROOT_STRUCTURE_FLAGS= IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+			| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER;
+
+	private long fModificationCount;
+
+	/**
+	 * Modification count of the last structure change.
+	 */
+	private long fLastStructureChange;
+
+	/**
+	 * Map from changed {@link ICompilationUnit} to the modification count of its last change ({@link Long}).
+	 */
+	private final HashMap fChangedUnits= new HashMap();
+
+	/**
+	 * Map from launch key ({@link String}) to the modification count at the start of its last run ({@link Long}).
+	 */
+	private final HashMap fLastRuns= new HashMap();
+
+	public void start() {
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+	}
+
+	public void stop() {
+		JavaCore.removeElementChangedListener(this);
+	}
+
+	/**
+	 * Records the start of a test run.
+	 *
+	 * @param launchKey a key that identifies the tests of the launch
+	 * @return the modification count at the start of the last run with the same key,
+	 * or <code>-1</code> if the tests have not been run before
+	 */
+	public synchronized long startRun(String launchKey) {
+		Long lastRun= (Long) fLastRuns.put(launchKey, new Long(fModificationCount));
+		return lastRun != null ? lastRun.longValue() : -1;
+	}
+
+	/**
+	 * Returns the compilation units that changed after the given modification count.
+	 *
+	 * @param modificationCount a modification count returned by {@link #startRun(String)}
+	 * @return the changed compilation units, or <code>null</code> if a structure change
+	 * happened since, so that all tests can be affected
+	 */
+	public synchronized ICompilationUnit[] getChangedUnits(long modificationCount) {
+		if (fLastStructureChange > modificationCount)
+			return null;
+		ArrayList units= new ArrayList();
+		for (Iterator iter= fChangedUnits.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			if (((Long) entry.getValue()).longValue() > modificationCount)
+				units.add(entry.getKey());
+		}
+		return (ICompilationUnit[]) units.toArray(new ICompilationUnit[units.size()]);
+	}
+
+	public synchronized void elementChanged(ElementChangedEvent event) {
+		fModificationCount++;
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				processChildren(delta);
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (kind != IJavaElementDelta.CHANGED || (delta.getFlags() & PROJECT_STRUCTURE_FLAGS) != 0)
+					structureChanged();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (kind != IJavaElementDelta.CHANGED || (delta.getFlags() & ROOT_STRUCTURE_FLAGS) != 0)
+					structureChanged();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind != IJavaElementDelta.CHANGED)
+					structureChanged();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit= (ICompilationUnit) element;
+				if (unit.getPrimary() != unit)
+					break;
+				if (kind == IJavaElementDelta.REMOVED)
+					structureChanged(); // references to the removed types cannot be searched
+				else if (kind == IJavaElementDelta.ADDED || (delta.getFlags() & IJavaElementDelta.F_CONTENT) != 0)
+					fChangedUnits.put(unit, new Long(fModificationCount));
+				break;
+			default:
+				// changed class files can affect any test
+				structureChanged();
+				break;
+		}
+	}
+
+	private void processChildren(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+		}
+	}
+
+	private void structureChanged() {
+		fLastStructureChange= fModificationCount;
+		// the changed units are not needed any more, since all tests have to run again
+		fChangedUnits.clear();
+	}
+}
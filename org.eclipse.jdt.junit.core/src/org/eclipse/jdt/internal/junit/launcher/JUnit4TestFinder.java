@@ -22,6 +22,7 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -118,6 +119,24 @@ public class JUnit4TestFinder implements ITestFinder {
 			}
 		}
 
+		JUnit4TestIndex index= JUnitCorePlugin.getJUnit4TestIndex();
+		if (index != null && index.findTestsInContainer(this, element, result, pm))
+			return;
+
+		searchTestsInContainer(element, result, null, pm);
+	}
+
+	/**
+	 * Searches the tests in a container.
+	 *
+	 * @param element the container
+	 * @param result collects the test classes ({@link IType})
+	 * @param superUnits if not <code>null</code>, collects the compilation units ({@link ICompilationUnit})
+	 * that declare super types of the found tests
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @throws CoreException if the search fails
+	 */
+	void searchTestsInContainer(IJavaElement element, Set result, Set superUnits, IProgressMonitor pm) throws CoreException {
 		if (pm == null)
 			pm= new NullProgressMonitor();
 
@@ -157,11 +176,86 @@ public class JUnit4TestFinder implements ITestFinder {
 
 			//JUnit 4.3 can also run JUnit-3.8-style public static Test suite() methods:
 			CoreTestSearchEngine.findSuiteMethods(element, result, new SubProgressMonitor(pm, 1));
+
+			if (superUnits != null) {
+				for (Iterator iterator= result.iterator(); iterator.hasNext();) {
+					IType curr= (IType) iterator.next();
+					IType[] supertypes= hierarchy.getAllSupertypes(curr);
+					for (int i= 0; i < supertypes.length; i++) {
+						addSuperUnit(supertypes[i], curr.getCompilationUnit(), superUnits);
+					}
+				}
+			}
 		} finally {
 			pm.done();
 		}
 	}
 
+	/**
+	 * Finds the tests declared in a compilation unit. The unit is parsed only once for all of its types.
+	 *
+	 * @param unit the compilation unit
+	 * @param tests collects the test classes ({@link IType})
+	 * @param superUnits collects the other compilation units ({@link ICompilationUnit}) that declare
+	 * super types of the found tests
+	 * @param testSuperclasses collects the types ({@link IType}) that make their subclasses tests,
+	 * e.g. abstract classes with <code>@Test</code> methods
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @throws JavaModelException if the unit cannot be accessed
+	 */
+	void findTestsInCompilationUnit(ICompilationUnit unit, Set tests, Set superUnits, Set testSuperclasses, IProgressMonitor pm) throws JavaModelException {
+		IType[] types= unit.getAllTypes();
+		if (types.length == 0)
+			return;
+
+		ASTParser parser= ASTParser.newParser(AST.JLS4);
+		parser.setSource(unit);
+		parser.setFocalPosition(0);
+		parser.setResolveBindings(true);
+		CompilationUnit root= (CompilationUnit) parser.createAST(pm);
+		for (int i= 0; i < types.length; i++) {
+			IType type= types[i];
+			ASTNode node= root.findDeclaringNode(type.getKey());
+			if (!(node instanceof TypeDeclaration))
+				continue;
+			ITypeBinding binding= ((TypeDeclaration) node).resolveBinding();
+			if (binding == null)
+				continue;
+
+			boolean declaresTests= declaresOrInheritsTests(binding);
+			if (declaresTests) {
+				testSuperclasses.add(type);
+			}
+			if (CoreTestSearchEngine.isAccessibleClass(type)
+					&& (CoreTestSearchEngine.hasSuiteMethod(type) || declaresTests && !Modifier.isAbstract(binding.getModifiers()))) {
+				tests.add(type);
+				collectSuperUnits(binding, unit, superUnits);
+			}
+		}
+	}
+
+	private static void collectSuperUnits(ITypeBinding binding, ICompilationUnit unit, Set superUnits) {
+		ITypeBinding superclass= binding.getSuperclass();
+		if (superclass != null) {
+			addSuperUnit(superclass.getTypeDeclaration().getJavaElement(), unit, superUnits);
+			collectSuperUnits(superclass, unit, superUnits);
+		}
+		ITypeBinding[] interfaces= binding.getInterfaces();
+		for (int i= 0; i < interfaces.length; i++) {
+			addSuperUnit(interfaces[i].getTypeDeclaration().getJavaElement(), unit, superUnits);
+			collectSuperUnits(interfaces[i], unit, superUnits);
+		}
+	}
+
+	private static void addSuperUnit(IJavaElement supertype, ICompilationUnit unit, Set superUnits) {
+		if (supertype instanceof IType) {
+			ICompilationUnit superUnit= ((IType) supertype).getCompilationUnit();
+			if (superUnit != null && !superUnit.equals(unit)) {
+				superUnits.add(superUnit);
+			}
+		}
+	}
+
 	private static class AnnotationSearchRequestor extends SearchRequestor {
 
 		private final Collection fResult;
@@ -248,6 +342,10 @@ public class JUnit4TestFinder implements ITestFinder {
 		if (Modifier.isAbstract(binding.getModifiers()))
 			return false;
 
+		return declaresOrInheritsTests(binding);
+	}
+
+	private static boolean declaresOrInheritsTests(ITypeBinding binding) {
 		if (Annotation.RUN_WITH.annotatesTypeOrSuperTypes(binding) || Annotation.TEST.annotatesAtLeastOneMethod(binding)) {
 			return true;
 		}
@@ -0,0 +1,682 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * Index of the JUnit 4 tests in Java projects, used by {@link JUnit4TestFinder} to find all
+ * tests of a project without searching all of its compilation units.
+ * <p>
+ * A project is searched once. Afterwards, the index is updated from Java element deltas:
+ * changed compilation units are marked dirty and re-checked on the next query. The project
+ * is searched again if a change can make tests in other compilation units appear or
+ * disappear, e.g. if the super type of a test changed, a class changed whether it is a test,
+ * or the class path changed.
+ * </p>
+ * <p>
+ * The index is stored in the plug-in state location when the workspace is saved. Changes
+ * that happened while the index was not started are received from the saved state.
+ * </p>
+ */
+public class JUnit4TestIndex implements IElementChangedListener, ISaveParticipant {
+
+	private static final String INDEX_FILE_NAME= "testIndex.dat"; //$NON-NLS-1$
+
+	private static final int FORMAT_VERSION= 1;
+
+	private static final int PROJECT_STRUCTURE_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+	private static final int ROOT_STRUCTURE_FLAGS= IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+			| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER;
+
+	private static class ProjectIndex {
+
+		final String fProjectName;
+
+		/**
+		 * Map from handle identifier of a compilation unit or class file ({@link String})
+		 * to the handle identifiers of its tests ({@link String}[]).
+		 */
+		final HashMap fTests= new HashMap();
+
+		/**
+		 * Handle identifiers of the compilation units that declare super types of tests ({@link String}).
+		 */
+		final HashSet fSuperUnits= new HashSet();
+
+		/**
+		 * Map from handle identifier of a changed compilation unit ({@link String}) to
+		 * {@link Boolean#TRUE} if the unit has been added.
+		 */
+		HashMap fDirtyUnits= new HashMap();
+
+		boolean fComplete;
+
+		ProjectIndex(String projectName) {
+			fProjectName= projectName;
+		}
+	}
+
+	/**
+	 * Result of re-checking a changed compilation unit of the indexed project.
+	 */
+	private static class UnitUpdate {
+		final String fHandle;
+		final boolean fAdded;
+		final String[] fTests;
+		final String[] fSuperUnits;
+
+		UnitUpdate(String handle, boolean added, String[] tests, String[] superUnits) {
+			fHandle= handle;
+			fAdded= added;
+			fTests= tests;
+			fSuperUnits= superUnits;
+		}
+	}
+
+	/**
+	 * Map from project name ({@link String}) to {@link ProjectIndex}.
+	 */
+	private final HashMap fIndexes= new HashMap();
+
+	/**
+	 * Serializes queries, so that a project is not updated or searched twice concurrently.
+	 */
+	private final Object fUpdateLock= new Object();
+
+	/**
+	 * Guards {@link #fStarted}, held while starting so that no query sees a partially loaded index.
+	 */
+	private final Object fStartLock= new Object();
+
+	private boolean fStarted;
+
+	private File fFile;
+
+	/**
+	 * Starts the index if it is not started yet: loads the stored index, processes the changes
+	 * since the last save and starts listening to changes. This is done on the first query and
+	 * not on plug-in activation, since it can take long.
+	 */
+	public void start() {
+		synchronized (fStartLock) {
+			if (fStarted)
+				return;
+			fStarted= true;
+			doStart();
+		}
+	}
+
+	private void doStart() {
+		fFile= JUnitCorePlugin.getDefault().getStateLocation().append(INDEX_FILE_NAME).toFile();
+		try {
+			ISavedState savedState= ResourcesPlugin.getWorkspace().addSaveParticipant(JUnitCorePlugin.CORE_PLUGIN_ID, this);
+			if (savedState != null) {
+				load();
+				savedState.processResourceChangeEvents(new IResourceChangeListener() {
+					public void resourceChanged(IResourceChangeEvent event) {
+						if (event.getDelta() != null)
+							processResourceDelta(event.getDelta());
+					}
+				});
+			}
+		} catch (CoreException e) {
+			JUnitCorePlugin.log(e);
+		}
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+	}
+
+	public void stop() {
+		synchronized (fStartLock) {
+			if (!fStarted)
+				return;
+			fStarted= false;
+			JavaCore.removeElementChangedListener(this);
+			ResourcesPlugin.getWorkspace().removeSaveParticipant(JUnitCorePlugin.CORE_PLUGIN_ID);
+		}
+	}
+
+	/**
+	 * Finds the tests in a project, or in a source folder or package of a project that
+	 * has already been indexed.
+	 *
+	 * @param finder the finder that searches and checks tests
+	 * @param element the container
+	 * @param result a Set to add ITypes
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @return <code>false</code> iff the index cannot be used for the container
+	 * @throws CoreException if the tests cannot be searched
+	 */
+	boolean findTestsInContainer(JUnit4TestFinder finder, IJavaElement element, Set result, IProgressMonitor pm) throws CoreException {
+		int elementType= element.getElementType();
+		if (elementType == IJavaElement.PACKAGE_FRAGMENT_ROOT || elementType == IJavaElement.PACKAGE_FRAGMENT) {
+			IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			if (root.isArchive() || !isIndexed(element.getJavaProject()))
+				return false;
+		} else if (elementType != IJavaElement.JAVA_PROJECT) {
+			return false;
+		}
+
+		Set tests;
+		synchronized (fUpdateLock) {
+			tests= getTests(finder, element.getJavaProject(), pm);
+		}
+		for (Iterator iter= tests.iterator(); iter.hasNext();) {
+			IType type= (IType) iter.next();
+			if (elementType == IJavaElement.JAVA_PROJECT || element.equals(type.getAncestor(elementType))) {
+				result.add(type);
+			}
+		}
+		return true;
+	}
+
+	private synchronized boolean isIndexed(IJavaProject project) {
+		ProjectIndex index= (ProjectIndex) fIndexes.get(project.getElementName());
+		return index != null && index.fComplete;
+	}
+
+	private Set getTests(JUnit4TestFinder finder, IJavaProject project, IProgressMonitor pm) throws CoreException {
+		String projectName= project.getElementName();
+		ProjectIndex index;
+		HashMap dirtyUnits;
+		synchronized (this) {
+			index= (ProjectIndex) fIndexes.get(projectName);
+			if (index == null || !index.fComplete)
+				return searchProject(finder, project, pm);
+			dirtyUnits= index.fDirtyUnits;
+			index.fDirtyUnits= new HashMap();
+		}
+
+		ArrayList updates= new ArrayList();
+		ArrayList externalUnits= new ArrayList();
+		boolean checked= false;
+		try {
+			checked= checkDirtyUnits(finder, project, dirtyUnits, updates, externalUnits, pm);
+		} finally {
+			if (!checked)
+				invalidate(index);
+		}
+		if (!checked)
+			return searchProject(finder, project, pm);
+
+		synchronized (this) {
+			if (fIndexes.get(projectName) == index && applyUpdates(index, updates, externalUnits))
+				return getTypes(index);
+		}
+		invalidate(index);
+		return searchProject(finder, project, pm);
+	}
+
+	/**
+	 * Re-checks the changed compilation units.
+	 *
+	 * @param finder the finder
+	 * @param project the indexed project
+	 * @param dirtyUnits the changed units, see {@link ProjectIndex#fDirtyUnits}
+	 * @param updates collects the {@link UnitUpdate}s for the units of the project
+	 * @param externalUnits collects the handle identifiers of changed units in required projects
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @return <code>false</code> iff the project has to be searched again
+	 * @throws JavaModelException if a unit cannot be accessed
+	 */
+	private boolean checkDirtyUnits(JUnit4TestFinder finder, IJavaProject project, HashMap dirtyUnits, ArrayList updates, ArrayList externalUnits, IProgressMonitor pm) throws JavaModelException {
+		Set requiredProjects= null;
+		for (Iterator iter= dirtyUnits.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			String handle= (String) entry.getKey();
+			IJavaElement element= JavaCore.create(handle);
+			if (!(element instanceof ICompilationUnit))
+				return false;
+			ICompilationUnit unit= (ICompilationUnit) element;
+			boolean inProject= project.equals(unit.getJavaProject());
+			if (!inProject) {
+				if (requiredProjects == null)
+					requiredProjects= getRequiredProjects(project);
+				if (!requiredProjects.contains(unit.getJavaProject().getElementName()))
+					continue;
+			}
+			if (!unit.exists()) {
+				if (inProject)
+					return false;
+				continue;
+			}
+
+			HashSet tests= new HashSet();
+			HashSet superUnits= new HashSet();
+			HashSet testSuperclasses= new HashSet();
+			finder.findTestsInCompilationUnit(unit, tests, superUnits, testSuperclasses, pm);
+			if (inProject) {
+				boolean added= ((Boolean) entry.getValue()).booleanValue();
+				// classes in other units can extend an added test class, e.g. after a move or rename
+				if (added && !testSuperclasses.isEmpty())
+					return false;
+				// subclasses of changed abstract test classes can be in other units
+				for (Iterator iterator= testSuperclasses.iterator(); iterator.hasNext();) {
+					IType type= (IType) iterator.next();
+					if (Flags.isAbstract(type.getFlags()) || type.isInterface())
+						return false;
+				}
+				updates.add(new UnitUpdate(handle, added, getHandles(tests), getHandles(superUnits)));
+			} else {
+				// classes of required projects can be super types of tests in the project
+				if (!testSuperclasses.isEmpty())
+					return false;
+				externalUnits.add(handle);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Applies the re-checked units to the index.
+	 *
+	 * @param index the index
+	 * @param updates the {@link UnitUpdate}s
+	 * @param externalUnits the handle identifiers of changed units in required projects
+	 * @return <code>false</code> iff the project has to be searched again
+	 */
+	private boolean applyUpdates(ProjectIndex index, ArrayList updates, ArrayList externalUnits) {
+		for (Iterator iter= externalUnits.iterator(); iter.hasNext();) {
+			if (index.fSuperUnits.contains(iter.next()))
+				return false;
+		}
+		for (Iterator iter= updates.iterator(); iter.hasNext();) {
+			UnitUpdate update= (UnitUpdate) iter.next();
+			if (index.fSuperUnits.contains(update.fHandle))
+				return false;
+			String[] oldTests= (String[]) index.fTests.get(update.fHandle);
+			if (!update.fAdded && !equalsIgnoreOrder(oldTests, update.fTests))
+				return false; // subclasses in other units may have become tests or stopped being tests
+		}
+		for (Iterator iter= updates.iterator(); iter.hasNext();) {
+			UnitUpdate update= (UnitUpdate) iter.next();
+			if (update.fTests.length == 0) {
+				index.fTests.remove(update.fHandle);
+			} else {
+				index.fTests.put(update.fHandle, update.fTests);
+			}
+			for (int i= 0; i < update.fSuperUnits.length; i++) {
+				index.fSuperUnits.add(update.fSuperUnits[i]);
+			}
+		}
+		return true;
+	}
+
+	private Set searchProject(JUnit4TestFinder finder, IJavaProject project, IProgressMonitor pm) throws CoreException {
+		ProjectIndex index= new ProjectIndex(project.getElementName());
+		synchronized (this) {
+			fIndexes.put(index.fProjectName, index);
+		}
+		try {
+			HashSet result= new HashSet();
+			HashSet superUnits= new HashSet();
+			finder.searchTestsInContainer(project, result, superUnits, pm);
+
+			HashMap tests= new HashMap();
+			for (Iterator iter= result.iterator(); iter.hasNext();) {
+				IType type= (IType) iter.next();
+				String unitHandle= type.getTypeRoot().getHandleIdentifier();
+				ArrayList unitTests= (ArrayList) tests.get(unitHandle);
+				if (unitTests == null) {
+					unitTests= new ArrayList(1);
+					tests.put(unitHandle, unitTests);
+				}
+				unitTests.add(type.getHandleIdentifier());
+			}
+			String[] superUnitHandles= getHandles(superUnits);
+
+			synchronized (this) {
+				if (fIndexes.get(index.fProjectName) == index) {
+					for (Iterator iter= tests.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry entry= (Map.Entry) iter.next();
+						ArrayList unitTests= (ArrayList) entry.getValue();
+						index.fTests.put(entry.getKey(), unitTests.toArray(new String[unitTests.size()]));
+					}
+					for (int i= 0; i < superUnitHandles.length; i++) {
+						index.fSuperUnits.add(superUnitHandles[i]);
+					}
+					index.fComplete= true;
+				}
+			}
+			return result;
+		} finally {
+			if (!index.fComplete)
+				invalidate(index);
+		}
+	}
+
+	private synchronized void invalidate(ProjectIndex index) {
+		if (fIndexes.get(index.fProjectName) == index)
+			fIndexes.remove(index.fProjectName);
+	}
+
+	private synchronized void invalidateAll() {
+		fIndexes.clear();
+	}
+
+	private static Set getTypes(ProjectIndex index) {
+		HashSet result= new HashSet();
+		for (Iterator iter= index.fTests.values().iterator(); iter.hasNext();) {
+			String[] handles= (String[]) iter.next();
+			for (int i= 0; i < handles.length; i++) {
+				IJavaElement element= JavaCore.create(handles[i]);
+				if (element instanceof IType)
+					result.add(element);
+			}
+		}
+		return result;
+	}
+
+	private static Set getRequiredProjects(IJavaProject project) throws JavaModelException {
+		HashSet result= new HashSet();
+		ArrayList queue= new ArrayList();
+		queue.add(project);
+		while (!queue.isEmpty()) {
+			IJavaProject curr= (IJavaProject) queue.remove(queue.size() - 1);
+			if (!curr.exists())
+				continue;
+			String[] names= curr.getRequiredProjectNames();
+			for (int i= 0; i < names.length; i++) {
+				if (result.add(names[i]))
+					queue.add(curr.getJavaModel().getJavaProject(names[i]));
+			}
+		}
+		return result;
+	}
+
+	private static String[] getHandles(Set elements) {
+		String[] handles= new String[elements.size()];
+		int i= 0;
+		for (Iterator iter= elements.iterator(); iter.hasNext();) {
+			handles[i++]= ((IJavaElement) iter.next()).getHandleIdentifier();
+		}
+		return handles;
+	}
+
+	private static boolean equalsIgnoreOrder(String[] oldHandles, String[] newHandles) {
+		if (oldHandles == null)
+			return newHandles.length == 0;
+		if (oldHandles.length != newHandles.length)
+			return false;
+		HashSet set= new HashSet();
+		for (int i= 0; i < oldHandles.length; i++) {
+			set.add(oldHandles[i]);
+		}
+		for (int i= 0; i < newHandles.length; i++) {
+			if (!set.contains(newHandles[i]))
+				return false;
+		}
+		return true;
+	}
+
+	//---- delta processing ----
+
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				processChildren(delta);
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (kind != IJavaElementDelta.CHANGED || (delta.getFlags() & PROJECT_STRUCTURE_FLAGS) != 0)
+					invalidateAll();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (kind != IJavaElementDelta.CHANGED || (delta.getFlags() & ROOT_STRUCTURE_FLAGS) != 0)
+					invalidateAll();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind != IJavaElementDelta.CHANGED)
+					invalidateAll();
+				else
+					processChildren(delta);
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit= (ICompilationUnit) element;
+				if (unit.getPrimary() == unit)
+					unitChanged(unit, kind);
+				break;
+			default:
+				// class files in class folders can be tests or super types of tests
+				invalidateAll();
+				break;
+		}
+	}
+
+	private void processChildren(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+		}
+	}
+
+	private void processResourceDelta(IResourceDelta delta) {
+		IResource resource= delta.getResource();
+		switch (resource.getType()) {
+			case IResource.PROJECT:
+				if (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+					invalidateAll();
+					return;
+				}
+				break;
+			case IResource.FILE:
+				IJavaElement element= JavaCore.create((IFile) resource);
+				if (element instanceof ICompilationUnit) {
+					int kind;
+					switch (delta.getKind()) {
+						case IResourceDelta.ADDED:
+							kind= IJavaElementDelta.ADDED;
+							break;
+						case IResourceDelta.REMOVED:
+							kind= IJavaElementDelta.REMOVED;
+							break;
+						default:
+							kind= IJavaElementDelta.CHANGED;
+							break;
+					}
+					unitChanged((ICompilationUnit) element, kind);
+				} else if (element != null || ".classpath".equals(resource.getName())) { //$NON-NLS-1$
+					invalidateAll();
+				}
+				return;
+		}
+		IResourceDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processResourceDelta(children[i]);
+		}
+	}
+
+	private synchronized void unitChanged(ICompilationUnit unit, int kind) {
+		String handle= unit.getHandleIdentifier();
+		String projectName= unit.getJavaProject().getElementName();
+		for (Iterator iter= fIndexes.values().iterator(); iter.hasNext();) {
+			ProjectIndex index= (ProjectIndex) iter.next();
+			if (kind == IJavaElementDelta.REMOVED) {
+				if (index.fProjectName.equals(projectName) || index.fSuperUnits.contains(handle))
+					iter.remove();
+			} else if (kind == IJavaElementDelta.ADDED) {
+				index.fDirtyUnits.put(handle, Boolean.TRUE);
+			} else if (!index.fDirtyUnits.containsKey(handle)) {
+				index.fDirtyUnits.put(handle, Boolean.FALSE);
+			}
+		}
+	}
+
+	//---- persistence ----
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+		// nothing to do
+	}
+
+	public void saving(ISaveContext context) throws CoreException {
+		if (context.getKind() != ISaveContext.FULL_SAVE)
+			return;
+		try {
+			write();
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			fFile.delete();
+		}
+		context.needDelta();
+	}
+
+	public void doneSaving(ISaveContext context) {
+		// nothing to do
+	}
+
+	public void rollback(ISaveContext context) {
+		// nothing to do
+	}
+
+	private void write() throws IOException {
+		ProjectIndex[] indexes;
+		synchronized (this) {
+			indexes= (ProjectIndex[]) fIndexes.values().toArray(new ProjectIndex[fIndexes.size()]);
+		}
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fFile)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			for (int i= 0; i < indexes.length; i++) {
+				ProjectIndex index= indexes[i];
+				synchronized (this) {
+					if (!index.fComplete)
+						continue;
+					out.writeBoolean(true);
+					out.writeUTF(index.fProjectName);
+					out.writeInt(index.fTests.size());
+					for (Iterator iter= index.fTests.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry entry= (Map.Entry) iter.next();
+						out.writeUTF((String) entry.getKey());
+						writeStrings(out, (String[]) entry.getValue());
+					}
+					writeStrings(out, (String[]) index.fSuperUnits.toArray(new String[index.fSuperUnits.size()]));
+					out.writeInt(index.fDirtyUnits.size());
+					for (Iterator iter= index.fDirtyUnits.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry entry= (Map.Entry) iter.next();
+						out.writeUTF((String) entry.getKey());
+						out.writeBoolean(((Boolean) entry.getValue()).booleanValue());
+					}
+				}
+			}
+			out.writeBoolean(false);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void load() {
+		if (!fFile.exists())
+			return;
+		DataInputStream in= null;
+		try {
+			in= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile)));
+			if (in.readInt() != FORMAT_VERSION)
+				return;
+			HashMap indexes= new HashMap();
+			while (in.readBoolean()) {
+				ProjectIndex index= new ProjectIndex(in.readUTF());
+				int unitCount= in.readInt();
+				for (int i= 0; i < unitCount; i++) {
+					index.fTests.put(in.readUTF(), readStrings(in));
+				}
+				String[] superUnits= readStrings(in);
+				for (int i= 0; i < superUnits.length; i++) {
+					index.fSuperUnits.add(superUnits[i]);
+				}
+				int dirtyCount= in.readInt();
+				for (int i= 0; i < dirtyCount; i++) {
+					index.fDirtyUnits.put(in.readUTF(), Boolean.valueOf(in.readBoolean()));
+				}
+				index.fComplete= true;
+				indexes.put(index.fProjectName, index);
+			}
+			synchronized (this) {
+				fIndexes.putAll(indexes);
+			}
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		out.writeInt(strings.length);
+		for (int i= 0; i < strings.length; i++) {
+			out.writeUTF(strings[i]);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings= new String[in.readInt()];
+		for (int i= 0; i < strings.length; i++) {
+			strings[i]= in.readUTF();
+		}
+		return strings;
+	}
+}
@@ -21,6 +21,8 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.TestTimingHistory;
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
 
 import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
 
@@ -45,12 +47,32 @@ public class JUnitLaunchConfigurationConstants {
 	public static final String ATTR_TEST_METHOD_NAME= JUnitCorePlugin.PLUGIN_ID+".TESTNAME"; //$NON-NLS-1$
 
 	public static final String ATTR_KEEPRUNNING = JUnitCorePlugin.PLUGIN_ID+ ".KEEPRUNNING_ATTR"; //$NON-NLS-1$
+	/**
+	 * The number of threads that run the test classes in parallel: 1 (the default) to run
+	 * them sequentially, 0 for one thread per processor of the test VM.
+	 */
+	public static final String ATTR_TEST_THREAD_COUNT= JUnitCorePlugin.PLUGIN_ID+".THREAD_COUNT"; //$NON-NLS-1$
+	/**
+	 * The order of the tests: "" (the default) to run them in the order of the test runner,
+	 * or one of {@link #TEST_ORDER_SHORTEST_FIRST} and {@link #TEST_ORDER_LONGEST_FIRST}
+	 * to order them by the durations recorded in the {@link TestTimingHistory}.
+	 */
+	public static final String ATTR_TEST_ORDER= JUnitCorePlugin.PLUGIN_ID+".TEST_ORDER"; //$NON-NLS-1$
+
+	public static final String TEST_ORDER_SHORTEST_FIRST= TestDurations.SHORTEST_FIRST;
+
+	public static final String TEST_ORDER_LONGEST_FIRST= TestDurations.LONGEST_FIRST;
 	/**
 	 * The launch container, or "" iff running a single test type.
 	 */
 	public static final String ATTR_TEST_CONTAINER= JUnitCorePlugin.PLUGIN_ID+".CONTAINER"; //$NON-NLS-1$
 
 	public static final String ATTR_FAILURES_NAMES= JUnitCorePlugin.PLUGIN_ID+".FAILURENAMES"; //$NON-NLS-1$
+	/**
+	 * Whether only the tests affected by the compilation units changed since the last run
+	 * of the same tests should be run, see {@link AffectedTestsFinder}. Defaults to <code>false</code>.
+	 */
+	public static final String ATTR_AFFECTED_TESTS_ONLY= JUnitCorePlugin.PLUGIN_ID+".AFFECTED_TESTS_ONLY"; //$NON-NLS-1$
 
 	public static final String ATTR_TEST_RUNNER_KIND= JUnitCorePlugin.PLUGIN_ID+".TEST_KIND"; //$NON-NLS-1$
 
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Disk-backed store for failure traces, expected and actual values of the
+ * {@link TestElement}s of a {@link TestRunSession}.
+ * <p>
+ * Records are appended to a spool file and referenced by their file offset. Reading
+ * a record only touches the bytes of that record, so traces of large test runs can
+ * stay off the heap until they are displayed. A record is updated in place if the new
+ * values fit into its slot. Otherwise, it is moved to the end of the file with room to
+ * grow, so that a trace that keeps growing is only moved a few times.
+ * </p>
+ * <p>
+ * Record format: int capacity, int length, followed by three nullable strings (boolean present,
+ * int chunk count, UTF chunks) and unused bytes up to the capacity.
+ * Strings longer than {@link #MAX_CHUNK} characters are written in chunks.
+ * </p>
+ */
+public class FailureTraceStore {
+
+	/**
+	 * Maximum number of characters written with a single {@link DataOutputStream#writeUTF(String)}.
+	 */
+	private static final int MAX_CHUNK= 16 * 1024;
+
+	private final File fFile;
+
+	private RandomAccessFile fRandomAccessFile;
+
+	private long fLastHandle= -1;
+
+	private String[] fLastRecord;
+
+	/**
+	 * @param file the spool file, will be overwritten
+	 */
+	public FailureTraceStore(File file) {
+		fFile= file;
+	}
+
+	/**
+	 * Appends a record.
+	 *
+	 * @param trace the failure trace, can be <code>null</code>
+	 * @param expected the expected value, can be <code>null</code>
+	 * @param actual the actual value, can be <code>null</code>
+	 * @return the handle to load the record
+	 * @throws IOException if the record could not be written
+	 */
+	public synchronized long store(String trace, String expected, String actual) throws IOException {
+		byte[] record= toBytes(trace, expected, actual);
+		return append(record, record.length);
+	}
+
+	/**
+	 * Replaces a record.
+	 *
+	 * @param handle a handle returned by {@link #store(String, String, String)} or by this method
+	 * @param trace the failure trace, can be <code>null</code>
+	 * @param expected the expected value, can be <code>null</code>
+	 * @param actual the actual value, can be <code>null</code>
+	 * @return the handle to load the record, which differs from the given handle
+	 *         if the record had to be moved
+	 * @throws IOException if the record could not be written
+	 */
+	public synchronized long update(long handle, String trace, String expected, String actual) throws IOException {
+		byte[] record= toBytes(trace, expected, actual);
+		RandomAccessFile file= getFile();
+		file.seek(handle);
+		int capacity= file.readInt();
+		if (record.length <= capacity) {
+			file.writeInt(record.length);
+			file.write(record);
+		} else {
+			handle= append(record, 2 * record.length);
+		}
+		fLastHandle= handle;
+		fLastRecord= new String[] { trace, expected, actual };
+		return handle;
+	}
+
+	private long append(byte[] record, int capacity) throws IOException {
+		RandomAccessFile file= getFile();
+		long handle= file.length();
+		file.seek(handle);
+		file.writeInt(capacity);
+		file.writeInt(record.length);
+		file.write(record);
+		if (capacity > record.length)
+			file.setLength(handle + 8 + capacity);
+		return handle;
+	}
+
+	private static byte[] toBytes(String trace, String expected, String actual) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream(trace != null ? trace.length() + 64 : 64);
+		DataOutputStream out= new DataOutputStream(bytes);
+		writeString(out, trace);
+		writeString(out, expected);
+		writeString(out, actual);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Loads a record.
+	 *
+	 * @param handle a handle returned by {@link #store(String, String, String)} or
+	 *            {@link #update(long, String, String, String)}
+	 * @return an array with trace, expected and actual value
+	 * @throws IOException if the record could not be read
+	 */
+	public synchronized String[] load(long handle) throws IOException {
+		if (handle == fLastHandle)
+			return fLastRecord;
+
+		FileChannel channel= getFile().getChannel();
+		ByteBuffer headerBuffer= ByteBuffer.allocate(8);
+		readFully(channel, headerBuffer, handle);
+		ByteBuffer recordBuffer= ByteBuffer.allocate(headerBuffer.getInt(4));
+		readFully(channel, recordBuffer, handle + 8);
+
+		DataInputStream in= new DataInputStream(new ByteArrayInputStream(recordBuffer.array()));
+		String[] record= new String[] { readString(in), readString(in), readString(in) };
+		fLastHandle= handle;
+		fLastRecord= record;
+		return record;
+	}
+
+	/**
+	 * Closes and deletes the spool file.
+	 */
+	public synchronized void dispose() {
+		fLastHandle= -1;
+		fLastRecord= null;
+		if (fRandomAccessFile != null) {
+			try {
+				fRandomAccessFile.close();
+			} catch (IOException e) {
+				// ignore, delete anyway
+			}
+			fRandomAccessFile= null;
+		}
+		if (fFile.exists())
+			fFile.delete();
+	}
+
+	private RandomAccessFile getFile() throws IOException {
+		if (fRandomAccessFile == null) {
+			fRandomAccessFile= new RandomAccessFile(fFile, "rw"); //$NON-NLS-1$
+			fRandomAccessFile.setLength(0);
+		}
+		return fRandomAccessFile;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read= channel.read(buffer, position + buffer.position());
+			if (read == -1)
+				throw new IOException("Unexpected end of failure trace store"); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string == null)
+			return;
+		int length= string.length();
+		int chunks= (length + MAX_CHUNK - 1) / MAX_CHUNK;
+		out.writeInt(chunks);
+		for (int i= 0; i < chunks; i++) {
+			out.writeUTF(string.substring(i * MAX_CHUNK, Math.min(length, (i + 1) * MAX_CHUNK)));
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		if (! in.readBoolean())
+			return null;
+		int chunks= in.readInt();
+		if (chunks == 1)
+			return in.readUTF();
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < chunks; i++) {
+			buf.append(in.readUTF());
+		}
+		return buf.toString();
+	}
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.util.Map;
+
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 
 
@@ -121,6 +123,16 @@ public interface ITestRunListener2 {
 	 */
 	public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual);
 
+	/**
+	 * Metrics of a test have been measured in the test VM. Metrics of a test case
+	 * are reported before the test has ended.
+	 *
+	 * @param testId a unique Id identifying the test
+	 * @param metrics a map from metric name ({@link String}, one of the <code>METRIC_*</code>
+	 *        constants in {@link MessageIds}) to value ({@link Long})
+	 */
+	public void testMetrics(String testId, Map metrics);
+
 
 
 }
@@ -78,6 +78,18 @@ public interface IXMLTags {
 	 * value: Double
 	 */
 	public static final String ATTR_TIME= "time"; //$NON-NLS-1$
+	/**
+	 * value: Double, CPU time of a test case in seconds
+	 */
+	public static final String ATTR_CPU_TIME= "cputime"; //$NON-NLS-1$
+	/**
+	 * value: Long, bytes allocated by a test case
+	 */
+	public static final String ATTR_ALLOCATED_BYTES= "allocated"; //$NON-NLS-1$
+	/**
+	 * value: Double, time in seconds to load the class of a test suite
+	 */
+	public static final String ATTR_CLASS_LOADING_TIME= "loadtime"; //$NON-NLS-1$
 //	public static final String ATTR_MESSAGE= "message"; //$NON-NLS-1$
 //	public static final String ATTR_TYPE= "type"; //$NON-NLS-1$
 }
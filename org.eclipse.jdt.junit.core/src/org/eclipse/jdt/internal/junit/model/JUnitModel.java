@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,8 +13,10 @@
 package org.eclipse.jdt.internal.junit.model;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -237,6 +239,10 @@ public final class JUnitModel {
 	private final LinkedList/*<TestRunSession>*/ fTestRunSessions= new LinkedList();
 	private final ILaunchListener fLaunchListener= new JUnitLaunchListener();
 
+	private static final String TEST_TIMING_HISTORY_FILE_NAME= "testDurations.txt"; //$NON-NLS-1$
+
+	private TestTimingHistory fTestTimingHistory;
+
 	/**
 	 * Starts the model (called by the {@link JUnitCorePlugin} on startup).
 	 */
@@ -282,6 +288,11 @@ public final class JUnitModel {
 		ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.removeLaunchListener(fLaunchListener);
 
+		synchronized (this) {
+			if (fTestTimingHistory != null)
+				fTestTimingHistory.save();
+		}
+
 		File historyDirectory= JUnitCorePlugin.getHistoryDirectory();
 		File[] swapFiles= historyDirectory.listFiles();
 		if (swapFiles != null) {
@@ -322,6 +333,17 @@ public final class JUnitModel {
 		return new ArrayList(fTestRunSessions);
 	}
 
+	/**
+	 * @return the durations of completed test runs
+	 */
+	public synchronized TestTimingHistory getTestTimingHistory() {
+		if (fTestTimingHistory == null) {
+			File file= JUnitCorePlugin.getDefault().getStateLocation().append(TEST_TIMING_HISTORY_FILE_NAME).toFile();
+			fTestTimingHistory= new TestTimingHistory(file);
+		}
+		return fTestTimingHistory;
+	}
+
 	/**
 	 * Adds the given {@link TestRunSession} and notifies all registered
 	 * {@link ITestRunSessionListener}s.
@@ -387,6 +409,47 @@ public final class JUnitModel {
 		return null; // does not happen
 	}
 
+	/**
+	 * Imports a test run session from the given file and shows partial results while
+	 * the file is parsed: the session is added to the model as soon as its root element
+	 * has been read, and it reports the imported tests to its {@link ITestSessionListener}s
+	 * like a running session. Cancelling the monitor or stopping the session stops the import
+	 * and keeps the elements that have been read so far.
+	 *
+	 * @param file a file containing a test run session transcript
+	 * @param monitor a progress monitor for cancellation, or <code>null</code>
+	 * @return the imported test run session
+	 * @throws CoreException if the import failed
+	 * @throws OperationCanceledException if the import was cancelled
+	 */
+	public static TestRunSession importTestRunSession(File file, IProgressMonitor monitor) throws CoreException {
+		TestRunHandler handler= new TestRunHandler(monitor, true);
+		try {
+			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
+//			parserFactory.setValidating(true); // TODO: add DTD and debug flag
+			SAXParser parser= parserFactory.newSAXParser();
+			parser.parse(file, handler);
+			TestRunSession session= handler.getTestRunSession();
+			if (session == null)
+				throwImportError(file, new SAXException("no test run found")); //$NON-NLS-1$
+			return session;
+		} catch (ParserConfigurationException e) {
+			throwImportError(file, e);
+		} catch (SAXException e) {
+			throwImportError(file, e);
+		} catch (IOException e) {
+			throwImportError(file, e);
+		} catch (IllegalArgumentException e) {
+			// Bug in parser: can throw IAE even if file is not null
+			throwImportError(file, e);
+		} finally {
+			TestRunSession session= handler.getTestRunSession();
+			if (session != null)
+				session.importEnded(true); // no-op if the import has been completed
+		}
+		return null; // does not happen
+	}
+
 	/**
 	 * Imports a test run session from the given URL.
 	 *
@@ -475,6 +538,13 @@ public final class JUnitModel {
 
 	/**
 	 * Exports the given test run session.
+	 * <p>
+	 * A swapped-out session is exported by copying its swap file. All other sessions are
+	 * serialized from the in-memory test tree. A session that is still running is exported
+	 * as far as it has run: results are not streamed to the file while the run continues,
+	 * since the XML format writes suite attributes like <code>time</code> and
+	 * <code>incomplete</code> before the children of the suite.
+	 * </p>
 	 *
 	 * @param testRunSession the test run session
 	 * @param file the destination
@@ -484,7 +554,13 @@ public final class JUnitModel {
 		FileOutputStream out= null;
 		try {
 			out= new FileOutputStream(file);
-            exportTestRunSession(testRunSession, out);
+			File swapFile= testRunSession.getSwapFileIfSwappedOut();
+			if (swapFile != null) {
+				// the swap file has been written by exportTestRunSession(..), no need to swap in
+				copy(swapFile, out);
+			} else {
+				exportTestRunSession(testRunSession, out);
+			}
 
 		} catch (IOException e) {
 			throwExportError(file, e);
@@ -527,6 +603,19 @@ public final class JUnitModel {
 		transformer.transform(source, result);
 	}
 
+	private static void copy(File source, OutputStream out) throws IOException {
+		InputStream in= new FileInputStream(source);
+		try {
+			byte[] buffer= new byte[64 * 1024];
+			int read;
+			while ((read= in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
 	private static void throwExportError(File file, Exception e) throws CoreException {
 		throw new CoreException(new org.eclipse.core.runtime.Status(IStatus.ERROR,
 				JUnitCorePlugin.getPluginId(),
@@ -12,8 +12,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -22,11 +24,13 @@ import java.io.UnsupportedEncodingException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.HashMap;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageReader;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 
 /**
@@ -113,6 +117,10 @@ public class RemoteTestRunnerClient {
 	            notifyTestTreeEntry(arg);
 	            return this;
 	        }
+	        if (message.startsWith(MessageIds.TEST_METRICS)) {
+	            notifyTestMetrics(arg);
+	            return this;
+	        }
 	        if (message.startsWith(MessageIds.TEST_RERAN)) {
 	            if (hasTestId())
 	                scanReranMessage(arg);
@@ -181,6 +189,34 @@ public class RemoteTestRunnerClient {
 	    }
 	}
 
+	/**
+	 * Dispatches the messages of the binary protocol. Messages about single tests
+	 * are dispatched directly, all others go through the processing states.
+	 */
+	class BinaryMessageHandler implements BinaryMessageReader.IMessageHandler {
+		public void handleLine(String line) {
+			receiveMessage(line);
+		}
+
+		public void handleMessage(String header, String arg) {
+			receiveMessage(header + arg);
+		}
+
+		public void handleTestMessage(String header, String testId, String testName) {
+			if (fCurrentState != fDefaultState) {
+				receiveMessage(header + testId + ',' + testName);
+			} else if (header == MessageIds.TEST_START) {
+				notifyTestStarted(testId, testName);
+			} else if (header == MessageIds.TEST_END) {
+				notifyTestEnded(testId, testName);
+			} else if (header == MessageIds.TEST_ERROR) {
+				setFailedTest(testId, testName, ITestRunListener2.STATUS_ERROR);
+			} else if (header == MessageIds.TEST_FAILED) {
+				setFailedTest(testId, testName, ITestRunListener2.STATUS_FAILURE);
+			}
+		}
+	}
+
 	/**
 	 * The failed trace that is currently reported from the RemoteTestRunner
 	 */
@@ -256,19 +292,29 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				try {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), "UTF-8"))); //$NON-NLS-1$
-				} catch (UnsupportedEncodingException e) {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream())));
-				}
 				try {
 				    fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), "UTF-8"), true); //$NON-NLS-1$
 	            } catch (UnsupportedEncodingException e1) {
 	                fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream()), true);
 	            }
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				InputStream in= new BufferedInputStream(fSocket.getInputStream());
+				if (BinaryMessageReader.isBinaryStream(in)) {
+					BinaryMessageReader reader= new BinaryMessageReader(in);
+					fLastLineDelimiter= reader.getLineDelimiter();
+					BinaryMessageHandler handler= new BinaryMessageHandler();
+					while (fSocket != null && reader.readMessage(handler)) {
+						// messages are dispatched by the handler
+					}
+				} else {
+					try {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in, "UTF-8"))); //$NON-NLS-1$
+					} catch (UnsupportedEncodingException e) {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in)));
+					}
+					String message;
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -416,8 +462,12 @@ public class RemoteTestRunnerClient {
 
 	private void extractFailure(String arg, int status) {
 		String s[]= extractTestId(arg);
-		fFailedTestId= s[0];
-		fFailedTest= s[1];
+		setFailedTest(s[0], s[1], status);
+	}
+
+	private void setFailedTest(String testId, String testName, int status) {
+		fFailedTestId= testId;
+		fFailedTest= testName;
 		fFailureKind= status;
 	}
 
@@ -474,6 +524,32 @@ public class RemoteTestRunnerClient {
 		return testName+","+treeEntry; //$NON-NLS-1$
 	}
 
+	private void notifyTestMetrics(String arg) {
+		if (JUnitCorePlugin.isStopped())
+			return;
+		final String testId;
+		final HashMap metrics= new HashMap();
+		try {
+			String[] parts= arg.split(","); //$NON-NLS-1$
+			testId= parts[0];
+			for (int i= 1; i < parts.length; i++) {
+				int equals= parts[i].indexOf('=');
+				metrics.put(parts[i].substring(0, equals), Long.valueOf(parts[i].substring(equals + 1)));
+			}
+		} catch (RuntimeException e) {
+			// malformed metrics from a newer runtime, ignore
+			return;
+		}
+		for (int i= 0; i < fListeners.length; i++) {
+			final ITestRunListener2 listener= fListeners[i];
+			SafeRunner.run(new ListenerSafeRunnable() {
+				public void run() {
+					listener.testMetrics(testId, metrics);
+				}
+			});
+		}
+	}
+
 	private void notifyTestRunStopped(final long elapsedTime) {
 		if (JUnitCorePlugin.isStopped())
 			return;
@@ -514,6 +590,19 @@ public class RemoteTestRunnerClient {
 		}
 	}
 
+	private void notifyTestEnded(final String testId, final String testName) {
+		if (JUnitCorePlugin.isStopped())
+			return;
+		for (int i= 0; i < fListeners.length; i++) {
+			final ITestRunListener2 listener= fListeners[i];
+			SafeRunner.run(new ListenerSafeRunnable() {
+				public void run() {
+					listener.testEnded(testId, testName);
+				}
+			});
+		}
+	}
+
 	private void notifyTestStarted(final String test) {
 		if (JUnitCorePlugin.isStopped())
 			return;
@@ -528,6 +617,19 @@ public class RemoteTestRunnerClient {
 		}
 	}
 
+	private void notifyTestStarted(final String testId, final String testName) {
+		if (JUnitCorePlugin.isStopped())
+			return;
+		for (int i= 0; i < fListeners.length; i++) {
+			final ITestRunListener2 listener= fListeners[i];
+			SafeRunner.run(new ListenerSafeRunnable() {
+				public void run() {
+					listener.testStarted(testId, testName);
+				}
+			});
+		}
+	}
+
 	private void notifyTestRunStarted(final int count) {
 		if (JUnitCorePlugin.isStopped())
 			return;
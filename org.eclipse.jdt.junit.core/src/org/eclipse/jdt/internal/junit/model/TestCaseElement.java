@@ -20,6 +20,16 @@ public class TestCaseElement extends TestElement implements ITestCaseElement {
 
 	private boolean fIgnored;
 
+	/**
+	 * CPU time in seconds, or {@link Double#NaN} if unknown.
+	 */
+	private double fCpuTime= Double.NaN;
+
+	/**
+	 * Number of allocated bytes, or -1 if unknown.
+	 */
+	private long fAllocatedBytes= -1;
+
 	public TestCaseElement(TestSuiteElement parent, String id, String testName) {
 		super(parent, id, testName);
 		Assert.isNotNull(parent);
@@ -69,6 +79,28 @@ public class TestCaseElement extends TestElement implements ITestCaseElement {
 		return fIgnored;
 	}
 
+	public void setCpuTimeInSeconds(double cpuTime) {
+		fCpuTime= cpuTime;
+	}
+
+	/**
+	 * @return the CPU time of the test in seconds, or {@link Double#NaN} if unknown
+	 */
+	public double getCpuTimeInSeconds() {
+		return fCpuTime;
+	}
+
+	public void setAllocatedBytes(long allocatedBytes) {
+		fAllocatedBytes= allocatedBytes;
+	}
+
+	/**
+	 * @return the number of bytes allocated by the test, or -1 if unknown
+	 */
+	public long getAllocatedBytes() {
+		return fAllocatedBytes;
+	}
+
 	public String toString() {
 		return "TestCase: " + getTestClassName() + "." + getTestMethodName() + " : " + super.toString(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
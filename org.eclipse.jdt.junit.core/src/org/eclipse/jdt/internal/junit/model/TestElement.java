@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,12 +13,16 @@
 
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.IOException;
+
 import org.eclipse.jdt.junit.model.ITestElement;
 import org.eclipse.jdt.junit.model.ITestElementContainer;
 import org.eclipse.jdt.junit.model.ITestRunSession;
 
 import org.eclipse.core.runtime.Assert;
 
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
 
 public abstract class TestElement implements ITestElement {
 	public final static class Status {
@@ -172,6 +176,13 @@ public abstract class TestElement implements ITestElement {
 	private String fExpected;
 	private String fActual;
 
+	/**
+	 * The store that holds trace, expected and actual value, or <code>null</code>
+	 * if they are kept in memory.
+	 */
+	private FailureTraceStore fFailureTraceStore;
+	private long fFailureTraceHandle;
+
 	/**
 	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
 	 * <ul>
@@ -236,7 +247,7 @@ public abstract class TestElement implements ITestElement {
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+			return new FailureTrace(getTrace(), getExpected(), getActual());
 		}
 		return null;
 	}
@@ -277,7 +288,16 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
-		if (trace != null && fTrace != null) {
+		FailureTraceStore store= fFailureTraceStore;
+		if (store != null) {
+			String[] record= readFailureTrace(store);
+			if (trace != null && record[0] != null) {
+				//don't overwrite first trace if same test run logs multiple errors
+				updateFailureTrace(store, record[0] + trace, record[1], record[2]);
+			} else {
+				updateFailureTrace(store, trace, expected, actual);
+			}
+		} else if (trace != null && fTrace != null) {
 			//don't overwrite first trace if same test run logs multiple errors
 			fTrace= fTrace + trace;
 		} else {
@@ -293,19 +313,78 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
+		FailureTraceStore store= fFailureTraceStore;
+		if (store != null)
+			return readFailureTrace(store)[0];
 		return fTrace;
 	}
 
 	public String getExpected() {
+		FailureTraceStore store= fFailureTraceStore;
+		if (store != null)
+			return readFailureTrace(store)[1];
 		return fExpected;
 	}
 
 	public String getActual() {
+		FailureTraceStore store= fFailureTraceStore;
+		if (store != null)
+			return readFailureTrace(store)[2];
 		return fActual;
 	}
 
 	public boolean isComparisonFailure() {
-		return fExpected != null && fActual != null;
+		return getExpected() != null && getActual() != null;
+	}
+
+	/**
+	 * Moves trace, expected and actual value of this element to the given store.
+	 * They are read back on demand.
+	 *
+	 * @param store the store
+	 */
+	void spoolFailureTrace(FailureTraceStore store) {
+		if (fFailureTraceStore != null || fTrace == null && fExpected == null && fActual == null)
+			return;
+		try {
+			fFailureTraceHandle= store.store(fTrace, fExpected, fActual);
+			fFailureTraceStore= store;
+			fTrace= null;
+			fExpected= null;
+			fActual= null;
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+	}
+
+	/**
+	 * Replaces the record of this element in the store. If the record cannot be
+	 * written, the values are kept in memory.
+	 *
+	 * @param store the store that holds the record
+	 * @param trace the new trace
+	 * @param expected the new expected value
+	 * @param actual the new actual value
+	 */
+	private void updateFailureTrace(FailureTraceStore store, String trace, String expected, String actual) {
+		try {
+			fFailureTraceHandle= store.update(fFailureTraceHandle, trace, expected, actual);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			fTrace= trace;
+			fExpected= expected;
+			fActual= actual;
+			fFailureTraceStore= null;
+		}
+	}
+
+	private String[] readFailureTrace(FailureTraceStore store) {
+		try {
+			return store.load(fFailureTraceHandle);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return new String[3];
+		}
 	}
 
 	/**
@@ -33,6 +33,7 @@ import org.eclipse.jdt.core.IJavaModel;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.model.TestElement.Status;
 
 public class TestRunHandler extends DefaultHandler {
@@ -61,6 +62,12 @@ public class TestRunHandler extends DefaultHandler {
 	private IProgressMonitor fMonitor;
 	private int fLastReportedLine;
 
+	/**
+	 * If <code>true</code>, the session is added to the model as soon as it is
+	 * created, and listeners are notified about every element while parsing.
+	 */
+	private boolean fIncremental;
+
 	public TestRunHandler() {
 
 	}
@@ -68,6 +75,21 @@ public class TestRunHandler extends DefaultHandler {
 	public TestRunHandler(IProgressMonitor monitor) {
 		fMonitor= monitor;
 	}
+
+	/**
+	 * Creates a handler that can import incrementally. In incremental mode, the
+	 * new session is added to the {@link JUnitModel} as soon as the root element has
+	 * been read and reports the imported elements to its {@link ITestSessionListener}s
+	 * like a running session. Clients must call {@link TestRunSession#importEnded(boolean)}
+	 * with <code>true</code> if parsing fails.
+	 *
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @param incremental <code>true</code> to show partial results while parsing
+	 */
+	public TestRunHandler(IProgressMonitor monitor, boolean incremental) {
+		fMonitor= monitor;
+		fIncremental= incremental;
+	}
 	
 	public TestRunHandler(TestRunSession testRunSession) {
 		fTestRunSession= testRunSession;
@@ -91,6 +113,8 @@ public class TestRunHandler extends DefaultHandler {
 		}
 		if (Thread.interrupted())
 			throw new OperationCanceledException();
+		if (fIncremental && (fTestRunSession != null && fTestRunSession.isStopped() || fMonitor != null && fMonitor.isCanceled()))
+			throw new OperationCanceledException();
 		
 		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			if (fTestRunSession == null) {
@@ -105,6 +129,7 @@ public class TestRunHandler extends DefaultHandler {
 				}
 				fTestRunSession= new TestRunSession(name, javaProject);
 				//TODO: read counts?
+				startIncrementalImport();
 
 			} else {
 				fTestRunSession.reset();
@@ -121,13 +146,17 @@ public class TestRunHandler extends DefaultHandler {
 				// support standalone suites and Ant's 'junitreport' task:
 				fTestRunSession= new TestRunSession(name, null);
 				fTestSuite= fTestRunSession.getTestRoot();
+				startIncrementalImport();
 			}
 
 			String pack= attributes.getValue(IXMLTags.ATTR_PACKAGE);
 			String suiteName= pack == null ? name : pack + "." + name; //$NON-NLS-1$
 			fTestSuite= (TestSuiteElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), suiteName, true, 0);
 			readTime(fTestSuite, attributes);
+			readClassLoadingTime(fTestSuite, attributes);
 			fNotRun.push(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
+			if (fIncremental)
+				fTestRunSession.importTestAdded(fTestSuite);
 
 		} else if (qName.equals(IXMLTags.NODE_PROPERTIES) || qName.equals(IXMLTags.NODE_PROPERTY)) {
 			// not interested
@@ -139,6 +168,9 @@ public class TestRunHandler extends DefaultHandler {
 			fNotRun.push(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
 			fTestCase.setIgnored(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_IGNORED)).booleanValue());
 			readTime(fTestCase, attributes);
+			readMetrics(fTestCase, attributes);
+			if (fIncremental)
+				fTestRunSession.importTestAdded(fTestCase);
 
 		} else if (qName.equals(IXMLTags.NODE_ERROR)) {
 			//TODO: multiple failures: https://bugs.eclipse.org/bugs/show_bug.cgi?id=125296
@@ -170,6 +202,40 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
+	private void startIncrementalImport() {
+		if (fIncremental) {
+			fTestRunSession.importStarted();
+			JUnitCorePlugin.getModel().addTestRunSession(fTestRunSession);
+		}
+	}
+
+	private void readClassLoadingTime(TestSuiteElement testSuiteElement, Attributes attributes) {
+		String timeString= attributes.getValue(IXMLTags.ATTR_CLASS_LOADING_TIME);
+		if (timeString != null) {
+			try {
+				testSuiteElement.setClassLoadingTimeInSeconds(Double.parseDouble(timeString));
+			} catch (NumberFormatException e) {
+			}
+		}
+	}
+
+	private void readMetrics(TestCaseElement testCaseElement, Attributes attributes) {
+		String cpuTimeString= attributes.getValue(IXMLTags.ATTR_CPU_TIME);
+		if (cpuTimeString != null) {
+			try {
+				testCaseElement.setCpuTimeInSeconds(Double.parseDouble(cpuTimeString));
+			} catch (NumberFormatException e) {
+			}
+		}
+		String allocatedString= attributes.getValue(IXMLTags.ATTR_ALLOCATED_BYTES);
+		if (allocatedString != null) {
+			try {
+				testCaseElement.setAllocatedBytes(Long.parseLong(allocatedString));
+			} catch (NumberFormatException e) {
+			}
+		}
+	}
+
 	private void readTime(TestElement testElement, Attributes attributes) {
 		String timeString= attributes.getValue(IXMLTags.ATTR_TIME);
 		if (timeString != null) {
@@ -192,6 +258,11 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
+	public void endDocument() throws SAXException {
+		if (fIncremental && fTestRunSession != null)
+			fTestRunSession.importEnded(false);
+	}
+
 	public void endElement(String uri, String localName, String qName) throws SAXException {
 		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			// OK
@@ -246,11 +317,18 @@ public class TestRunHandler extends DefaultHandler {
 	private void handleTestElementEnd(TestElement testElement) {
 		boolean completed= fNotRun.pop() != Boolean.TRUE;
 		fTestRunSession.registerTestEnded(testElement, completed);
+		if (fIncremental && testElement instanceof TestCaseElement)
+			fTestRunSession.importTestEnded((TestCaseElement) testElement);
 	}
 
 	private void handleFailure(TestElement testElement) {
 		if (fFailureBuffer != null) {
-			fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			String trace= fFailureBuffer.toString();
+			String expected= toString(fExpectedBuffer);
+			String actual= toString(fActualBuffer);
+			fTestRunSession.registerTestFailureStatus(testElement, fStatus, trace, expected, actual);
+			if (fIncremental)
+				fTestRunSession.importTestFailed(testElement, fStatus, trace, expected, actual);
 			fFailureBuffer= null;
 			fExpectedBuffer= null;
 			fActualBuffer= null;
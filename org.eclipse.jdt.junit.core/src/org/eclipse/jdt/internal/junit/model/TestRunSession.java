@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jdt.junit.model.ITestElement;
 import org.eclipse.jdt.junit.model.ITestElementContainer;
@@ -54,6 +55,13 @@ import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
  */
 public class TestRunSession implements ITestRunSession {
 
+	/**
+	 * Number of failed tests whose traces are kept in memory. When more tests fail,
+	 * all failure traces are moved to a {@link FailureTraceStore}. Only the traces,
+	 * expected and actual values are moved, the test elements stay in memory.
+	 */
+	private static final int MAX_FAILURE_TRACES_IN_MEMORY= 100;
+
 	/**
 	 * The launch, or <code>null</code> iff this session was run externally.
 	 */
@@ -98,6 +106,17 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private TestSuiteElement fUnrootedSuite;
 
+	/**
+	 * Store for failure traces, or <code>null</code> while all traces are kept in memory.
+	 */
+	private FailureTraceStore fFailureTraceStore;
+
+	/**
+	 * Number of calls to {@link #registerTestFailureStatus(TestElement, Status, String, String, String)}
+	 * since the test tree was created.
+	 */
+	private int fRegisteredFailures;
+
  	/**
  	 * Number of tests started during this test run.
  	 */
@@ -118,6 +137,19 @@ public class TestRunSession implements ITestRunSession {
 	 * Total number of tests to run.
 	 */
 	volatile int fTotalCount;
+	/**
+	 * Sum of the estimated durations of all tests in millis, or <code>-1</code> if
+	 * no durations are known. Set when the first test starts.
+	 */
+	volatile long fEstimatedTotalTime= -1;
+	/**
+	 * Sum of the estimated durations of the ended tests in millis.
+	 */
+	volatile long fEstimatedEndedTime;
+	/**
+	 * Estimated duration in millis of a test that is not in the {@link TestTimingHistory}.
+	 */
+	private long fEstimatedUnknownTestTime;
 	/**
 	 * <ul>
 	 * <li>If &gt; 0: Start time in millis</li>
@@ -216,6 +248,7 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fTestResult= null;
 		fIdToTest= new HashMap();
+		disposeFailureTraceStore();
 	}
 
 	/* (non-Javadoc)
@@ -311,6 +344,63 @@ public class TestRunSession implements ITestRunSession {
 		return fStartedCount;
 	}
 
+	/**
+	 * Estimates the remaining time of the running test run. The durations of previous runs
+	 * from the {@link TestTimingHistory} are scaled with the ratio between the actual and
+	 * the estimated time of the tests that have ended, so that the estimate adapts to
+	 * parallel execution and to the current machine load.
+	 *
+	 * @return the estimated remaining time in millis, or <code>-1</code> if unknown
+	 */
+	public long getEstimatedRemainingTime() {
+		long total= fEstimatedTotalTime;
+		long ended= fEstimatedEndedTime;
+		if (! fIsRunning || total <= 0 || ended <= 0 || fStartTime <= 0)
+			return -1;
+		double elapsed= System.currentTimeMillis() - fStartTime;
+		return Math.max(0, Math.round((total - ended) * (elapsed / ended)));
+	}
+
+	private void initEstimatedTime() {
+		TestTimingHistory history= JUnitCorePlugin.getModel().getTestTimingHistory();
+		long known= 0;
+		int knownCount= 0;
+		int unknownCount= 0;
+		TestElement[] elements= (TestElement[]) fIdToTest.values().toArray(new TestElement[fIdToTest.size()]);
+		for (int i= 0; i < elements.length; i++) {
+			if (! (elements[i] instanceof TestCaseElement))
+				continue;
+			long duration= history.getDuration(elements[i].getTestName());
+			if (duration >= 0) {
+				known+= duration;
+				knownCount++;
+			} else {
+				unknownCount++;
+			}
+		}
+		fEstimatedEndedTime= 0;
+		if (knownCount == 0) {
+			fEstimatedTotalTime= -1;
+		} else {
+			fEstimatedUnknownTestTime= known / knownCount;
+			fEstimatedTotalTime= known + unknownCount * fEstimatedUnknownTestTime;
+		}
+	}
+
+	private void addEstimatedEndedTime(TestCaseElement testCaseElement) {
+		if (fEstimatedTotalTime <= 0)
+			return;
+		long duration= JUnitCorePlugin.getModel().getTestTimingHistory().getDuration(testCaseElement.getTestName());
+		fEstimatedEndedTime+= duration >= 0 ? duration : fEstimatedUnknownTestTime;
+	}
+
+	private void recordDurations() {
+		TestElement[] elements= (TestElement[]) fIdToTest.values().toArray(new TestElement[fIdToTest.size()]);
+		TestTimingHistory history= JUnitCorePlugin.getModel().getTestTimingHistory();
+		history.record(elements);
+		history.save();
+	}
+
 	public int getIgnoredCount() {
 		return fIgnoredCount;
 	}
@@ -362,6 +452,7 @@ public class TestRunSession implements ITestRunSession {
 			fIdToTest= new HashMap();
 			fIncompleteTestSuites= null;
 			fUnrootedSuite= null;
+			disposeFailureTraceStore();
 
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
@@ -379,15 +470,64 @@ public class TestRunSession implements ITestRunSession {
 		File swapFile= getSwapFile();
 		if (swapFile.exists())
 			swapFile.delete();
+		disposeFailureTraceStore();
+	}
+
+	/**
+	 * @return the file that holds the test tree if this session is swapped out,
+	 * or <code>null</code> if the test tree is in memory
+	 */
+	synchronized File getSwapFileIfSwappedOut() {
+		if (fTestRoot != null)
+			return null;
+		try {
+			File swapFile= getSwapFile();
+			return swapFile.exists() ? swapFile : null;
+		} catch (IllegalStateException e) {
+			return null;
+		}
 	}
 
 	private File getSwapFile() throws IllegalStateException {
+		return getHistoryFile(".xml"); //$NON-NLS-1$
+	}
+
+	private File getHistoryFile(String extension) throws IllegalStateException {
 		File historyDir= JUnitCorePlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + extension;
 		return new File(historyDir, swapFileName);
 	}
 
+	private synchronized void disposeFailureTraceStore() {
+		fRegisteredFailures= 0;
+		if (fFailureTraceStore != null) {
+			fFailureTraceStore.dispose();
+			fFailureTraceStore= null;
+		}
+	}
+
+	/**
+	 * Moves the failure traces of all elements to disk.
+	 *
+	 * @return the store, or <code>null</code> if the store could not be created
+	 */
+	private synchronized FailureTraceStore spoolFailureTraces() {
+		if (fFailureTraceStore == null) {
+			try {
+				fFailureTraceStore= new FailureTraceStore(getHistoryFile(".traces")); //$NON-NLS-1$
+			} catch (IllegalStateException e) {
+				JUnitCorePlugin.log(e);
+				return null;
+			}
+			TestElement[] elements= (TestElement[]) fIdToTest.values().toArray(new TestElement[fIdToTest.size()]);
+			for (int i= 0; i < elements.length; i++) {
+				elements[i].spoolFailureTrace(fFailureTraceStore);
+			}
+		}
+		return fFailureTraceStore;
+	}
+
 
 	public synchronized void swapIn() {
 		if (fTestRoot != null)
@@ -589,6 +729,7 @@ public class TestRunSession implements ITestRunSession {
 
 		public void testRunEnded(long elapsedTime) {
 			fIsRunning= false;
+			recordDurations();
 
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -599,6 +740,7 @@ public class TestRunSession implements ITestRunSession {
 		public void testRunStopped(long elapsedTime) {
 			fIsRunning= false;
 			fIsStopped= true;
+			recordDurations();
 
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -649,6 +791,7 @@ public class TestRunSession implements ITestRunSession {
 
 		public void testStarted(String testId, String testName) {
 			if (fStartedCount == 0) {
+				initEstimatedTime();
 				Object[] listeners= fSessionListeners.getListeners();
 				for (int i= 0; i < listeners.length; ++i) {
 					((ITestSessionListener) listeners[i]).runningBegins();
@@ -688,6 +831,7 @@ public class TestRunSession implements ITestRunSession {
 
 			if (testCaseElement.getStatus() == Status.RUNNING)
 				setStatus(testCaseElement, Status.OK);
+			addEstimatedEndedTime(testCaseElement);
 
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -696,6 +840,31 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 
+		/* (non-Javadoc)
+		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testMetrics(java.lang.String, java.util.Map)
+		 */
+		public void testMetrics(String testId, Map metrics) {
+			TestElement testElement= getTestElement(testId);
+			if (testElement == null)
+				return;
+			Long time= (Long) metrics.get(MessageIds.METRIC_TIME);
+			if (time != null) // more precise than the time between receiving the start and end messages
+				testElement.setElapsedTimeInSeconds(time.longValue() / 1000d);
+			if (testElement instanceof TestCaseElement) {
+				TestCaseElement testCaseElement= (TestCaseElement) testElement;
+				Long cpuTime= (Long) metrics.get(MessageIds.METRIC_CPU_TIME);
+				if (cpuTime != null)
+					testCaseElement.setCpuTimeInSeconds(cpuTime.longValue() / 1e9d);
+				Long allocatedBytes= (Long) metrics.get(MessageIds.METRIC_ALLOCATED_BYTES);
+				if (allocatedBytes != null)
+					testCaseElement.setAllocatedBytes(allocatedBytes.longValue());
+			} else if (testElement instanceof TestSuiteElement) {
+				Long loadingTime= (Long) metrics.get(MessageIds.METRIC_CLASS_LOADING_TIME);
+				if (loadingTime != null)
+					((TestSuiteElement) testElement).setClassLoadingTimeInSeconds(loadingTime.longValue() / 1000d);
+			}
+		}
+
 		/* (non-Javadoc)
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testFailed(int, java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
 		 */
@@ -742,6 +911,71 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * Marks this session as running while it is imported incrementally, see
+	 * {@link TestRunHandler#TestRunHandler(org.eclipse.core.runtime.IProgressMonitor, boolean)}.
+	 */
+	void importStarted() {
+		fIsRunning= true;
+
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).sessionStarted();
+		}
+	}
+
+	void importTestAdded(TestElement testElement) {
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).testAdded(testElement);
+		}
+	}
+
+	void importTestEnded(TestCaseElement testCaseElement) {
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).testEnded(testCaseElement);
+		}
+	}
+
+	void importTestFailed(TestElement testElement, Status status, String trace, String expected, String actual) {
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).testFailed(testElement, status, trace, expected, actual);
+		}
+	}
+
+	/**
+	 * Ends an incremental import.
+	 *
+	 * @param stopped <code>true</code> iff the import has been cancelled or failed
+	 */
+	void importEnded(boolean stopped) {
+		if (! fIsRunning)
+			return;
+		fIsRunning= false;
+
+		long elapsedTime= 0;
+		ITestElement[] children= fTestRoot.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			double time= children[i].getElapsedTimeInSeconds();
+			if (! Double.isNaN(time))
+				elapsedTime+= (long) (time * 1000);
+		}
+
+		Object[] listeners= fSessionListeners.getListeners();
+		if (stopped) {
+			fIsStopped= true;
+			for (int i= 0; i < listeners.length; ++i) {
+				((ITestSessionListener) listeners[i]).sessionStopped(elapsedTime);
+			}
+		} else {
+			for (int i= 0; i < listeners.length; ++i) {
+				((ITestSessionListener) listeners[i]).sessionEnded(elapsedTime);
+			}
+		}
+	}
+
 	private static class IncompleteTestSuite {
 		public TestSuiteElement fTestSuiteElement;
 		public int fOutstandingChildren;
@@ -754,6 +988,11 @@ public class TestRunSession implements ITestRunSession {
 
 	public void registerTestFailureStatus(TestElement testElement, Status status, String trace, String expected, String actual) {
 		testElement.setStatus(status, trace, expected, actual);
+		if (++fRegisteredFailures > MAX_FAILURE_TRACES_IN_MEMORY) {
+			FailureTraceStore store= spoolFailureTraces();
+			if (store != null)
+				testElement.spoolFailureTrace(store);
+		}
 		if (status.isError()) {
 			fErrorCount++;
 		} else if (status.isFailure()) {
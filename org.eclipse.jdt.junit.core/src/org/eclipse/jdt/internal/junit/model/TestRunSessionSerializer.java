@@ -98,6 +98,8 @@ public class TestRunSessionSerializer implements XMLReader {
 			addCDATA(atts, IXMLTags.ATTR_NAME, testSuiteElement.getSuiteTypeName());
 			if (! Double.isNaN(testSuiteElement.getElapsedTimeInSeconds()))
 				addCDATA(atts, IXMLTags.ATTR_TIME, timeFormat.format(testSuiteElement.getElapsedTimeInSeconds()));
+			if (! Double.isNaN(testSuiteElement.getClassLoadingTimeInSeconds()))
+				addCDATA(atts, IXMLTags.ATTR_CLASS_LOADING_TIME, timeFormat.format(testSuiteElement.getClassLoadingTimeInSeconds()));
 			if (testElement.getProgressState() != ProgressState.COMPLETED || testElement.getTestResult(false) != Result.UNDEFINED)
 				addCDATA(atts, IXMLTags.ATTR_INCOMPLETE, Boolean.TRUE.toString());
 
@@ -118,6 +120,10 @@ public class TestRunSessionSerializer implements XMLReader {
 			addCDATA(atts, IXMLTags.ATTR_CLASSNAME, testCaseElement.getClassName());
 			if (! Double.isNaN(testCaseElement.getElapsedTimeInSeconds()))
 				addCDATA(atts, IXMLTags.ATTR_TIME, timeFormat.format(testCaseElement.getElapsedTimeInSeconds()));
+			if (! Double.isNaN(testCaseElement.getCpuTimeInSeconds()))
+				addCDATA(atts, IXMLTags.ATTR_CPU_TIME, timeFormat.format(testCaseElement.getCpuTimeInSeconds()));
+			if (testCaseElement.getAllocatedBytes() != -1)
+				addCDATA(atts, IXMLTags.ATTR_ALLOCATED_BYTES, String.valueOf(testCaseElement.getAllocatedBytes()));
 			if (testElement.getProgressState() != ProgressState.COMPLETED)
 				addCDATA(atts, IXMLTags.ATTR_INCOMPLETE, Boolean.TRUE.toString());
 			if (testCaseElement.isIgnored())
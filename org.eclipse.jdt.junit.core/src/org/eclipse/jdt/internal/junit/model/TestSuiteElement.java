@@ -23,6 +23,11 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 	private List/*<TestElement>*/ fChildren;
 	private Status fChildrenStatus;
 
+	/**
+	 * Time in seconds to load the test class, or {@link Double#NaN} if unknown.
+	 */
+	private double fClassLoadingTime= Double.NaN;
+
 	public TestSuiteElement(TestSuiteElement parent, String id, String testName, int childrenCount) {
 		super(parent, id, testName);
 		fChildren= new ArrayList(childrenCount);
@@ -151,4 +156,15 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 		return "TestSuite: " + getSuiteTypeName() + " : " + super.toString() + " (" + fChildren.size() + ")";   //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 	}
 
+	public void setClassLoadingTimeInSeconds(double classLoadingTime) {
+		fClassLoadingTime= classLoadingTime;
+	}
+
+	/**
+	 * @return the time in seconds to load the test class, or {@link Double#NaN} if unknown
+	 */
+	public double getClassLoadingTimeInSeconds() {
+		return fClassLoadingTime;
+	}
+
 }
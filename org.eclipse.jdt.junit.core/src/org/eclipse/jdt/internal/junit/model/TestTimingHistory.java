@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
+
+/**
+ * Durations of tests and suites from completed test runs, keyed by test name.
+ * <p>
+ * A recorded duration is the average of the new measurement and the previously recorded
+ * duration, so that a single outlier does not dominate. The history is stored in the
+ * format read by {@link TestDurations}.
+ * </p>
+ */
+public class TestTimingHistory {
+
+	private final File fFile;
+
+	/**
+	 * Map from test name ({@link String}) to duration in milliseconds ({@link Long}),
+	 * or <code>null</code> if not loaded yet.
+	 */
+	private HashMap fDurations;
+
+	private boolean fDirty;
+
+	/**
+	 * @param file the file that stores the history
+	 */
+	public TestTimingHistory(File file) {
+		fFile= file;
+	}
+
+	/**
+	 * Records the durations of the completed tests and suites of the given elements.
+	 *
+	 * @param elements the test elements
+	 */
+	public synchronized void record(TestElement[] elements) {
+		HashMap durations= getDurations();
+		for (int i= 0; i < elements.length; i++) {
+			TestElement element= elements[i];
+			if (element instanceof TestRoot || element.getStatus() == Status.NOT_RUN)
+				continue;
+			if (element instanceof TestCaseElement && ((TestCaseElement) element).isIgnored())
+				continue;
+			double time= element.getElapsedTimeInSeconds();
+			if (Double.isNaN(time))
+				continue;
+			long duration= Math.round(time * 1000);
+			String testName= element.getTestName();
+			Long previous= (Long) durations.get(testName);
+			if (previous != null)
+				duration= (previous.longValue() + duration) / 2;
+			durations.put(testName, new Long(duration));
+			fDirty= true;
+		}
+	}
+
+	/**
+	 * @param testName the name of a test or suite
+	 * @return the recorded duration in milliseconds, or <code>-1</code> if unknown
+	 */
+	public synchronized long getDuration(String testName) {
+		Long duration= (Long) getDurations().get(testName);
+		return duration != null ? duration.longValue() : -1;
+	}
+
+	/**
+	 * Writes all recorded durations to the given file.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void write(File file) throws IOException {
+		BufferedWriter bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			for (Iterator iter= getDurations().entrySet().iterator(); iter.hasNext();) {
+				Map.Entry entry= (Map.Entry) iter.next();
+				bw.write(entry.getValue().toString());
+				bw.write(' ');
+				bw.write((String) entry.getKey());
+				bw.newLine();
+			}
+		} finally {
+			bw.close();
+		}
+	}
+
+	/**
+	 * Stores the history if it has changed.
+	 */
+	public synchronized void save() {
+		if (! fDirty)
+			return;
+		try {
+			write(fFile);
+			fDirty= false;
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+	}
+
+	private HashMap getDurations() {
+		if (fDurations == null) {
+			fDurations= new HashMap();
+			if (fFile.isFile()) {
+				try {
+					TestDurations.read(fFile, fDurations);
+				} catch (IOException e) {
+					JUnitCorePlugin.log(e);
+				}
+			}
+		}
+		return fDurations;
+	}
+}
@@ -43,6 +43,7 @@ import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchManager;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
@@ -52,7 +53,10 @@ import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.Messages;
+import org.eclipse.jdt.internal.junit.launcher.AffectedTestsFinder;
+import org.eclipse.jdt.internal.junit.launcher.ChangedUnitsTracker;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
@@ -250,19 +254,37 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 
 		IJavaElement testTarget= getTestTarget(configuration, javaProject);
 		String testMethodName= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_METHOD_NAME, ""); //$NON-NLS-1$
+		ITestKind testKind= getTestRunnerKind(configuration);
+
+		long lastRun= -1;
+		ChangedUnitsTracker tracker= JUnitCorePlugin.getChangedUnitsTracker();
+		if (tracker != null)
+			lastRun= tracker.startRun(testKind.getId() + ':' + testTarget.getHandleIdentifier() + ':' + testMethodName);
+
 		if (testMethodName.length() > 0) {
 			if (testTarget instanceof IType) {
 				return new IMember[] { ((IType) testTarget).getMethod(testMethodName, new String[0]) };
 			}
 		}
 		HashSet result= new HashSet();
-		ITestKind testKind= getTestRunnerKind(configuration);
-		testKind.getFinder().findTestsInContainer(testTarget, result, monitor);
+		monitor.beginTask("", 2); //$NON-NLS-1$
+		testKind.getFinder().findTestsInContainer(testTarget, result, new SubProgressMonitor(monitor, 1));
 		if (result.isEmpty()) {
 			String msg= Messages.format(JUnitMessages.JUnitLaunchConfigurationDelegate_error_notests_kind, testKind.getDisplayName());
 			abort(msg, null, IJavaLaunchConfigurationConstants.ERR_UNSPECIFIED_MAIN_TYPE);
 		}
-		return (IMember[]) result.toArray(new IMember[result.size()]);
+		IMember[] tests= (IMember[]) result.toArray(new IMember[result.size()]);
+
+		if (lastRun != -1 && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_AFFECTED_TESTS_ONLY, false)) {
+			ICompilationUnit[] changedUnits= tracker.getChangedUnits(lastRun);
+			if (changedUnits != null) {
+				tests= AffectedTestsFinder.findAffectedTests(tests, changedUnits, new SubProgressMonitor(monitor, 1));
+				if (tests.length == 0)
+					abort(JUnitMessages.JUnitLaunchConfigurationDelegate_error_no_affected_tests, null, IJavaLaunchConfigurationConstants.ERR_UNSPECIFIED_MAIN_TYPE);
+			}
+		}
+		monitor.done();
+		return tests;
 	}
 
 	/**
@@ -293,6 +315,15 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
+		if (Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.BINARY_PROTOCOL, true, null))
+			programArguments.add("-binaryprotocol"); //$NON-NLS-1$
+
+		int threadCount= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_THREAD_COUNT, 1);
+		if (threadCount != 1) {
+			programArguments.add("-threads"); //$NON-NLS-1$
+			programArguments.add(String.valueOf(threadCount));
+		}
+
 		ITestKind testRunnerKind= getTestRunnerKind(configuration);
 
 		programArguments.add("-testLoaderClass"); //$NON-NLS-1$
@@ -324,6 +355,25 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			programArguments.add("-testfailures"); //$NON-NLS-1$
 			programArguments.add(testFailureNames);
 		}
+
+		String testOrder= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_ORDER, ""); //$NON-NLS-1$
+		if (testOrder.length() > 0) {
+			programArguments.add("-testorder"); //$NON-NLS-1$
+			programArguments.add(testOrder);
+			programArguments.add("-testdurations"); //$NON-NLS-1$
+			programArguments.add(createTestDurationsFile());
+		}
+	}
+
+	private String createTestDurationsFile() throws CoreException {
+		try {
+			File file= File.createTempFile("testDurations", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.deleteOnExit();
+			JUnitCorePlugin.getModel().getTestTimingHistory().write(file);
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
+		}
 	}
 
 	private String createTestNamesFile(IMember[] testElements) throws CoreException {
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**
+ * Reads messages written by a {@link BinaryMessageWriter}.
+ */
+public class BinaryMessageReader {
+
+	/**
+	 * Receives the messages decoded by a {@link BinaryMessageReader}.
+	 */
+	public interface IMessageHandler {
+		/**
+		 * A plain line has been read.
+		 *
+		 * @param line the line
+		 */
+		void handleLine(String line);
+
+		/**
+		 * A message has been read.
+		 *
+		 * @param header the message header, one of the constants from {@link MessageIds}
+		 * @param arg the message argument
+		 */
+		void handleMessage(String header, String arg);
+
+		/**
+		 * A message about a single test has been read.
+		 *
+		 * @param header the message header, one of {@link MessageIds#TEST_START},
+		 * {@link MessageIds#TEST_END}, {@link MessageIds#TEST_ERROR} or {@link MessageIds#TEST_FAILED}
+		 * @param testId the test id
+		 * @param testName the test name
+		 */
+		void handleTestMessage(String header, String testId, String testName);
+	}
+
+	private final DataInputStream fIn;
+
+	private final String fLineDelimiter;
+
+	/**
+	 * The interned strings, indexed in definition order.
+	 */
+	private final ArrayList fStrings= new ArrayList();
+
+	/**
+	 * Tells whether the given stream starts with the binary protocol header.
+	 * The stream is reset to its current position.
+	 *
+	 * @param in the stream, must support {@link InputStream#mark(int)}
+	 * @return <code>true</code> iff the stream uses the binary protocol
+	 * @throws IOException if reading fails
+	 */
+	public static boolean isBinaryStream(InputStream in) throws IOException {
+		byte[] magic= MessageIds.BINARY_PROTOCOL_MAGIC;
+		in.mark(magic.length);
+		try {
+			for (int i= 0; i < magic.length; i++) {
+				if (in.read() != magic[i])
+					return false;
+			}
+			return true;
+		} finally {
+			in.reset();
+		}
+	}
+
+	/**
+	 * Creates a reader and reads the protocol header.
+	 *
+	 * @param in the stream to read from
+	 * @throws IOException if the header cannot be read or has an unsupported version
+	 */
+	public BinaryMessageReader(InputStream in) throws IOException {
+		fIn= new DataInputStream(in);
+		fIn.readFully(new byte[MessageIds.BINARY_PROTOCOL_MAGIC.length]);
+		int version= fIn.readInt();
+		if (version != MessageIds.BINARY_PROTOCOL_VERSION)
+			throw new IOException("Unsupported binary protocol version: " + version); //$NON-NLS-1$
+		fLineDelimiter= readString();
+	}
+
+	/**
+	 * @return the line delimiter of the test VM
+	 */
+	public String getLineDelimiter() {
+		return fLineDelimiter;
+	}
+
+	/**
+	 * Reads the next message and passes it to the handler. Interned string
+	 * definitions are consumed silently.
+	 *
+	 * @param handler the handler
+	 * @return <code>false</code> iff the end of the stream has been reached
+	 * @throws IOException if reading fails
+	 */
+	public boolean readMessage(IMessageHandler handler) throws IOException {
+		while (true) {
+			int kind= fIn.read();
+			switch (kind) {
+				case -1:
+					return false;
+				case MessageIds.BINARY_STRING:
+					fStrings.add(readString());
+					break;
+				case MessageIds.BINARY_LINE:
+					handler.handleLine(readString());
+					return true;
+				case MessageIds.BINARY_MESSAGE:
+					String header= readHeader();
+					handler.handleMessage(header, readString());
+					return true;
+				case MessageIds.BINARY_TEST_MESSAGE:
+					String testHeader= readHeader();
+					String testId= (String) fStrings.get(fIn.readInt());
+					String testName= (String) fStrings.get(fIn.readInt());
+					handler.handleTestMessage(testHeader, testId, testName);
+					return true;
+				default:
+					throw new IOException("Unknown binary record: " + kind); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private String readHeader() throws IOException {
+		int index= fIn.readUnsignedByte();
+		if (index >= MessageIds.BINARY_MESSAGE_HEADERS.length)
+			throw new IOException("Unknown message header: " + index); //$NON-NLS-1$
+		return MessageIds.BINARY_MESSAGE_HEADERS[index];
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes= new byte[fIn.readInt()];
+		fIn.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+
+/**
+ * Writes the messages of the RemoteTestRunner in the binary protocol that
+ * is read by {@link BinaryMessageReader}.
+ * <p>
+ * The stream starts with {@link MessageIds#BINARY_PROTOCOL_MAGIC}, the protocol
+ * version and the line delimiter of the test VM. It continues with length-prefixed
+ * records, see the <code>BINARY_*</code> constants in {@link MessageIds}. Test ids
+ * and test names are interned, so that every string is transferred only once.
+ * </p>
+ * <p>
+ * Records are buffered and only written out in batches: {@link #flush()} writes the buffer
+ * if it exceeds {@link #FLUSH_THRESHOLD} bytes or if the last write is older than
+ * {@link #FLUSH_INTERVAL} milliseconds. A daemon thread ensures that pending records
+ * are written within the flush interval even if no more messages are sent.
+ * </p>
+ * <p>
+ * Like a {@link java.io.PrintWriter}, this writer does not throw I/O exceptions. After an
+ * error, all further messages are discarded.
+ * </p>
+ */
+public class BinaryMessageWriter {
+
+	/**
+	 * Number of buffered bytes after which {@link #flush()} writes the buffer.
+	 */
+	public static final int FLUSH_THRESHOLD= 32 * 1024;
+
+	/**
+	 * Maximal time in milliseconds a record stays in the buffer.
+	 */
+	public static final long FLUSH_INTERVAL= 100;
+
+	private class FlushThread extends Thread {
+		public FlushThread() {
+			super("BinaryMessageWriter Flush"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		public void run() {
+			while (!isClosed()) {
+				try {
+					Thread.sleep(FLUSH_INTERVAL);
+				} catch (InterruptedException e) {
+					// check closed state
+				}
+				flush();
+			}
+		}
+	}
+
+	private DataOutputStream fOut;
+
+	/**
+	 * Map from interned {@link String} to its index ({@link Integer}).
+	 */
+	private final HashMap fInternedStrings= new HashMap();
+
+	private int fBufferedBytes;
+
+	private long fLastFlush;
+
+	private boolean fError;
+
+	private final FlushThread fFlushThread;
+
+	/**
+	 * Creates a writer and writes the protocol header.
+	 *
+	 * @param out the stream to write to
+	 * @param lineDelimiter the line delimiter used in stack traces
+	 */
+	public BinaryMessageWriter(OutputStream out, String lineDelimiter) {
+		fOut= new DataOutputStream(new BufferedOutputStream(out, 2 * FLUSH_THRESHOLD));
+		try {
+			fOut.write(MessageIds.BINARY_PROTOCOL_MAGIC);
+			fOut.writeInt(MessageIds.BINARY_PROTOCOL_VERSION);
+			writeString(lineDelimiter);
+			fOut.flush();
+		} catch (IOException e) {
+			fError= true;
+		}
+		fLastFlush= System.currentTimeMillis();
+		fFlushThread= new FlushThread();
+		fFlushThread.start();
+	}
+
+	/**
+	 * Buffers a message of the text protocol.
+	 *
+	 * @param msg the message, starting with one of the headers from {@link MessageIds}
+	 * or a plain line
+	 */
+	public synchronized void sendMessage(String msg) {
+		if (fOut == null || fError)
+			return;
+		try {
+			int size= fOut.size();
+			int header= getHeaderIndex(msg);
+			if (header == -1) {
+				fOut.writeByte(MessageIds.BINARY_LINE);
+				writeString(msg);
+			} else if (isTestMessage(MessageIds.BINARY_MESSAGE_HEADERS[header]) && msg.indexOf(',') != -1) {
+				int comma= msg.indexOf(',');
+				int id= intern(msg.substring(MessageIds.MSG_HEADER_LENGTH, comma));
+				int name= intern(msg.substring(comma + 1));
+				fOut.writeByte(MessageIds.BINARY_TEST_MESSAGE);
+				fOut.writeByte(header);
+				fOut.writeInt(id);
+				fOut.writeInt(name);
+			} else {
+				fOut.writeByte(MessageIds.BINARY_MESSAGE);
+				fOut.writeByte(header);
+				writeString(msg.substring(MessageIds.MSG_HEADER_LENGTH));
+			}
+			fBufferedBytes+= fOut.size() - size;
+		} catch (IOException e) {
+			fError= true;
+		}
+	}
+
+	/**
+	 * Writes the buffered records if the size threshold is exceeded or the
+	 * flush interval has elapsed.
+	 */
+	public synchronized void flush() {
+		if (fBufferedBytes == 0)
+			return;
+		if (fBufferedBytes >= FLUSH_THRESHOLD || System.currentTimeMillis() - fLastFlush >= FLUSH_INTERVAL)
+			flushNow();
+	}
+
+	/**
+	 * Writes all buffered records.
+	 */
+	public synchronized void flushNow() {
+		if (fOut == null || fError)
+			return;
+		try {
+			fOut.flush();
+		} catch (IOException e) {
+			fError= true;
+		}
+		fBufferedBytes= 0;
+		fLastFlush= System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes all buffered records and closes the underlying stream.
+	 */
+	public synchronized void close() {
+		if (fOut == null)
+			return;
+		flushNow();
+		try {
+			fOut.close();
+		} catch (IOException e) {
+			fError= true;
+		}
+		fOut= null;
+		fFlushThread.interrupt();
+	}
+
+	public synchronized boolean isClosed() {
+		return fOut == null;
+	}
+
+	/**
+	 * @return <code>true</code> iff writing failed
+	 */
+	public synchronized boolean checkError() {
+		return fError;
+	}
+
+	private int intern(String string) throws IOException {
+		Integer index= (Integer) fInternedStrings.get(string);
+		if (index != null)
+			return index.intValue();
+		int newIndex= fInternedStrings.size();
+		fInternedStrings.put(string, new Integer(newIndex));
+		fOut.writeByte(MessageIds.BINARY_STRING);
+		writeString(string);
+		return newIndex;
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes;
+		try {
+			bytes= string.getBytes("UTF-8"); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			bytes= string.getBytes();
+		}
+		fOut.writeInt(bytes.length);
+		fOut.write(bytes);
+	}
+
+	private static int getHeaderIndex(String msg) {
+		if (msg.length() < MessageIds.MSG_HEADER_LENGTH)
+			return -1;
+		char first= msg.charAt(0);
+		if (first != '%' && first != '>')
+			return -1;
+		String[] headers= MessageIds.BINARY_MESSAGE_HEADERS;
+		for (int i= 0; i < headers.length; i++) {
+			if (msg.startsWith(headers[i]))
+				return i;
+		}
+		return -1;
+	}
+
+	static boolean isTestMessage(String header) {
+		return header == MessageIds.TEST_START
+				|| header == MessageIds.TEST_END
+				|| header == MessageIds.TEST_ERROR
+				|| header == MessageIds.TEST_FAILED;
+	}
+}
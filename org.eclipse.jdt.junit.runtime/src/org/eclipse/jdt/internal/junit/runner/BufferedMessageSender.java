@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link MessageSender} that collects the messages of one worker of a
+ * {@link ParallelTestExecution}. On {@link #flush()}, the collected messages are
+ * passed to the target sender in one block, so that messages that belong together
+ * (e.g. a failure and its stack trace) are not interleaved with messages of other workers.
+ */
+public class BufferedMessageSender implements MessageSender {
+
+	private final MessageSender fTarget;
+
+	private final ArrayList fMessages= new ArrayList();
+
+	/**
+	 * @param target the sender to forward to, also used as lock for all
+	 * buffered senders that share the same target
+	 */
+	public BufferedMessageSender(MessageSender target) {
+		fTarget= target;
+	}
+
+	public void sendMessage(String msg) {
+		fMessages.add(msg);
+	}
+
+	public void flush() {
+		if (fMessages.isEmpty())
+			return;
+		synchronized (fTarget) {
+			for (int i= 0; i < fMessages.size(); i++) {
+				fTarget.sendMessage((String) fMessages.get(i));
+			}
+			fTarget.flush();
+		}
+		fMessages.clear();
+	}
+}
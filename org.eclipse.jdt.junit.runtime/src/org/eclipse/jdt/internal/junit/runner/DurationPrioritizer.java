@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Vector;
+
+import junit.extensions.TestDecorator;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Orders the tests of every {@link TestSuite} by the durations of previous runs.
+ */
+public class DurationPrioritizer implements ITestPrioritizer {
+
+	private final TestDurations fDurations;
+
+	/**
+	 * Map from {@link Test} to its duration ({@link Long}).
+	 */
+	private final IdentityHashMap fTestDurations= new IdentityHashMap();
+
+	public DurationPrioritizer(TestDurations durations) {
+		fDurations= durations;
+	}
+
+	public Test prioritize(Test input) {
+		doPrioritize(input);
+		return input;
+	}
+
+	private void doPrioritize(Test test) {
+		if (test instanceof TestSuite) {
+			TestSuite suite= (TestSuite) test;
+			for (Enumeration e= suite.tests(); e.hasMoreElements();) {
+				doPrioritize((Test) e.nextElement());
+			}
+			Vector tests= (Vector) FailuresFirstPrioritizer.getField(suite, "fTests"); //$NON-NLS-1$
+			if (tests != null) {
+				Collections.sort(tests, new Comparator() {
+					public int compare(Object o1, Object o2) {
+						return fDurations.compare(getDuration((Test) o1), getDuration((Test) o2));
+					}
+				});
+			}
+		} else if (test instanceof TestDecorator) {
+			doPrioritize(((TestDecorator) test).getTest());
+		}
+	}
+
+	private long getDuration(Test test) {
+		Long cached= (Long) fTestDurations.get(test);
+		if (cached != null)
+			return cached.longValue();
+
+		long duration= -1;
+		if (test instanceof TestCase) {
+			duration= fDurations.getDuration(test.toString());
+		} else if (test instanceof TestSuite) {
+			TestSuite suite= (TestSuite) test;
+			if (suite.getName() != null)
+				duration= fDurations.getDuration(suite.getName());
+			if (duration == -1) {
+				for (Enumeration e= suite.tests(); e.hasMoreElements();) {
+					long childDuration= getDuration((Test) e.nextElement());
+					if (childDuration > 0)
+						duration= Math.max(duration, 0) + childDuration;
+				}
+			}
+		} else if (test instanceof TestDecorator) {
+			duration= getDuration(((TestDecorator) test).getTest());
+		}
+		fTestDurations.put(test, new Long(duration));
+		return duration;
+	}
+}
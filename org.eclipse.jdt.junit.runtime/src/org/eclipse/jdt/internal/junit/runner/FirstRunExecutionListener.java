@@ -18,6 +18,8 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 
 	private TestIdMap fIds;
 
+	private final TestMetrics fMetrics= new TestMetrics();
+
 	FirstRunExecutionListener(MessageSender sender, TestIdMap ids) {
 		fSender = sender;
 		if (ids == null)
@@ -26,6 +28,7 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 	}
 
 	public void notifyTestEnded(ITestIdentifier test) {
+		fSender.sendMessage(fMetrics.end(getTestId(test)));
 		sendMessage(test, MessageIds.TEST_END);
 	}
 
@@ -37,6 +40,7 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 	public void notifyTestStarted(ITestIdentifier test) {
 		sendMessage(test, MessageIds.TEST_START);
 		fSender.flush();
+		fMetrics.start();
 	}
 
 	private String getTestId(ITestIdentifier test) {
@@ -110,6 +110,29 @@ public class MessageIds {
 	 * isSuite = "true" or "false"
 	 */
 	public static final String TEST_TREE="%TSTTREE"; //$NON-NLS-1$
+	/**
+	 * Notification about the metrics of a test, sent before {@link #TEST_END}
+	 * for test cases and after the test tree for test classes.
+	 * TEST_METRICS + testId + ("," + metric + "=" + value)*
+	 * metric = one of the <code>METRIC_*</code> constants
+	 */
+	public static final String TEST_METRICS="%METRICS"; //$NON-NLS-1$
+	/**
+	 * Metric: elapsed time of a test in milliseconds, measured in the test VM.
+	 */
+	public static final String METRIC_TIME= "time"; //$NON-NLS-1$
+	/**
+	 * Metric: CPU time of a test in nanoseconds.
+	 */
+	public static final String METRIC_CPU_TIME= "cpu"; //$NON-NLS-1$
+	/**
+	 * Metric: number of bytes allocated by a test.
+	 */
+	public static final String METRIC_ALLOCATED_BYTES= "alloc"; //$NON-NLS-1$
+	/**
+	 * Metric: time in milliseconds to load a test class.
+	 */
+	public static final String METRIC_CLASS_LOADING_TIME= "load"; //$NON-NLS-1$
 	/**
 	 * Request to stop the current test run.
 	 */
@@ -130,6 +153,47 @@ public class MessageIds {
 	 * Test identifier prefix for ignored tests.
 	 */
 	public static final String IGNORED_TEST_PREFIX= "@Ignore: "; //$NON-NLS-1$
+
+	/**
+	 * Bytes that start a stream in the binary protocol. A text stream
+	 * never starts with a zero byte.
+	 *
+	 * @see BinaryMessageWriter
+	 */
+	public static final byte[] BINARY_PROTOCOL_MAGIC= new byte[] { 0, 'J', 'U', 'B' };
+	/**
+	 * The version of the binary protocol.
+	 */
+	public static final int BINARY_PROTOCOL_VERSION= 1;
+	/**
+	 * Binary record: a plain line, e.g. a stack trace.
+	 * Format: string
+	 */
+	public static final int BINARY_LINE= 0;
+	/**
+	 * Binary record: defines the next interned string.
+	 * Format: string
+	 */
+	public static final int BINARY_STRING= 1;
+	/**
+	 * Binary record: a message with an argument.
+	 * Format: header index + string argument
+	 */
+	public static final int BINARY_MESSAGE= 2;
+	/**
+	 * Binary record: a message about a single test.
+	 * Format: header index + interned test id + interned test name
+	 */
+	public static final int BINARY_TEST_MESSAGE= 3;
+	/**
+	 * The message headers that can be sent in the binary protocol,
+	 * referenced by their index.
+	 */
+	static final String[] BINARY_MESSAGE_HEADERS= new String[] {
+		TRACE_START, TRACE_END, EXPECTED_START, EXPECTED_END, ACTUAL_START, ACTUAL_END,
+		RTRACE_START, RTRACE_END, TEST_RUN_START, TEST_START, TEST_END, TEST_ERROR,
+		TEST_FAILED, TEST_RUN_END, TEST_STOPPED, TEST_RERAN, TEST_TREE, TEST_METRICS
+	};
 }
 
 
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+/**
+ * A {@link TestExecution} that runs the top-level test references (usually one
+ * per test class) on several worker threads.
+ * <p>
+ * Every worker has its own {@link TestExecution} and {@link FirstRunExecutionListener}
+ * that report through a {@link BufferedMessageSender}. All tests of a top-level reference
+ * run on the same worker, so the suite nesting that has been sent with the test tree stays
+ * intact. The client associates the results by test id.
+ * </p>
+ */
+public class ParallelTestExecution extends TestExecution {
+
+	private class Worker extends Thread {
+		private final TestExecution fWorkerExecution;
+		private final BufferedMessageSender fWorkerSender;
+
+		public Worker(int index, MessageSender sender, TestIdMap ids) {
+			super("JUnit Worker " + index); //$NON-NLS-1$
+			fWorkerSender= new BufferedMessageSender(sender);
+			fWorkerExecution= new TestExecution(new FirstRunExecutionListener(fWorkerSender, ids), getClassifier());
+		}
+
+		public void run() {
+			try {
+				ITestReference suite;
+				while ((suite= nextSuite()) != null) {
+					if (shouldStop())
+						return;
+					fWorkerExecution.run(new ITestReference[] { suite });
+					fWorkerSender.flush();
+				}
+			} finally {
+				fWorkerSender.flush();
+			}
+		}
+	}
+
+	private final Worker[] fWorkers;
+
+	private ITestReference[] fSuites;
+
+	private int fNextSuite;
+
+	/**
+	 * @param listener the listener that is returned by {@link #getListener()}, not
+	 * used to report the test results
+	 * @param classifier the classifier
+	 * @param threadCount the number of worker threads
+	 * @param sender the sender that receives the messages of all workers
+	 * @param ids the test ids
+	 */
+	public ParallelTestExecution(IListensToTestExecutions listener, IClassifiesThrowables classifier, int threadCount, MessageSender sender, TestIdMap ids) {
+		super(listener, classifier);
+		fWorkers= new Worker[threadCount];
+		for (int i= 0; i < threadCount; i++) {
+			fWorkers[i]= new Worker(i + 1, sender, ids);
+		}
+	}
+
+	public void run(ITestReference[] suites) {
+		synchronized (this) {
+			fSuites= suites;
+			fNextSuite= 0;
+		}
+		for (int i= 0; i < fWorkers.length; i++) {
+			fWorkers[i].start();
+		}
+		for (int i= 0; i < fWorkers.length; i++) {
+			try {
+				fWorkers[i].join();
+			} catch (InterruptedException e) {
+				stop();
+				i--; // wait for the worker to stop
+			}
+		}
+	}
+
+	private synchronized ITestReference nextSuite() {
+		if (fNextSuite < fSuites.length)
+			return fSuites[fNextSuite++];
+		return null;
+	}
+
+	public void stop() {
+		super.stop();
+		for (int i= 0; i < fWorkers.length; i++) {
+			fWorkers[i].fWorkerExecution.stop();
+		}
+	}
+}
@@ -22,6 +22,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
+import java.util.HashMap;
 import java.util.Vector;
 
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
@@ -79,6 +80,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Writer for sending messages in the binary protocol, or <code>null</code>
+	 * if the text protocol is used
+	 */
+	private BinaryMessageWriter fBinaryWriter;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -100,6 +106,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * This allows to rerun tests.
 	 */
 	private boolean fKeepAlive= false;
+	/**
+	 * Send messages in the binary protocol instead of the line-oriented text protocol.
+	 */
+	private boolean fBinaryProtocol= false;
+	/**
+	 * Number of threads that run the test classes, <code>1</code> to run
+	 * them sequentially.
+	 */
+	private int fThreadCount= 1;
 	/**
 	 * Has the server been stopped
 	 */
@@ -117,8 +132,20 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private final TestIdMap fIds = new TestIdMap();
 
+	/**
+	 * Map from the name of a loaded test class ({@link String}) to its
+	 * loading time in milliseconds ({@link Long}).
+	 */
+	private final HashMap fClassLoadingTimes= new HashMap();
+
 	private String[] fFailureNames;
 
+	private String fTestOrder;
+
+	private String fTestDurationsFile;
+
+	private TestDurations fTestDurations;
+
 	private ITestLoader fLoader;
 
 	private MessageSender fSender;
@@ -188,6 +215,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -binaryprotocol: send messages in the binary protocol
+	 * -threads: the number of threads that run test classes in parallel, 0 for one per processor
+	 * -testorder: shortest or longest, to order tests by the durations from -testdurations
+	 * -testdurations: the name of a file containing durations of previous runs
      * </pre>
      */
 	public static void main(String[] args) {
@@ -278,6 +309,23 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if(args[i].toLowerCase().equals("-keepalive")) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if(args[i].toLowerCase().equals("-binaryprotocol")) { //$NON-NLS-1$
+				fBinaryProtocol= true;
+			}
+			else if(args[i].toLowerCase().equals("-testorder")) { //$NON-NLS-1$
+				fTestOrder= args[i+1];
+				i++;
+			}
+			else if(args[i].toLowerCase().equals("-testdurations")) { //$NON-NLS-1$
+				fTestDurationsFile= args[i+1];
+				i++;
+			}
+			else if(args[i].toLowerCase().equals("-threads")) { //$NON-NLS-1$
+				fThreadCount= Integer.parseInt(args[i+1]);
+				if (fThreadCount <= 0)
+					fThreadCount= Runtime.getRuntime().availableProcessors();
+				i++;
+			}
 			else if(args[i].toLowerCase().equals("-debugging") || args[i].toLowerCase().equals("-debug")){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 			}
@@ -293,6 +341,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			}
 		}
 
+		if (fTestDurationsFile != null && fTestOrder != null) {
+			try {
+				fTestDurations= new TestDurations(new File(fTestDurationsFile), fTestOrder);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Cannot read testdurations file.");		 //$NON-NLS-1$
+			}
+		}
+
 		if (getTestLoader() == null)
 			initDefaultLoader();
 
@@ -301,8 +357,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 		if (fPort == -1)
 			throw new IllegalArgumentException(JUnitMessages.getString("RemoteTestRunner.error.portmissing")); //$NON-NLS-1$
-		if (fDebugMode)
+		if (fDebugMode) {
 			System.out.println("keepalive "+fKeepAlive); //$NON-NLS-1$
+			System.out.println("threads "+fThreadCount); //$NON-NLS-1$
+		}
 	}
 
 	public void initDefaultLoader() {
@@ -386,7 +444,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		}
 
 		FirstRunExecutionListener listener= firstRunExecutionListener();
-		fExecution= new TestExecution(listener, getClassifier());
+		if (fThreadCount > 1)
+			fExecution= new ParallelTestExecution(listener, getClassifier(), fThreadCount, fSender, fIds);
+		else
+			fExecution= new TestExecution(listener, getClassifier());
 		runTests(fExecution);
 		if (fKeepAlive)
 			waitForReruns();
@@ -426,7 +487,9 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		Vector classes= new Vector();
 		for (int i = 0; i < testClassNames.length; i++) {
 			String name = testClassNames[i];
+			long start= System.currentTimeMillis();
 			Class clazz = loadClass(name, this);
+			fClassLoadingTimes.put(name, new Long(System.currentTimeMillis() - start));
 			if (clazz != null) {
 				classes.add(clazz);
 			}
@@ -450,6 +513,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 */
 	public void runTests(String[] testClassNames, String testName, TestExecution execution) {
 		ITestReference[] suites= fLoader.loadTests(loadClasses(testClassNames), testName, fFailureNames, this);
+		if (fTestDurations != null)
+			fTestDurations.sort(suites);
 
 		// count all testMethods and inform ITestRunListeners
 		int count= countTests(suites);
@@ -462,6 +527,7 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		}
 
 		sendTrees(suites);
+		sendClassLoadingTimes(suites);
 
 		long testStartTime= System.currentTimeMillis();
 		execution.run(suites);
@@ -479,6 +545,19 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			System.out.println("done send tree - time(ms): " + (System.currentTimeMillis() - startTime)); //$NON-NLS-1$
 	}
 
+	private void sendClassLoadingTimes(ITestReference[] suites) {
+		for (int i= 0; i < suites.length; i++) {
+			ITestIdentifier identifier= suites[i].getIdentifier();
+			Long time= (Long) fClassLoadingTimes.get(identifier.getName());
+			if (time != null) {
+				StringBuffer message= new StringBuffer(MessageIds.TEST_METRICS).append(getTestId(identifier));
+				TestMetrics.appendMetric(message, MessageIds.METRIC_CLASS_LOADING_TIME, time.longValue());
+				fSender.sendMessage(message.toString());
+			}
+		}
+		fClassLoadingTimes.clear();
+	}
+
 	private int countTests(ITestReference[] tests) {
 		int count= 0;
 		for (int i= 0; i < tests.length; i++) {
@@ -568,11 +647,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		for (int i= 1; i < 20; i++) {
 			try{
 				fClientSocket= new Socket(fHost, fPort);
-				try {
-				    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
-	            } catch (UnsupportedEncodingException e1) {
-	                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
-	            }
+				if (fBinaryProtocol) {
+					fBinaryWriter= new BinaryMessageWriter(fClientSocket.getOutputStream(), System.getProperty("line.separator")); //$NON-NLS-1$
+				} else {
+					try {
+					    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
+		            } catch (UnsupportedEncodingException e1) {
+		                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
+		            }
+				}
 				try {
 				    fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream(), "UTF-8")); //$NON-NLS-1$
                 } catch (UnsupportedEncodingException e1) {
@@ -601,6 +684,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			fWriter.close();
 			fWriter= null;
 		}
+		if (fBinaryWriter != null) {
+			fBinaryWriter.close();
+			fBinaryWriter= null;
+		}
 		try {
 			if (fReaderThread != null)   {
 				// interrupt reader thread so that we don't block on close
@@ -632,6 +719,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#sendMessage(java.lang.String)
 	 */
 	public void sendMessage(String msg) {
+		if (fBinaryWriter != null) {
+			fBinaryWriter.sendMessage(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -671,6 +762,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	public void flush() {
+		if (fBinaryWriter != null) {
+			// batched, see BinaryMessageWriter
+			fBinaryWriter.flush();
+			return;
+		}
 	    fWriter.flush();
 	}
 
@@ -683,6 +779,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		runTests(fTestClassNames, fTestName, execution);
 		}
 
+	/**
+	 * @return the durations of previous runs if the tests should be ordered by
+	 * duration, or <code>null</code>
+	 */
+	public TestDurations getTestDurations() {
+		return fTestDurations;
+	}
+
 	public ITestLoader getTestLoader() {
 		return fLoader;
 	}
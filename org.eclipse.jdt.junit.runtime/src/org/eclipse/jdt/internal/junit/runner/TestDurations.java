@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Durations of previous runs of tests and suites, used to order the tests of a run.
+ * <p>
+ * The durations file has one line per test: the duration in milliseconds, a space,
+ * and the test name as sent in the test tree (e.g. <code>testFoo(p.FooTest)</code> or
+ * <code>p.FooTest</code>).
+ * </p>
+ */
+public class TestDurations {
+
+	/**
+	 * Test order argument: run the fastest tests first.
+	 */
+	public static final String SHORTEST_FIRST= "shortest"; //$NON-NLS-1$
+
+	/**
+	 * Test order argument: run the slowest tests first.
+	 */
+	public static final String LONGEST_FIRST= "longest"; //$NON-NLS-1$
+
+	/**
+	 * Map from test name ({@link String}) to duration in milliseconds ({@link Long}).
+	 */
+	private final HashMap fDurations;
+
+	private final boolean fLongestFirst;
+
+	/**
+	 * Reads a durations file.
+	 *
+	 * @param file the durations file
+	 * @param order either {@link #SHORTEST_FIRST} or {@link #LONGEST_FIRST}
+	 * @throws IOException if the file cannot be read
+	 */
+	public TestDurations(File file, String order) throws IOException {
+		fDurations= new HashMap();
+		fLongestFirst= LONGEST_FIRST.equals(order);
+		read(file, fDurations);
+	}
+
+	/**
+	 * Reads the durations from a durations file. Malformed lines are skipped.
+	 *
+	 * @param file the durations file
+	 * @param durations the map to which the test names ({@link String}) and durations in
+	 * milliseconds ({@link Long}) are added
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void read(File file, Map durations) throws IOException {
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			while ((line= br.readLine()) != null) {
+				int space= line.indexOf(' ');
+				if (space == -1)
+					continue;
+				try {
+					durations.put(line.substring(space + 1), new Long(Long.parseLong(line.substring(0, space))));
+				} catch (NumberFormatException e) {
+					// skip
+				}
+			}
+		} finally {
+			br.close();
+		}
+	}
+
+	/**
+	 * @param testName the name of a test or suite
+	 * @return the duration of the last runs in milliseconds, or <code>-1</code> if unknown
+	 */
+	public long getDuration(String testName) {
+		Long duration= (Long) fDurations.get(testName);
+		return duration != null ? duration.longValue() : -1;
+	}
+
+	/**
+	 * Compares two durations according to the requested order. Tests with unknown
+	 * durations are treated like tests that take no time: with {@link #SHORTEST_FIRST},
+	 * new tests are run first.
+	 *
+	 * @param duration1 the first duration, or <code>-1</code>
+	 * @param duration2 the second duration, or <code>-1</code>
+	 * @return a negative integer, zero, or a positive integer as the first test should be
+	 * run before, together with, or after the second test
+	 */
+	public int compare(long duration1, long duration2) {
+		long d1= Math.max(duration1, 0);
+		long d2= Math.max(duration2, 0);
+		if (d1 == d2)
+			return 0;
+		boolean firstIsShorter= d1 < d2;
+		return firstIsShorter != fLongestFirst ? -1 : 1;
+	}
+
+	/**
+	 * Sorts the given test references according to the durations of their top-level suites.
+	 * The sort is stable.
+	 *
+	 * @param references the references to sort, elements can be <code>null</code>
+	 */
+	public void sort(ITestReference[] references) {
+		final HashMap durations= new HashMap();
+		for (int i= 0; i < references.length; i++) {
+			if (references[i] != null)
+				durations.put(references[i], new Long(getDuration(references[i].getIdentifier().getName())));
+		}
+		Arrays.sort(references, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				if (o1 == null || o2 == null)
+					return o1 == null ? (o2 == null ? 0 : 1) : -1;
+				return TestDurations.this.compare(((Long) durations.get(o1)).longValue(), ((Long) durations.get(o2)).longValue());
+			}
+		});
+	}
+}
@@ -17,7 +17,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 public class TestExecution {
-	private boolean fShouldStop = false;
+	private volatile boolean fShouldStop = false;
 
 	private IListensToTestExecutions fExecutionListener;
 
@@ -45,7 +45,11 @@ public class TestExecution {
 
 	public void stop() {
 		fShouldStop = true;
-		for (Iterator iter = fStopListeners.iterator(); iter.hasNext();) {
+		ArrayList listeners;
+		synchronized (fStopListeners) {
+			listeners = new ArrayList(fStopListeners);
+		}
+		for (Iterator iter = listeners.iterator(); iter.hasNext();) {
 			IStopListener listener = (IStopListener) iter.next();
 			listener.stop();
 		}
@@ -60,6 +64,8 @@ public class TestExecution {
 	}
 
 	public void addStopListener(IStopListener listener) {
-		fStopListeners.add(listener);
+		synchronized (fStopListeners) {
+			fStopListeners.add(listener);
+		}
 	}
 }
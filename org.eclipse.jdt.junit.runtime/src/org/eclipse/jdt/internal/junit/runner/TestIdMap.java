@@ -13,14 +13,12 @@
 
 package org.eclipse.jdt.internal.junit.runner;
 
-import java.util.HashMap;
-
 public class TestIdMap {
-	private HashMap fIdMap= new HashMap();
+	private final TestIdentifierMap fIdMap= new TestIdentifierMap(1024);
 
 	private int fNextId= 1;
 
-	public String getTestId(ITestIdentifier identifier) {
+	public synchronized String getTestId(ITestIdentifier identifier) {
 		Object id= fIdMap.get(identifier);
 		if (id != null)
 			return (String) id;
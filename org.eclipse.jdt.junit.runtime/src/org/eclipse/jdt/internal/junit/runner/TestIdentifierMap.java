@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+/**
+ * A map from {@link ITestIdentifier} to arbitrary values, tuned for the huge
+ * number of identifiers of large test suites.
+ * <p>
+ * The map uses open addressing with linear probing in parallel arrays, so
+ * {@link #put(ITestIdentifier, Object)} and {@link #get(ITestIdentifier)} do not allocate
+ * entry objects. The hash codes of the keys are cached, so <code>equals</code> is only
+ * called for keys with the same hash code.
+ * </p>
+ * <p>
+ * Entries cannot be removed. <code>null</code> keys and values are not supported.
+ * This class is not thread safe.
+ * </p>
+ */
+public final class TestIdentifierMap {
+
+	private static final int DEFAULT_CAPACITY= 64;
+
+	/**
+	 * The golden ratio, used to spread the hash codes over the table.
+	 */
+	private static final int HASH_MULTIPLIER= 0x9E3779B9;
+
+	private ITestIdentifier[] fKeys;
+
+	private Object[] fValues;
+
+	private int[] fHashes;
+
+	private int fSize;
+
+	/**
+	 * Number of entries after which the table is grown. The load factor is 0.5.
+	 */
+	private int fThreshold;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public TestIdentifierMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty map that can hold the given number of entries without growing.
+	 *
+	 * @param expectedSize the expected number of entries
+	 */
+	public TestIdentifierMap(int expectedSize) {
+		int capacity= 16;
+		while (capacity < 2 * expectedSize)
+			capacity<<= 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * @param key the key
+	 * @return the value for the key, or <code>null</code> if the map does not contain the key
+	 */
+	public Object get(ITestIdentifier key) {
+		int hash= key.hashCode();
+		int mask= fKeys.length - 1;
+		for (int i= index(hash, mask); ; i= (i + 1) & mask) {
+			ITestIdentifier current= fKeys[i];
+			if (current == null)
+				return null;
+			if (current == key || fHashes[i] == hash && current.equals(key))
+				return fValues[i];
+		}
+	}
+
+	/**
+	 * Associates the value with the key.
+	 *
+	 * @param key the key, not <code>null</code>
+	 * @param value the value, not <code>null</code>
+	 * @return the previous value for the key, or <code>null</code> if there was none
+	 */
+	public Object put(ITestIdentifier key, Object value) {
+		int hash= key.hashCode();
+		int mask= fKeys.length - 1;
+		int i= index(hash, mask);
+		for (; ; i= (i + 1) & mask) {
+			ITestIdentifier current= fKeys[i];
+			if (current == null)
+				break;
+			if (current == key || fHashes[i] == hash && current.equals(key)) {
+				Object previous= fValues[i];
+				fValues[i]= value;
+				return previous;
+			}
+		}
+		fKeys[i]= key;
+		fValues[i]= value;
+		fHashes[i]= hash;
+		if (++fSize > fThreshold)
+			rehash();
+		return null;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	private void allocate(int capacity) {
+		fKeys= new ITestIdentifier[capacity];
+		fValues= new Object[capacity];
+		fHashes= new int[capacity];
+		fThreshold= capacity / 2;
+	}
+
+	private void rehash() {
+		ITestIdentifier[] oldKeys= fKeys;
+		Object[] oldValues= fValues;
+		int[] oldHashes= fHashes;
+		allocate(oldKeys.length * 2);
+		int mask= fKeys.length - 1;
+		for (int j= 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] == null)
+				continue;
+			int i= index(oldHashes[j], mask);
+			while (fKeys[i] != null)
+				i= (i + 1) & mask;
+			fKeys[i]= oldKeys[j];
+			fValues[i]= oldValues[j];
+			fHashes[i]= oldHashes[j];
+		}
+	}
+
+	private static int index(int hash, int mask) {
+		int h= hash * HASH_MULTIPLIER;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures the elapsed time, CPU time and allocated bytes of the tests that run on
+ * the current thread.
+ * <p>
+ * CPU time and allocated bytes are read from the platform's thread MX bean. Since
+ * the runtime still supports J2SE 1.4 VMs, the bean is accessed reflectively. Metrics
+ * that are not supported by the VM are not reported.
+ * </p>
+ */
+public class TestMetrics {
+
+	private static final Object fThreadBean;
+
+	private static final Method fCpuTimeMethod;
+
+	private static final Method fAllocatedBytesMethod;
+
+	private static final Method fThreadIdMethod;
+
+	static {
+		Object threadBean= null;
+		Method cpuTimeMethod= null;
+		Method allocatedBytesMethod= null;
+		Method threadIdMethod= null;
+		try {
+			Class factoryClass= Class.forName("java.lang.management.ManagementFactory"); //$NON-NLS-1$
+			threadBean= factoryClass.getMethod("getThreadMXBean", null).invoke(null, null); //$NON-NLS-1$
+			Class beanClass= Class.forName("java.lang.management.ThreadMXBean"); //$NON-NLS-1$
+			if (Boolean.TRUE.equals(beanClass.getMethod("isCurrentThreadCpuTimeSupported", null).invoke(threadBean, null))) //$NON-NLS-1$
+				cpuTimeMethod= beanClass.getMethod("getCurrentThreadCpuTime", null); //$NON-NLS-1$
+
+			Class sunBeanClass= Class.forName("com.sun.management.ThreadMXBean"); //$NON-NLS-1$
+			if (sunBeanClass.isInstance(threadBean)
+					&& Boolean.TRUE.equals(sunBeanClass.getMethod("isThreadAllocatedMemorySupported", null).invoke(threadBean, null))) { //$NON-NLS-1$
+				allocatedBytesMethod= sunBeanClass.getMethod("getThreadAllocatedBytes", new Class[] { long.class }); //$NON-NLS-1$
+				threadIdMethod= Thread.class.getMethod("getId", null); //$NON-NLS-1$
+			}
+		} catch (Exception e) {
+			// not supported by this VM
+		} catch (LinkageError e) {
+			// not supported by this VM
+		}
+		fThreadBean= threadBean;
+		fCpuTimeMethod= cpuTimeMethod;
+		fAllocatedBytesMethod= allocatedBytesMethod;
+		fThreadIdMethod= threadIdMethod;
+	}
+
+	private long fStartTime;
+
+	private long fStartCpuTime;
+
+	private long fStartAllocatedBytes;
+
+	/**
+	 * Starts measuring a test on the current thread.
+	 */
+	public void start() {
+		fStartCpuTime= getCurrentThreadCpuTime();
+		fStartAllocatedBytes= getCurrentThreadAllocatedBytes();
+		fStartTime= System.currentTimeMillis();
+	}
+
+	/**
+	 * Ends measuring a test on the current thread.
+	 *
+	 * @param testId the test id
+	 * @return the metrics since {@link #start()}, as a {@link MessageIds#TEST_METRICS} message
+	 */
+	public String end(String testId) {
+		long time= System.currentTimeMillis() - fStartTime;
+		long cpuTime= getCurrentThreadCpuTime();
+		long allocatedBytes= getCurrentThreadAllocatedBytes();
+
+		StringBuffer message= new StringBuffer(MessageIds.TEST_METRICS).append(testId);
+		appendMetric(message, MessageIds.METRIC_TIME, time);
+		if (cpuTime != -1 && fStartCpuTime != -1)
+			appendMetric(message, MessageIds.METRIC_CPU_TIME, cpuTime - fStartCpuTime);
+		if (allocatedBytes != -1 && fStartAllocatedBytes != -1)
+			appendMetric(message, MessageIds.METRIC_ALLOCATED_BYTES, allocatedBytes - fStartAllocatedBytes);
+		return message.toString();
+	}
+
+	/**
+	 * Appends a metric to a {@link MessageIds#TEST_METRICS} message.
+	 *
+	 * @param message the message
+	 * @param metric the metric, one of the <code>METRIC_*</code> constants in {@link MessageIds}
+	 * @param value the value
+	 */
+	public static void appendMetric(StringBuffer message, String metric, long value) {
+		message.append(',').append(metric).append('=').append(value);
+	}
+
+	/**
+	 * @return the CPU time of the current thread in nanoseconds, or -1 if not supported
+	 */
+	public static long getCurrentThreadCpuTime() {
+		if (fCpuTimeMethod == null)
+			return -1;
+		try {
+			return ((Long) fCpuTimeMethod.invoke(fThreadBean, null)).longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return the number of bytes allocated by the current thread, or -1 if not supported
+	 */
+	public static long getCurrentThreadAllocatedBytes() {
+		if (fAllocatedBytesMethod == null)
+			return -1;
+		try {
+			Object threadId= fThreadIdMethod.invoke(Thread.currentThread(), null);
+			return ((Long) fAllocatedBytesMethod.invoke(fThreadBean, new Object[] { threadId })).longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+}
@@ -22,6 +22,7 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.eclipse.jdt.internal.junit.runner.DurationPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.FailuresFirstPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestPrioritizer;
@@ -29,6 +30,7 @@ import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.JUnitMessages;
 import org.eclipse.jdt.internal.junit.runner.NullPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
 
 public class JUnit3TestLoader implements ITestLoader {
 	private static final String SUITE_METHODNAME= "suite"; //$NON-NLS-1$
@@ -54,9 +56,12 @@ public class JUnit3TestLoader implements ITestLoader {
 		else
 			prioritizer= new NullPrioritizer();
 
+		TestDurations durations= listener.getTestDurations();
 		for (int i= 0; i < suites.length; i++) {
 			Class testClassName= testClasses[i];
 			Test test= getTest(testClassName, testName, listener);
+			if (durations != null)
+				new DurationPrioritizer(durations).prioritize(test);
 			prioritizer.prioritize(test);
 			suites[i]= new JUnit3TestReference(test);
 		}
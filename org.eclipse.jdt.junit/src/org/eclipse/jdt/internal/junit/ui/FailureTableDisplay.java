@@ -13,16 +13,28 @@
  */
 package org.eclipse.jdt.internal.junit.ui;
 
+import java.util.ArrayList;
+
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
 
+/**
+ * Shows trace lines in a {@link SWT#VIRTUAL} table. Table items are only
+ * created for the lines that become visible.
+ */
 public class FailureTableDisplay implements ITraceDisplay {
 	private final Table fTable;
 
+	private final ArrayList<String> fLabels= new ArrayList<String>();
+
+	private final ArrayList<Image> fImages= new ArrayList<Image>();
+
 	private final Image fExceptionIcon= JUnitPlugin.createImage("obj16/exc_catch.gif"); //$NON-NLS-1$
 
 	private final Image fStackIcon= JUnitPlugin.createImage("obj16/stkfrm_obj.gif"); //$NON-NLS-1$
@@ -34,22 +46,44 @@ public class FailureTableDisplay implements ITraceDisplay {
 				disposeIcons();
 			}
 		});
+		fTable.addListener(SWT.SetData, new Listener() {
+			public void handleEvent(Event event) {
+				TableItem tableItem= (TableItem) event.item;
+				int index= event.index;
+				if (index < fLabels.size()) {
+					tableItem.setText(fLabels.get(index));
+					tableItem.setImage(fImages.get(index));
+				}
+			}
+		});
 	}
 
 	public void addTraceLine(int lineType, String label) {
-		TableItem tableItem = newTableItem();
+		Image image;
 		switch (lineType) {
 		case TextualTrace.LINE_TYPE_EXCEPTION:
-			tableItem.setImage(fExceptionIcon);
+			image= fExceptionIcon;
 			break;
 		case TextualTrace.LINE_TYPE_STACKFRAME:
-			tableItem.setImage(fStackIcon);
+			image= fStackIcon;
 			break;
 		case TextualTrace.LINE_TYPE_NORMAL:
 		default:
+			image= null;
 			break;
 		}
-		tableItem.setText(label);
+		fLabels.add(label);
+		fImages.add(image);
+		fTable.setItemCount(fLabels.size());
+	}
+
+	/**
+	 * Removes all trace lines.
+	 */
+	public void clear() {
+		fLabels.clear();
+		fImages.clear();
+		fTable.removeAll();
 	}
 
 	public Image getExceptionIcon() {
@@ -70,8 +104,4 @@ public class FailureTableDisplay implements ITraceDisplay {
 		if (fStackIcon != null && !fStackIcon.isDisposed())
 			fStackIcon.dispose();
 	}
-
-	TableItem newTableItem() {
-		return new TableItem(fTable, SWT.NONE);
-	}
 }
@@ -19,7 +19,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
-import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.ToolBar;
 
 import org.eclipse.core.runtime.Assert;
@@ -61,7 +60,7 @@ public class FailureTrace implements IMenuListener {
         failureToolBarmanager.add(fCompareAction);
 		failureToolBarmanager.update(true);
 
-		fTable= new Table(parent, SWT.SINGLE | SWT.V_SCROLL | SWT.H_SCROLL);
+		fTable= new Table(parent, SWT.SINGLE | SWT.V_SCROLL | SWT.H_SCROLL | SWT.VIRTUAL);
 		fTestRunner= testRunner;
 		fClipboard= clipboard;
 
@@ -179,7 +178,7 @@ public class FailureTrace implements IMenuListener {
 		}
 		trace= trace.trim();
 		fTable.setRedraw(false);
-		fTable.removeAll();
+		fFailureTableDisplay.clear();
 		new TextualTrace(trace, getFilterPatterns()).display(
 				fFailureTableDisplay, MAX_LABEL_LENGTH);
 		fTable.setRedraw(true);
@@ -197,15 +196,14 @@ public class FailureTrace implements IMenuListener {
 	 */
 	public void setInformation(String text) {
 		clear();
-		TableItem tableItem= fFailureTableDisplay.newTableItem();
-		tableItem.setText(text);
+		fFailureTableDisplay.addTraceLine(TextualTrace.LINE_TYPE_NORMAL, text);
 	}
 
 	/**
 	 * Clears the non-stack trace info
 	 */
 	public void clear() {
-		fTable.removeAll();
+		fFailureTableDisplay.clear();
 		fInputTrace= null;
 	}
 
@@ -123,6 +123,16 @@ public final class JUnitMessages extends NLS {
 
 	public static String JUnitLaunchConfigurationTab_label_keeprunning;
 
+	public static String JUnitLaunchConfigurationTab_label_runInParallel;
+
+	public static String JUnitLaunchConfigurationTab_Test_Order;
+
+	public static String JUnitLaunchConfigurationTab_Test_Order_default;
+
+	public static String JUnitLaunchConfigurationTab_Test_Order_longest_first;
+
+	public static String JUnitLaunchConfigurationTab_Test_Order_shortest_first;
+
 	public static String JUnitLaunchConfigurationTab_label_method;
 
 	public static String JUnitLaunchConfigurationTab_label_oneTest;
@@ -252,6 +262,8 @@ public final class JUnitMessages extends NLS {
 
 	public static String TestRunnerViewPart_ImportTestRunSessionAction_error_title;
 
+	public static String TestRunnerViewPart_ImportTestRunSessionAction_job_name;
+
 	public static String TestRunnerViewPart_ImportTestRunSessionAction_name;
 
 	public static String TestRunnerViewPart_ImportTestRunSessionAction_title;
@@ -266,6 +278,8 @@ public final class JUnitMessages extends NLS {
 	public static String TestRunnerViewPart_Launching;
 	public static String TestRunnerViewPart_message_finish;
 	public static String TestRunnerViewPart_message_started;
+
+	public static String TestRunnerViewPart_message_started_remaining;
 	public static String TestRunnerViewPart_message_stopped;
 	public static String TestRunnerViewPart_message_terminated;
 	public static String TestRunnerViewPart_rerunaction_label;
@@ -273,6 +287,9 @@ public final class JUnitMessages extends NLS {
 	public static String TestRunnerViewPart_rerunfailuresaction_label;
 	public static String TestRunnerViewPart_rerunfailuresaction_tooltip;
 	public static String TestRunnerViewPart_rerunFailedFirstLaunchConfigName;
+	public static String TestRunnerViewPart_rerunaffectedaction_label;
+	public static String TestRunnerViewPart_rerunaffectedaction_tooltip;
+	public static String TestRunnerViewPart_rerunAffectedLaunchConfigName;
 	public static String TestRunnerViewPart_stopaction_text;
 	public static String TestRunnerViewPart_stopaction_tooltip;
 	public static String TestRunnerViewPart_terminate_message;
@@ -296,6 +313,10 @@ public final class JUnitMessages extends NLS {
 	public static String TestSessionLabelProvider_testName_elapsedTimeInSeconds;
 
 	public static String TestSessionLabelProvider_testName_JUnitVersion;
+	public static String TestSessionLabelProvider_testName_metric;
+	public static String TestSessionLabelProvider_cpuTime;
+	public static String TestSessionLabelProvider_allocatedKilobytes;
+	public static String TestSessionLabelProvider_classLoadingTime;
 
 	public static String TypeRenameParticipant_change_name;
 	public static String TypeRenameParticipant_name;
@@ -321,4 +342,10 @@ public final class JUnitMessages extends NLS {
 	public static String TestRunnerViewPart_JUnitPasteAction_label;
 
 	public static String TestRunnerViewPart_layout_menu;
+	public static String TestRunnerViewPart_sort_by_menu;
+	public static String TestRunnerViewPart_sort_by_execution_order;
+	public static String TestRunnerViewPart_sort_by_elapsed_time;
+	public static String TestRunnerViewPart_sort_by_cpu_time;
+	public static String TestRunnerViewPart_sort_by_allocated_bytes;
+	public static String TestRunnerViewPart_sort_by_class_loading_time;
 }
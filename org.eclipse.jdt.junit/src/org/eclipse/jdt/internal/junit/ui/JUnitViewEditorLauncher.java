@@ -16,7 +16,6 @@ import org.eclipse.core.runtime.IPath;
 
 import org.eclipse.ui.IEditorLauncher;
 
-import org.eclipse.jdt.internal.junit.model.JUnitModel;
 import org.eclipse.jdt.internal.junit.util.ExceptionHandler;
 
 public class JUnitViewEditorLauncher implements IEditorLauncher {
@@ -24,7 +23,7 @@ public class JUnitViewEditorLauncher implements IEditorLauncher {
 	public void open(IPath file) {
 		try {
 			JUnitPlugin.getActivePage().showView(TestRunnerViewPart.NAME);
-			JUnitModel.importTestRunSession(file.toFile());
+			TestRunnerViewPart.importTestRunSession(file.toFile());
 		} catch (CoreException e) {
 			ExceptionHandler.handle(e, JUnitMessages.JUnitViewEditorLauncher_dialog_title, JUnitMessages.JUnitViewEditorLauncher_error_occurred);
 		}
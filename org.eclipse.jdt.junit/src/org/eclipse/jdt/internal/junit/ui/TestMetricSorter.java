@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.ui;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+/**
+ * Orders test elements by a metric that has been measured in the test VM, largest first.
+ * Elements without a value keep their execution order after the measured ones.
+ * <p>
+ * The lazy test viewers do not support {@link org.eclipse.jface.viewers.ViewerComparator}s,
+ * so the content providers sort with this class.
+ * </p>
+ */
+public class TestMetricSorter {
+
+	public static final int ELAPSED_TIME= 1;
+	public static final int CPU_TIME= 2;
+	public static final int ALLOCATED_BYTES= 3;
+	public static final int CLASS_LOADING_TIME= 4;
+
+	private final int fMetric;
+
+	/**
+	 * @param metric one of {@link #ELAPSED_TIME}, {@link #CPU_TIME}, {@link #ALLOCATED_BYTES}
+	 * or {@link #CLASS_LOADING_TIME}
+	 */
+	public TestMetricSorter(int metric) {
+		fMetric= metric;
+	}
+
+	public int getMetric() {
+		return fMetric;
+	}
+
+	/**
+	 * Sorts the given test elements in place.
+	 *
+	 * @param elements the test elements
+	 */
+	public void sort(Object[] elements) {
+		final double[] values= new double[elements.length];
+		Integer[] order= new Integer[elements.length];
+		for (int i= 0; i < elements.length; i++) {
+			values[i]= getValue((ITestElement) elements[i]);
+			order[i]= Integer.valueOf(i);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				double v1= values[i1.intValue()];
+				double v2= values[i2.intValue()];
+				if (Double.isNaN(v1))
+					return Double.isNaN(v2) ? 0 : 1;
+				if (Double.isNaN(v2))
+					return -1;
+				return Double.compare(v2, v1);
+			}
+		});
+		Object[] sorted= new Object[elements.length];
+		for (int i= 0; i < order.length; i++) {
+			sorted[i]= elements[order[i].intValue()];
+		}
+		System.arraycopy(sorted, 0, elements, 0, sorted.length);
+	}
+
+	/**
+	 * Returns the value of this sorter's metric for the given element. The CPU time and
+	 * the allocated bytes of a suite are the sums of its children.
+	 *
+	 * @param element the test element
+	 * @return the value, or {@link Double#NaN} if unknown
+	 */
+	public double getValue(ITestElement element) {
+		switch (fMetric) {
+			case ELAPSED_TIME:
+				return element.getElapsedTimeInSeconds();
+			case CLASS_LOADING_TIME:
+				if (element instanceof TestSuiteElement)
+					return ((TestSuiteElement) element).getClassLoadingTimeInSeconds();
+				return Double.NaN;
+			default:
+				if (element instanceof TestCaseElement) {
+					TestCaseElement testCase= (TestCaseElement) element;
+					if (fMetric == CPU_TIME)
+						return testCase.getCpuTimeInSeconds();
+					long allocatedBytes= testCase.getAllocatedBytes();
+					return allocatedBytes == -1 ? Double.NaN : allocatedBytes;
+				}
+				double sum= Double.NaN;
+				for (ITestElement child : ((TestSuiteElement) element).getChildren()) {
+					double value= getValue(child);
+					if (! Double.isNaN(value))
+						sum= Double.isNaN(sum) ? value : sum + value;
+				}
+				return sum;
+		}
+	}
+}
@@ -71,6 +71,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ILock;
@@ -213,6 +214,7 @@ public class TestRunnerViewPart extends ViewPart {
 	private Action fRerunLastTestAction;
 	private IHandlerActivation fRerunLastActivation;
 	private Action fRerunFailedFirstAction;
+	private Action fRerunAffectedTestsAction;
 	private IHandlerActivation fRerunFailedFirstActivation;
 
 	private Action fFailuresOnlyFilterAction;
@@ -220,6 +222,7 @@ public class TestRunnerViewPart extends ViewPart {
 	private ToggleOrientationAction[] fToggleOrientationActions;
 	private ShowTestHierarchyAction fShowTestHierarchyAction;
 	private ShowTimeAction fShowTimeAction;
+	private SortByMetricAction[] fSortByMetricActions;
 	private ActivateOnErrorAction fActivateOnErrorAction;
 	private IMenuListener fViewMenuListener;
 
@@ -485,12 +488,7 @@ public class TestRunnerViewPart extends ViewPart {
 			//TODO: MULTI: getFileNames()
 			File file= new File(path);
 
-			try {
-				JUnitModel.importTestRunSession(file);
-			} catch (CoreException e) {
-				JUnitPlugin.log(e);
-				ErrorDialog.openError(fShell, JUnitMessages.TestRunnerViewPart_ImportTestRunSessionAction_error_title, e.getStatus().getMessage(), e.getStatus());
-			}
+			importTestRunSession(file);
 		}
 	}
 	
@@ -702,6 +700,7 @@ public class TestRunnerViewPart extends ViewPart {
 
 			fStopAction.setEnabled(true);
 			fRerunLastTestAction.setEnabled(true);
+			fRerunAffectedTestsAction.setEnabled(true);
 		}
 
 		public void sessionEnded(long elapsedTime){
@@ -762,7 +761,12 @@ public class TestRunnerViewPart extends ViewPart {
 
 			String className= BasicElementLabels.getJavaElementName(testCaseElement.getClassName());
 			String method= BasicElementLabels.getJavaElementName(testCaseElement.getTestMethodName());
-			String status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started, new String[] { className, method });
+			long remainingTime= fTestRunSession.getEstimatedRemainingTime();
+			String status;
+			if (remainingTime >= 0)
+				status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started_remaining, new String[] { className, method, elapsedTimeAsString(remainingTime / 1000 * 1000) });
+			else
+				status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started, new String[] { className, method });
 			registerInfoMessage(status);
 		}
 
@@ -925,6 +929,19 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
+	private class RerunAffectedTestsAction extends Action {
+		public RerunAffectedTestsAction() {
+			setText(JUnitMessages.TestRunnerViewPart_rerunaffectedaction_label);
+			setToolTipText(JUnitMessages.TestRunnerViewPart_rerunaffectedaction_tooltip);
+			setEnabled(false);
+		}
+
+		@Override
+		public void run(){
+			rerunAffectedTests();
+		}
+	}
+
 	private class ToggleOrientationAction extends Action {
 		private final int fActionOrientation;
 
@@ -1035,6 +1052,42 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
+	private class SortByMetricAction extends Action {
+		private final int fMetric;
+
+		/**
+		 * @param metric one of the metrics of {@link TestMetricSorter}, or 0 for the execution order
+		 */
+		public SortByMetricAction(int metric) {
+			super("", AS_RADIO_BUTTON); //$NON-NLS-1$
+			switch (metric) {
+				case TestMetricSorter.ELAPSED_TIME:
+					setText(JUnitMessages.TestRunnerViewPart_sort_by_elapsed_time);
+					break;
+				case TestMetricSorter.CPU_TIME:
+					setText(JUnitMessages.TestRunnerViewPart_sort_by_cpu_time);
+					break;
+				case TestMetricSorter.ALLOCATED_BYTES:
+					setText(JUnitMessages.TestRunnerViewPart_sort_by_allocated_bytes);
+					break;
+				case TestMetricSorter.CLASS_LOADING_TIME:
+					setText(JUnitMessages.TestRunnerViewPart_sort_by_class_loading_time);
+					break;
+				default:
+					setText(JUnitMessages.TestRunnerViewPart_sort_by_execution_order);
+					break;
+			}
+			fMetric= metric;
+			setChecked(metric == 0);
+		}
+
+		@Override
+		public void run() {
+			if (isChecked())
+				fTestViewer.setSorter(fMetric == 0 ? null : new TestMetricSorter(fMetric));
+		}
+	}
+
 	private class ShowTestHierarchyAction extends Action {
 
 		public ShowTestHierarchyAction() {
@@ -1271,10 +1324,12 @@ public class TestRunnerViewPart extends ViewPart {
 	private ILaunchConfiguration prepareLaunchConfigForRelaunch(ILaunchConfiguration configuration) {
 		try {
 			String attribute= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
-			if (attribute.length() != 0) {
+			boolean affectedTestsOnly= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_AFFECTED_TESTS_ONLY, false);
+			if (attribute.length() != 0 || affectedTestsOnly) {
 				String configName= Messages.format(JUnitMessages.TestRunnerViewPart_configName, configuration.getName());
 				ILaunchConfigurationWorkingCopy tmp= configuration.copy(configName);
 				tmp.setAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
+				tmp.setAttribute(JUnitLaunchConfigurationConstants.ATTR_AFFECTED_TESTS_ONLY, false);
 				return tmp;
 			}
 		} catch (CoreException e) {
@@ -1321,6 +1376,43 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
+	/**
+	 * Reruns only the tests that are affected by the compilation units changed since the last run.
+	 */
+	public void rerunAffectedTests() {
+		if (lastLaunchIsKeptAlive()) {
+			// prompt for terminating the existing run
+			if (MessageDialog.openQuestion(getSite().getShell(), JUnitMessages.TestRunnerViewPart_terminate_title, JUnitMessages.TestRunnerViewPart_terminate_message)) {
+				stopTest();
+			}
+		}
+
+		if (fTestRunSession == null)
+			return;
+		ILaunch launch= fTestRunSession.getLaunch();
+		if (launch == null)
+			return;
+		ILaunchConfiguration launchConfiguration= launch.getLaunchConfiguration();
+		if (launchConfiguration == null)
+			return;
+
+		try {
+			String configName;
+			if (launchConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_AFFECTED_TESTS_ONLY, false))
+				configName= launchConfiguration.getName();
+			else
+				configName= Messages.format(JUnitMessages.TestRunnerViewPart_rerunAffectedLaunchConfigName, launchConfiguration.getName());
+			ILaunchConfigurationWorkingCopy tmp= launchConfiguration.copy(configName);
+			tmp.setAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
+			tmp.setAttribute(JUnitLaunchConfigurationConstants.ATTR_AFFECTED_TESTS_ONLY, true);
+			relaunch(tmp, launch.getLaunchMode());
+		} catch (CoreException e) {
+			ErrorDialog.openError(getSite().getShell(),
+				JUnitMessages.TestRunnerViewPart_error_cannotrerun, e.getMessage(), e.getStatus()
+			);
+		}
+	}
+
 	private void relaunch(ILaunchConfiguration configuration, String launchMode) {
 		DebugUITools.launch(configuration, launchMode);
 	}
@@ -1480,6 +1572,7 @@ action enablement
 			fStopAction.setEnabled(false);
 			fRerunFailedFirstAction.setEnabled(false);
 			fRerunLastTestAction.setEnabled(false);
+			fRerunAffectedTestsAction.setEnabled(false);
 
 		} else {
 			if (fTestRunSession.isStarting() || fTestRunSession.isRunning() || fTestRunSession.isKeptAlive()) {
@@ -1497,6 +1590,7 @@ action enablement
 
 			updateRerunFailedFirstAction();
 			fRerunLastTestAction.setEnabled(fTestRunSession.getLaunch() != null);
+			fRerunAffectedTestsAction.setEnabled(fTestRunSession.getLaunch() != null);
 
 			if (fTestRunSession.isRunning()) {
 				startUpdateJobs();
@@ -1916,6 +2010,13 @@ action enablement
 
 		fShowTestHierarchyAction= new ShowTestHierarchyAction();
 		fShowTimeAction= new ShowTimeAction();
+		fSortByMetricActions=
+			new SortByMetricAction[] {
+				new SortByMetricAction(0),
+				new SortByMetricAction(TestMetricSorter.ELAPSED_TIME),
+				new SortByMetricAction(TestMetricSorter.CPU_TIME),
+				new SortByMetricAction(TestMetricSorter.ALLOCATED_BYTES),
+				new SortByMetricAction(TestMetricSorter.CLASS_LOADING_TIME)};
 
 		toolBar.add(fNextAction);
 		toolBar.add(fPreviousAction);
@@ -1928,6 +2029,10 @@ action enablement
 		toolBar.add(fViewHistory.createHistoryDropDownAction());
 
 
+		fRerunAffectedTestsAction= new RerunAffectedTestsAction();
+
+		viewMenu.add(fRerunAffectedTestsAction);
+		viewMenu.add(new Separator());
 		viewMenu.add(fShowTestHierarchyAction);
 		viewMenu.add(fShowTimeAction);
 		viewMenu.add(new Separator());
@@ -1937,6 +2042,12 @@ action enablement
 			layoutSubMenu.add(fToggleOrientationActions[i]);
 		}
 		viewMenu.add(layoutSubMenu);
+
+		MenuManager sortSubMenu= new MenuManager(JUnitMessages.TestRunnerViewPart_sort_by_menu);
+		for (int i = 0; i < fSortByMetricActions.length; ++i) {
+			sortSubMenu.add(fSortByMetricActions[i]);
+		}
+		viewMenu.add(sortSubMenu);
 		viewMenu.add(new Separator());
 
 		viewMenu.add(fFailuresOnlyFilterAction);
@@ -2120,6 +2231,34 @@ action enablement
 		return Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.SHOW_ON_ERROR_ONLY, false, null);
 	}
 
+	/**
+	 * Imports a test run session in a background job. The view shows the tests
+	 * while the file is being parsed.
+	 *
+	 * @param file the file to import
+	 */
+	static void importTestRunSession(final File file) {
+		String name= Messages.format(JUnitMessages.TestRunnerViewPart_ImportTestRunSessionAction_job_name, BasicElementLabels.getPathLabel(file));
+		Job job= new Job(name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+				try {
+					JUnitModel.importTestRunSession(file, monitor);
+					return Status.OK_STATUS;
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (CoreException e) {
+					return e.getStatus();
+				} finally {
+					monitor.done();
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+
 	static void importTestRunSession(final String url) {
 		try {
 			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
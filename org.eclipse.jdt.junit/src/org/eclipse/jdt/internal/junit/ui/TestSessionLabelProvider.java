@@ -42,6 +42,8 @@ public class TestSessionLabelProvider extends LabelProvider implements IStyledLa
 
 	private boolean fShowTime;
 
+	private TestMetricSorter fSorter;
+
 	public TestSessionLabelProvider(TestRunnerViewPart testRunnerPart, int layoutMode) {
 		fTestRunnerPart= testRunnerPart;
 		fLayoutMode= layoutMode;
@@ -78,7 +80,35 @@ public class TestSessionLabelProvider extends LabelProvider implements IStyledLa
 				text= StyledCellLabelProvider.styleDecoratedString(decorated, StyledString.QUALIFIER_STYLER, text);
 			}
 		}
-		return addElapsedTime(text, testElement.getElapsedTimeInSeconds());
+		text= addElapsedTime(text, testElement.getElapsedTimeInSeconds());
+		String decorated= addMetric(text.getString(), testElement);
+		return StyledCellLabelProvider.styleDecoratedString(decorated, StyledString.COUNTER_STYLER, text);
+	}
+
+	/**
+	 * Shows the metric of the sorter, unless it is the elapsed time.
+	 */
+	private String addMetric(String string, ITestElement testElement) {
+		if (fSorter == null)
+			return string;
+		double value= fSorter.getValue(testElement);
+		if (Double.isNaN(value))
+			return string;
+		String metric;
+		switch (fSorter.getMetric()) {
+			case TestMetricSorter.CPU_TIME:
+				metric= Messages.format(JUnitMessages.TestSessionLabelProvider_cpuTime, timeFormat.format(value));
+				break;
+			case TestMetricSorter.ALLOCATED_BYTES:
+				metric= Messages.format(JUnitMessages.TestSessionLabelProvider_allocatedKilobytes, NumberFormat.getIntegerInstance().format(value / 1024));
+				break;
+			case TestMetricSorter.CLASS_LOADING_TIME:
+				metric= Messages.format(JUnitMessages.TestSessionLabelProvider_classLoadingTime, timeFormat.format(value));
+				break;
+			default:
+				return string;
+		}
+		return Messages.format(JUnitMessages.TestSessionLabelProvider_testName_metric, new String[] { string, metric });
 	}
 
 	private StyledString addElapsedTime(StyledString styledString, double time) {
@@ -124,7 +154,7 @@ public class TestSessionLabelProvider extends LabelProvider implements IStyledLa
 				label= Messages.format(JUnitMessages.TestSessionLabelProvider_testMethodName_className, new Object[] { label, className });
 			}
 		}
-		return addElapsedTime(label, testElement.getElapsedTimeInSeconds());
+		return addMetric(addElapsedTime(label, testElement.getElapsedTimeInSeconds()), testElement);
 	}
 
 	@Override
@@ -173,4 +203,12 @@ public class TestSessionLabelProvider extends LabelProvider implements IStyledLa
 		fireLabelProviderChanged(new LabelProviderChangedEvent(this));
 	}
 
+	/**
+	 * @param sorter the sorter whose metric is shown, or <code>null</code>
+	 */
+	public void setSorter(TestMetricSorter sorter) {
+		fSorter= sorter;
+		fireLabelProviderChanged(new LabelProviderChangedEvent(this));
+	}
+
 }
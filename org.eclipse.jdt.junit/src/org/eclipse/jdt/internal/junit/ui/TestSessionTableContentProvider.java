@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,26 +12,120 @@
 package org.eclipse.jdt.internal.junit.ui;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import org.eclipse.jdt.junit.model.ITestElement;
 
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 
 import org.eclipse.jdt.internal.junit.model.TestCaseElement;
 import org.eclipse.jdt.internal.junit.model.TestRoot;
 import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
 
-public class TestSessionTableContentProvider implements IStructuredContentProvider {
+/**
+ * Lazy content provider for the virtual flat table of a test run session.
+ * <p>
+ * The flat list of elements is computed when the input is set and on
+ * {@link #refreshElements()}. The viewer's item count has to be updated with
+ * {@link #getElementCount()} afterwards. Lazy viewers do not support
+ * {@link ViewerFilter}s and sorters, so the filter and the {@link TestMetricSorter}
+ * are applied by the content provider.
+ * </p>
+ */
+public class TestSessionTableContentProvider implements ILazyContentProvider {
+
+	private static final Object[] NO_ELEMENTS= new Object[0];
+
+	private TableViewer fViewer;
+
+	private TestRoot fRoot;
+
+	private ViewerFilter fFilter;
+
+	private TestMetricSorter fSorter;
+
+	private Object[] fElements= NO_ELEMENTS;
+
+	private HashMap<Object, Integer> fIndices;
 
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		fViewer= (TableViewer) viewer;
+		fRoot= (TestRoot) newInput;
+		refreshElements();
+	}
+
+	/**
+	 * Sets the filter. The elements have to be refreshed afterwards.
+	 *
+	 * @param filter the filter, or <code>null</code> to show all elements
+	 */
+	public void setFilter(ViewerFilter filter) {
+		fFilter= filter;
+	}
+
+	/**
+	 * Sets the sorter. The elements have to be refreshed afterwards.
+	 *
+	 * @param sorter the sorter, or <code>null</code> to show the elements in execution order
+	 */
+	public void setSorter(TestMetricSorter sorter) {
+		fSorter= sorter;
 	}
 
-	public Object[] getElements(Object inputElement) {
-		ArrayList<ITestElement> all= new ArrayList<ITestElement>();
-		addAll(all, (TestRoot) inputElement);
-		return all.toArray();
+	public void updateElement(int index) {
+		if (index < fElements.length)
+			fViewer.replace(fElements[index], index);
+	}
+
+	/**
+	 * @return the number of elements to be shown
+	 */
+	public int getElementCount() {
+		return fElements.length;
+	}
+
+	/**
+	 * @param element an element
+	 * @return the index of the element, or -1 if the element is not shown
+	 */
+	public int indexOf(Object element) {
+		if (fIndices == null) {
+			fIndices= new HashMap<Object, Integer>(fElements.length * 2);
+			for (int i= 0; i < fElements.length; i++) {
+				fIndices.put(fElements[i], new Integer(i));
+			}
+		}
+		Integer index= fIndices.get(element);
+		return index == null ? -1 : index.intValue();
+	}
+
+	/**
+	 * Recomputes the elements after elements have been added or the status of
+	 * elements has changed.
+	 *
+	 * @return <code>true</code> iff the elements have changed
+	 */
+	public boolean refreshElements() {
+		Object[] elements;
+		if (fRoot == null) {
+			elements= NO_ELEMENTS;
+		} else {
+			ArrayList<ITestElement> all= new ArrayList<ITestElement>();
+			addAll(all, fRoot);
+			elements= all.toArray();
+			if (fSorter != null)
+				fSorter.sort(elements);
+		}
+		if (Arrays.equals(fElements, elements))
+			return false;
+		fElements= elements;
+		fIndices= null;
+		return true;
 	}
 
 	private void addAll(ArrayList<ITestElement> all, TestSuiteElement suite) {
@@ -39,14 +133,21 @@ public class TestSessionTableContentProvider implements IStructuredContentProvid
 		for (ITestElement element : children) {
 			if (element instanceof TestSuiteElement) {
 				if (((TestSuiteElement) element).getSuiteStatus().isErrorOrFailure())
-					all.add(element); // add failed suite to flat list too
+					addIfSelected(all, element); // add failed suite to flat list too
 				addAll(all, (TestSuiteElement) element);
 			} else if (element instanceof TestCaseElement) {
-				all.add(element);
+				addIfSelected(all, element);
 			}
 		}
 	}
 
+	private void addIfSelected(ArrayList<ITestElement> all, ITestElement element) {
+		if (fFilter == null || fFilter.select(fViewer, fRoot, element))
+			all.add(element);
+	}
+
 	public void dispose() {
+		fElements= NO_ELEMENTS;
+		fIndices= null;
 	}
 }
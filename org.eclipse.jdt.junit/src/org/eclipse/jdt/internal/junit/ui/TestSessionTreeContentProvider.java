@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,43 +11,135 @@
 
 package org.eclipse.jdt.internal.junit.ui;
 
-import org.eclipse.jface.viewers.ITreeContentProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 
 import org.eclipse.jdt.internal.junit.model.TestElement;
-import org.eclipse.jdt.internal.junit.model.TestRoot;
 import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
 
-public class TestSessionTreeContentProvider implements ITreeContentProvider {
+/**
+ * Lazy content provider for the virtual tree of a test run session.
+ * <p>
+ * Lazy viewers do not support {@link ViewerFilter}s and sorters, so the filter and the
+ * {@link TestMetricSorter} are applied by the content provider. The (filtered and sorted)
+ * children of a suite are cached until {@link #refreshChildren(TestSuiteElement)} is called.
+ * </p>
+ */
+public class TestSessionTreeContentProvider implements ILazyTreeContentProvider {
 
 	private final Object[] NO_CHILDREN= new Object[0];
 
+	private TreeViewer fViewer;
+
+	private ViewerFilter fFilter;
+
+	private TestMetricSorter fSorter;
+
+	private final HashMap<TestSuiteElement, Object[]> fChildren= new HashMap<TestSuiteElement, Object[]>();
+
 	public void dispose() {
+		fChildren.clear();
 	}
 
-	public Object[] getChildren(Object parentElement) {
-		if (parentElement instanceof TestSuiteElement)
-			return ((TestSuiteElement) parentElement).getChildren();
-		else
-			return NO_CHILDREN;
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		fViewer= (TreeViewer) viewer;
+		fChildren.clear();
 	}
 
-	public Object[] getElements(Object inputElement) {
-		return ((TestRoot) inputElement).getChildren();
+	/**
+	 * Sets the filter. The viewer has to be refreshed afterwards.
+	 *
+	 * @param filter the filter, or <code>null</code> to show all elements
+	 */
+	public void setFilter(ViewerFilter filter) {
+		fFilter= filter;
+		fChildren.clear();
+	}
+
+	/**
+	 * Sets the sorter. The viewer has to be refreshed afterwards.
+	 *
+	 * @param sorter the sorter, or <code>null</code> to show the elements in execution order
+	 */
+	public void setSorter(TestMetricSorter sorter) {
+		fSorter= sorter;
+		fChildren.clear();
+	}
+
+	/**
+	 * Forgets all cached children. The viewer has to be refreshed afterwards.
+	 */
+	public void clear() {
+		fChildren.clear();
+	}
+
+	public void updateElement(Object parent, int index) {
+		Object[] children= getChildren(parent);
+		if (index >= children.length)
+			return;
+		Object child= children[index];
+		fViewer.replace(parent, index, child);
+		fViewer.setChildCount(child, getChildren(child).length);
+	}
+
+	public void updateChildCount(Object element, int currentChildCount) {
+		int count= getChildren(element).length;
+		if (count != currentChildCount)
+			fViewer.setChildCount(element, count);
 	}
 
 	public Object getParent(Object element) {
 		return ((TestElement) element).getParent();
 	}
 
-	public boolean hasChildren(Object element) {
-		if (element instanceof TestSuiteElement)
-			return ((TestSuiteElement) element).getChildren().length != 0;
-		else
+	public Object[] getChildren(Object element) {
+		if (!(element instanceof TestSuiteElement))
+			return NO_CHILDREN;
+		TestSuiteElement suite= (TestSuiteElement) element;
+		Object[] children= fChildren.get(suite);
+		if (children == null) {
+			children= computeChildren(suite);
+			fChildren.put(suite, children);
+		}
+		return children;
+	}
+
+	/**
+	 * Recomputes the cached children of a suite after children have been added or the
+	 * status of children has changed.
+	 *
+	 * @param suite the suite
+	 * @return <code>true</code> iff the viewer has already requested the children
+	 * of the suite and they have changed
+	 */
+	public boolean refreshChildren(TestSuiteElement suite) {
+		Object[] oldChildren= fChildren.remove(suite);
+		if (oldChildren == null)
 			return false;
+		Object[] children= computeChildren(suite);
+		fChildren.put(suite, children);
+		return !Arrays.equals(oldChildren, children);
 	}
 
-	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	private Object[] computeChildren(TestSuiteElement suite) {
+		Object[] children= suite.getChildren();
+		if (fFilter != null) {
+			ArrayList<Object> shown= new ArrayList<Object>();
+			for (Object child : children) {
+				if (fFilter.select(fViewer, suite, child))
+					shown.add(child);
+			}
+			children= shown.toArray();
+		}
+		if (fSorter != null)
+			fSorter.sort(children);
+		return children;
 	}
 }
@@ -30,7 +30,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Menu;
-import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Table;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
@@ -124,6 +124,12 @@ public class TestViewer {
 		}
 	}
 
+	/**
+	 * Number of changed elements above which the lazy viewers are refreshed
+	 * instead of updating each element.
+	 */
+	private static final int MAX_ELEMENT_UPDATES= 500;
+
 	private final FailuresOnlyFilter fFailuresOnlyFilter= new FailuresOnlyFilter();
 
 	private final TestRunnerViewPart fTestRunnerPart;
@@ -144,9 +150,12 @@ public class TestViewer {
 
 	private TestRunSession fTestRunSession;
 
+	private TestMetricSorter fSorter;
+
 	private boolean fTreeNeedsRefresh;
 	private boolean fTableNeedsRefresh;
 	private HashSet<TestElement> fNeedUpdate;
+	private HashSet<TestSuiteElement> fNeedStructureUpdate;
 	private TestCaseElement fAutoScrollTarget;
 
 	private LinkedList<TestSuiteElement> fAutoClose;
@@ -169,14 +178,14 @@ public class TestViewer {
 	private void createTestViewers(Composite parent) {
 		fViewerbook= new PageBook(parent, SWT.NULL);
 
-		fTreeViewer= new TreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE);
+		fTreeViewer= new TreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTreeViewer.setUseHashlookup(true);
 		fTreeContentProvider= new TestSessionTreeContentProvider();
 		fTreeViewer.setContentProvider(fTreeContentProvider);
 		fTreeLabelProvider= new TestSessionLabelProvider(fTestRunnerPart, TestRunnerViewPart.LAYOUT_HIERARCHICAL);
 		fTreeViewer.setLabelProvider(new ColoringLabelProvider(fTreeLabelProvider));
 
-		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE);
+		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTableViewer.setUseHashlookup(true);
 		fTableContentProvider= new TestSessionTableContentProvider();
 		fTableViewer.setContentProvider(fTableContentProvider);
@@ -314,6 +323,26 @@ public class TestViewer {
 		}
 	}
 
+	/**
+	 * Sorts both viewers by a metric of the tests.
+	 *
+	 * @param sorter the sorter, or <code>null</code> to show the tests in execution order
+	 */
+	public synchronized void setSorter(TestMetricSorter sorter) {
+		try {
+			fViewerbook.setRedraw(false);
+			fSorter= sorter;
+			fTreeContentProvider.setSorter(sorter);
+			fTableContentProvider.setSorter(sorter);
+			fTreeLabelProvider.setSorter(sorter);
+			fTableLabelProvider.setSorter(sorter);
+			registerViewersRefresh();
+			processChangesInUI();
+		} finally {
+			fViewerbook.setRedraw(true);
+		}
+	}
+
 	public synchronized void setShowFailuresOnly(boolean failuresOnly, int layoutMode) {
 		/*
 		 * Management of fTreeViewer and fTableViewer
@@ -343,22 +372,22 @@ public class TestViewer {
 				fViewerbook.showPage(getActiveViewer().getControl());
 			}
 
-			//avoid realizing all TableItems, especially in flat mode!
+			// the lazy viewers do not support ViewerFilters, the content providers filter the elements
 			StructuredViewer viewer= getActiveViewer();
 			if (failuresOnly) {
 				if (! getActiveViewerHasFilter()) {
 					setActiveViewerNeedsRefresh(true);
 					setActiveViewerHasFilter(true);
-					viewer.setInput(null);
-					viewer.addFilter(fFailuresOnlyFilter);
+					setViewerInput(viewer, null);
+					setActiveViewerFilter(fFailuresOnlyFilter);
 				}
 
 			} else {
 				if (getActiveViewerHasFilter()) {
 					setActiveViewerNeedsRefresh(true);
 					setActiveViewerHasFilter(false);
-					viewer.setInput(null);
-					viewer.removeFilter(fFailuresOnlyFilter);
+					setViewerInput(viewer, null);
+					setActiveViewerFilter(null);
 				}
 			}
 			processChangesInUI();
@@ -366,7 +395,12 @@ public class TestViewer {
 			if (selection != null) {
 				// workaround for https://bugs.eclipse.org/bugs/show_bug.cgi?id=125708
 				// (ITreeSelection not adapted if TreePaths changed):
-				StructuredSelection flatSelection= new StructuredSelection(selection.toList());
+				List<?> selected= selection.toList();
+				if (fLayoutMode == TestRunnerViewPart.LAYOUT_FLAT) {
+					for (Object element : selected)
+						createTableItem(element);
+				}
+				StructuredSelection flatSelection= new StructuredSelection(selected);
 				fSelectionProvider.setSelection(flatSelection, true);
 			}
 
@@ -389,6 +423,19 @@ public class TestViewer {
 			fTableHasFilter= filter;
 	}
 
+	private void setActiveViewerFilter(ViewerFilter filter) {
+		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
+			fTreeContentProvider.setFilter(filter);
+		else
+			fTableContentProvider.setFilter(filter);
+	}
+
+	private void setViewerInput(StructuredViewer viewer, Object input) {
+		viewer.setInput(input);
+		if (viewer == fTableViewer)
+			fTableViewer.setItemCount(fTableContentProvider.getElementCount());
+	}
+
 	private StructuredViewer getActiveViewer() {
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
 			return fTreeViewer;
@@ -419,8 +466,8 @@ public class TestViewer {
 			registerViewersRefresh();
 			fTreeNeedsRefresh= false;
 			fTableNeedsRefresh= false;
-			fTreeViewer.setInput(null);
-			fTableViewer.setInput(null);
+			setViewerInput(fTreeViewer, null);
+			setViewerInput(fTableViewer, null);
 			return;
 		}
 
@@ -430,95 +477,108 @@ public class TestViewer {
 		if (getActiveViewerNeedsRefresh()) {
 			clearUpdateAndExpansion();
 			setActiveViewerNeedsRefresh(false);
-			viewer.setInput(testRoot);
+			setViewerInput(viewer, testRoot);
 
 		} else {
 			Object[] toUpdate;
+			Object[] toRefresh;
 			synchronized (this) {
 				toUpdate= fNeedUpdate.toArray();
 				fNeedUpdate.clear();
-			}
-			if (! fTreeNeedsRefresh && toUpdate.length > 0) {
-				if (fTreeHasFilter)
-					for (Object element : toUpdate)
-						updateElementInTree((TestElement) element);
-				else {
-					HashSet<Object> toUpdateWithParents= new HashSet<Object>();
-					toUpdateWithParents.addAll(Arrays.asList(toUpdate));
-					for (Object element : toUpdate) {
-						TestElement parent= ((TestElement) element).getParent();
-						while (parent != null) {
-							toUpdateWithParents.add(parent);
-							parent= parent.getParent();
-						}
-					}
-					fTreeViewer.update(toUpdateWithParents.toArray(), null);
+				toRefresh= fNeedStructureUpdate.toArray();
+				fNeedStructureUpdate.clear();
+				if (toRefresh.length > 0) {
+					// added elements are only inserted into the active viewer
+					if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
+						fTableNeedsRefresh= true;
+					else
+						fTreeNeedsRefresh= true;
 				}
 			}
-			if (! fTableNeedsRefresh && toUpdate.length > 0) {
-				if (fTableHasFilter)
-					for (Object element : toUpdate)
-						updateElementInTable((TestElement) element);
-				else
-					fTableViewer.update(toUpdate, null);
-			}
+			if (! fTreeNeedsRefresh && (toUpdate.length > 0 || toRefresh.length > 0))
+				updateTree(toUpdate, toRefresh);
+			if (! fTableNeedsRefresh && (toUpdate.length > 0 || toRefresh.length > 0))
+				updateTable(toUpdate, toRefresh.length > 0);
 		}
 		autoScrollInUI();
 	}
 
-	private void updateElementInTree(final TestElement testElement) {
-		if (isShown(testElement)) {
-			updateShownElementInTree(testElement);
-		} else {
-			TestElement current= testElement;
-			do {
-				if (fTreeViewer.testFindItem(current) != null)
-					fTreeViewer.remove(current);
-				current= current.getParent();
-			} while (! (current instanceof TestRoot) && ! isShown(current));
+	/**
+	 * Updates the tree after the given elements changed.
+	 *
+	 * @param toUpdate the changed elements
+	 * @param toRefresh the suites to which elements have been added
+	 */
+	private void updateTree(Object[] toUpdate, Object[] toRefresh) {
+		if (toUpdate.length + toRefresh.length > MAX_ELEMENT_UPDATES) {
+			// cheaper than updating each element: only the visible items of the lazy tree are recreated
+			fTreeContentProvider.clear();
+			fTreeViewer.refresh();
+			return;
+		}
 
-			while (current != null && ! (current instanceof TestRoot)) {
-				fTreeViewer.update(current, null);
+		HashSet<TestElement> toUpdateWithParents= new HashSet<TestElement>();
+		for (Object element : toUpdate) {
+			TestElement current= (TestElement) element;
+			while (current != null) {
+				toUpdateWithParents.add(current);
 				current= current.getParent();
 			}
 		}
-	}
-
-	private void updateShownElementInTree(TestElement testElement) {
-		if (testElement == null || testElement instanceof TestRoot) // paranoia null check
-			return;
 
-		TestSuiteElement parent= testElement.getParent();
-		updateShownElementInTree(parent); // make sure parent is shown and up-to-date
-
-		if (fTreeViewer.testFindItem(testElement) == null) {
-			fTreeViewer.add(parent, testElement); // if not yet in tree: add
-		} else {
-			fTreeViewer.update(testElement, null); // if in tree: update
+		LinkedHashSet<TestSuiteElement> suites= new LinkedHashSet<TestSuiteElement>();
+		for (Object suite : toRefresh) {
+			suites.add((TestSuiteElement) suite);
 		}
+		if (fTreeHasFilter || fSorter != null) {
+			// a changed status can show or hide elements, and new metrics can reorder them
+			for (TestElement element : toUpdateWithParents) {
+				if (element instanceof TestSuiteElement)
+					suites.add((TestSuiteElement) element);
+			}
+		}
+		for (TestSuiteElement suite : suites) {
+			if (fTreeContentProvider.refreshChildren(suite))
+				fTreeViewer.refresh(suite, false);
+		}
+		fTreeViewer.update(toUpdateWithParents.toArray(), null);
 	}
 
-	private void updateElementInTable(TestElement element) {
-		if (isShown(element)) {
-			if (fTableViewer.testFindItem(element) == null) {
-				TestElement previous= getNextFailure(element, false);
-				int insertionIndex= -1;
-				if (previous != null) {
-					TableItem item= (TableItem) fTableViewer.testFindItem(previous);
-					if (item != null)
-						insertionIndex= fTableViewer.getTable().indexOf(item);
-				}
-				fTableViewer.insert(element, insertionIndex);
-			} else  {
-				fTableViewer.update(element, null);
-			}
+	/**
+	 * Updates the table after the given elements changed.
+	 *
+	 * @param toUpdate the changed elements
+	 * @param elementsAdded <code>true</code> iff elements have been added
+	 */
+	private void updateTable(Object[] toUpdate, boolean elementsAdded) {
+		if ((elementsAdded || fTableHasFilter || fSorter != null) && fTableContentProvider.refreshElements()) {
+			fTableViewer.setItemCount(fTableContentProvider.getElementCount());
+			fTableViewer.refresh();
+		} else if (toUpdate.length > MAX_ELEMENT_UPDATES) {
+			fTableViewer.refresh();
 		} else {
-			fTableViewer.remove(element);
+			fTableViewer.update(toUpdate, null);
 		}
 	}
 
-	private boolean isShown(TestElement current) {
-		return fFailuresOnlyFilter.select(current);
+	/**
+	 * Makes sure that the table item for the given element has been created,
+	 * so that the viewer can select and reveal it without creating all items.
+	 *
+	 * @param element the element
+	 * @return the index of the element in the table, or -1 if the element is not shown
+	 */
+	private int createTableItem(Object element) {
+		int index= fTableContentProvider.indexOf(element);
+		if (index != -1)
+			fTableContentProvider.updateElement(index);
+		return index;
+	}
+
+	private void setSelection(TestElement element) {
+		if (fLayoutMode == TestRunnerViewPart.LAYOUT_FLAT)
+			createTableItem(element);
+		getActiveViewer().setSelection(new StructuredSelection(element), true);
 	}
 
 	private void autoScrollInUI() {
@@ -529,8 +589,13 @@ public class TestViewer {
 		}
 
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_FLAT) {
-			if (fAutoScrollTarget != null)
-				fTableViewer.reveal(fAutoScrollTarget);
+			if (fAutoScrollTarget != null) {
+				int index= fTableContentProvider.indexOf(fAutoScrollTarget);
+				if (index != -1) {
+					Table table= fTableViewer.getTable();
+					table.showItem(table.getItem(index));
+				}
+			}
 			return;
 		}
 
@@ -571,7 +636,7 @@ public class TestViewer {
 	public void selectFirstFailure() {
 		TestCaseElement firstFailure= getNextChildFailure(fTestRunSession.getTestRoot(), true);
 		if (firstFailure != null)
-			getActiveViewer().setSelection(new StructuredSelection(firstFailure), true);
+			setSelection(firstFailure);
 	}
 
 	public void selectFailure(boolean showNext) {
@@ -586,7 +651,7 @@ public class TestViewer {
 		}
 
 		if (next != null)
-			getActiveViewer().setSelection(new StructuredSelection(next), true);
+			setSelection(next);
 	}
 
 	private TestElement getNextFailure(TestElement selected, boolean showNext) {
@@ -646,6 +711,7 @@ public class TestViewer {
 
 	private void clearUpdateAndExpansion() {
 		fNeedUpdate= new LinkedHashSet<TestElement>();
+		fNeedStructureUpdate= new LinkedHashSet<TestSuiteElement>();
 		fAutoClose= new LinkedList<TestSuiteElement>();
 		fAutoExpand= new HashSet<TestSuiteElement>();
 	}
@@ -654,9 +720,9 @@ public class TestViewer {
 	 * @param testElement the added test
 	 */
 	public synchronized void registerTestAdded(TestElement testElement) {
-		//TODO: performance: would only need to refresh parent of added element
-		fTreeNeedsRefresh= true;
-		fTableNeedsRefresh= true;
+		TestSuiteElement parent= testElement.getParent();
+		if (parent != null)
+			fNeedStructureUpdate.add(parent);
 	}
 
 	public synchronized void registerViewerUpdate(final TestElement testElement) {
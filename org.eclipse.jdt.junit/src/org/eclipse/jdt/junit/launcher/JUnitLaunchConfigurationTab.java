@@ -29,6 +29,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
@@ -137,6 +138,8 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 	private Text fProjText;
 	private Button fProjButton;
 	private Button fKeepRunning;
+	private Button fRunInParallel;
+	private int fThreadCount;
 
 	// Test class UI widgets
 	private Text fTestText;
@@ -156,9 +159,19 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 	private Label fTestLabel;
 
 	private ComboViewer fTestLoaderViewer;
+	private Combo fTestOrderCombo;
 
 	private ILaunchConfiguration fLaunchConfiguration;
 
+	/**
+	 * Values of {@link JUnitLaunchConfigurationConstants#ATTR_TEST_ORDER}, in the order of the combo items.
+	 */
+	private static final String[] TEST_ORDERS= new String[] {
+		"", //$NON-NLS-1$
+		JUnitLaunchConfigurationConstants.TEST_ORDER_SHORTEST_FIRST,
+		JUnitLaunchConfigurationConstants.TEST_ORDER_LONGEST_FIRST
+	};
+
 	private boolean fIsValid= true;
 	
 	private Set<String> fMethodsCache;
@@ -189,9 +202,11 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		createSpacer(comp);
 
 		createTestLoaderGroup(comp);
+		createTestOrderGroup(comp);
 		createSpacer(comp);
 
 		createKeepAliveGroup(comp);
+		createRunInParallelGroup(comp);
 		Dialog.applyDialogFont(comp);
 		PlatformUI.getWorkbench().getHelpSystem().setHelp(getControl(), IJUnitHelpContextIds.LAUNCH_CONFIGURATION_DIALOG_JUNIT_MAIN_TAB);
 		validatePage();
@@ -222,6 +237,30 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 				updateLaunchConfigurationDialog();
 			}
 		});
+		new Label(comp, SWT.NONE);
+	}
+
+	private void createTestOrderGroup(Composite comp) {
+		Label orderLabel= new Label(comp, SWT.NONE);
+		orderLabel.setText(JUnitMessages.JUnitLaunchConfigurationTab_Test_Order);
+		GridData gd= new GridData();
+		gd.horizontalIndent= 0;
+		orderLabel.setLayoutData(gd);
+
+		fTestOrderCombo= new Combo(comp, SWT.DROP_DOWN | SWT.READ_ONLY);
+		fTestOrderCombo.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		fTestOrderCombo.setItems(new String[] {
+				JUnitMessages.JUnitLaunchConfigurationTab_Test_Order_default,
+				JUnitMessages.JUnitLaunchConfigurationTab_Test_Order_shortest_first,
+				JUnitMessages.JUnitLaunchConfigurationTab_Test_Order_longest_first
+		});
+		fTestOrderCombo.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+		new Label(comp, SWT.NONE);
 	}
 
 	private void createSpacer(Composite comp) {
@@ -400,6 +439,24 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setLayoutData(gd);
 	}
 
+	private void createRunInParallelGroup(Composite comp) {
+		GridData gd;
+		fRunInParallel = new Button(comp, SWT.CHECK);
+		fRunInParallel.addSelectionListener(new SelectionListener() {
+			public void widgetSelected(SelectionEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+
+			public void widgetDefaultSelected(SelectionEvent e) {
+			}
+		});
+		fRunInParallel.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_runInParallel);
+		gd= new GridData();
+		gd.horizontalAlignment= GridData.FILL;
+		gd.horizontalSpan= 2;
+		fRunInParallel.setLayoutData(gd);
+	}
+
 	private static Image createImage(String path) {
 		return JUnitPlugin.getImageDescriptor(path).createImage();
 	}
@@ -422,6 +479,8 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		else
 			updateTestTypeFromConfig(config);
 		updateKeepRunning(config);
+		updateRunInParallel(config);
+		updateTestOrder(config);
 		updateTestLoaderFromConfig(config);
 
 		validatePage();
@@ -449,6 +508,29 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setSelection(running);
 	}
 
+	private void updateRunInParallel(ILaunchConfiguration config) {
+		fThreadCount= 1;
+		try {
+			fThreadCount= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_THREAD_COUNT, 1);
+		} catch (CoreException ce) {
+		}
+		fRunInParallel.setSelection(fThreadCount != 1);
+	}
+
+	private void updateTestOrder(ILaunchConfiguration config) {
+		String order= ""; //$NON-NLS-1$
+		try {
+			order= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_ORDER, ""); //$NON-NLS-1$
+		} catch (CoreException ce) {
+		}
+		int index= 0;
+		for (int i= 1; i < TEST_ORDERS.length; i++) {
+			if (TEST_ORDERS[i].equals(order))
+				index= i;
+		}
+		fTestOrderCombo.select(index);
+	}
+
 	private void updateProjectFromConfig(ILaunchConfiguration config) {
 		String projectName= ""; //$NON-NLS-1$
 		try {
@@ -514,6 +596,14 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_METHOD_NAME, fTestMethodText.getText());
 		}
 		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, fKeepRunning.getSelection());
+		int orderIndex= fTestOrderCombo.getSelectionIndex();
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_ORDER, orderIndex > 0 ? TEST_ORDERS[orderIndex] : ""); //$NON-NLS-1$
+		if (fRunInParallel.getSelection()) {
+			// keep a thread count that has been configured explicitly, otherwise use one thread per processor
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_THREAD_COUNT, fThreadCount != 1 ? fThreadCount : 0);
+		} else {
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_THREAD_COUNT, 1);
+		}
 		try {
 			mapResources(config);
 		} catch (CoreException e) {
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.runner.Description;
+
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
+
+/**
+ * Comparator for descriptions to sort according to the durations of previous runs.
+ * The duration of a suite without a recorded duration is the sum of its children's durations.
+ */
+public class DurationSorter implements Comparator<Description> {
+
+	private final TestDurations fDurations;
+
+	private final Map<Description, Long> fDescriptionDurations= new IdentityHashMap<Description, Long>();
+
+	/**
+	 * Creates a sorter.
+	 *
+	 * @param durations the durations of previous runs, based on the description's display string
+	 */
+	public DurationSorter(TestDurations durations) {
+		fDurations= durations;
+	}
+
+	public int compare(Description d1, Description d2) {
+		return fDurations.compare(getDuration(d1), getDuration(d2));
+	}
+
+	private long getDuration(Description d) {
+		Long cached= fDescriptionDurations.get(d);
+		if (cached != null)
+			return cached.longValue();
+
+		long duration= fDurations.getDuration(d.getDisplayName());
+		if (duration == -1) {
+			for (Description child : d.getChildren()) {
+				long childDuration= getDuration(child);
+				if (childDuration > 0)
+					duration= Math.max(duration, 0) + childDuration;
+			}
+		}
+		fDescriptionDurations.put(d, Long.valueOf(duration));
+		return duration;
+	}
+}
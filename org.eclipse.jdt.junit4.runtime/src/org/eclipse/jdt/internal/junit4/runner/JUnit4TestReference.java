@@ -21,12 +21,20 @@ import org.junit.runner.notification.StoppedByUserException;
 
 import org.eclipse.jdt.internal.junit.runner.IStopListener;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
 import org.eclipse.jdt.internal.junit.runner.TestExecution;
 
 public abstract class JUnit4TestReference implements ITestReference {
 	protected Runner fRunner;
 
 	public JUnit4TestReference(Request request, String[] failureNames) {
+		this(request, failureNames, null);
+	}
+
+	public JUnit4TestReference(Request request, String[] failureNames, TestDurations durations) {
+		if (durations != null) {
+			request= request.sortWith(new DurationSorter(durations));
+		}
 		if (failureNames != null) {
 			request= request.sortWith(new FailuresFirstSorter(failureNames));
 		}
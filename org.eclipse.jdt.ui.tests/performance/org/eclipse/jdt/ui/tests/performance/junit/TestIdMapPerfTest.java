@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.junit;
+
+import java.util.HashMap;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.TestIdMap;
+import org.eclipse.jdt.internal.junit.runner.TestIdentifierMap;
+
+/**
+ * Compares {@link TestIdentifierMap} with the {@link HashMap} formerly used by
+ * {@link TestIdMap}, for a suite of 100'000 test identifiers.
+ * <p>
+ * Each measurement assigns ids to all identifiers (like the test tree is sent at runner startup)
+ * and then looks up every identifier twice with an equal but not identical key (like test
+ * start and end notifications and rerun requests).
+ * </p>
+ */
+public class TestIdMapPerfTest extends PerformanceTestCase {
+
+	private static final int IDENTIFIER_COUNT= 100000;
+
+	private static final int WARM_UP_RUNS= 5;
+
+	private static final int MEASURED_RUNS= 20;
+
+	private static class Identifier implements ITestIdentifier {
+		private final String fName;
+
+		public Identifier(String name) {
+			fName= name;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public int hashCode() {
+			return fName.hashCode();
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Identifier))
+				return false;
+			return fName.equals(((Identifier) obj).fName);
+		}
+	}
+
+	private interface IdMap {
+		void put(ITestIdentifier key, String id);
+		String get(ITestIdentifier key);
+	}
+
+	private Identifier[] fIdentifiers;
+
+	private Identifier[] fLookups;
+
+	public static Test suite() {
+		return new TestSuite(TestIdMapPerfTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fIdentifiers= new Identifier[IDENTIFIER_COUNT];
+		fLookups= new Identifier[IDENTIFIER_COUNT];
+		for (int i= 0; i < IDENTIFIER_COUNT; i++) {
+			String name= "test" + (i % 50) + "(org.eclipse.jdt.junit.tests.generated.TestClass" + (i / 50) + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			fIdentifiers[i]= new Identifier(name);
+			fLookups[i]= new Identifier(new String(name));
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		fIdentifiers= null;
+		fLookups= null;
+		super.tearDown();
+	}
+
+	public void testHashMap() throws Exception {
+		measure(true);
+	}
+
+	public void testTestIdentifierMap() throws Exception {
+		tagAsSummary("JUnit runtime test id map", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		measure(false);
+	}
+
+	private void measure(boolean hashMap) throws Exception {
+		for (int run= 0; run < WARM_UP_RUNS + MEASURED_RUNS; run++) {
+			IdMap map= hashMap ? createHashMap() : createTestIdentifierMap();
+			boolean measured= run >= WARM_UP_RUNS;
+			if (measured)
+				startMeasuring();
+			fill(map);
+			lookUp(map);
+			lookUp(map);
+			if (measured)
+				stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private IdMap createHashMap() {
+		return new IdMap() {
+			private final HashMap fMap= new HashMap();
+
+			public void put(ITestIdentifier key, String id) {
+				fMap.put(key, id);
+			}
+
+			public String get(ITestIdentifier key) {
+				return (String) fMap.get(key);
+			}
+		};
+	}
+
+	private IdMap createTestIdentifierMap() {
+		return new IdMap() {
+			private final TestIdentifierMap fMap= new TestIdentifierMap();
+
+			public void put(ITestIdentifier key, String id) {
+				fMap.put(key, id);
+			}
+
+			public String get(ITestIdentifier key) {
+				return (String) fMap.get(key);
+			}
+		};
+	}
+
+	private void fill(IdMap map) {
+		for (int i= 0; i < IDENTIFIER_COUNT; i++) {
+			map.put(fIdentifiers[i], Integer.toString(i + 1));
+		}
+	}
+
+	private void lookUp(IdMap map) {
+		for (int i= 0; i < IDENTIFIER_COUNT; i++) {
+			if (map.get(fLookups[i]) == null)
+				fail("missing id for " + fLookups[i].getName()); //$NON-NLS-1$
+		}
+	}
+}
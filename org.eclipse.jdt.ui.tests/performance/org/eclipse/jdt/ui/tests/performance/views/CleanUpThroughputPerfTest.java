@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpPreferenceUtil;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.CodeStyleCleanUp;
+import org.eclipse.jdt.internal.ui.fix.ExpressionsCleanUp;
+import org.eclipse.jdt.internal.ui.fix.UnnecessaryCodeCleanUp;
+import org.eclipse.jdt.internal.ui.fix.VariableDeclarationCleanUp;
+import org.eclipse.jdt.internal.ui.preferences.cleanup.CleanUpProfileVersioner;
+import org.eclipse.jdt.internal.ui.preferences.formatter.ProfileManager;
+import org.eclipse.jdt.internal.ui.preferences.formatter.ProfileStore;
+
+/**
+ * Measures the throughput of the clean up refactoring depending on the number of
+ * threads that parse the compilation units and calculate the fixes.
+ */
+public class CleanUpThroughputPerfTest extends JdtPerformanceTestCase {
+
+	private static class MyTestSetup extends TestSetup {
+		public static final String SRC_CONTAINER= "src";
+
+		public static IJavaProject fJProject1;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			assertTrue("rt not found", JavaProjectHelper.addRTJar(fJProject1) != null);
+			File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+			JavaProjectHelper.addSourceContainerWithImport(fJProject1, SRC_CONTAINER, junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+			storeSettings();
+		}
+
+		protected void tearDown() throws Exception {
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	public static Test suite() {
+		return new MyTestSetup(new OrderedTestSuite(CleanUpThroughputPerfTest.class, new String[] {
+			"testOneThread",
+			"testTwoThreads",
+			"testFourThreads",
+			"testAllProcessors",
+		}));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	private static void storeSettings() throws CoreException {
+		Map node= new HashMap();
+		Collection keys= JavaPlugin.getDefault().getCleanUpRegistry().getDefaultOptions(CleanUpConstants.DEFAULT_CLEAN_UP_OPTIONS).getKeys();
+		for (Iterator iterator= keys.iterator(); iterator.hasNext();) {
+			String key= (String)iterator.next();
+			node.put(key, CleanUpOptions.FALSE);
+		}
+
+		node.put(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.CONTROL_STATEMENTS_USE_BLOCKS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.CONTROL_STATMENTS_USE_BLOCKS_ALWAYS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.EXPRESSIONS_USE_PARENTHESES, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.EXPRESSIONS_USE_PARENTHESES_ALWAYS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.REMOVE_UNNECESSARY_CASTS, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.VARIABLE_DECLARATIONS_USE_FINAL, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.VARIABLE_DECLARATIONS_USE_FINAL_LOCAL_VARIABLES, CleanUpOptions.TRUE);
+		node.put(CleanUpConstants.VARIABLE_DECLARATIONS_USE_FINAL_PARAMETERS, CleanUpOptions.TRUE);
+
+		ProfileManager.CustomProfile profile= new ProfileManager.CustomProfile("throughputProfile", node, CleanUpProfileVersioner.CURRENT_VERSION, CleanUpProfileVersioner.PROFILE_KIND);
+		InstanceScope.INSTANCE.getNode(JavaUI.ID_PLUGIN).put(CleanUpConstants.CLEANUP_PROFILE, profile.getID());
+
+		List profiles= CleanUpPreferenceUtil.getBuiltInProfiles();
+		profiles.add(profile);
+
+		CleanUpProfileVersioner versioner= new CleanUpProfileVersioner();
+		ProfileStore profileStore= new ProfileStore(CleanUpConstants.CLEANUP_PROFILES, versioner);
+		profileStore.writeProfiles(profiles, InstanceScope.INSTANCE);
+	}
+
+	private void addAllCUs(CleanUpRefactoring cleanUp, IJavaElement[] children) throws JavaModelException {
+		for (int i= 0; i < children.length; i++) {
+			IJavaElement element= children[i];
+			if (element instanceof ICompilationUnit) {
+				cleanUp.addCompilationUnit((ICompilationUnit)element);
+			} else if (element instanceof IPackageFragmentRoot) {
+				IPackageFragmentRoot root= (IPackageFragmentRoot)element;
+				addAllCUs(cleanUp, root.getChildren());
+			} else if (element instanceof IPackageFragment) {
+				IPackageFragment pack= (IPackageFragment)element;
+				addAllCUs(cleanUp, pack.getChildren());
+			}
+		}
+	}
+
+	private CleanUpRefactoring createRefactoring(int threads) throws JavaModelException {
+		CleanUpRefactoring refactoring= new CleanUpRefactoring();
+		addAllCUs(refactoring, MyTestSetup.fJProject1.getChildren());
+		refactoring.addCleanUp(new CodeStyleCleanUp());
+		refactoring.addCleanUp(new ExpressionsCleanUp());
+		refactoring.addCleanUp(new UnnecessaryCodeCleanUp());
+		refactoring.addCleanUp(new VariableDeclarationCleanUp());
+		refactoring.setUseOptionsFromProfile(true);
+		refactoring.setMaxThreads(threads);
+		return refactoring;
+	}
+
+	public void testOneThread() throws Exception {
+		measureThroughput(1);
+	}
+
+	public void testTwoThreads() throws Exception {
+		measureThroughput(2);
+	}
+
+	public void testFourThreads() throws Exception {
+		measureThroughput(4);
+	}
+
+	public void testAllProcessors() throws Exception {
+		measureThroughput(Runtime.getRuntime().availableProcessors());
+	}
+
+	private void measureThroughput(int threads) throws CoreException {
+		performRefactoring(threads, false);
+		performRefactoring(threads, false);
+
+		for (int i= 0; i < 10; i++) {
+			performRefactoring(threads, true);
+		}
+
+		commitMeasurements();
+		assertPerformanceInRelativeBand(Dimension.ELAPSED_PROCESS, -100, +10);
+	}
+
+	private void performRefactoring(int threads, boolean measure) throws CoreException {
+		PerformRefactoringOperation operation= new PerformRefactoringOperation(createRefactoring(threads), CheckConditionsOperation.ALL_CONDITIONS);
+		joinBackgroudActivities();
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+		if (measure)
+			startMeasuring();
+		ResourcesPlugin.getWorkspace().run(operation, null);
+		if (measure)
+			stopMeasuring();
+		assertEquals(true, operation.getConditionStatus().getSeverity() <= IStatus.WARNING);
+		assertEquals(true, operation.getValidationStatus().isOK());
+		assertNotNull(operation.getUndoChange());
+
+		//undo the change, to have same code for each run
+		RefactoringCore.getUndoManager().performUndo(null, null);
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+		joinBackgroudActivities();
+	}
+}
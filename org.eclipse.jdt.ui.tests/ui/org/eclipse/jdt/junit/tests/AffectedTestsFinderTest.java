@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.StringAsserts;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.junit.launcher.AffectedTestsFinder;
+import org.eclipse.jdt.internal.junit.launcher.ChangedUnitsTracker;
+
+
+public class AffectedTestsFinderTest extends TestCase {
+
+	private IJavaProject fProject;
+	private IPackageFragment fPackage;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= JavaProjectHelper.createJavaProject("TestProject", "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		fPackage= root.createPackageFragment("p", true, null);
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	private ICompilationUnit createUnit(String name, String body) throws Exception {
+		return fPackage.createCompilationUnit(name + ".java", "package p;\npublic class " + name + " {\n" + body + "}\n", true, null);
+	}
+
+	private void assertAffected(IMember[] tests, ICompilationUnit[] changed, String[] expected) throws Exception {
+		IMember[] affected= AffectedTestsFinder.findAffectedTests(tests, changed, null);
+		String[] actual= new String[affected.length];
+		for (int i= 0; i < affected.length; i++) {
+			actual[i]= affected[i].getElementName();
+		}
+		StringAsserts.assertEqualStringsIgnoreOrder(actual, expected);
+	}
+
+	public void testFindAffectedTests() throws Exception {
+		ICompilationUnit model= createUnit("Model", "");
+		ICompilationUnit helper= createUnit("Helper", "    Model fModel;\n");
+		ICompilationUnit other= createUnit("Other", "");
+		IMember[] tests= new IMember[] {
+				createUnit("DirectTest", "    Model fModel;\n").findPrimaryType(),
+				createUnit("IndirectTest", "    Helper fHelper;\n").findPrimaryType(),
+				createUnit("OtherTest", "    Other fOther;\n").findPrimaryType()
+		};
+
+		assertAffected(tests, new ICompilationUnit[] { model }, new String[] { "DirectTest", "IndirectTest" });
+		assertAffected(tests, new ICompilationUnit[] { helper }, new String[] { "IndirectTest" });
+		assertAffected(tests, new ICompilationUnit[] { other }, new String[] { "OtherTest" });
+		assertAffected(tests, new ICompilationUnit[] { tests[0].getCompilationUnit() }, new String[] { "DirectTest" });
+		assertAffected(tests, new ICompilationUnit[0], new String[0]);
+	}
+
+	public void testChangedUnitsTracker() throws Exception {
+		ICompilationUnit model= createUnit("Model", "");
+		createUnit("Other", "");
+
+		ChangedUnitsTracker tracker= new ChangedUnitsTracker();
+		tracker.start();
+		try {
+			assertEquals(-1, tracker.startRun("key"));
+
+			createUnit("Model", "    int fValue;\n");
+			long lastRun= tracker.startRun("key");
+			ICompilationUnit[] changed= tracker.getChangedUnits(lastRun);
+			assertEquals(0, changed.length);
+
+			createUnit("Model", "    int fOtherValue;\n");
+			changed= tracker.getChangedUnits(lastRun);
+			assertEquals(1, changed.length);
+			assertEquals(model, changed[0]);
+
+			// removed units affect all tests
+			fPackage.getCompilationUnit("Other.java").delete(true, null);
+			assertNull(tracker.getChangedUnits(lastRun));
+			assertEquals(0, tracker.getChangedUnits(tracker.startRun("key")).length);
+		} finally {
+			tracker.stop();
+		}
+	}
+}
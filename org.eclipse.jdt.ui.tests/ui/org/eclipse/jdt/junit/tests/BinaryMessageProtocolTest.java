@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageReader;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageWriter;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+
+import org.eclipse.jdt.launching.SocketUtil;
+
+public class BinaryMessageProtocolTest extends TestCase {
+
+	private static final long TIMEOUT= 10000;
+
+	private static class RecordingHandler implements BinaryMessageReader.IMessageHandler {
+		final List fEvents= new ArrayList();
+
+		public void handleLine(String line) {
+			fEvents.add("line:" + line);
+		}
+
+		public void handleMessage(String header, String arg) {
+			fEvents.add("message:" + header + arg);
+		}
+
+		public void handleTestMessage(String header, String testId, String testName) {
+			fEvents.add("test:" + header + testId + "," + testName);
+		}
+	}
+
+	private static class RecordingListener implements ITestRunListener2 {
+		final List fEvents= new ArrayList();
+		private boolean fDone;
+
+		public synchronized void testRunStarted(int testCount) {
+			fEvents.add("runStarted:" + testCount);
+		}
+
+		public synchronized void testRunEnded(long elapsedTime) {
+			fEvents.add("runEnded:" + elapsedTime);
+			fDone= true;
+			notifyAll();
+		}
+
+		public synchronized void testRunStopped(long elapsedTime) {
+			fEvents.add("runStopped:" + elapsedTime);
+			fDone= true;
+			notifyAll();
+		}
+
+		public synchronized void testStarted(String testId, String testName) {
+			fEvents.add("started:" + testId + "," + testName);
+		}
+
+		public synchronized void testEnded(String testId, String testName) {
+			fEvents.add("ended:" + testId + "," + testName);
+		}
+
+		public synchronized void testRunTerminated() {
+			fEvents.add("terminated");
+			fDone= true;
+			notifyAll();
+		}
+
+		public synchronized void testTreeEntry(String description) {
+			fEvents.add("tree:" + description);
+		}
+
+		public synchronized void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			fEvents.add("failed:" + status + "," + testId + "," + testName + "," + trace);
+		}
+
+		public synchronized void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			fEvents.add("reran:" + testId);
+		}
+
+		public synchronized void testMetrics(String testId, Map metrics) {
+			fEvents.add("metrics:" + testId);
+		}
+
+		public synchronized List waitForEnd() throws InterruptedException {
+			long end= System.currentTimeMillis() + TIMEOUT;
+			while (!fDone) {
+				long remaining= end - System.currentTimeMillis();
+				assertTrue("test run did not end", remaining > 0);
+				wait(remaining);
+			}
+			return new ArrayList(fEvents);
+		}
+	}
+
+	private static final String TRACE_LINE_1= "junit.framework.AssertionFailedError: expected";
+	private static final String TRACE_LINE_2= "\tat p.ATest.testA(ATest.java:12)";
+
+	private static final String[] RUN= new String[] {
+		MessageIds.TEST_RUN_START + "2 v2",
+		MessageIds.TEST_TREE + "1,testA(p.ATest),false,1",
+		MessageIds.TEST_START + "1,testA(p.ATest)",
+		MessageIds.TEST_FAILED + "1,testA(p.ATest)",
+		MessageIds.TRACE_START,
+		TRACE_LINE_1,
+		TRACE_LINE_2,
+		MessageIds.TRACE_END,
+		MessageIds.TEST_END + "1,testA(p.ATest)",
+		MessageIds.TEST_START + "2,testB(p.ATest)",
+		MessageIds.TEST_END + "2,testB(p.ATest)",
+		MessageIds.TEST_RUN_END + "42"
+	};
+
+	private static final String[] EXPECTED_EVENTS= new String[] {
+		"runStarted:2",
+		"tree:1,testA(p.ATest),false,1",
+		"started:1,testA(p.ATest)",
+		"failed:" + ITestRunListener2.STATUS_FAILURE + ",1,testA(p.ATest)," + TRACE_LINE_1 + "\n" + TRACE_LINE_2 + "\n",
+		"ended:1,testA(p.ATest)",
+		"started:2,testB(p.ATest)",
+		"ended:2,testB(p.ATest)",
+		"runEnded:42"
+	};
+
+	private static byte[] writeBinary(String[] messages) {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		BinaryMessageWriter writer= new BinaryMessageWriter(out, "\n");
+		for (int i= 0; i < messages.length; i++)
+			writer.sendMessage(messages[i]);
+		writer.close();
+		assertFalse(writer.checkError());
+		return out.toByteArray();
+	}
+
+	private static List readBinary(byte[] bytes) throws IOException {
+		BinaryMessageReader reader= new BinaryMessageReader(new ByteArrayInputStream(bytes));
+		assertEquals("\n", reader.getLineDelimiter());
+		RecordingHandler handler= new RecordingHandler();
+		while (reader.readMessage(handler)) {
+			// collect
+		}
+		return handler.fEvents;
+	}
+
+	private static int count(byte[] bytes, String string) throws IOException {
+		byte[] pattern= string.getBytes("UTF-8");
+		int count= 0;
+		outer: for (int i= 0; i <= bytes.length - pattern.length; i++) {
+			for (int j= 0; j < pattern.length; j++) {
+				if (bytes[i + j] != pattern[j])
+					continue outer;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	public void testRoundTrip() throws Exception {
+		List events= readBinary(writeBinary(RUN));
+
+		List expected= new ArrayList();
+		expected.add("message:" + MessageIds.TEST_RUN_START + "2 v2");
+		expected.add("message:" + MessageIds.TEST_TREE + "1,testA(p.ATest),false,1");
+		expected.add("test:" + MessageIds.TEST_START + "1,testA(p.ATest)");
+		expected.add("test:" + MessageIds.TEST_FAILED + "1,testA(p.ATest)");
+		expected.add("message:" + MessageIds.TRACE_START);
+		expected.add("line:" + TRACE_LINE_1);
+		expected.add("line:" + TRACE_LINE_2);
+		expected.add("message:" + MessageIds.TRACE_END);
+		expected.add("test:" + MessageIds.TEST_END + "1,testA(p.ATest)");
+		expected.add("test:" + MessageIds.TEST_START + "2,testB(p.ATest)");
+		expected.add("test:" + MessageIds.TEST_END + "2,testB(p.ATest)");
+		expected.add("message:" + MessageIds.TEST_RUN_END + "42");
+		assertEquals(expected, events);
+	}
+
+	public void testInternedTestIds() throws Exception {
+		byte[] bytes= writeBinary(RUN);
+		assertEquals(2, count(bytes, "testA(p.ATest)")); // interned once, plus the test tree entry
+		assertEquals(1, count(bytes, "testB(p.ATest)"));
+
+		String[] repeated= new String[100];
+		for (int i= 0; i < repeated.length; i++)
+			repeated[i]= MessageIds.TEST_START + "7,testC(p.ATest)";
+		byte[] repeatedBytes= writeBinary(repeated);
+		assertEquals(1, count(repeatedBytes, "testC(p.ATest)"));
+
+		List events= readBinary(repeatedBytes);
+		assertEquals(repeated.length, events.size());
+		for (int i= 0; i < events.size(); i++)
+			assertEquals("test:" + repeated[i], events.get(i));
+	}
+
+	public void testMultiLineTrace() throws Exception {
+		String unicode= "\tat p.\u00C4Test.test\u20AC(\u00C4Test.java:3)";
+		String[] messages= new String[] {
+			MessageIds.TRACE_START,
+			TRACE_LINE_1,
+			"",
+			unicode,
+			MessageIds.TRACE_END
+		};
+		List events= readBinary(writeBinary(messages));
+		assertEquals(5, events.size());
+		assertEquals("line:" + TRACE_LINE_1, events.get(1));
+		assertEquals("line:", events.get(2));
+		assertEquals("line:" + unicode, events.get(3));
+	}
+
+	public void testTextStreamIsNotBinary() throws Exception {
+		InputStream in= new BufferedInputStream(new ByteArrayInputStream((MessageIds.TEST_RUN_START + "1 v2\n").getBytes("UTF-8")));
+		assertFalse(BinaryMessageReader.isBinaryStream(in));
+		assertEquals('%', in.read()); // stream has been reset
+
+		InputStream binary= new BufferedInputStream(new ByteArrayInputStream(writeBinary(RUN)));
+		assertTrue(BinaryMessageReader.isBinaryStream(binary));
+		assertEquals(MessageIds.BINARY_PROTOCOL_MAGIC[0], binary.read());
+	}
+
+	public void testUnsupportedVersion() throws Exception {
+		byte[] bytes= writeBinary(new String[0]);
+		bytes[MessageIds.BINARY_PROTOCOL_MAGIC.length + 3]++;
+		try {
+			new BinaryMessageReader(new ByteArrayInputStream(bytes));
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testClientBinaryProtocol() throws Exception {
+		final byte[] bytes= writeBinary(RUN);
+		List events= runClient(new IStreamWriter() {
+			public void write(OutputStream out) throws IOException {
+				out.write(bytes);
+			}
+		});
+		assertEvents(events);
+	}
+
+	public void testClientTextProtocolFallback() throws Exception {
+		List events= runClient(new IStreamWriter() {
+			public void write(OutputStream out) throws IOException {
+				PrintWriter writer= new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+				for (int i= 0; i < RUN.length; i++) {
+					writer.print(RUN[i]);
+					writer.print('\n');
+				}
+				writer.flush();
+			}
+		});
+		assertEvents(events);
+	}
+
+	private interface IStreamWriter {
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static void assertEvents(List events) {
+		List expected= new ArrayList();
+		for (int i= 0; i < EXPECTED_EVENTS.length; i++)
+			expected.add(EXPECTED_EVENTS[i]);
+		assertEquals(expected, events);
+	}
+
+	private static List runClient(IStreamWriter streamWriter) throws Exception {
+		int port= SocketUtil.findFreePort();
+		RecordingListener listener= new RecordingListener();
+		RemoteTestRunnerClient client= new RemoteTestRunnerClient();
+		client.startListening(new ITestRunListener2[] { listener }, port);
+		Socket socket= connect(port);
+		try {
+			OutputStream out= socket.getOutputStream();
+			streamWriter.write(out);
+			out.flush();
+			return listener.waitForEnd();
+		} finally {
+			socket.close();
+			client.stopWaiting();
+		}
+	}
+
+	private static Socket connect(int port) throws Exception {
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (true) {
+			try {
+				return new Socket("127.0.0.1", port);
+			} catch (ConnectException e) {
+				if (System.currentTimeMillis() > end)
+					throw e;
+				Thread.sleep(50);
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Enumeration;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.junit.runner.DurationPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.TestDurations;
+
+public class DurationPrioritizerTest extends TestCase {
+
+	private static final String DURATIONS=
+		"30 testA(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)\n" +
+		"10 testB(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)\n" +
+		"20 testC(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)\n" +
+		"5 testD(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)\n" +
+		"5 testE(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)\n";
+
+	private File fFile;
+
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("testDurations", ".txt");
+		Writer writer= new OutputStreamWriter(new FileOutputStream(fFile), "UTF-8");
+		try {
+			writer.write(DURATIONS);
+		} finally {
+			writer.close();
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		fFile.delete();
+	}
+
+	public void testShortestFirst() throws Exception {
+		Test suite= prioritize(TestDurations.SHORTEST_FIRST);
+		// testF is unknown: runs first, suite DEF (10) before suite ABC (60)
+		assertEquals("testF testD testE testB testC testA", getOrder(suite));
+	}
+
+	public void testLongestFirst() throws Exception {
+		Test suite= prioritize(TestDurations.LONGEST_FIRST);
+		assertEquals("testA testC testB testD testE testF", getOrder(suite));
+	}
+
+	private Test prioritize(String order) throws IOException {
+		TestSuite suite= new TestSuite();
+		TestSuite abc= new TestSuite();
+		abc.addTest(new TestPriorizationSuite1("testA"));
+		abc.addTest(new TestPriorizationSuite1("testB"));
+		abc.addTest(new TestPriorizationSuite1("testC"));
+		TestSuite def= new TestSuite();
+		def.addTest(new TestPriorizationSuite2("testD"));
+		def.addTest(new TestPriorizationSuite2("testE"));
+		def.addTest(new TestPriorizationSuite2("testF"));
+		suite.addTest(abc);
+		suite.addTest(def);
+		return new DurationPrioritizer(new TestDurations(fFile, order)).prioritize(suite);
+	}
+
+	private String getOrder(Test test) {
+		StringBuffer buf= new StringBuffer();
+		collectOrder(test, buf);
+		return buf.toString().trim();
+	}
+
+	private void collectOrder(Test test, StringBuffer buf) {
+		if (test instanceof TestCase) {
+			buf.append(((TestCase) test).getName()).append(' ');
+		} else if (test instanceof TestSuite) {
+			for (Enumeration e= ((TestSuite) test).tests(); e.hasMoreElements();) {
+				collectOrder((Test) e.nextElement(), buf);
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.FailureTraceStore;
+
+public class FailureTraceStoreTest extends TestCase {
+
+	private File fFile;
+	private FailureTraceStore fStore;
+
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("failureTraces", ".traces");
+		fStore= new FailureTraceStore(fFile);
+	}
+
+	protected void tearDown() throws Exception {
+		fStore.dispose();
+		assertFalse(fFile.exists());
+	}
+
+	public void testStoreAndLoad() throws Exception {
+		long first= fStore.store("trace1", "expected1", "actual1");
+		long second= fStore.store("trace2", null, null);
+
+		assertRecord(new String[] { "trace2", null, null }, fStore.load(second));
+		assertRecord(new String[] { "trace1", "expected1", "actual1" }, fStore.load(first));
+		assertRecord(new String[] { "trace2", null, null }, fStore.load(second));
+	}
+
+	public void testLongStrings() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < 100000; i++) {
+			buf.append((char) ('a' + i % 26));
+			if (i % 1000 == 0)
+				buf.append('\u00E4');
+		}
+		String trace= buf.toString();
+		long handle= fStore.store(trace, "", trace);
+		assertRecord(new String[] { trace, "", trace }, fStore.load(handle));
+	}
+
+	public void testUpdate() throws Exception {
+		long first= fStore.store("trace1", "expected1", "actual1");
+		long second= fStore.store("trace2", null, null);
+		long length= fFile.length();
+
+		// fits into the slot
+		assertEquals(first, fStore.update(first, "trace", null, null));
+		assertEquals(length, fFile.length());
+		assertRecord(new String[] { "trace", null, null }, fStore.load(first));
+
+		// moved to the end, with room to grow
+		long moved= fStore.update(second, "trace2trace2", null, null);
+		assertEquals(length, moved);
+		assertEquals(moved, fStore.update(moved, "trace2trace2trace2", null, null));
+		long grownLength= fFile.length();
+		assertEquals(moved, fStore.update(moved, "trace2trace2", "e2", "a2"));
+		assertEquals(grownLength, fFile.length());
+
+		assertRecord(new String[] { "trace", null, null }, fStore.load(first));
+		assertRecord(new String[] { "trace2trace2", "e2", "a2" }, fStore.load(moved));
+	}
+
+	private static void assertRecord(String[] expected, String[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i= 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i]);
+		}
+	}
+}
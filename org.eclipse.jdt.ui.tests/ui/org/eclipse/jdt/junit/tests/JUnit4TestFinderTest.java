@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 
 import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -439,6 +440,92 @@ public class JUnit4TestFinderTest extends TestCase {
 	}
 
 
+	public void testIndexUpdates() throws Exception {
+		IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("public abstract class Base {\n");
+		buf.append("    @Test public void testBase() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Base.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class ATest extends Base {\n");
+		buf.append("}\n");
+		p.createCompilationUnit("ATest.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class Plain {\n");
+		buf.append("    public void foo() {}\n");
+		buf.append("}\n");
+		ICompilationUnit plain= p.createCompilationUnit("Plain.java", buf.toString(), false, null);
+
+		assertTestFound(fProject, new String[] { "p.ATest" });
+
+		// a class becomes a test
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("public class Plain {\n");
+		buf.append("    @Test public void foo() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Plain.java", buf.toString(), true, null);
+		assertTestFound(fProject, new String[] { "p.ATest", "p.Plain" });
+
+		// change inside a test
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class ATest extends Base {\n");
+		buf.append("    public void helper() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("ATest.java", buf.toString(), true, null);
+		assertTestFound(fProject, new String[] { "p.ATest", "p.Plain" });
+		assertTestFound(p, new String[] { "p.ATest", "p.Plain" });
+
+		// super class of a test no longer declares tests
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public abstract class Base {\n");
+		buf.append("    public void testBase() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Base.java", buf.toString(), true, null);
+		assertTestFound(fProject, new String[] { "p.Plain" });
+
+		// new test
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("public class BTest {\n");
+		buf.append("    @Test public void testB() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("BTest.java", buf.toString(), false, null);
+		assertTestFound(fProject, new String[] { "p.Plain", "p.BTest" });
+
+		// removed test
+		plain.delete(true, null);
+		assertTestFound(fProject, new String[] { "p.BTest" });
+
+		// added super class of an existing class
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class CTest extends Moved {\n");
+		buf.append("}\n");
+		p.createCompilationUnit("CTest.java", buf.toString(), false, null);
+		assertTestFound(fProject, new String[] { "p.BTest" });
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("public class Moved {\n");
+		buf.append("    @Test public void testMoved() {}\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Moved.java", buf.toString(), false, null);
+		assertTestFound(fProject, new String[] { "p.BTest", "p.CTest", "p.Moved" });
+	}
+
 	private void assertTestFound(IJavaElement container, String[] expectedTypes) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(container);
 		assertEquals(TestKindRegistry.JUNIT4_TEST_KIND_ID, testKind.getId());
@@ -26,6 +26,10 @@ public class JUnitJUnitTests {
 
 		suite.addTestSuite(TestEnableAssertions.class);
 		suite.addTestSuite(TestPriorization.class);
+		suite.addTestSuite(DurationPrioritizerTest.class);
+		suite.addTestSuite(TestMetricSorterTest.class);
+		suite.addTestSuite(TestIdentifierMapTest.class);
+		suite.addTestSuite(BinaryMessageProtocolTest.class);
 		suite.addTestSuite(TestTestSearchEngine.class);
 
 		addDeprecatedTests(suite);
@@ -34,9 +38,13 @@ public class JUnitJUnitTests {
 
 		suite.addTest(TestRunSessionSerializationTests3.suite());
 		suite.addTest(TestRunSessionSerializationTests4.suite());
+		suite.addTestSuite(TestRunSessionImportTest.class);
+		suite.addTestSuite(FailureTraceStoreTest.class);
+		suite.addTestSuite(ParallelTestExecutionTest.class);
 
 		suite.addTestSuite(JUnit3TestFinderTest.class);
 		suite.addTestSuite(JUnit4TestFinderTest.class);
+		suite.addTestSuite(AffectedTestsFinderTest.class);
 		//$JUnit-END$
 		return suite;
 	}
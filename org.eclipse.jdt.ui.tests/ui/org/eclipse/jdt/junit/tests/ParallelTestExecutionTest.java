@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.junit.runner.DefaultClassifier;
+import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.MessageSender;
+import org.eclipse.jdt.internal.junit.runner.ParallelTestExecution;
+import org.eclipse.jdt.internal.junit.runner.TestIdMap;
+import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestReference;
+
+public class ParallelTestExecutionTest extends TestCase {
+
+	public static class FailingTests extends TestCase {
+		public FailingTests(String name) {
+			super(name);
+		}
+		public void testOK() {
+		}
+		public void testFailure() {
+			fail("failure");
+		}
+		public void testError() {
+			throw new IllegalStateException("error");
+		}
+	}
+
+	private static class RecordingSender implements MessageSender {
+		List fMessages= new ArrayList();
+
+		public synchronized void sendMessage(String msg) {
+			fMessages.add(msg);
+		}
+
+		public void flush() {
+		}
+	}
+
+	public void testAllTestsRunWithoutInterleavedTraces() throws Exception {
+		int suiteCount= 20;
+		ITestReference[] suites= new ITestReference[suiteCount];
+		for (int i= 0; i < suiteCount; i++) {
+			suites[i]= new JUnit3TestReference(new TestSuite(FailingTests.class));
+		}
+
+		RecordingSender sender= new RecordingSender();
+		ParallelTestExecution execution= new ParallelTestExecution(null, new DefaultClassifier("3"), 4, sender, new TestIdMap());
+		execution.run(suites);
+
+		int started= 0;
+		int ended= 0;
+		int failed= 0;
+		Set running= new HashSet();
+		boolean inTrace= false;
+		for (int i= 0; i < sender.fMessages.size(); i++) {
+			String message= (String) sender.fMessages.get(i);
+			if (message.startsWith(MessageIds.TRACE_START)) {
+				assertFalse(inTrace);
+				inTrace= true;
+			} else if (message.startsWith(MessageIds.TRACE_END)) {
+				assertTrue(inTrace);
+				inTrace= false;
+			} else if (inTrace) {
+				assertFalse(message, message.startsWith("%"));
+			} else if (message.startsWith(MessageIds.TEST_START)) {
+				started++;
+				assertTrue(running.add(getTestId(message)));
+			} else if (message.startsWith(MessageIds.TEST_END)) {
+				ended++;
+				assertTrue(running.remove(getTestId(message)));
+			} else if (message.startsWith(MessageIds.TEST_FAILED) || message.startsWith(MessageIds.TEST_ERROR)) {
+				failed++;
+				assertTrue(running.contains(getTestId(message)));
+			}
+		}
+		assertFalse(inTrace);
+		assertEquals(3 * suiteCount, started);
+		assertEquals(3 * suiteCount, ended);
+		assertEquals(2 * suiteCount, failed);
+	}
+
+	private static String getTestId(String message) {
+		return message.substring(MessageIds.MSG_HEADER_LENGTH, message.indexOf(','));
+	}
+}
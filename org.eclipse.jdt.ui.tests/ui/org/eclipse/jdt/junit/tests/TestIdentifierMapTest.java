@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.TestIdMap;
+import org.eclipse.jdt.internal.junit.runner.TestIdentifierMap;
+
+public class TestIdentifierMapTest extends TestCase {
+
+	private static class Identifier implements ITestIdentifier {
+		private final String fName;
+		private final int fHash;
+
+		public Identifier(String name, int hash) {
+			fName= name;
+			fHash= hash;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public int hashCode() {
+			return fHash;
+		}
+
+		public boolean equals(Object obj) {
+			return obj instanceof Identifier && fName.equals(((Identifier) obj).fName);
+		}
+	}
+
+	public void testPutGet() throws Exception {
+		TestIdentifierMap map= new TestIdentifierMap();
+		assertNull(map.get(new Identifier("a", 1)));
+		assertNull(map.put(new Identifier("a", 1), "1"));
+		assertNull(map.put(new Identifier("b", 2), "2"));
+		assertEquals("1", map.get(new Identifier("a", 1)));
+		assertEquals("2", map.get(new Identifier("b", 2)));
+		assertEquals("1", map.put(new Identifier("a", 1), "3"));
+		assertEquals("3", map.get(new Identifier("a", 1)));
+		assertEquals(2, map.size());
+	}
+
+	public void testCollisions() throws Exception {
+		TestIdentifierMap map= new TestIdentifierMap();
+		for (int i= 0; i < 1000; i++) {
+			map.put(new Identifier("test" + i, i % 3), new Integer(i));
+		}
+		assertEquals(1000, map.size());
+		for (int i= 0; i < 1000; i++) {
+			assertEquals(new Integer(i), map.get(new Identifier("test" + i, i % 3)));
+		}
+		assertNull(map.get(new Identifier("test1000", 1)));
+	}
+
+	public void testGrow() throws Exception {
+		TestIdentifierMap map= new TestIdentifierMap(1);
+		for (int i= 0; i < 100000; i++) {
+			map.put(new Identifier("test" + i, ("test" + i).hashCode()), new Integer(i));
+		}
+		assertEquals(100000, map.size());
+		for (int i= 0; i < 100000; i++) {
+			assertEquals(new Integer(i), map.get(new Identifier("test" + i, ("test" + i).hashCode())));
+		}
+	}
+
+	public void testTestIdMap() throws Exception {
+		TestIdMap ids= new TestIdMap();
+		String a= ids.getTestId(new Identifier("a", 7));
+		String b= ids.getTestId(new Identifier("b", 7));
+		assertFalse(a.equals(b));
+		assertEquals(a, ids.getTestId(new Identifier("a", 7)));
+		assertEquals(b, ids.getTestId(new Identifier("b", 7)));
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+import org.eclipse.jdt.internal.junit.ui.TestMetricSorter;
+
+public class TestMetricSorterTest extends TestCase {
+
+	private TestSuiteElement fSuite1;
+	private TestSuiteElement fSuite2;
+	private TestCaseElement fTestA;
+	private TestCaseElement fTestB;
+	private TestCaseElement fTestC;
+	private TestCaseElement fTestD;
+
+	protected void setUp() throws Exception {
+		TestSuiteElement root= new TestSuiteElement(null, "0", "root", 2);
+		fSuite1= new TestSuiteElement(root, "1", "Suite1", 3);
+		fTestA= createTest(fSuite1, "2", "testA", 0.3, 100);
+		fTestB= createTest(fSuite1, "3", "testB", 0.1, -1);
+		fTestC= createTest(fSuite1, "4", "testC", Double.NaN, 300);
+		fSuite2= new TestSuiteElement(root, "5", "Suite2", 1);
+		fTestD= createTest(fSuite2, "6", "testD", 0.2, 50);
+		fSuite1.setClassLoadingTimeInSeconds(0.01);
+		fSuite2.setClassLoadingTimeInSeconds(0.02);
+	}
+
+	private static TestCaseElement createTest(TestSuiteElement suite, String id, String name, double cpuTime, long allocatedBytes) {
+		TestCaseElement test= new TestCaseElement(suite, id, name + "(" + suite.getTestName() + ")");
+		test.setCpuTimeInSeconds(cpuTime);
+		test.setAllocatedBytes(allocatedBytes);
+		return test;
+	}
+
+	public void testCpuTime() throws Exception {
+		TestElement[] elements= new TestElement[] { fTestA, fTestB, fTestC, fTestD };
+		new TestMetricSorter(TestMetricSorter.CPU_TIME).sort(elements);
+		// unknown values keep their order at the end
+		assertOrder(new TestElement[] { fTestA, fTestD, fTestB, fTestC }, elements);
+	}
+
+	public void testAllocatedBytes() throws Exception {
+		TestElement[] elements= new TestElement[] { fTestA, fTestB, fTestC, fTestD };
+		new TestMetricSorter(TestMetricSorter.ALLOCATED_BYTES).sort(elements);
+		assertOrder(new TestElement[] { fTestC, fTestA, fTestD, fTestB }, elements);
+	}
+
+	public void testSuiteSums() throws Exception {
+		TestMetricSorter sorter= new TestMetricSorter(TestMetricSorter.ALLOCATED_BYTES);
+		assertEquals(400d, sorter.getValue(fSuite1), 0);
+		assertEquals(50d, sorter.getValue(fSuite2), 0);
+		sorter= new TestMetricSorter(TestMetricSorter.CPU_TIME);
+		assertEquals(0.4, sorter.getValue(fSuite1), 1e-9);
+	}
+
+	public void testClassLoadingTime() throws Exception {
+		TestElement[] elements= new TestElement[] { fSuite1, fTestA, fSuite2 };
+		new TestMetricSorter(TestMetricSorter.CLASS_LOADING_TIME).sort(elements);
+		assertOrder(new TestElement[] { fSuite2, fSuite1, fTestA }, elements);
+	}
+
+	private static void assertOrder(TestElement[] expected, TestElement[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i= 0; i < expected.length; i++) {
+			assertSame(expected[i].getTestName(), expected[i], actual[i]);
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.ITestRunSessionListener;
+import org.eclipse.jdt.internal.junit.model.ITestSessionListener;
+import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+public class TestRunSessionImportTest extends TestCase {
+
+	private static final int SUITES= 5;
+	private static final int TESTS_PER_SUITE= 20;
+
+	private class RecordingListener implements ITestRunSessionListener, ITestSessionListener {
+		TestRunSession fSession;
+		int fChildrenWhenAdded= -1;
+		boolean fStarted;
+		boolean fEnded;
+		boolean fStopped;
+		int fTestsAdded;
+		int fTestsEnded;
+		final List fFailed= new ArrayList();
+
+		public void sessionAdded(TestRunSession testRunSession) {
+			fSession= testRunSession;
+			fChildrenWhenAdded= testRunSession.getTestRoot().getChildren().length;
+			testRunSession.addTestSessionListener(this);
+		}
+
+		public void sessionRemoved(TestRunSession testRunSession) {
+		}
+
+		public void sessionStarted() {
+			fStarted= true;
+		}
+
+		public void sessionEnded(long elapsedTime) {
+			fEnded= true;
+		}
+
+		public void sessionStopped(long elapsedTime) {
+			fStopped= true;
+		}
+
+		public void sessionTerminated() {
+		}
+
+		public void testAdded(TestElement testElement) {
+			if (testElement instanceof TestCaseElement) {
+				fTestsAdded++;
+				if (fTestsAdded == fCancelAfter)
+					fMonitor.setCanceled(true);
+			}
+		}
+
+		public void runningBegins() {
+		}
+
+		public void testStarted(TestCaseElement testCaseElement) {
+		}
+
+		public void testEnded(TestCaseElement testCaseElement) {
+			fTestsEnded++;
+		}
+
+		public void testFailed(TestElement testElement, Status status, String trace, String expected, String actual) {
+			fFailed.add(testElement.getTestName() + ":" + trace);
+		}
+
+		public void testReran(TestCaseElement testCaseElement, Status status, String trace, String expectedResult, String actualResult) {
+		}
+
+		public boolean acceptsSwapToDisk() {
+			return false;
+		}
+	}
+
+	private File fFile;
+	private RecordingListener fListener;
+	private NullProgressMonitor fMonitor;
+	private int fCancelAfter;
+
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("testrun", ".xml");
+		writeTestRun(fFile);
+		fMonitor= new NullProgressMonitor();
+		fCancelAfter= -1;
+		fListener= new RecordingListener();
+		JUnitCorePlugin.getModel().addTestRunSessionListener(fListener);
+	}
+
+	protected void tearDown() throws Exception {
+		JUnitCorePlugin.getModel().removeTestRunSessionListener(fListener);
+		if (fListener.fSession != null)
+			JUnitCorePlugin.getModel().removeTestRunSession(fListener.fSession);
+		fFile.delete();
+	}
+
+	private static void writeTestRun(File file) throws IOException {
+		PrintWriter writer= new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			writer.println("<testrun name=\"ImportTest\" tests=\"" + SUITES * TESTS_PER_SUITE + "\">");
+			for (int i= 0; i < SUITES; i++) {
+				writer.println("<testsuite name=\"pack.Suite" + i + "\" time=\"0.5\">");
+				for (int j= 0; j < TESTS_PER_SUITE; j++) {
+					writer.print("<testcase name=\"test" + j + "\" classname=\"pack.Suite" + i + "\" time=\"0.01\"");
+					if (j == 0) {
+						writer.println(">");
+						writer.println("<failure>junit.framework.AssertionFailedError: Suite" + i + "</failure>");
+						writer.println("</testcase>");
+					} else {
+						writer.println("/>");
+					}
+				}
+				writer.println("</testsuite>");
+			}
+			writer.println("</testrun>");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int countTestCases(ITestElement element) {
+		if (element instanceof TestCaseElement)
+			return 1;
+		int count= 0;
+		if (element instanceof TestSuiteElement) {
+			ITestElement[] children= ((TestSuiteElement) element).getChildren();
+			for (int i= 0; i < children.length; i++)
+				count+= countTestCases(children[i]);
+		}
+		return count;
+	}
+
+	public void testIncrementalImport() throws Exception {
+		TestRunSession session= JUnitModel.importTestRunSession(fFile, fMonitor);
+
+		assertSame(session, fListener.fSession);
+		assertEquals(0, fListener.fChildrenWhenAdded);
+		assertTrue(JUnitCorePlugin.getModel().getTestRunSessions().contains(session));
+		assertTrue(fListener.fStarted);
+		assertTrue(fListener.fEnded);
+		assertFalse(fListener.fStopped);
+		assertFalse(session.isRunning());
+		assertFalse(session.isStopped());
+
+		assertEquals(SUITES * TESTS_PER_SUITE, fListener.fTestsAdded);
+		assertEquals(SUITES * TESTS_PER_SUITE, fListener.fTestsEnded);
+		assertEquals(SUITES, fListener.fFailed.size());
+		assertEquals("test0(pack.Suite2):junit.framework.AssertionFailedError: Suite2", fListener.fFailed.get(2));
+
+		assertEquals(SUITES, session.getTestRoot().getChildren().length);
+		assertEquals(SUITES * TESTS_PER_SUITE, countTestCases(session.getTestRoot()));
+		assertEquals(SUITES, session.getAllFailedTestElements().length);
+	}
+
+	public void testCancelImport() throws Exception {
+		fCancelAfter= TESTS_PER_SUITE + 3;
+		try {
+			JUnitModel.importTestRunSession(fFile, fMonitor);
+			fail("import not cancelled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+
+		TestRunSession session= fListener.fSession;
+		assertNotNull(session);
+		assertTrue(JUnitCorePlugin.getModel().getTestRunSessions().contains(session));
+		assertTrue(fListener.fStarted);
+		assertTrue(fListener.fStopped);
+		assertFalse(fListener.fEnded);
+		assertFalse(session.isRunning());
+		assertTrue(session.isStopped());
+
+		// the tests read so far are kept
+		assertEquals(fCancelAfter, fListener.fTestsAdded);
+		assertEquals(fCancelAfter, countTestCases(session.getTestRoot()));
+		assertEquals(2, session.getTestRoot().getChildren().length);
+		assertEquals(2, fListener.fFailed.size());
+	}
+
+	public void testStopImport() throws Exception {
+		JUnitCorePlugin.getModel().removeTestRunSessionListener(fListener);
+		fListener= new RecordingListener() {
+			public void testEnded(TestCaseElement testCaseElement) {
+				super.testEnded(testCaseElement);
+				if (fTestsEnded == TESTS_PER_SUITE)
+					fSession.stopTestRun();
+			}
+		};
+		JUnitCorePlugin.getModel().addTestRunSessionListener(fListener);
+		try {
+			JUnitModel.importTestRunSession(fFile, fMonitor);
+			fail("import not stopped");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+
+		TestRunSession session= fListener.fSession;
+		assertTrue(fListener.fStopped);
+		assertFalse(session.isRunning());
+		assertEquals(TESTS_PER_SUITE, fListener.fTestsEnded);
+		assertEquals(1, session.getTestRoot().getChildren().length);
+	}
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import org.eclipse.jdt.internal.corext.CorextMessages;
+import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
+import org.eclipse.jdt.internal.corext.dom.ConcurrentASTRequestor;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpContext;
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
+
+public class ASTBatchParserTest extends CoreTests {
+
+	private static final Class THIS= ASTBatchParserTest.class;
+
+	private static final int UNITS= 40;
+	private static final int WORKERS= 3;
+
+	private IJavaProject fJProject1;
+	private ICompilationUnit[] fUnits;
+	private Thread fCallingThread;
+
+	/**
+	 * The threads that created parsers or ran worker jobs of the batch parser.
+	 */
+	private final List<Thread> fThreads= Collections.synchronizedList(new ArrayList<Thread>());
+
+	public ASTBatchParserTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fCallingThread= Thread.currentThread();
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		fUnits= new ICompilationUnit[UNITS];
+		for (int i= 0; i < fUnits.length; i++) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package test1;\n");
+			buf.append("public class E" + i + " {\n");
+			buf.append("    public int foo(E" + (i + 1) % UNITS + " e) {\n");
+			buf.append("        return e.hashCode();\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			fUnits[i]= pack1.createCompilationUnit("E" + i + ".java", buf.toString(), false, null);
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private static boolean isWorkerJob() {
+		Job job= Job.getJobManager().currentJob();
+		return job != null && CorextMessages.ASTBatchParser_job_name.equals(job.getName());
+	}
+
+	private class RecordingParser extends ASTBatchParser {
+		public RecordingParser() {
+			super(true);
+			setMaxWorkers(WORKERS);
+		}
+
+		protected ASTParser createParser(IJavaProject project) {
+			fThreads.add(Thread.currentThread());
+			assertTrue(isWorkerJob());
+			return super.createParser(project);
+		}
+	}
+
+	private class CountingRequestor extends ASTRequestor {
+		int fAccepted;
+
+		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+			fAccepted++;
+			assertSame(fCallingThread, Thread.currentThread());
+			assertNotNull(((TypeDeclaration) ast.types().get(0)).resolveBinding());
+		}
+	}
+
+	private void createASTs(ASTBatchParser parser, ASTRequestor requestor, IProgressMonitor monitor) {
+		parser.createASTs(fUnits, new String[0], requestor, monitor);
+	}
+
+	public void testDeliveryInCallingThread() throws Exception {
+		CountingRequestor requestor= new CountingRequestor();
+		createASTs(new RecordingParser(), requestor, new NullProgressMonitor());
+
+		assertEquals(UNITS, requestor.fAccepted);
+		assertFalse(fThreads.isEmpty());
+		assertFalse(fThreads.contains(fCallingThread));
+	}
+
+	public void testConcurrentRequestor() throws Exception {
+		final List<String> accepted= new ArrayList<String>();
+		createASTs(new RecordingParser(), new ConcurrentASTRequestor<String>() {
+			public String process(ICompilationUnit source, CompilationUnit ast) {
+				assertTrue(isWorkerJob());
+				return ((TypeDeclaration) ast.types().get(0)).resolveBinding().getName();
+			}
+
+			public void accept(ICompilationUnit source, String result) {
+				assertSame(fCallingThread, Thread.currentThread());
+				assertEquals(source.findPrimaryType().getElementName(), result);
+				accepted.add(result);
+			}
+		}, new NullProgressMonitor());
+
+		assertEquals(UNITS, accepted.size());
+	}
+
+	public void testCancel() throws Exception {
+		final NullProgressMonitor monitor= new NullProgressMonitor();
+		CountingRequestor requestor= new CountingRequestor() {
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				super.acceptAST(source, ast);
+				if (fAccepted == 5)
+					monitor.setCanceled(true);
+			}
+		};
+		try {
+			createASTs(new RecordingParser(), requestor, monitor);
+			fail("parsing not canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertTrue(requestor.fAccepted < UNITS);
+	}
+
+	public void testWorkerException() throws Exception {
+		final IllegalStateException exception= new IllegalStateException();
+		ASTBatchParser parser= new RecordingParser() {
+			protected ASTParser createParser(IJavaProject project) {
+				super.createParser(project);
+				throw exception;
+			}
+		};
+		try {
+			createASTs(parser, new CountingRequestor(), new NullProgressMonitor());
+			fail("exception not propagated");
+		} catch (IllegalStateException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	public void testRequestorException() throws Exception {
+		final IllegalStateException exception= new IllegalStateException();
+		CountingRequestor requestor= new CountingRequestor() {
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				super.acceptAST(source, ast);
+				throw exception;
+			}
+		};
+		try {
+			createASTs(new RecordingParser(), requestor, new NullProgressMonitor());
+			fail("exception not propagated");
+		} catch (IllegalStateException e) {
+			assertSame(exception, e);
+		}
+		assertEquals(1, requestor.fAccepted);
+	}
+
+	public void testCleanUpParsesInWorkerJobs() throws Exception {
+		final List<Thread> fixThreads= Collections.synchronizedList(new ArrayList<Thread>());
+		// not a clean up of the plug-in, so the fixes are calculated in the calling thread
+		ICleanUp cleanUp= new ICleanUp() {
+			public void setOptions(CleanUpOptions options) {
+			}
+
+			public String[] getStepDescriptions() {
+				return new String[0];
+			}
+
+			public CleanUpRequirements getRequirements() {
+				return new CleanUpRequirements(true, false, false, null);
+			}
+
+			public RefactoringStatus checkPreConditions(IJavaProject project, ICompilationUnit[] compilationUnits, IProgressMonitor monitor) throws CoreException {
+				return new RefactoringStatus();
+			}
+
+			public ICleanUpFix createFix(CleanUpContext context) throws CoreException {
+				assertNotNull(context.getAST());
+				fixThreads.add(Thread.currentThread());
+				return null;
+			}
+
+			public RefactoringStatus checkPostConditions(IProgressMonitor monitor) throws CoreException {
+				return new RefactoringStatus();
+			}
+		};
+		CleanUpRefactoring refactoring= new CleanUpRefactoring();
+		for (int i= 0; i < fUnits.length; i++)
+			refactoring.addCompilationUnit(fUnits[i]);
+		refactoring.addCleanUp(cleanUp);
+		refactoring.setMaxThreads(WORKERS);
+
+		JobChangeAdapter listener= new JobChangeAdapter() {
+			public void running(IJobChangeEvent event) {
+				if (CorextMessages.ASTBatchParser_job_name.equals(event.getJob().getName()))
+					fThreads.add(Thread.currentThread());
+			}
+		};
+		Job.getJobManager().addJobChangeListener(listener);
+		try {
+			PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+			ResourcesPlugin.getWorkspace().run(operation, null);
+			assertFalse(operation.getConditionStatus().hasFatalError());
+		} finally {
+			Job.getJobManager().removeJobChangeListener(listener);
+		}
+
+		assertEquals(UNITS, fixThreads.size());
+		for (int i= 0; i < fixThreads.size(); i++)
+			assertSame(fCallingThread, fixThreads.get(i));
+		assertFalse(fThreads.isEmpty());
+		assertFalse(fThreads.contains(fCallingThread));
+	}
+}
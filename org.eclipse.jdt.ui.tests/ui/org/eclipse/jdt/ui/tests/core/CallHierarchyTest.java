@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,19 +13,25 @@ package org.eclipse.jdt.ui.tests.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IInitializer;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.SearchEngine;
 
 import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerIndex;
 import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyTestHelper;
@@ -179,6 +185,75 @@ public class CallHierarchyTest extends TestCase {
         assertRecursive(callsTo1, true);
     }
 
+    public void testIndexedCallers() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method= helper.getMethod1();
+
+        Collection expectedMethods= new ArrayList();
+        expectedMethods.add(helper.getMethod2());
+        expectedMethods.add(helper.getMethod3());
+
+        CallHierarchy.getDefault().setCallerIndexEnabled(true);
+        try {
+            Job.getJobManager().join(CallerIndex.class, null);
+            assertTrue("index not up to date", CallerIndex.getDefault().isUpToDate());
+
+            Map callers= CallerIndex.getDefault().getCallers(method, SearchEngine.createWorkspaceScope());
+            assertNotNull(callers);
+            assertEquals(2, callers.size());
+
+            MethodWrapper wrapper= getSingleCallerRoot(method);
+            helper.assertCalls(expectedMethods, wrapper.getCalls(new NullProgressMonitor()));
+
+            // a new caller is indexed incrementally
+            IType typeC= helper.getPackage1().getCompilationUnit("C.java").createType(
+                    "public class C {\n public void method5(A a) { a.method1(); }\n}\n", null, true, null);
+            Job.getJobManager().join(CallerIndex.class, null);
+            assertTrue("index not up to date", CallerIndex.getDefault().isUpToDate());
+
+            expectedMethods.add(typeC.getMethod("method5", new String[] { "QA;" }));
+            wrapper= getSingleCallerRoot(method);
+            helper.assertCalls(expectedMethods, wrapper.getCalls(new NullProgressMonitor()));
+        } finally {
+            CallHierarchy.getDefault().setCallerIndexEnabled(false);
+        }
+    }
+
+    public void testIndexedCallersAfterSuperTypeChange() throws Exception {
+        helper.createPackages();
+
+        IPackageFragment pack1= helper.getPackage1();
+        IType typeP= pack1.getCompilationUnit("P.java").createType("public class P {\n public void m() { }\n}\n", null, true, null);
+        IType typeQ= pack1.getCompilationUnit("Q.java").createType("public class Q {\n public void m() { }\n}\n", null, true, null);
+        ICompilationUnit cuS= pack1.getCompilationUnit("S.java");
+        cuS.createType("public class S extends P {\n}\n", null, true, null);
+        IType typeU= pack1.getCompilationUnit("U.java").createType("public class U {\n public void caller(S s) { s.m(); }\n}\n", null, true, null);
+        IMethod caller= typeU.getMethod("caller", new String[] { "QS;" });
+
+        CallHierarchy.getDefault().setCallerIndexEnabled(true);
+        try {
+            Job.getJobManager().join(CallerIndex.class, null);
+            assertTrue("index not up to date", CallerIndex.getDefault().isUpToDate());
+            Map callers= CallerIndex.getDefault().getCallers(typeP.getMethod("m", EMPTY), SearchEngine.createWorkspaceScope());
+            assertEquals(1, callers.size());
+            assertTrue(callers.containsKey(caller.getHandleIdentifier()));
+
+            // U does not change, but its call now resolves to the method inherited from Q
+            cuS.createType("public class S extends Q {\n}\n", null, true, null);
+            Job.getJobManager().join(CallerIndex.class, null);
+            assertTrue("index not up to date", CallerIndex.getDefault().isUpToDate());
+
+            callers= CallerIndex.getDefault().getCallers(typeP.getMethod("m", EMPTY), SearchEngine.createWorkspaceScope());
+            assertEquals(0, callers.size());
+            callers= CallerIndex.getDefault().getCallers(typeQ.getMethod("m", EMPTY), SearchEngine.createWorkspaceScope());
+            assertEquals(1, callers.size());
+            assertTrue(callers.containsKey(caller.getHandleIdentifier()));
+        } finally {
+            CallHierarchy.getDefault().setCallerIndexEnabled(false);
+        }
+    }
+
     public void testRecursiveCallees() throws Exception {
         helper.createSimpleClasses();
 
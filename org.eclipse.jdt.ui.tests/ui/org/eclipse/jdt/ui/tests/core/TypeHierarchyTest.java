@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,7 @@ import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
@@ -286,7 +287,46 @@ public class TypeHierarchyTest extends TestCase {
 
 	}
 
+	public void testSuperTypeHierarchyCache() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+
+		ICompilationUnit cu1= pack1.getCompilationUnit("A.java");
+		IType type1= cu1.createType("public class A {\n}\n", null, true, null);
+
+		ICompilationUnit cu2= pack1.getCompilationUnit("B.java");
+		IType type2= cu2.createType("public class B extends A {\n}\n", null, true, null);
 
+		ICompilationUnit cu3= pack1.getCompilationUnit("C.java");
+		IType type3= cu3.createType("public class C {\n}\n", null, true, null);
 
+		SuperTypeHierarchyCache.clear();
+		int maxWeight= SuperTypeHierarchyCache.getMaxWeight();
+		try {
+			ITypeHierarchy hierarchy= SuperTypeHierarchyCache.getTypeHierarchy(type2);
+			assertEquals(1, SuperTypeHierarchyCache.getCacheMisses());
+			assertEquals(3, SuperTypeHierarchyCache.getWeight());
+
+			// the super type is found in the hierarchy of the subtype
+			assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(type1));
+			assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(type2));
+			assertEquals(2, SuperTypeHierarchyCache.getCacheHits());
+			assertSame(SuperTypeHierarchyCache.getMethodOverrideTester(type2), SuperTypeHierarchyCache.getMethodOverrideTester(type2));
+
+			// the least recently used hierarchy is evicted
+			SuperTypeHierarchyCache.setMaxWeight(4);
+			SuperTypeHierarchyCache.getTypeHierarchy(type3);
+			assertEquals(1, SuperTypeHierarchyCache.getEvictions());
+			assertFalse(SuperTypeHierarchyCache.hasInCache(type2));
+			assertTrue(SuperTypeHierarchyCache.hasInCache(type3));
+
+			// a changed hierarchy is removed
+			type3.delete(true, null);
+			assertFalse(SuperTypeHierarchyCache.hasInCache(type3));
+		} finally {
+			SuperTypeHierarchyCache.setMaxWeight(maxWeight);
+			SuperTypeHierarchyCache.clear();
+		}
+	}
 
 }
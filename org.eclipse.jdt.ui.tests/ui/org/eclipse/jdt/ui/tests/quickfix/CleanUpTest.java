@@ -42,6 +42,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpStateStore;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
@@ -8606,4 +8607,82 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertRefactoringResultAsExpected(new ICompilationUnit[] { cu1, cu2 }, new String[] { expected1, expected2 });
 	}
 
+	public void testIncremental() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    public void foo() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+		String expected1= buf.toString();
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+		String expected2= buf.toString();
+
+		CleanUpStateStore.getDefault().remove(cu1);
+		CleanUpStateStore.getDefault().remove(cu2);
+
+		enable(CleanUpConstants.FORMAT_REMOVE_TRAILING_WHITESPACES);
+		enable(CleanUpConstants.FORMAT_REMOVE_TRAILING_WHITESPACES_ALL);
+		enable(CleanUpConstants.SKIP_UNCHANGED_COMPILATION_UNITS);
+
+		ICompilationUnit[] cus= new ICompilationUnit[] { cu1, cu2 };
+		RefactoringStatus status= performRefactoring(cus);
+		assertFalse(status.hasInfo());
+
+		status= performRefactoring(cus);
+		assertTrue(status.hasInfo());
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {    \n");
+		buf.append("    public void foo() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		cu1.getBuffer().setContents(buf.toString());
+		cu1.save(null, true);
+
+		status= performRefactoring(cus);
+		assertTrue(status.hasInfo());
+
+		assertEqualStringsIgnoreOrder(new String[] { cu1.getBuffer().getContents(), cu2.getBuffer().getContents() }, new String[] { expected1, expected2 });
+	}
+
+	public void testIncrementalNotForBindings() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    public String s1 = \"\"; //$NON-NLS-1$\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("    public String s2 = \"\"; //$NON-NLS-1$\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		CleanUpStateStore.getDefault().remove(cu1);
+		CleanUpStateStore.getDefault().remove(cu2);
+
+		enable(CleanUpConstants.ADD_MISSING_NLS_TAGS);
+		enable(CleanUpConstants.SKIP_UNCHANGED_COMPILATION_UNITS);
+
+		// the clean up needs bindings, which can change with other compilation units
+		ICompilationUnit[] cus= new ICompilationUnit[] { cu1, cu2 };
+		RefactoringStatus status= performRefactoring(cus);
+		assertFalse(status.hasInfo());
+
+		status= performRefactoring(cus);
+		assertFalse(status.hasInfo());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,4 +38,7 @@ public final class CorextMessages extends NLS {
 	}
 
 	public static String JavaModelUtil_applyedit_operation;
+
+	public static String SuperTypeHierarchyCache_prefetch_job_name;
+	public static String ASTBatchParser_job_name;
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -43,6 +44,13 @@ import org.eclipse.jdt.internal.ui.util.StringMatcher;
 
 public class CallHierarchy {
     private static final String PREF_USE_IMPLEMENTORS= "PREF_USE_IMPLEMENTORS"; //$NON-NLS-1$
+    /**
+     * Preference key for whether the callers of methods are looked up in the {@link CallerIndex}.
+     * The value is a boolean and defaults to <code>false</code>.
+     *
+     * @since 3.9
+     */
+    public static final String PREF_USE_CALLER_INDEX= "PREF_USE_CALLER_INDEX"; //$NON-NLS-1$
     private static final String PREF_USE_FILTERS = "PREF_USE_FILTERS"; //$NON-NLS-1$
     private static final String PREF_FILTERS_LIST = "PREF_FILTERS_LIST"; //$NON-NLS-1$
 
@@ -71,6 +79,55 @@ public class CallHierarchy {
         settings.setValue(PREF_USE_IMPLEMENTORS, enabled);
     }
 
+    /**
+     * Tells whether the callers of methods are looked up in the {@link CallerIndex}
+     * before searching.
+     *
+     * @return <code>true</code> if the caller index is used
+     * @since 3.9
+     */
+    public boolean isCallerIndexEnabled() {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        return settings.getBoolean(PREF_USE_CALLER_INDEX);
+    }
+
+    /**
+     * Sets whether the callers of methods are looked up in the {@link CallerIndex}
+     * before searching. Enabling the index starts to build it in the background.
+     *
+     * @param enabled <code>true</code> to use the caller index
+     * @since 3.9
+     */
+    public void setCallerIndexEnabled(boolean enabled) {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        settings.setValue(PREF_USE_CALLER_INDEX, enabled);
+        if (enabled) {
+            CallerIndex.getDefault().install();
+        } else {
+            CallerIndex.shutdown();
+        }
+    }
+
+    /**
+     * Returns the callers of a method from the {@link CallerIndex}.
+     *
+     * @param method the called method
+     * @param scope the scope the callers must be enclosed in
+     * @return a map from handle identifier to {@link MethodCall}, or <code>null</code>
+     *   if the index is disabled or not up to date
+     * @since 3.9
+     */
+    Map<String, MethodCall> getIndexedCallers(IMethod method, IJavaSearchScope scope) {
+        if (!isCallerIndexEnabled())
+            return null;
+
+        CallerIndex index= CallerIndex.getDefault();
+        index.install();
+        return index.getCallers(method, scope);
+    }
+
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
         if (isSearchUsingImplementorsEnabled()) {
             IJavaElement[] result = Implementors.getInstance().searchForImplementors(new IJavaElement[] {
@@ -0,0 +1,837 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+
+import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
+import org.eclipse.jdt.internal.corext.dom.Bindings;
+import org.eclipse.jdt.internal.corext.dom.ConcurrentASTRequestor;
+import org.eclipse.jdt.internal.corext.dom.HierarchicalASTVisitor;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * An index from methods declared in source to the locations that call them. The index
+ * answers the caller queries of the call hierarchy without searching the workspace.
+ * <p>
+ * The index is built in the background from ASTs of all compilation units on the source
+ * folders of the Java projects in the workspace. It is kept up to date from Java element
+ * deltas: changed compilation units are indexed again, from the AST of the reconcile if
+ * available. When the methods declared in a compilation unit change, the units that
+ * contain calls with the same names are indexed again as well, since their calls may
+ * now resolve to a different method. When the super types of a type change, the units that
+ * contain calls with the names of the methods inherited before or after the change are indexed
+ * again. Changes to the build path rebuild the whole index.
+ * </p>
+ * <p>
+ * The calls are keyed by the binding key of the called method declaration. To keep the index
+ * small, a call only refers to the calling member by its index in a table of the unit.  Calls from
+ * class files are not indexed. While the index is not up to date, {@link #getCallers(IMethod, IJavaSearchScope)}
+ * returns <code>null</code> and clients fall back to searching.
+ * </p>
+ *
+ * @since 3.9
+ */
+public class CallerIndex implements IElementChangedListener {
+
+	/**
+	 * The delay before changed compilation units are indexed again.
+	 */
+	private static final long UPDATE_DELAY= 500;
+
+	private static final String[] NO_KEYS= new String[0];
+
+	private static CallerIndex fgDefault;
+
+	/**
+	 * A call of a method. The strings are shared by the references of a unit.
+	 */
+	private static final class Reference {
+		final String fCalledKey;
+		/**
+		 * The index of the handle identifier of the calling member in {@link UnitInfo#fCallerHandles}
+		 */
+		final int fCaller;
+		final int fStart;
+		final int fEnd;
+		final int fLineNumber;
+
+		Reference(String calledKey, int caller, int start, int end, int lineNumber) {
+			fCalledKey= calledKey;
+			fCaller= caller;
+			fStart= start;
+			fEnd= end;
+			fLineNumber= lineNumber;
+		}
+	}
+
+	/**
+	 * What the index knows about a compilation unit.
+	 */
+	private static final class UnitInfo {
+		Reference[] fReferences;
+		/**
+		 * The handle identifiers of the calling members, each only once
+		 */
+		String[] fCallerHandles;
+		/**
+		 * The binding keys of the called methods
+		 */
+		String[] fCalledKeys;
+		/**
+		 * The names of the called methods
+		 */
+		String[] fCalledNames;
+		/**
+		 * Maps the handle identifiers of the declared methods to their binding keys
+		 */
+		Map<String, String> fMethodKeys;
+		/**
+		 * Maps the binding keys and modifiers of the declared methods to their names
+		 */
+		Map<String, String> fDeclarations;
+		/**
+		 * Maps the binding keys of the declared types to their super types
+		 */
+		Map<String, String> fSuperTypes;
+		/**
+		 * Maps the binding keys of the declared types to the names of the methods declared in their super types
+		 */
+		Map<String, String[]> fInheritedNames;
+	}
+
+	/**
+	 * Collects the calls and declarations in an AST.
+	 */
+	private static final class UnitInfoCollector extends HierarchicalASTVisitor {
+
+		private final ICompilationUnit fUnit;
+		private final CompilationUnit fAST;
+		private final List<Reference> fReferences= new ArrayList<Reference>();
+		private final List<String> fCallerHandles= new ArrayList<String>();
+		/**
+		 * Maps the handle identifiers of the calling members to their indices in {@link #fCallerHandles}
+		 */
+		private final Map<String, Integer> fCallerIndices= new HashMap<String, Integer>();
+		/**
+		 * Maps the binding keys of the called methods to themselves, such that the references share them
+		 */
+		private final Map<String, String> fCalledKeys= new HashMap<String, String>();
+		private final Set<String> fCalledNames= new HashSet<String>();
+		private final Map<String, String> fMethodKeys= new HashMap<String, String>();
+		private final Map<String, String> fDeclarations= new HashMap<String, String>();
+		private final Map<String, String> fSuperTypes= new HashMap<String, String>();
+		private final Map<String, String[]> fInheritedNames= new HashMap<String, String[]>();
+
+		public UnitInfoCollector(ICompilationUnit unit, CompilationUnit ast) {
+			fUnit= unit;
+			fAST= ast;
+		}
+
+		public UnitInfo collect() {
+			fAST.accept(this);
+			UnitInfo info= new UnitInfo();
+			info.fReferences= fReferences.toArray(new Reference[fReferences.size()]);
+			info.fCallerHandles= fCallerHandles.toArray(new String[fCallerHandles.size()]);
+			info.fCalledKeys= fCalledKeys.keySet().toArray(new String[fCalledKeys.size()]);
+			info.fCalledNames= fCalledNames.toArray(new String[fCalledNames.size()]);
+			info.fMethodKeys= fMethodKeys;
+			info.fDeclarations= fDeclarations;
+			info.fSuperTypes= fSuperTypes;
+			info.fInheritedNames= fInheritedNames;
+			return info;
+		}
+
+		@Override
+		public boolean visit(MethodInvocation node) {
+			addReference(node.resolveMethodBinding(), node.getName(), node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperMethodInvocation node) {
+			addReference(node.resolveMethodBinding(), node.getName(), node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(ClassInstanceCreation node) {
+			addReference(node.resolveConstructorBinding(), node, node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(ConstructorInvocation node) {
+			addReference(node.resolveConstructorBinding(), node, node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperConstructorInvocation node) {
+			addReference(node.resolveConstructorBinding(), node, node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(EnumConstantDeclaration node) {
+			addReference(node.resolveConstructorBinding(), node.getName(), node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(AbstractTypeDeclaration node) {
+			ITypeBinding binding= node.resolveBinding();
+			if (binding != null && !binding.isLocal()) {
+				StringBuffer buf= new StringBuffer();
+				Set<String> inheritedNames= new HashSet<String>();
+				Set<String> visited= new HashSet<String>();
+				ITypeBinding superclass= binding.getSuperclass();
+				if (superclass != null) {
+					buf.append(superclass.getErasure().getKey());
+					addMethodNames(superclass.getErasure(), inheritedNames, visited);
+				}
+				ITypeBinding[] interfaces= binding.getInterfaces();
+				for (int i= 0; i < interfaces.length; i++) {
+					buf.append(',').append(interfaces[i].getErasure().getKey());
+					addMethodNames(interfaces[i].getErasure(), inheritedNames, visited);
+				}
+				fSuperTypes.put(binding.getKey(), buf.toString());
+				fInheritedNames.put(binding.getKey(), inheritedNames.toArray(new String[inheritedNames.size()]));
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(MethodDeclaration node) {
+			IMethodBinding binding= node.resolveBinding();
+			if (binding != null) {
+				String key= binding.getKey();
+				fDeclarations.put(key + '#' + binding.getModifiers(), binding.getName());
+				IJavaElement method= binding.getJavaElement();
+				if (method != null)
+					fMethodKeys.put(method.getHandleIdentifier(), key);
+			}
+			return true;
+		}
+
+		/**
+		 * Adds a call. Like a search match, the reported range starts at the name of the
+		 * called method if there is one.
+		 *
+		 * @param binding the binding of the called method or constructor, or <code>null</code>
+		 * @param from the node where the reported range starts
+		 * @param node the node of the call
+		 */
+		private void addReference(IMethodBinding binding, ASTNode from, ASTNode node) {
+			if (binding != null && binding.isConstructor() && binding.getDeclaringClass().isAnonymous())
+				binding= getSuperConstructor(binding);
+			if (binding == null)
+				return;
+			IMethodBinding declaration= binding.getMethodDeclaration();
+			int start= from.getStartPosition();
+			int end= node.getStartPosition() + node.getLength();
+			try {
+				IJavaElement caller= fUnit.getElementAt(start);
+				if (caller == null)
+					return;
+				switch (caller.getElementType()) {
+					case IJavaElement.METHOD:
+					case IJavaElement.TYPE:
+					case IJavaElement.FIELD:
+					case IJavaElement.INITIALIZER:
+						break;
+					default:
+						return;
+				}
+				String key= declaration.getKey();
+				String sharedKey= fCalledKeys.get(key);
+				if (sharedKey == null) {
+					sharedKey= key;
+					fCalledKeys.put(key, key);
+				}
+				fReferences.add(new Reference(sharedKey, getCallerIndex(caller), start, end, fAST.getLineNumber(start)));
+				fCalledNames.add(declaration.getName());
+			} catch (JavaModelException e) {
+				// the compilation unit went away, it will be indexed again
+			}
+		}
+
+		private int getCallerIndex(IJavaElement caller) {
+			String handle= caller.getHandleIdentifier();
+			Integer index= fCallerIndices.get(handle);
+			if (index == null) {
+				index= new Integer(fCallerHandles.size());
+				fCallerHandles.add(handle);
+				fCallerIndices.put(handle, index);
+			}
+			return index.intValue();
+		}
+
+		/**
+		 * Adds the names of the methods declared in a type and its super types.
+		 *
+		 * @param type the erasure of the type
+		 * @param names the names of the methods
+		 * @param visited the binding keys of the types visited so far
+		 */
+		private static void addMethodNames(ITypeBinding type, Set<String> names, Set<String> visited) {
+			if (!visited.add(type.getKey()))
+				return;
+			IMethodBinding[] methods= type.getDeclaredMethods();
+			for (int i= 0; i < methods.length; i++) {
+				if (!methods[i].isConstructor())
+					names.add(methods[i].getName());
+			}
+			ITypeBinding superclass= type.getSuperclass();
+			if (superclass != null)
+				addMethodNames(superclass.getErasure(), names, visited);
+			ITypeBinding[] interfaces= type.getInterfaces();
+			for (int i= 0; i < interfaces.length; i++) {
+				addMethodNames(interfaces[i].getErasure(), names, visited);
+			}
+		}
+
+		/**
+		 * Returns the constructor of the super class that is called by the constructor
+		 * of an anonymous class.
+		 *
+		 * @param constructor the constructor of the anonymous class
+		 * @return the constructor of the super class, or <code>null</code> if not found
+		 */
+		private static IMethodBinding getSuperConstructor(IMethodBinding constructor) {
+			ITypeBinding superclass= constructor.getDeclaringClass().getSuperclass();
+			if (superclass == null)
+				return null;
+			IMethodBinding[] methods= superclass.getDeclaredMethods();
+			for (int i= 0; i < methods.length; i++) {
+				if (methods[i].isConstructor() && Bindings.equals(methods[i].getParameterTypes(), constructor.getParameterTypes()))
+					return methods[i];
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Indexes changed compilation units, or all compilation units if the index is rebuilt.
+	 */
+	private final class IndexJob extends Job {
+
+		public IndexJob() {
+			super(CallHierarchyMessages.CallerIndex_job_name);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == CallerIndex.class;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			ICompilationUnit[] units= null;
+			boolean rebuild;
+			synchronized (CallerIndex.this) {
+				if (!fInstalled)
+					return Status.OK_STATUS;
+				rebuild= fRebuild;
+				if (rebuild) {
+					fRebuild= false;
+					fComplete= false;
+					fDirty.clear();
+					clear();
+				} else {
+					String[] handles= fDirty.toArray(new String[fDirty.size()]);
+					fDirty.clear();
+					List<ICompilationUnit> existing= new ArrayList<ICompilationUnit>();
+					for (int i= 0; i < handles.length; i++) {
+						ICompilationUnit unit= (ICompilationUnit) JavaCore.create(handles[i]);
+						if (unit != null && unit.exists()) {
+							existing.add(unit);
+							fIndexing.add(handles[i]);
+						} else {
+							update(handles[i], null);
+						}
+					}
+					units= existing.toArray(new ICompilationUnit[existing.size()]);
+				}
+			}
+			try {
+				if (rebuild) {
+					units= getAllCompilationUnits();
+					synchronized (CallerIndex.this) {
+						for (int i= 0; i < units.length; i++) {
+							fIndexing.add(units[i].getHandleIdentifier());
+						}
+					}
+				}
+				index(units, monitor);
+				synchronized (CallerIndex.this) {
+					// units without an AST, e.g. because they were deleted in the meantime
+					for (Iterator<String> iter= fIndexing.iterator(); iter.hasNext();) {
+						update(iter.next(), null);
+					}
+					fIndexing.clear();
+					if (rebuild)
+						fComplete= true;
+				}
+			} catch (OperationCanceledException e) {
+				synchronized (CallerIndex.this) {
+					fDirty.addAll(fIndexing);
+					fIndexing.clear();
+					if (rebuild)
+						fRebuild= true;
+				}
+				return Status.CANCEL_STATUS;
+			} catch (JavaModelException e) {
+				JavaPlugin.log(e);
+				synchronized (CallerIndex.this) {
+					fIndexing.clear();
+					fRebuild= true;
+				}
+			}
+			synchronized (CallerIndex.this) {
+				if (fInstalled && (fRebuild || !fDirty.isEmpty()))
+					schedule(UPDATE_DELAY);
+			}
+			return Status.OK_STATUS;
+		}
+
+		private void index(ICompilationUnit[] units, IProgressMonitor monitor) {
+			new ASTBatchParser(true).createASTs(units, NO_KEYS, new ConcurrentASTRequestor<UnitInfo>() {
+				@Override
+				public UnitInfo process(ICompilationUnit source, CompilationUnit ast) {
+					return new UnitInfoCollector(source, ast).collect();
+				}
+
+				@Override
+				public void accept(ICompilationUnit source, UnitInfo result) {
+					String handle= source.getHandleIdentifier();
+					synchronized (CallerIndex.this) {
+						if (fIndexing.remove(handle))
+							update(handle, result);
+					}
+				}
+			}, monitor);
+		}
+	}
+
+	private final IndexJob fJob;
+
+	private boolean fInstalled;
+	private boolean fComplete;
+	private boolean fRebuild;
+
+	/**
+	 * The indexed compilation units by handle identifier
+	 */
+	private final Map<String, UnitInfo> fUnits= new HashMap<String, UnitInfo>();
+	/**
+	 * Maps the binding keys of called methods to the handle identifiers of the units that call them
+	 */
+	private final Map<String, Set<String>> fCallers= new HashMap<String, Set<String>>();
+	/**
+	 * Maps the names of called methods to the handle identifiers of the units that call them
+	 */
+	private final Map<String, Set<String>> fNames= new HashMap<String, Set<String>>();
+	/**
+	 * Maps the handle identifiers of methods declared in the indexed units to their binding keys
+	 */
+	private final Map<String, String> fMethodKeys= new HashMap<String, String>();
+	/**
+	 * The handle identifiers of the units that need to be indexed again
+	 */
+	private final Set<String> fDirty= new LinkedHashSet<String>();
+	/**
+	 * The handle identifiers of the units that are being indexed
+	 */
+	private final Set<String> fIndexing= new HashSet<String>();
+
+	public static synchronized CallerIndex getDefault() {
+		if (fgDefault == null)
+			fgDefault= new CallerIndex();
+		return fgDefault;
+	}
+
+	/**
+	 * Uninstalls the default index if it has been used.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			fgDefault.uninstall();
+			fgDefault= null;
+		}
+	}
+
+	private CallerIndex() {
+		fJob= new IndexJob();
+	}
+
+	/**
+	 * Starts to build the index and to track changes. Does nothing if the index is already installed.
+	 */
+	public synchronized void install() {
+		if (fInstalled)
+			return;
+		fInstalled= true;
+		fRebuild= true;
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		fJob.schedule();
+	}
+
+	/**
+	 * Stops tracking changes and discards the index.
+	 */
+	public void uninstall() {
+		synchronized (this) {
+			if (!fInstalled)
+				return;
+			fInstalled= false;
+			JavaCore.removeElementChangedListener(this);
+			fJob.cancel();
+		}
+		try {
+			fJob.join();
+		} catch (InterruptedException e) {
+			// the job checks whether the index is still installed
+		}
+		synchronized (this) {
+			clear();
+			fComplete= false;
+			fRebuild= false;
+			fDirty.clear();
+			fIndexing.clear();
+		}
+	}
+
+	/**
+	 * Tells whether the index is complete and up to date.
+	 *
+	 * @return <code>true</code> if the index can answer queries
+	 */
+	public synchronized boolean isUpToDate() {
+		return fInstalled && fComplete && !fRebuild && fDirty.isEmpty() && fIndexing.isEmpty();
+	}
+
+	/**
+	 * Returns the callers of a method declared in source.
+	 *
+	 * @param method the called method
+	 * @param scope the scope the callers must be enclosed in
+	 * @return a map from handle identifier to {@link MethodCall}, or <code>null</code> if the
+	 *   index is not up to date or does not know the method
+	 */
+	public Map<String, MethodCall> getCallers(IMethod method, IJavaSearchScope scope) {
+		List<Reference> references= new ArrayList<Reference>();
+		List<String> callerHandles= new ArrayList<String>();
+		synchronized (this) {
+			if (!isUpToDate())
+				return null;
+			String key= fMethodKeys.get(method.getHandleIdentifier());
+			if (key == null)
+				return null;
+			Set<String> units= fCallers.get(key);
+			if (units != null) {
+				for (Iterator<String> iter= units.iterator(); iter.hasNext();) {
+					UnitInfo info= fUnits.get(iter.next());
+					Reference[] unitReferences= info.fReferences;
+					for (int i= 0; i < unitReferences.length; i++) {
+						if (key.equals(unitReferences[i].fCalledKey)) {
+							references.add(unitReferences[i]);
+							callerHandles.add(info.fCallerHandles[unitReferences[i].fCaller]);
+						}
+					}
+				}
+			}
+		}
+
+		CallSearchResultCollector collector= new CallSearchResultCollector();
+		Map<String, IJavaElement> callers= new HashMap<String, IJavaElement>();
+		for (int i= 0; i < references.size(); i++) {
+			Reference reference= references.get(i);
+			String handle= callerHandles.get(i);
+			IJavaElement caller= callers.get(handle);
+			if (caller == null) {
+				caller= JavaCore.create(handle);
+				callers.put(handle, caller);
+			}
+			if (caller instanceof IMember && scope.encloses(caller)) {
+				IMember member= (IMember) caller;
+				collector.addMember(member, member, reference.fStart, reference.fEnd, reference.fLineNumber);
+			}
+		}
+		return collector.getCallers();
+	}
+
+	/*
+	 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		IJavaElementDelta delta= event.getDelta();
+		if (event.getType() == ElementChangedEvent.POST_RECONCILE) {
+			reconciled(delta);
+		} else {
+			synchronized (this) {
+				processDelta(delta);
+			}
+		}
+		synchronized (this) {
+			if (fInstalled && (fRebuild || !fDirty.isEmpty()))
+				fJob.schedule(UPDATE_DELAY);
+		}
+	}
+
+	private void reconciled(IJavaElementDelta delta) {
+		ICompilationUnit unit= (ICompilationUnit) delta.getElement();
+		if (unit.getOwner() != null)
+			return; // not a primary working copy
+		String handle= unit.getPrimary().getHandleIdentifier();
+		CompilationUnit ast= delta.getCompilationUnitAST();
+		if (ast == null || !ast.getAST().hasResolvedBindings()) {
+			synchronized (this) {
+				fDirty.add(handle);
+			}
+			return;
+		}
+		UnitInfo info= new UnitInfoCollector(unit, ast).collect();
+		synchronized (this) {
+			if (!fInstalled)
+				return;
+			update(handle, info);
+			fDirty.remove(handle);
+			if (fIndexing.contains(handle))
+				fDirty.add(handle); // the job may have parsed an older content
+		}
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+						| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					fRebuild= true;
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+						| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER)) != 0) {
+					fRebuild= true;
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind == IJavaElementDelta.ADDED) {
+					try {
+						ICompilationUnit[] units= ((IPackageFragment) element).getCompilationUnits();
+						for (int i= 0; i < units.length; i++) {
+							fDirty.add(units[i].getHandleIdentifier());
+						}
+					} catch (JavaModelException e) {
+						fRebuild= true;
+					}
+					return;
+				} else if (kind == IJavaElementDelta.REMOVED) {
+					String prefix= element.getHandleIdentifier();
+					for (Iterator<String> iter= fUnits.keySet().iterator(); iter.hasNext();) {
+						String handle= iter.next();
+						if (handle.startsWith(prefix) && handle.length() > prefix.length() && handle.charAt(prefix.length()) == '{')
+							fDirty.add(handle);
+					}
+					return;
+				}
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit= (ICompilationUnit) element;
+				if (unit.getOwner() != null)
+					return; // not a primary working copy
+				if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_WORKING_COPY
+						| IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_CHILDREN)) != 0) {
+					fDirty.add(unit.getPrimary().getHandleIdentifier());
+				}
+				return;
+			default:
+				return;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+		}
+	}
+
+	/**
+	 * Replaces the information about a compilation unit and marks the units as dirty
+	 * whose calls may now resolve differently. Must be called while holding the lock.
+	 *
+	 * @param handle the handle identifier of the compilation unit
+	 * @param info the new information, or <code>null</code> if the unit is gone
+	 */
+	private void update(String handle, UnitInfo info) {
+		UnitInfo old= info != null ? fUnits.put(handle, info) : fUnits.remove(handle);
+		if (old != null)
+			unregister(handle, old);
+		if (info != null)
+			register(handle, info);
+
+		if (!fComplete)
+			return; // all units are being indexed
+
+		Map<String, String> oldDeclarations= old != null ? old.fDeclarations : new HashMap<String, String>(0);
+		Map<String, String> newDeclarations= info != null ? info.fDeclarations : new HashMap<String, String>(0);
+		Set<String> changedNames= new HashSet<String>();
+		if (old != null && info != null) {
+			for (Iterator<Map.Entry<String, String>> iter= info.fSuperTypes.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, String> entry= iter.next();
+				String type= entry.getKey();
+				String oldSuperTypes= old.fSuperTypes.get(type);
+				if (oldSuperTypes != null && !oldSuperTypes.equals(entry.getValue())) {
+					// a call 'c.m()' in another unit may now resolve to a different inherited 'm'
+					addAll(old.fInheritedNames.get(type), changedNames);
+					addAll(info.fInheritedNames.get(type), changedNames);
+				}
+			}
+		}
+		addChangedNames(oldDeclarations, newDeclarations, changedNames);
+		addChangedNames(newDeclarations, oldDeclarations, changedNames);
+		for (Iterator<String> iter= changedNames.iterator(); iter.hasNext();) {
+			Set<String> units= fNames.get(iter.next());
+			if (units != null)
+				fDirty.addAll(units);
+		}
+		fDirty.remove(handle);
+	}
+
+	private static void addAll(String[] names, Set<String> set) {
+		for (int i= 0; i < names.length; i++) {
+			set.add(names[i]);
+		}
+	}
+
+	private static void addChangedNames(Map<String, String> declarations, Map<String, String> others, Set<String> changedNames) {
+		for (Iterator<Map.Entry<String, String>> iter= declarations.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, String> entry= iter.next();
+			if (!others.containsKey(entry.getKey()))
+				changedNames.add(entry.getValue());
+		}
+	}
+
+	private void register(String handle, UnitInfo info) {
+		for (int i= 0; i < info.fCalledKeys.length; i++) {
+			addToSet(fCallers, info.fCalledKeys[i], handle);
+		}
+		for (int i= 0; i < info.fCalledNames.length; i++) {
+			addToSet(fNames, info.fCalledNames[i], handle);
+		}
+		fMethodKeys.putAll(info.fMethodKeys);
+	}
+
+	private void unregister(String handle, UnitInfo info) {
+		for (int i= 0; i < info.fCalledKeys.length; i++) {
+			removeFromSet(fCallers, info.fCalledKeys[i], handle);
+		}
+		for (int i= 0; i < info.fCalledNames.length; i++) {
+			removeFromSet(fNames, info.fCalledNames[i], handle);
+		}
+		fMethodKeys.keySet().removeAll(info.fMethodKeys.keySet());
+	}
+
+	private static void addToSet(Map<String, Set<String>> map, String key, String value) {
+		Set<String> set= map.get(key);
+		if (set == null) {
+			set= new HashSet<String>();
+			map.put(key, set);
+		}
+		set.add(value);
+	}
+
+	private static void removeFromSet(Map<String, Set<String>> map, String key, String value) {
+		Set<String> set= map.get(key);
+		if (set != null) {
+			set.remove(value);
+			if (set.isEmpty())
+				map.remove(key);
+		}
+	}
+
+	private void clear() {
+		fUnits.clear();
+		fCallers.clear();
+		fNames.clear();
+		fMethodKeys.clear();
+	}
+
+	private static ICompilationUnit[] getAllCompilationUnits() throws JavaModelException {
+		Set<ICompilationUnit> result= new LinkedHashSet<ICompilationUnit>();
+		IJavaProject[] projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+		for (int i= 0; i < projects.length; i++) {
+			IPackageFragmentRoot[] roots= projects[i].getPackageFragmentRoots();
+			for (int j= 0; j < roots.length; j++) {
+				if (roots[j].getKind() != IPackageFragmentRoot.K_SOURCE)
+					continue;
+				IJavaElement[] fragments= roots[j].getChildren();
+				for (int k= 0; k < fragments.length; k++) {
+					ICompilationUnit[] units= ((IPackageFragment) fragments[k]).getCompilationUnits();
+					for (int l= 0; l < units.length; l++) {
+						result.add(units[l]);
+					}
+				}
+			}
+		}
+		return result.toArray(new ICompilationUnit[result.size()]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,24 +15,43 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.IBinding;
 
+import org.eclipse.jdt.internal.corext.CorextMessages;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 
 /**
  * Creates AST from a set of compilation units. Uses the
  * batch parser. Splits the set of compilation units in subsets
  * such that it is unlikely that a out of memory exception will occur.
+ * <p>
+ * In adaptive mode, the size of each subset is computed from the free heap
+ * and the size of the ASTs created so far, and the subsets are parsed concurrently
+ * by a bounded number of worker jobs. The requestor is still called by one thread
+ * at a time, namely the thread that called
+ * {@link #createASTs(ICompilationUnit[], String[], ASTRequestor, IProgressMonitor)}.
+ * </p>
  *
  * @since 3.4
  */
@@ -64,11 +83,75 @@ public class ASTBatchParser {
 		}
 	}
 
+	/**
+	 * The minimal and maximal number of compilation units parsed at once in adaptive mode
+	 */
+	private static final int MIN_ADAPTIVE_AT_ONCE= 10;
+	private static final int MAX_ADAPTIVE_AT_ONCE= 1000;
+
+	/**
+	 * The estimated heap usage of a compilation unit before any AST has been seen,
+	 * and the estimated heap usage per character of source once ASTs have been seen
+	 */
+	private static final long DEFAULT_BYTES_PER_UNIT= 512 * 1024;
+	private static final long BYTES_PER_SOURCE_CHAR= 64;
+
+	/**
+	 * The fraction of the free heap the parsers may use in adaptive mode
+	 */
+	private static final double HEADROOM_RATIO= 0.5;
+
+	/**
+	 * The default maximal number of worker jobs in adaptive mode
+	 */
+	private static final int MAX_WORKERS= 4;
+
+	private final boolean fAdaptive;
+	private int fMaxWorkers;
+
+	private long fObservedChars;
+	private int fObservedUnits;
+
+	/**
+	 * Creates a batch parser that parses the projects one after the other
+	 * in subsets of a fixed size.
+	 */
+	public ASTBatchParser() {
+		this(false);
+	}
+
+	/**
+	 * Creates a batch parser.
+	 *
+	 * @param adaptive <code>true</code> to size the subsets from the free heap and
+	 *   to parse them concurrently, <code>false</code> to parse the projects one after
+	 *   the other in subsets of a fixed size
+	 * @since 3.9
+	 */
+	public ASTBatchParser(boolean adaptive) {
+		fAdaptive= adaptive;
+		fMaxWorkers= Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Sets the maximal number of worker jobs that parse concurrently in adaptive mode.
+	 * The default is the number of processors, but at most 4.
+	 *
+	 * @param maxWorkers the maximal number of worker jobs, at least 1
+	 * @since 3.9
+	 */
+	public void setMaxWorkers(int maxWorkers) {
+		fMaxWorkers= Math.max(1, maxWorkers);
+	}
+
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
 	 * <p>
 	 * <code>ASTRequestor.acceptAST</code> is called in no particular order to
 	 * pass the compilation unit and the corresponding AST to <code>requestor</code>.
+	 * The requestor is always called in the thread that called this method, except for
+	 * {@link ConcurrentASTRequestor#process(ICompilationUnit, org.eclipse.jdt.core.dom.CompilationUnit)}
+	 * which is called by the worker jobs in adaptive mode.
 	 * </p>
 	 * <p>
 	 * The <code>bindingKeys</code> parameter specifies bindings keys
@@ -93,11 +176,16 @@ public class ASTBatchParser {
 		try {
 
 			ICompilationUnit[][] splited= splitByProject(compilationUnits);
+			if (fAdaptive) {
+				createASTsAdaptive(splited, compilationUnits.length, bindingKeys, requestor, monitor);
+				return;
+			}
 			for (int i= 0; i < splited.length; i++) {
 				ICompilationUnit[] units= splited[i];
 
 				if (units.length <= MAX_AT_ONCE) {
 					createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, new SubProgressMonitor(monitor, units.length));
+					RefactoringASTParser.recordParsed(units.length);
 				} else {
 					List<ICompilationUnit> list= Arrays.asList(units);
 					int end= 0;
@@ -108,6 +196,7 @@ public class ASTBatchParser {
 
 						createParser(units[0].getJavaProject()).createASTs(toParse.toArray(new ICompilationUnit[toParse.size()]), bindingKeys, requestor,
 								new SubProgressMonitor(monitor, toParse.size()));
+						RefactoringASTParser.recordParsed(toParse.size());
 						cursor= end;
 					}
 				}
@@ -117,11 +206,369 @@ public class ASTBatchParser {
 		}
 	}
 
+	private void createASTsAdaptive(ICompilationUnit[][] projects, int size, String[] bindingKeys, ASTRequestor requestor, IProgressMonitor monitor) {
+		int workers= Math.min(fMaxWorkers, (size - 1) / MIN_ADAPTIVE_AT_ONCE + 1);
+		ChunkProvider chunks= new ChunkProvider(projects, size, workers);
+		if (workers <= 1 || Job.getJobManager().isSuspended()) {
+			// the worker jobs would not run while the job manager is suspended
+			ICompilationUnit[] chunk;
+			while ((chunk= chunks.next()) != null) {
+				createParser(chunk[0].getJavaProject()).createASTs(chunk, bindingKeys, new ObservingRequestor(requestor), new SubProgressMonitor(monitor, chunk.length));
+				RefactoringASTParser.recordParsed(chunk.length);
+			}
+		} else {
+			new ParallelParse(chunks, workers, bindingKeys, requestor).run(monitor);
+		}
+	}
+
+	/**
+	 * Returns the number of compilation units to parse at once by one of
+	 * <code>workers</code> concurrent parsers.
+	 *
+	 * @param workers the number of concurrent parsers
+	 * @return the number of compilation units to parse at once
+	 */
+	private int computeChunkSize(int workers) {
+		Runtime runtime= Runtime.getRuntime();
+		long headroom= runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		long budget= (long) (headroom * HEADROOM_RATIO) / workers;
+		long size= budget / getBytesPerUnit();
+		return (int) Math.max(MIN_ADAPTIVE_AT_ONCE, Math.min(MAX_ADAPTIVE_AT_ONCE, size));
+	}
+
+	private synchronized long getBytesPerUnit() {
+		if (fObservedUnits == 0)
+			return DEFAULT_BYTES_PER_UNIT;
+		return Math.max(1, fObservedChars / fObservedUnits * BYTES_PER_SOURCE_CHAR);
+	}
+
+	private synchronized void observe(CompilationUnit ast) {
+		if (ast != null) {
+			fObservedChars+= ast.getLength();
+			fObservedUnits++;
+		}
+	}
+
+	/**
+	 * Hands out the subsets to parse. The size of a subset is computed when it is requested.
+	 */
+	private final class ChunkProvider {
+
+		private final LinkedList<ICompilationUnit[]> fProjects;
+		private final int fWorkers;
+		private int fOffset;
+		private int fRemaining;
+
+		public ChunkProvider(ICompilationUnit[][] projects, int size, int workers) {
+			fProjects= new LinkedList<ICompilationUnit[]>(Arrays.asList(projects));
+			fRemaining= size;
+			fWorkers= workers;
+		}
+
+		public synchronized ICompilationUnit[] next() {
+			if (fProjects.isEmpty())
+				return null;
+
+			ICompilationUnit[] units= fProjects.getFirst();
+			int balanced= (fRemaining - 1) / fWorkers + 1;
+			int size= Math.min(Math.min(computeChunkSize(fWorkers), Math.max(MIN_ADAPTIVE_AT_ONCE, balanced)), units.length - fOffset);
+
+			ICompilationUnit[] result= new ICompilationUnit[size];
+			System.arraycopy(units, fOffset, result, 0, size);
+			fOffset+= size;
+			fRemaining-= size;
+			if (fOffset == units.length) {
+				fProjects.removeFirst();
+				fOffset= 0;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Records the size of the ASTs passed to the wrapped requestor.
+	 */
+	private final class ObservingRequestor extends ASTRequestor {
+
+		private final ASTRequestor fRequestor;
+
+		public ObservingRequestor(ASTRequestor requestor) {
+			fRequestor= requestor;
+		}
+
+		@Override
+		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+			observe(ast);
+			fRequestor.acceptAST(source, ast);
+		}
+
+		@Override
+		public void acceptBinding(String bindingKey, IBinding binding) {
+			fRequestor.acceptBinding(bindingKey, binding);
+		}
+	}
+
+	/**
+	 * An AST, a binding or the result of processing an AST created by a worker. For ASTs
+	 * and bindings, the worker waits until the calling thread has passed them to the requestor,
+	 * since the bindings of the AST can only be resolved as long as the parser is running.
+	 */
+	private static final class Result {
+
+		private final ICompilationUnit fSource;
+		private final CompilationUnit fAST;
+		private final Object fProcessed;
+		private final String fBindingKey;
+		private final IBinding fBinding;
+		private boolean fDone;
+
+		public Result(ICompilationUnit source, CompilationUnit ast, Object processed, String bindingKey, IBinding binding) {
+			fSource= source;
+			fAST= ast;
+			fProcessed= processed;
+			fBindingKey= bindingKey;
+			fBinding= binding;
+		}
+
+		public synchronized void done() {
+			fDone= true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Parses the subsets in worker jobs and passes their results to the
+	 * requestor in the calling thread. A {@link ConcurrentASTRequestor} processes
+	 * the ASTs in the worker jobs, so that a worker does not need to wait for the
+	 * calling thread before it continues with the next compilation unit.
+	 */
+	private final class ParallelParse {
+
+		private final class Worker extends Job {
+			/**
+			 * <code>true</code> iff the worker has started. Guarded by the parse.
+			 */
+			private boolean fStarted;
+			/**
+			 * <code>true</code> iff the worker has been withdrawn before it started. Guarded by the parse.
+			 */
+			private boolean fWithdrawn;
+
+			public Worker() {
+				super(CorextMessages.ASTBatchParser_job_name);
+				setSystem(true);
+			}
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				synchronized (ParallelParse.this) {
+					if (fWithdrawn)
+						return Status.OK_STATUS;
+					fStarted= true;
+				}
+				parse();
+				return Status.OK_STATUS;
+			}
+		}
+
+		private final ChunkProvider fChunks;
+		private final int fWorkers;
+		private final String[] fBindingKeys;
+		private final ASTRequestor fRequestor;
+		private final BlockingQueue<Result> fResults= new LinkedBlockingQueue<Result>();
+
+		private int fActiveWorkers;
+		private volatile boolean fAborted;
+		private Throwable fWorkerException;
+
+		public ParallelParse(ChunkProvider chunks, int workers, String[] bindingKeys, ASTRequestor requestor) {
+			fChunks= chunks;
+			fWorkers= workers;
+			fBindingKeys= bindingKeys;
+			fRequestor= requestor;
+		}
+
+		public void run(IProgressMonitor monitor) {
+			Worker[] workers= new Worker[fWorkers];
+			RuntimeException requestorException= null;
+			int parsed= 0;
+			try {
+				for (int i= 0; i < workers.length; i++) {
+					workers[i]= new Worker();
+					synchronized (this) {
+						fActiveWorkers++;
+					}
+					workers[i].schedule();
+				}
+				while (hasActiveWorkers() || !fResults.isEmpty()) {
+					if (monitor.isCanceled()) {
+						fAborted= true;
+						break;
+					}
+					Result result;
+					try {
+						result= fResults.poll(100, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						fAborted= true;
+						break;
+					}
+					if (result == null)
+						continue;
+					try {
+						if (result.fSource == null) {
+							fRequestor.acceptBinding(result.fBindingKey, result.fBinding);
+						} else if (fRequestor instanceof ConcurrentASTRequestor<?>) {
+							parsed++;
+							monitor.worked(1);
+							accept((ConcurrentASTRequestor<?>) fRequestor, result.fSource, result.fProcessed);
+						} else {
+							observe(result.fAST);
+							parsed++;
+							monitor.worked(1);
+							fRequestor.acceptAST(result.fSource, result.fAST);
+						}
+					} catch (RuntimeException e) {
+						requestorException= e;
+						fAborted= true;
+						break;
+					} finally {
+						result.done();
+					}
+				}
+			} finally {
+				RefactoringASTParser.recordParsed(parsed);
+				withdrawWorkers(workers);
+				releaseWaitingWorkers();
+				waitForWorkers();
+			}
+
+			if (requestorException != null)
+				throw requestorException;
+			synchronized (this) {
+				if (fWorkerException instanceof RuntimeException)
+					throw (RuntimeException) fWorkerException;
+				if (fWorkerException instanceof Error)
+					throw (Error) fWorkerException;
+			}
+			if (fAborted)
+				throw new OperationCanceledException();
+		}
+
+		/**
+		 * Cancels the workers that have not started yet, e.g. because all worker threads
+		 * of the job manager are busy. The remaining workers take their subsets.
+		 *
+		 * @param workers the scheduled workers
+		 */
+		private synchronized void withdrawWorkers(Worker[] workers) {
+			for (int i= 0; i < workers.length; i++) {
+				if (workers[i] != null && !workers[i].fStarted) {
+					workers[i].fWithdrawn= true;
+					workers[i].cancel();
+					fActiveWorkers--;
+				}
+			}
+		}
+
+		private synchronized void waitForWorkers() {
+			while (fActiveWorkers > 0) {
+				try {
+					wait(100);
+				} catch (InterruptedException e) {
+					// the workers are aborted and terminate on their own
+					return;
+				}
+			}
+		}
+
+		private synchronized boolean hasActiveWorkers() {
+			return fActiveWorkers > 0;
+		}
+
+		private void releaseWaitingWorkers() {
+			Result result;
+			while ((result= fResults.poll()) != null)
+				result.done();
+		}
+
+		private void parse() {
+			try {
+				IProgressMonitor monitor= new NullProgressMonitor() {
+					@Override
+					public boolean isCanceled() {
+						return fAborted;
+					}
+				};
+				ASTRequestor requestor= new ASTRequestor() {
+					@Override
+					public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+						if (fRequestor instanceof ConcurrentASTRequestor<?>) {
+							observe(ast);
+							Object processed= ((ConcurrentASTRequestor<?>) fRequestor).process(source, ast);
+							if (fAborted)
+								throw new OperationCanceledException();
+							fResults.add(new Result(source, null, processed, null, null));
+						} else {
+							deliver(new Result(source, ast, null, null, null));
+						}
+					}
+
+					@Override
+					public void acceptBinding(String bindingKey, IBinding binding) {
+						deliver(new Result(null, null, null, bindingKey, binding));
+					}
+				};
+				ICompilationUnit[] chunk;
+				while (!fAborted && (chunk= fChunks.next()) != null) {
+					createParser(chunk[0].getJavaProject()).createASTs(chunk, fBindingKeys, requestor, monitor);
+				}
+			} catch (OperationCanceledException e) {
+				// aborted
+			} catch (Throwable e) {
+				synchronized (this) {
+					if (fWorkerException == null)
+						fWorkerException= e;
+				}
+				fAborted= true;
+			} finally {
+				synchronized (this) {
+					fActiveWorkers--;
+					notifyAll();
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> void accept(ConcurrentASTRequestor<T> requestor, ICompilationUnit source, Object processed) {
+			requestor.accept(source, (T) processed);
+		}
+
+		private void deliver(Result result) {
+			if (fAborted)
+				throw new OperationCanceledException();
+			fResults.add(result);
+			synchronized (result) {
+				while (!result.fDone) {
+					if (fAborted && fResults.remove(result))
+						break;
+					try {
+						result.wait(100);
+					} catch (InterruptedException e) {
+						fAborted= true;
+					}
+				}
+			}
+			if (fAborted)
+				throw new OperationCanceledException();
+		}
+	}
+
 	/**
 	 * Creates a new parser which can be used to create ASTs
 	 * for compilation units in <code>project</code>
 	 * <p>
-	 * Subclasses may override
+	 * Subclasses may override. In adaptive mode, this method is called
+	 * by the worker jobs.
 	 * </p>
 	 *
 	 * @param project the project for which ASTs are been generated
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.dom;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * An AST requestor that splits the processing of an AST into a part that can run
+ * concurrently and a part that runs in the thread that requested the ASTs.
+ * <p>
+ * When used with an adaptive {@link ASTBatchParser}, {@link #process(ICompilationUnit, CompilationUnit)}
+ * is called by the worker jobs of the parser while the AST and its bindings are valid, and
+ * {@link #accept(ICompilationUnit, Object)} is called one at a time in the thread that called
+ * {@link ASTBatchParser#createASTs(ICompilationUnit[], String[], ASTRequestor, org.eclipse.core.runtime.IProgressMonitor)}.
+ * Otherwise, both are called from {@link #acceptAST(ICompilationUnit, CompilationUnit)}.
+ * </p>
+ *
+ * @param <T> the type of the results of processing an AST
+ * @since 3.9
+ */
+public abstract class ConcurrentASTRequestor<T> extends ASTRequestor {
+
+	/**
+	 * Processes the AST of a compilation unit. This method may be called
+	 * concurrently by several threads and must not access the progress monitor
+	 * of the batch parser.
+	 *
+	 * @param source the compilation unit
+	 * @param ast the AST of the compilation unit
+	 * @return the result of processing the AST
+	 */
+	public abstract T process(ICompilationUnit source, CompilationUnit ast);
+
+	/**
+	 * Accepts the result of processing the AST of a compilation unit. This method
+	 * is called one at a time in the thread that requested the ASTs.
+	 *
+	 * @param source the compilation unit
+	 * @param result the result of {@link #process(ICompilationUnit, CompilationUnit)}
+	 */
+	public abstract void accept(ICompilationUnit source, T result);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+		accept(source, process(source, ast));
+	}
+}
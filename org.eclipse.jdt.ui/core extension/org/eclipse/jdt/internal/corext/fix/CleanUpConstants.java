@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -179,6 +179,24 @@ public class CleanUpConstants {
 	 */
 	public static final String FORMAT_CORRECT_INDENTATION= "cleanup.correct_indentation"; //$NON-NLS-1$
 
+	/**
+	 * Should compilation units be skipped that a previous clean up with the same settings left
+	 * unchanged and that did not change since then? <br>
+	 * Only has an effect if the enabled clean ups only depend on the content of a compilation
+	 * unit, e.g. if they only format the code, remove trailing whitespace or correct the
+	 * indentation. <br>
+	 * <br>
+	 * Possible values: {TRUE, FALSE}<br>
+	 * 
+	 * <br>
+	 * 
+	 * @see CleanUpStateStore#canSkipUnits(org.eclipse.jdt.ui.cleanup.ICleanUp[])
+	 * @see CleanUpOptions#TRUE
+	 * @see CleanUpOptions#FALSE
+	 * @since 3.9
+	 */
+	public static final String SKIP_UNCHANGED_COMPILATION_UNITS= "cleanup.skip_unchanged_compilation_units"; //$NON-NLS-1$
+
 	/**
 	 * Controls access qualifiers for instance fields. For detailed settings use<br>
 	 * {@link #MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS}<br>
@@ -1174,6 +1192,8 @@ public class CleanUpConstants {
 
 		options.setOption(FORMAT_CORRECT_INDENTATION, CleanUpOptions.FALSE);
 
+		options.setOption(SKIP_UNCHANGED_COMPILATION_UNITS, CleanUpOptions.FALSE);
+
 		options.setOption(ORGANIZE_IMPORTS, CleanUpOptions.FALSE);
 
 		options.setOption(SORT_MEMBERS, CleanUpOptions.FALSE);
@@ -1254,6 +1274,8 @@ public class CleanUpConstants {
 
 		options.setOption(FORMAT_CORRECT_INDENTATION, CleanUpOptions.FALSE);
 
+		options.setOption(SKIP_UNCHANGED_COMPILATION_UNITS, CleanUpOptions.FALSE);
+
 		options.setOption(ORGANIZE_IMPORTS, CleanUpOptions.TRUE);
 
 		options.setOption(SORT_MEMBERS, CleanUpOptions.FALSE);
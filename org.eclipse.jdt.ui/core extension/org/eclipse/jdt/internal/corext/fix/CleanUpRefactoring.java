@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,13 @@
 package org.eclipse.jdt.internal.corext.fix;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -66,6 +70,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
 import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
+import org.eclipse.jdt.internal.corext.dom.ConcurrentASTRequestor;
 import org.eclipse.jdt.internal.corext.refactoring.Checks;
 import org.eclipse.jdt.internal.corext.refactoring.changes.DynamicValidationStateChange;
 import org.eclipse.jdt.internal.corext.refactoring.changes.MultiStateCompilationUnitChange;
@@ -244,11 +249,28 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
-	private static class CleanUpASTRequestor extends ASTRequestor {
+	private static class CalculatedFix {
+
+		private final CleanUpChange fSolution;
+		private final ICleanUp[] fRejectedCleanUps;
+
+		public CalculatedFix(CleanUpChange solution, ICleanUp[] rejectedCleanUps) {
+			fSolution= solution;
+			fRejectedCleanUps= rejectedCleanUps;
+		}
+	}
+
+	/**
+	 * Calculates the fixes in {@link #process(ICompilationUnit, CompilationUnit)}, which the
+	 * batch parser calls concurrently if the clean ups are thread safe, and integrates them
+	 * in {@link #accept(ICompilationUnit, CalculatedFix)}.
+	 */
+	private static class CleanUpASTRequestor extends ConcurrentASTRequestor<CalculatedFix> {
 
 		private final List<ParseListElement> fUndoneElements;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
+		private final Hashtable<ParseListElement, Integer> fParseListIndices;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
 
 		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
@@ -256,9 +278,11 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			fMonitor= monitor;
 			fUndoneElements= new ArrayList<ParseListElement>();
 			fCompilationUnitParseElementMap= new Hashtable<ICompilationUnit, ParseListElement>(parseList.size());
+			fParseListIndices= new Hashtable<ParseListElement, Integer>(parseList.size());
 			for (Iterator<ParseListElement> iter= parseList.iterator(); iter.hasNext();) {
 				ParseListElement element= iter.next();
 				fCompilationUnitParseElementMap.put(element.getTarget().getCompilationUnit(), element);
+				fParseListIndices.put(element, new Integer(fParseListIndices.size()));
 			}
 		}
 
@@ -267,11 +291,16 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		 */
 		@Override
 		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
-
 			fMonitor.subTask(fMonitor.getSubTaskMessage(source));
+			integrate(source, process(source, ast));
+		}
 
-			ICompilationUnit primary= (ICompilationUnit)source.getPrimaryElement();
-			ParseListElement element= fCompilationUnitParseElementMap.get(primary);
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public CalculatedFix process(ICompilationUnit source, CompilationUnit ast) {
+			ParseListElement element= getElement(source);
 			CleanUpTarget target= element.getTarget();
 
 			CleanUpContext context;
@@ -280,38 +309,63 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			} else {
 				context= new CleanUpContext(source, ast);
 			}
-			ICleanUp[] rejectedCleanUps= calculateSolutions(context, element.getCleanUps());
 
-			if (rejectedCleanUps.length > 0) {
-				fUndoneElements.add(new ParseListElement(target, rejectedCleanUps));
-				fMonitor.reset();
-			} else {
-				fMonitor.flush();
+			List<ICleanUp> rejectedCleanUps= new ArrayList<ICleanUp>();
+			try {
+				CleanUpChange solution= calculateChange(context, element.getCleanUps(), rejectedCleanUps, null);
+				return new CalculatedFix(solution, rejectedCleanUps.toArray(new ICleanUp[rejectedCleanUps.size()]));
+			} catch (CoreException e) {
+				throw new FixCalculationException(e);
 			}
 		}
 
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void accept(ICompilationUnit source, CalculatedFix fix) {
+			fMonitor.subTask(fMonitor.getSubTaskMessage(source));
+			integrate(source, fix);
+		}
+
 		public void acceptSource(ICompilationUnit source) {
 			acceptAST(source, null);
 		}
 
+		/**
+		 * Returns the elements with rejected clean ups, in the order of the parse list.
+		 *
+		 * @return the elements to process in the next iteration
+		 */
 		public List<ParseListElement> getUndoneElements() {
+			Collections.sort(fUndoneElements, new Comparator<ParseListElement>() {
+				public int compare(ParseListElement e1, ParseListElement e2) {
+					return getIndex(e1) - getIndex(e2);
+				}
+			});
 			return fUndoneElements;
 		}
 
-		private ICleanUp[] calculateSolutions(CleanUpContext context, ICleanUp[] cleanUps) {
-			List<ICleanUp>result= new ArrayList<ICleanUp>();
-			CleanUpChange solution;
-			try {
-				solution= calculateChange(context, cleanUps, result, null);
-			} catch (CoreException e) {
-				throw new FixCalculationException(e);
-			}
+		private ParseListElement getElement(ICompilationUnit source) {
+			ICompilationUnit primary= (ICompilationUnit)source.getPrimaryElement();
+			return fCompilationUnitParseElementMap.get(primary);
+		}
+
+		private int getIndex(ParseListElement undone) {
+			return fParseListIndices.get(getElement(undone.getTarget().getCompilationUnit())).intValue();
+		}
 
-			if (solution != null) {
-				integrateSolution(solution, context.getCompilationUnit());
+		private void integrate(ICompilationUnit source, CalculatedFix fix) {
+			if (fix.fSolution != null) {
+				integrateSolution(fix.fSolution, source);
 			}
 
-			return result.toArray(new ICleanUp[result.size()]);
+			if (fix.fRejectedCleanUps.length > 0) {
+				fUndoneElements.add(new ParseListElement(getElement(source).getTarget(), fix.fRejectedCleanUps));
+				fMonitor.reset();
+			} else {
+				fMonitor.flush();
+			}
 		}
 
 		private void integrateSolution(CleanUpChange solution, ICompilationUnit source) {
@@ -331,7 +385,9 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private List<ParseListElement> fParseList;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ICompilationUnit> fWorkingCopies; // map from primary to working copy
+		private final LinkedHashSet<ICompilationUnit> fUnits; // primary units in the order of the targets
 		private final Map<String, String> fCleanUpOptions;
+		private final boolean fConcurrent;
 		private final int fSize;
 		private int fIndex;
 
@@ -340,9 +396,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			fWorkingCopies= new Hashtable<ICompilationUnit, ICompilationUnit>();
 
 			fParseList= new ArrayList<ParseListElement>(targets.length);
+			fUnits= new LinkedHashSet<ICompilationUnit>(targets.length);
 			for (int i= 0; i < targets.length; i++) {
 				fParseList.add(new ParseListElement(targets[i], cleanUps));
+				fUnits.add(targets[i].getCompilationUnit().getPrimary());
 			}
+			fConcurrent= isThreadSafe(cleanUps);
 
 			fCleanUpOptions= new Hashtable<String, String>();
 			for (int i= 0; i < cleanUps.length; i++) {
@@ -387,9 +446,9 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				}
 
 				CleanUpRefactoringProgressMonitor cuMonitor= new CleanUpRefactoringProgressMonitor(monitor, parseList.size() + sourceList.size(), fSize, fIndex);
-				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
+				final CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
 				if (parseList.size() > 0) {
-					ASTBatchParser parser= new ASTBatchParser() {
+					ASTBatchParser parser= new ASTBatchParser(true) {
 						@Override
 						protected ASTParser createParser(IJavaProject project) {
 							ASTParser result= createCleanUpASTParser();
@@ -401,9 +460,22 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 							return result;
 						}
 					};
+					if (fMaxThreads > 0)
+						parser.setMaxWorkers(fMaxThreads);
+
+					ASTRequestor astRequestor= requestor;
+					if (!fConcurrent) {
+						// hide the concurrent requestor from the parser to calculate the fixes in this thread
+						astRequestor= new ASTRequestor() {
+							@Override
+							public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+								requestor.acceptAST(source, ast);
+							}
+						};
+					}
 					try {
 						ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
-						parser.createASTs(units, new String[0], requestor, cuMonitor);
+						parser.createASTs(units, new String[0], astRequestor, cuMonitor);
 					} catch (FixCalculationException e) {
 						throw e.getException();
 					}
@@ -450,11 +522,11 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 			Change[] result= new Change[fSolutions.size()];
 			int i=0;
-			for (Iterator<Entry<ICompilationUnit, List<CleanUpChange>>> iterator= fSolutions.entrySet().iterator(); iterator.hasNext();) {
-				Entry<ICompilationUnit, List<CleanUpChange>>  entry= iterator.next();
-
-				List<CleanUpChange> changes= entry.getValue();
-				ICompilationUnit unit= entry.getKey();
+			for (Iterator<ICompilationUnit> iterator= fUnits.iterator(); iterator.hasNext();) {
+				ICompilationUnit unit= iterator.next();
+				List<CleanUpChange> changes= fSolutions.get(unit);
+				if (changes == null)
+					continue;
 
 				int saveMode;
 				if (fLeaveFilesDirty) {
@@ -523,6 +595,10 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private boolean fUseOptionsFromProfile;
 
+	private int fMaxThreads;
+
+	private boolean fIncremental;
+
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
 	}
@@ -594,6 +670,32 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fLeaveFilesDirty= leaveFilesDirty;
 	}
 
+	/**
+	 * Sets whether compilation units are skipped if a previous clean up with the same
+	 * settings left them unchanged and they did not change since then. If the options are
+	 * taken from the profile, the profile can enable this as well, see
+	 * {@link CleanUpConstants#SKIP_UNCHANGED_COMPILATION_UNITS}. Units are only skipped if
+	 * the clean ups only depend on the content of the units.
+	 *
+	 * @param incremental <code>true</code> to skip the compilation units known to be clean
+	 * @see CleanUpStateStore
+	 */
+	public void setIncremental(boolean incremental) {
+		fIncremental= incremental;
+	}
+
+	/**
+	 * Sets the maximal number of threads that parse the compilation units and, if
+	 * the clean ups are thread safe, calculate the fixes.
+	 *
+	 * @param maxThreads the maximal number of threads, or <code>0</code> for the
+	 *   default of the batch parser
+	 * @see ASTBatchParser#setMaxWorkers(int)
+	 */
+	public void setMaxThreads(int maxThreads) {
+		fMaxThreads= maxThreads;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.ltk.core.refactoring.Refactoring#getName()
 	 */
@@ -652,6 +754,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 		ICleanUp[] cleanUps= getCleanUps();
 		pm.beginTask("", cuCount * 2 * fCleanUps.size() + 4 * cleanUps.length); //$NON-NLS-1$
+		int skipped= 0;
 		try {
 			DynamicValidationStateChange change= new DynamicValidationStateChange(getName());
 			change.setSchedulingRule(getSchedulingRule());
@@ -661,10 +764,23 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				List<CleanUpTarget> targetsList= entry.getValue();
 				CleanUpTarget[] targets= targetsList.toArray(new CleanUpTarget[targetsList.size()]);
 
+				boolean incremental= fIncremental;
 				if (fUseOptionsFromProfile) {
-					result.merge(setOptionsFromProfile(project, cleanUps));
+					Map<String, String> options= CleanUpPreferenceUtil.loadOptions(new ProjectScope(project.getProject()));
+					result.merge(setOptionsFromProfile(project, options, cleanUps));
 					if (result.hasFatalError())
 						return result;
+					incremental|= CleanUpOptions.TRUE.equals(options.get(CleanUpConstants.SKIP_UNCHANGED_COMPILATION_UNITS));
+				}
+
+				Map<ICompilationUnit, String> fingerprints= null;
+				if (incremental && CleanUpStateStore.canSkipUnits(cleanUps)) {
+					fingerprints= new HashMap<ICompilationUnit, String>();
+					int size= targets.length;
+					targets= removeCleanTargets(project, targets, cleanUps, fingerprints);
+					skipped+= size - targets.length;
+					if (targets.length == 0)
+						continue;
 				}
 
 				result.merge(checkPreConditions(project, targets, new SubProgressMonitor(pm, 3 * cleanUps.length)));
@@ -672,6 +788,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 					return result;
 
 				Change[] changes= cleanUpProject(project, targets, cleanUps, pm);
+				if (fingerprints != null)
+					recordCleanUnits(fingerprints, changes);
 
 				result.merge(checkPostConditions(new SubProgressMonitor(pm, cleanUps.length)));
 				if (result.hasFatalError())
@@ -683,6 +801,9 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			}
 			fChange= change;
 
+			if (skipped > 0)
+				result.addInfo(Messages.format(FixMessages.CleanUpRefactoring_skipped_clean_units_info, new Integer(skipped)));
+
 			List<IResource> files= new ArrayList<IResource>();
 			findFilesToBeModified(change, files);
 			result.merge(Checks.validateModifiesFiles(files.toArray(new IFile[files.size()]), getValidationContext()));
@@ -693,6 +814,50 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return result;
 	}
 
+	private CleanUpTarget[] removeCleanTargets(IJavaProject project, CleanUpTarget[] targets, ICleanUp[] cleanUps, Map<ICompilationUnit, String> fingerprints) throws CoreException {
+		CleanUpStateStore store= CleanUpStateStore.getDefault();
+		String settingsHash= CleanUpStateStore.computeSettingsHash(project, cleanUps);
+
+		List<CleanUpTarget> result= new ArrayList<CleanUpTarget>(targets.length);
+		for (int i= 0; i < targets.length; i++) {
+			CleanUpTarget target= targets[i];
+			if (target instanceof MultiFixTarget) {
+				// fixes for given problems
+				result.add(target);
+				continue;
+			}
+
+			ICompilationUnit unit= target.getCompilationUnit();
+			String fingerprint= CleanUpStateStore.computeFingerprint(unit, settingsHash);
+			if (!store.isClean(unit, fingerprint)) {
+				fingerprints.put(unit.getPrimary(), fingerprint);
+				result.add(target);
+			}
+		}
+		return result.toArray(new CleanUpTarget[result.size()]);
+	}
+
+	private static void recordCleanUnits(Map<ICompilationUnit, String> fingerprints, Change[] changes) {
+		HashSet<ICompilationUnit> changed= new HashSet<ICompilationUnit>();
+		for (int i= 0; i < changes.length; i++) {
+			if (changes[i] instanceof MultiStateCompilationUnitChange) {
+				changed.add(((MultiStateCompilationUnitChange)changes[i]).getCompilationUnit().getPrimary());
+			} else if (changes[i] instanceof CompilationUnitChange) {
+				changed.add(((CompilationUnitChange)changes[i]).getCompilationUnit().getPrimary());
+			}
+		}
+
+		CleanUpStateStore store= CleanUpStateStore.getDefault();
+		for (Iterator<Entry<ICompilationUnit, String>> iterator= fingerprints.entrySet().iterator(); iterator.hasNext();) {
+			Entry<ICompilationUnit, String> entry= iterator.next();
+			if (changed.contains(entry.getKey())) {
+				store.remove(entry.getKey());
+			} else {
+				store.setClean(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
 	private void findFilesToBeModified(CompositeChange change, List<IResource> result) throws JavaModelException {
 		Change[] children= change.getChildren();
 		for (int i= 0; i < children.length; i++) {
@@ -725,8 +890,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
-	private RefactoringStatus setOptionsFromProfile(IJavaProject javaProject, ICleanUp[] cleanUps) {
-		Map<String, String> options= CleanUpPreferenceUtil.loadOptions(new ProjectScope(javaProject.getProject()));
+	private RefactoringStatus setOptionsFromProfile(IJavaProject javaProject, Map<String, String> options, ICleanUp[] cleanUps) {
 		if (options == null)
 			return RefactoringStatus.createFatalErrorStatus(Messages.format(FixMessages.CleanUpRefactoring_could_not_retrive_profile, BasicElementLabels.getResourceName(javaProject.getProject())));
 
@@ -838,6 +1002,22 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return solution;
 	}
 
+	/**
+	 * Tells whether the fixes of the given clean ups can be calculated concurrently.
+	 * Only the clean ups of this plug-in are known to be thread safe.
+	 *
+	 * @param cleanUps the clean ups
+	 * @return <code>true</code> if all clean ups are thread safe
+	 */
+	private static boolean isThreadSafe(ICleanUp[] cleanUps) {
+		ClassLoader loader= CleanUpRefactoring.class.getClassLoader();
+		for (int i= 0; i < cleanUps.length; i++) {
+			if (cleanUps[i].getClass().getClassLoader() != loader)
+				return false;
+		}
+		return true;
+	}
+
 	private static void copyChangeGroups(CompilationUnitChange target, CompilationUnitChange source) {
 		TextEditBasedChangeGroup[] changeGroups= source.getChangeGroups();
 		for (int i= 0; i < changeGroups.length; i++) {
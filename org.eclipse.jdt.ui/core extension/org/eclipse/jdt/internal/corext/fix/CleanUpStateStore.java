@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.AbstractCleanUp;
+
+/**
+ * Remembers the compilation units that a clean up left unchanged, such that a later
+ * clean up with the same settings can skip them if they did not change in the meantime.
+ * <p>
+ * A unit is identified by its handle identifier and recorded with a fingerprint of its
+ * content and the clean up settings. The fingerprint does not cover other compilation
+ * units, the class path or the build state. Therefore, units are only skipped if the
+ * result of the clean ups depends on nothing but the content of the unit and the project
+ * options, see {@link #canSkipUnits(ICleanUp[])}. This is the case for formatting,
+ * removing trailing whitespace and correcting the indentation, but not for clean ups that
+ * need bindings. The number of records is bounded, the least recently used records are
+ * dropped first.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class CleanUpStateStore {
+
+	private static final String FILE_NAME= "cleanUpState.txt"; //$NON-NLS-1$
+	private static final String ENCODING= "UTF-8"; //$NON-NLS-1$
+	private static final char SEPARATOR= '\t';
+	private static final int MAX_RECORDS= 50000;
+
+	private static CleanUpStateStore fgDefault;
+
+	private final LinkedHashMap<String, String> fRecords;
+	private boolean fDirty;
+
+	public static synchronized CleanUpStateStore getDefault() {
+		if (fgDefault == null) {
+			fgDefault= new CleanUpStateStore();
+			fgDefault.load();
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Saves the default store if it has been used.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			fgDefault.save();
+			fgDefault= null;
+		}
+	}
+
+	private CleanUpStateStore() {
+		fRecords= new LinkedHashMap<String, String>(1024, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > MAX_RECORDS;
+			}
+		};
+	}
+
+	/**
+	 * Tells whether units can be skipped for the given clean ups: each of them has to be a
+	 * clean up of this plug-in that neither requires an AST nor the changed regions of the
+	 * unit. The clean ups must have their options set.
+	 *
+	 * @param cleanUps the clean ups
+	 * @return <code>true</code> if the result of the clean ups only depends on the content of
+	 *         a unit and the project options
+	 */
+	public static boolean canSkipUnits(ICleanUp[] cleanUps) {
+		for (int i= 0; i < cleanUps.length; i++) {
+			if (!(cleanUps[i] instanceof AbstractCleanUp))
+				return false;
+			CleanUpRequirements requirements= cleanUps[i].getRequirements();
+			if (requirements.requiresAST() || requirements.requiresChangedRegions())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the hash of the settings of the given clean ups for a project. The clean ups
+	 * must have their options set.
+	 *
+	 * @param project the project
+	 * @param cleanUps the clean ups
+	 * @return the hash of the settings
+	 */
+	public static String computeSettingsHash(IJavaProject project, ICleanUp[] cleanUps) {
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < cleanUps.length; i++) {
+			buf.append(cleanUps[i].getClass().getName()).append('\n');
+			String[] steps= cleanUps[i].getStepDescriptions();
+			if (steps != null) {
+				for (int j= 0; j < steps.length; j++) {
+					buf.append(steps[j]).append('\n');
+				}
+			}
+		}
+		// the project options contain the compiler and formatter settings
+		Map<String, String> options= project.getOptions(true);
+		String[] keys= options.keySet().toArray(new String[options.size()]);
+		Arrays.sort(keys);
+		for (int i= 0; i < keys.length; i++) {
+			buf.append(keys[i]).append('=').append(options.get(keys[i])).append('\n');
+		}
+		return digest(buf.toString());
+	}
+
+	/**
+	 * Computes the fingerprint of a compilation unit.
+	 *
+	 * @param unit the compilation unit
+	 * @param settingsHash the hash of the clean up settings
+	 * @return the fingerprint
+	 * @throws JavaModelException if the content of the unit cannot be accessed
+	 */
+	public static String computeFingerprint(ICompilationUnit unit, String settingsHash) throws JavaModelException {
+		return digest(unit.getSource()) + ':' + settingsHash;
+	}
+
+	private static String digest(String string) {
+		try {
+			byte[] bytes= MessageDigest.getInstance("MD5").digest(string.getBytes(ENCODING)); //$NON-NLS-1$
+			StringBuffer buf= new StringBuffer(bytes.length * 2);
+			for (int i= 0; i < bytes.length; i++) {
+				buf.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+				buf.append(Character.forDigit(bytes[i] & 0xF, 16));
+			}
+			return buf.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(string.hashCode());
+		} catch (UnsupportedEncodingException e) {
+			return Integer.toHexString(string.hashCode());
+		}
+	}
+
+	/**
+	 * Tells whether the compilation unit was left unchanged by a clean up
+	 * when it had the given fingerprint.
+	 *
+	 * @param unit the compilation unit
+	 * @param fingerprint the current fingerprint of the unit
+	 * @return <code>true</code> if the unit is known to be clean
+	 */
+	public synchronized boolean isClean(ICompilationUnit unit, String fingerprint) {
+		return fingerprint.equals(fRecords.get(unit.getHandleIdentifier()));
+	}
+
+	/**
+	 * Records that a clean up left the compilation unit unchanged.
+	 *
+	 * @param unit the compilation unit
+	 * @param fingerprint the fingerprint of the unit before the clean up
+	 */
+	public synchronized void setClean(ICompilationUnit unit, String fingerprint) {
+		fRecords.put(unit.getHandleIdentifier(), fingerprint);
+		fDirty= true;
+	}
+
+	/**
+	 * Forgets the record of the compilation unit.
+	 *
+	 * @param unit the compilation unit
+	 */
+	public synchronized void remove(ICompilationUnit unit) {
+		if (fRecords.remove(unit.getHandleIdentifier()) != null)
+			fDirty= true;
+	}
+
+	private synchronized void load() {
+		File file= JavaPlugin.getDefault().getStateLocation().append(FILE_NAME).toFile();
+		if (!file.exists())
+			return;
+
+		BufferedReader reader= null;
+		try {
+			reader= new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+			String line;
+			while ((line= reader.readLine()) != null) {
+				int index= line.lastIndexOf(SEPARATOR);
+				if (index > 0)
+					fRecords.put(line.substring(0, index), line.substring(index + 1));
+			}
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			try {
+				if (reader != null)
+					reader.close();
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			}
+		}
+	}
+
+	private synchronized void save() {
+		if (!fDirty)
+			return;
+
+		File file= JavaPlugin.getDefault().getStateLocation().append(FILE_NAME).toFile();
+		BufferedWriter writer= null;
+		try {
+			writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), ENCODING));
+			for (Iterator<Entry<String, String>> iterator= fRecords.entrySet().iterator(); iterator.hasNext();) {
+				Entry<String, String> entry= iterator.next();
+				writer.write(entry.getKey());
+				writer.write(SEPARATOR);
+				writer.write(entry.getValue());
+				writer.newLine();
+			}
+			fDirty= false;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			try {
+				if (writer != null)
+					writer.close();
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,31 +10,51 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jdt.core.IClassFile;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
+import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
 
+import org.eclipse.jdt.internal.corext.CorextMessages;
+
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * Every type contained in a cached hierarchy is indexed, so that looking up the hierarchy
+ * of a type does not depend on the number of cached hierarchies. The size of the cache is
+ * bounded by the total number of types in the cached hierarchies (see {@link #setMaxWeight(int)}),
+ * the least recently used hierarchies are evicted first. A hierarchy is removed as soon as it
+ * changes.
+ * </p>
  */
 public class SuperTypeHierarchyCache {
 
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
 		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final IType fFocusType;
+		private final IType[] fTypes;
+		private Map<IType, MethodOverrideTester> fMethodOverrideTesters;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fFocusType= hierarchy.getType();
+			fTypes= hierarchy.getAllTypes();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
-			markAsAccessed();
 		}
 
 		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
@@ -45,12 +65,33 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
-		public void markAsAccessed() {
-			fLastAccess= System.currentTimeMillis();
+		public IType getFocusType() {
+			return fFocusType;
+		}
+
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		/**
+		 * @return the weight of this entry, which is the number of types in the hierarchy
+		 */
+		public int getWeight() {
+			return Math.max(1, fTypes.length);
 		}
 
-		public long getLastAccess() {
-			return fLastAccess;
+		public MethodOverrideTester getMethodOverrideTester(IType type) {
+			MethodOverrideTester tester= null;
+			if (fMethodOverrideTesters == null) {
+				fMethodOverrideTesters= new HashMap<IType, MethodOverrideTester>();
+			} else {
+				tester= fMethodOverrideTesters.get(type);
+			}
+			if (tester == null) {
+				tester= new MethodOverrideTester(type, fTypeHierarchy);
+				fMethodOverrideTesters.put(type, tester);
+			}
+			return tester;
 		}
 
 		public void dispose() {
@@ -58,6 +99,7 @@ public class SuperTypeHierarchyCache {
 				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
 				fTypeHierarchy= null;
 			}
+			fMethodOverrideTesters= null;
 		}
 
 		/* (non-Javadoc)
@@ -65,19 +107,69 @@ public class SuperTypeHierarchyCache {
 		 */
 		@Override
 		public String toString() {
-			return "Super hierarchy of: " + fTypeHierarchy.getType().getElementName(); //$NON-NLS-1$
+			return "Super hierarchy of: " + fFocusType.getElementName(); //$NON-NLS-1$
+		}
+
+	}
+
+	/**
+	 * Background job that computes the super type hierarchies of types that are likely to
+	 * be queried soon.
+	 */
+	private static class PrefetchJob extends Job {
+
+		private final IType[] fTypes;
+
+		public PrefetchJob(IType[] types) {
+			super(CorextMessages.SuperTypeHierarchyCache_prefetch_job_name);
+			fTypes= types;
+			setSystem(true);
+			setPriority(Job.DECORATE);
 		}
 
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				for (int i= 0; i < fTypes.length; i++) {
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					IType type= fTypes[i];
+					if (type.exists() && findTypeHierarchyInCache(type) == null) {
+						addTypeHierarchyToCache(type.newSupertypeHierarchy(monitor));
+					}
+				}
+			} catch (JavaModelException e) {
+				// the element went away or the editor input is not on the build path
+			}
+			return Status.OK_STATUS;
+		}
 	}
 
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/SuperTypeHierarchyCache"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/**
+	 * The default maximum number of types in all cached hierarchies.
+	 */
+	public static final int DEFAULT_MAX_WEIGHT= 2000;
+
+	private static final Object fgLock= new Object();
+
+	/**
+	 * The cached hierarchies keyed by their focus type, in access order.
+	 */
+	private static LinkedHashMap<IType, HierarchyCacheEntry> fgHierarchyCache= new LinkedHashMap<IType, HierarchyCacheEntry>(16, 0.75f, true);
 
-	private static final int CACHE_SIZE= 8;
+	/**
+	 * Maps every type in a cached hierarchy to the entry of the hierarchy.
+	 */
+	private static HashMap<IType, HierarchyCacheEntry> fgTypeIndex= new HashMap<IType, HierarchyCacheEntry>();
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<IType, MethodOverrideTester>(CACHE_SIZE);
+	private static int fgMaxWeight= DEFAULT_MAX_WEIGHT;
+	private static int fgWeight= 0;
 
 	private static int fgCacheHits= 0;
 	private static int fgCacheMisses= 0;
+	private static int fgEvictions= 0;
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -95,32 +187,15 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
+		ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't hold the lock while building the hierarchy
+		synchronized (fgLock) {
+			HierarchyCacheEntry entry= fgTypeIndex.get(type);
+			if (entry != null && entry.getTypeHierarchy() == hierarchy) {
+				return entry.getMethodOverrideTester(type);
 			}
 		}
+		// the hierarchy has been evicted or has changed in the meantime
+		return new MethodOverrideTester(type, hierarchy);
 	}
 
 	/**
@@ -138,43 +213,63 @@ public class SuperTypeHierarchyCache {
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
 		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
 		if (hierarchy == null) {
-			fgCacheMisses++;
+			synchronized (fgLock) {
+				fgCacheMisses++;
+			}
 			hierarchy= type.newSupertypeHierarchy(progressMonitor);
 			addTypeHierarchyToCache(hierarchy);
 		} else {
-			fgCacheHits++;
+			synchronized (fgLock) {
+				fgCacheHits++;
+			}
 		}
 		return hierarchy;
 	}
 
+	/**
+	 * Computes the super type hierarchies of the types declared in the given type root
+	 * in the background, e.g. when the type root is opened in an editor.
+	 *
+	 * @param typeRoot the type root, or <code>null</code>
+	 * @since 3.9
+	 */
+	public static void prefetch(ITypeRoot typeRoot) {
+		try {
+			IType[] types;
+			if (typeRoot instanceof ICompilationUnit) {
+				types= ((ICompilationUnit) typeRoot).getTypes();
+			} else if (typeRoot instanceof IClassFile) {
+				types= new IType[] { ((IClassFile) typeRoot).getType() };
+			} else {
+				return;
+			}
+			if (types.length > 0)
+				new PrefetchJob(types).schedule();
+		} catch (JavaModelException e) {
+			// the type root does not exist or is not on the build path
+		}
+	}
+
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i= 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
-					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
-				}
+		HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+		synchronized (fgLock) {
+			// the new hierarchy subsumes the hierarchies of all its types
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				HierarchyCacheEntry obsolete= fgHierarchyCache.get(types[i]);
+				if (obsolete != null)
+					removeHierarchyEntryFromCache(obsolete);
+			}
+
+			fgHierarchyCache.put(newEntry.getFocusType(), newEntry);
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.put(types[i], newEntry);
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
-			fgHierarchyCache.add(newEntry);
+			fgWeight+= newEntry.getWeight();
+
+			evictLeastRecentlyUsed(); // the new entry is the most recently used one
+			if (DEBUG)
+				System.out.println("SuperTypeHierarchyCache - " + newEntry + ": " + getStatistics()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 	}
 
@@ -190,38 +285,99 @@ public class SuperTypeHierarchyCache {
 
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
+		synchronized (fgLock) {
+			HierarchyCacheEntry entry= fgTypeIndex.get(type);
+			if (entry == null)
+				return null;
+			ITypeHierarchy hierarchy= entry.getTypeHierarchy();
+			if (hierarchy == null || !hierarchy.exists()) {
+				removeHierarchyEntryFromCache(entry);
+				return null;
 			}
+			fgHierarchyCache.get(entry.getFocusType()); // mark as accessed
+			return hierarchy;
 		}
-		return null;
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
-			entry.dispose();
-			fgHierarchyCache.remove(entry);
+		synchronized (fgLock) {
+			if (fgHierarchyCache.get(entry.getFocusType()) == entry) {
+				fgHierarchyCache.remove(entry.getFocusType());
+				unindex(entry);
+			}
+		}
+	}
+
+	private static void evictLeastRecentlyUsed() {
+		Iterator<HierarchyCacheEntry> iter= fgHierarchyCache.values().iterator();
+		while (fgWeight > fgMaxWeight && fgHierarchyCache.size() > 1) {
+			HierarchyCacheEntry eldest= iter.next();
+			iter.remove();
+			unindex(eldest);
+			fgEvictions++;
+		}
+	}
+
+	private static void unindex(HierarchyCacheEntry entry) {
+		IType[] types= entry.getTypes();
+		for (int i= 0; i < types.length; i++) {
+			if (fgTypeIndex.get(types[i]) == entry)
+				fgTypeIndex.remove(types[i]);
+		}
+		fgWeight-= entry.getWeight();
+		entry.dispose();
+	}
+
+	/**
+	 * Sets the maximum number of types in all cached hierarchies. The most recently
+	 * used hierarchy is kept even if it is larger.
+	 *
+	 * @param maxWeight the maximum number of types, must be positive
+	 * @since 3.9
+	 */
+	public static void setMaxWeight(int maxWeight) {
+		synchronized (fgLock) {
+			fgMaxWeight= Math.max(1, maxWeight);
+			evictLeastRecentlyUsed();
+		}
+	}
+
+	/**
+	 * @return the maximum number of types in all cached hierarchies
+	 * @since 3.9
+	 */
+	public static int getMaxWeight() {
+		synchronized (fgLock) {
+			return fgMaxWeight;
 		}
 	}
 
+	/**
+	 * Removes all hierarchies from the cache and resets the statistics. Used for testing.
+	 *
+	 * @since 3.9
+	 */
+	public static void clear() {
+		synchronized (fgLock) {
+			for (Iterator<HierarchyCacheEntry> iter= fgHierarchyCache.values().iterator(); iter.hasNext();) {
+				HierarchyCacheEntry entry= iter.next();
+				iter.remove();
+				unindex(entry);
+			}
+			fgCacheHits= 0;
+			fgCacheMisses= 0;
+			fgEvictions= 0;
+		}
+	}
 
 	/**
 	 * Gets the number of times the hierarchy could be taken from the hierarchy.
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		synchronized (fgLock) {
+			return fgCacheHits;
+		}
 	}
 
 	/**
@@ -229,6 +385,49 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		synchronized (fgLock) {
+			return fgCacheMisses;
+		}
+	}
+
+	/**
+	 * Gets the number of hierarchies that have been evicted to stay below the maximum weight.
+	 * @return the number of evicted hierarchies
+	 * @since 3.9
+	 */
+	public static int getEvictions() {
+		synchronized (fgLock) {
+			return fgEvictions;
+		}
+	}
+
+	/**
+	 * Gets the number of types in all cached hierarchies.
+	 * @return the current weight of the cache
+	 * @since 3.9
+	 */
+	public static int getWeight() {
+		synchronized (fgLock) {
+			return fgWeight;
+		}
+	}
+
+	/**
+	 * Returns a description of the state and the statistics of the cache,
+	 * e.g. for debugging or tracing.
+	 *
+	 * @return the statistics
+	 * @since 3.9
+	 */
+	public static String getStatistics() {
+		synchronized (fgLock) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("hierarchies: ").append(fgHierarchyCache.size()); //$NON-NLS-1$
+			buf.append(", types: ").append(fgWeight).append('/').append(fgMaxWeight); //$NON-NLS-1$
+			buf.append(", hits: ").append(fgCacheHits); //$NON-NLS-1$
+			buf.append(", misses: ").append(fgCacheMisses); //$NON-NLS-1$
+			buf.append(", evictions: ").append(fgEvictions); //$NON-NLS-1$
+			return buf.toString();
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.ltk.core.refactoring.IRefactoringStatusEntryComparator;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
@@ -36,6 +37,7 @@ import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
@@ -75,7 +77,7 @@ public class RefactoringSearchEngine {
 		}
 		ResourceSearchRequestor requestor = new ResourceSearchRequestor();
 		try {
-			new SearchEngine().search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, requestor, pm);
+			performSearch(new SearchEngine(), pattern, scope, requestor, pm);
 		} catch (CoreException e) {
 			throw new JavaModelException(e);
 		}
@@ -140,13 +142,67 @@ public class RefactoringSearchEngine {
 	private static SearchResultGroup[] internalSearch(SearchEngine searchEngine, SearchPattern pattern, IJavaSearchScope scope,
 			CollectingSearchRequestor requestor, IProgressMonitor monitor, RefactoringStatus status) throws JavaModelException {
 		try {
-			searchEngine.search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, requestor, monitor);
+			performSearch(searchEngine, pattern, scope, requestor, monitor);
 		} catch (CoreException e) {
 			throw new JavaModelException(e);
 		}
 		return groupByCu(requestor.getResults(), status);
 	}
 
+	/**
+	 * Searches with the default search participants. The time spent searching and the
+	 * number of matches are recorded in the {@link RefactoringTelemetry#getCurrent() current telemetry}.
+	 *
+	 * @param searchEngine the search engine
+	 * @param pattern the search pattern
+	 * @param scope the search scope
+	 * @param requestor the search requestor
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @throws CoreException if the search failed
+	 */
+	static void performSearch(SearchEngine searchEngine, SearchPattern pattern, IJavaSearchScope scope, final SearchRequestor requestor, IProgressMonitor monitor) throws CoreException {
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		if (telemetry == null) {
+			searchEngine.search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, requestor, monitor);
+			return;
+		}
+		final long[] matches= new long[1];
+		SearchRequestor counting= new SearchRequestor() {
+			@Override
+			public void acceptSearchMatch(SearchMatch match) throws CoreException {
+				matches[0]++;
+				requestor.acceptSearchMatch(match);
+			}
+
+			@Override
+			public void beginReporting() {
+				requestor.beginReporting();
+			}
+
+			@Override
+			public void endReporting() {
+				requestor.endReporting();
+			}
+
+			@Override
+			public void enterParticipant(SearchParticipant participant) {
+				requestor.enterParticipant(participant);
+			}
+
+			@Override
+			public void exitParticipant(SearchParticipant participant) {
+				requestor.exitParticipant(participant);
+			}
+		};
+		long start= System.currentTimeMillis();
+		try {
+			searchEngine.search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, counting, monitor);
+		} finally {
+			telemetry.addTime(RefactoringTelemetry.SPAN_SEARCH, System.currentTimeMillis() - start);
+			telemetry.increment(RefactoringTelemetry.COUNTER_SEARCH_MATCHES, matches[0]);
+		}
+	}
+
 	public static SearchResultGroup[] groupByCu(SearchMatch[] matches, RefactoringStatus status) {
 		return groupByCu(Arrays.asList(matches), status);
 	}
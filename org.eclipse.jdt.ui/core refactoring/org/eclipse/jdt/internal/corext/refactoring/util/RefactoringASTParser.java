@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,8 @@ import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
+
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
@@ -61,6 +63,7 @@ public class RefactoringASTParser {
 			fParser.setWorkingCopyOwner(owner);
 		fParser.setCompilerOptions(getCompilerOptions(typeRoot));
 		CompilationUnit result= (CompilationUnit) fParser.createAST(pm);
+		recordParsed(1);
 		return result;
 	}
 
@@ -81,6 +84,7 @@ public class RefactoringASTParser {
 		fParser.setProject(originalCu.getJavaProject());
 		fParser.setCompilerOptions(getCompilerOptions(originalCu));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
+		recordParsed(1);
 		return newCUNode;
 	}
 
@@ -102,9 +106,21 @@ public class RefactoringASTParser {
 		fParser.setProject(originalCf.getJavaProject());
 		fParser.setCompilerOptions(getCompilerOptions(originalCf));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
+		recordParsed(1);
 		return newCUNode;
 	}
 
+	/**
+	 * Adds the given number of parsed ASTs to the {@link RefactoringTelemetry#getCurrent() current telemetry}.
+	 *
+	 * @param count the number of parsed ASTs
+	 */
+	public static void recordParsed(int count) {
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		if (telemetry != null)
+			telemetry.increment(RefactoringTelemetry.COUNTER_ASTS_PARSED, count);
+	}
+
 	/**
 	 * Tries to get the shared AST from the ASTProvider.
 	 * If the shared AST is not available, parses the type root with a
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -471,9 +471,11 @@ public class CleanUpRefactoringWizard extends RefactoringWizard {
 			CleanUpOptions options= null;
 			if (fUseCustomField.isSelected()) {
 				refactoring.setUseOptionsFromProfile(false);
+				refactoring.setIncremental(CleanUpOptions.TRUE.equals(fCustomSettings.get(CleanUpConstants.SKIP_UNCHANGED_COMPILATION_UNITS)));
 				options= new MapCleanUpOptions(fCustomSettings);
 			} else {
 				refactoring.setUseOptionsFromProfile(true);
+				refactoring.setIncremental(false);
 			}
 
 			refactoring.clearCleanUps();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -62,8 +62,16 @@ public class ImportsCleanUp extends AbstractCleanUp {
     	if (compilationUnit == null)
     		return null;
 
-		return ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
-				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), fStatus);
+		// fixes may be created concurrently, collect the status of each fix separately
+		RefactoringStatus status= fStatus != null ? new RefactoringStatus() : null;
+		ICleanUpFix fix= ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
+				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), status);
+		if (status != null && !status.isOK()) {
+			synchronized (fStatus) {
+				fStatus.merge(status);
+			}
+		}
+		return fix;
 	}
 
     /**
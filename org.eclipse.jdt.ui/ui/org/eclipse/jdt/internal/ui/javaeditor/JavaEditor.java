@@ -184,6 +184,7 @@ import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import org.eclipse.jdt.core.util.IModifierConstants;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 
 import org.eclipse.jdt.ui.IContextMenuConstants;
 import org.eclipse.jdt.ui.JavaUI;
@@ -2598,6 +2599,8 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 
 		if (isShowingOverrideIndicators())
 			installOverrideIndicator(false);
+
+		SuperTypeHierarchyCache.prefetch(getInputJavaElement());
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,8 @@ import org.eclipse.ui.PlatformUI;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+
 import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.dialogs.OptionalMessageDialog;
@@ -171,6 +173,7 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 		group.setText(PreferencesMessages.JavaBasePreferencePage_search);
 
 		addCheckBox(group, PreferencesMessages.JavaBasePreferencePage_search_small_menu, PreferenceConstants.SEARCH_USE_REDUCED_MENU);
+		addCheckBox(group, PreferencesMessages.JavaBasePreferencePage_search_caller_index, CallHierarchy.PREF_USE_CALLER_INDEX);
 
 
 		layout= new GridLayout();
@@ -257,6 +260,8 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 			String key= (String) text.getData();
 			store.setValue(key, text.getText());
 		}
+		// installs or shuts down the index
+		CallHierarchy.getDefault().setCallerIndexEnabled(store.getBoolean(CallHierarchy.PREF_USE_CALLER_INDEX));
 
 		JavaPlugin.flushInstanceScope();
 		return super.performOk();
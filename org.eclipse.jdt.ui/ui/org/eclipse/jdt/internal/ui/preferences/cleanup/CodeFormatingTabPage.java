@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -104,6 +104,8 @@ public final class CodeFormatingTabPage extends AbstractCleanUpTabPage {
 		});
 
 		if (!isSaveAction()) {
+			// not a clean up, hence not registered
+			createCheckboxPref(group, numColumns, CleanUpMessages.CodeFormatingTabPage_SkipUnchangedUnits_checkbox_text, CleanUpConstants.SKIP_UNCHANGED_COMPILATION_UNITS, CleanUpModifyDialog.FALSE_TRUE);
 			createLabel(numColumns, group, CleanUpMessages.CodeFormatingTabPage_FormatterSettings_Description).setFont(composite.getFont());
 
 			Group importsGroup= createGroup(numColumns, composite, CleanUpMessages.CodeFormatingTabPage_Imports_GroupName);
@@ -24,6 +24,11 @@ public class AllTests {
 		TestSuite suite= new TestSuite("All LTK Refactoring Core Tests"); //$NON-NLS-1$
 		
 		suite.addTestSuite(RefactoringContextTest.class);
+		suite.addTestSuite(RefactoringTelemetryTest.class);
+		suite.addTestSuite(CompositeChangeTest.class);
+		suite.addTestSuite(PerformChangeOperationTest.class);
+		suite.addTestSuite(UndoManager2Test.class);
+		suite.addTestSuite(BufferValidationCacheTest.class);
 		
 		suite.addTest(ParticipantTests.suite());
 		suite.addTest(RefactoringHistoryTests.suite());
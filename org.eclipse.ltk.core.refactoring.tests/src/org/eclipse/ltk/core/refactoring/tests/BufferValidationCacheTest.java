@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourceAttributes;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.BufferValidationCache;
+
+public class BufferValidationCacheTest extends TestCase {
+
+	private SimpleTestProject fProject;
+	private IFile fFile;
+
+	protected void setUp() throws Exception {
+		fProject= new SimpleTestProject();
+		IFolder folder= fProject.createFolder("folder");
+		fFile= fProject.createFile(folder, "file.txt", "content");
+		BufferValidationCache.getDefault().clear();
+	}
+
+	protected void tearDown() throws Exception {
+		BufferValidationCache.getDefault().clear();
+		fProject.delete();
+	}
+
+	private TextFileChange createChange() {
+		TextFileChange change= new TextFileChange("change", fFile);
+		change.setEdit(new ReplaceEdit(0, 7, "changed"));
+		change.initializeValidationData(new NullProgressMonitor());
+		return change;
+	}
+
+	public void testRevalidation() throws Exception {
+		TextFileChange change= createChange();
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		change.dispose();
+	}
+
+	public void testDisposeRemovesEntry() throws Exception {
+		TextFileChange change= createChange();
+		assertEquals(1, BufferValidationCache.getDefault().size());
+		change.dispose();
+		assertEquals(0, BufferValidationCache.getDefault().size());
+	}
+
+	public void testEncodingChanged() throws Exception {
+		TextFileChange change= createChange();
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		fFile.setCharset("UTF-16", null);
+		assertTrue(change.isValid(new NullProgressMonitor()).hasFatalError());
+		change.dispose();
+	}
+
+	public void testContentChanged() throws Exception {
+		TextFileChange change= createChange();
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		fFile.setContents(new ByteArrayInputStream("modified".getBytes()), true, false, null);
+		assertTrue(change.isValid(new NullProgressMonitor()).hasFatalError());
+		change.dispose();
+	}
+
+	public void testModifiedOutsideWorkspace() throws Exception {
+		TextFileChange change= createChange();
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		File file= fFile.getLocation().toFile();
+		long lastModified= file.lastModified();
+		OutputStream stream= new FileOutputStream(file);
+		try {
+			stream.write("modified".getBytes());
+		} finally {
+			stream.close();
+		}
+		file.setLastModified(lastModified + 10000);
+		assertTrue(change.isValid(new NullProgressMonitor()).hasFatalError());
+		change.dispose();
+	}
+
+	public void testReadOnlyChanged() throws Exception {
+		TextFileChange change= createChange();
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		ResourceAttributes attributes= fFile.getResourceAttributes();
+		attributes.setReadOnly(true);
+		fFile.setResourceAttributes(attributes);
+		try {
+			assertTrue(change.isValid(new NullProgressMonitor()).hasFatalError());
+		} finally {
+			attributes.setReadOnly(false);
+			fFile.setResourceAttributes(attributes);
+		}
+		change.dispose();
+	}
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.ParallelChangeValidator;
+
+public class CompositeChangeTest extends TestCase {
+
+	private static final int FILES= 100;
+
+	private SimpleTestProject fProject;
+	private IFile[] fFiles;
+	private TextFileChange[] fChanges;
+	private CompositeChange fComposite;
+	private final List fThreads= Collections.synchronizedList(new ArrayList());
+
+	/**
+	 * A change that overrides the validation of {@link TextFileChange} and records the
+	 * threads that validate it.
+	 */
+	private static class RecordingTextFileChange extends TextFileChange {
+		private final List fThreads;
+
+		public RecordingTextFileChange(String name, IFile file, List threads) {
+			super(name, file);
+			fThreads= threads;
+		}
+
+		public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException {
+			fThreads.add(Thread.currentThread());
+			return super.isValid(pm);
+		}
+	}
+
+	/**
+	 * Validates the composite change in a job.
+	 */
+	private class ValidationJob extends Job {
+		RefactoringStatus fStatus;
+		Thread fThread;
+		boolean fParallel;
+
+		public ValidationJob(ISchedulingRule rule) {
+			super("validation");
+			setRule(rule);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			fThread= Thread.currentThread();
+			fParallel= ParallelChangeValidator.canValidateInParallel();
+			try {
+				fStatus= fComposite.isValid(new NullProgressMonitor());
+			} catch (CoreException e) {
+				return e.getStatus();
+			}
+			return Status.OK_STATUS;
+		}
+
+		public void runAndWait() throws Exception {
+			schedule();
+			join();
+			assertTrue(getResult().toString(), getResult().isOK());
+		}
+	}
+
+	protected void setUp() throws Exception {
+		setUp(false);
+	}
+
+	private void setUp(boolean recording) throws Exception {
+		fProject= new SimpleTestProject();
+		IFolder folder= fProject.createFolder("folder");
+		fFiles= new IFile[FILES];
+		fChanges= new TextFileChange[FILES];
+		fComposite= new CompositeChange("composite");
+		for (int i= 0; i < FILES; i++) {
+			fFiles[i]= fProject.createFile(folder, "file" + i + ".txt", "content " + i);
+			fChanges[i]= recording ? new RecordingTextFileChange("change " + i, fFiles[i], fThreads) : new TextFileChange("change " + i, fFiles[i]);
+			fChanges[i].setEdit(new ReplaceEdit(0, 7, "changed"));
+			fComposite.add(fChanges[i]);
+		}
+		fComposite.initializeValidationData(new NullProgressMonitor());
+	}
+
+	protected void tearDown() throws Exception {
+		fComposite.dispose();
+		fProject.delete();
+	}
+
+	public void testValid() throws Exception {
+		RefactoringStatus status= fComposite.isValid(new NullProgressMonitor());
+		assertTrue(status.toString(), status.isOK());
+	}
+
+	public void testFirstFatalError() throws Exception {
+		fFiles[70].delete(true, null);
+		fFiles[40].delete(true, null);
+		RefactoringStatus status= fComposite.isValid(new NullProgressMonitor());
+		assertTrue(status.hasFatalError());
+		// the results are merged in the order of the children, up to the first fatal error
+		RefactoringStatusEntry[] entries= status.getEntries();
+		assertEquals(1, entries.length);
+		assertTrue(entries[0].getMessage(), entries[0].getMessage().indexOf("file40.txt") != -1);
+	}
+
+	public void testDisabledChildren() throws Exception {
+		fFiles[10].delete(true, null);
+		fChanges[10].setEnabled(false);
+		RefactoringStatus status= fComposite.isValid(new NullProgressMonitor());
+		assertTrue(status.toString(), status.isOK());
+	}
+
+	public void testFirstFatalErrorInJob() throws Exception {
+		fFiles[70].delete(true, null);
+		fFiles[40].delete(true, null);
+		ValidationJob job= new ValidationJob(null);
+		job.runAndWait();
+		assertTrue(job.fParallel);
+		RefactoringStatusEntry[] entries= job.fStatus.getEntries();
+		assertEquals(1, entries.length);
+		assertTrue(entries[0].getMessage(), entries[0].getMessage().indexOf("file40.txt") != -1);
+	}
+
+	public void testNotParallelWithRule() throws Exception {
+		assertFalse(ParallelChangeValidator.canValidateInParallel());
+		ValidationJob job= new ValidationJob(ResourcesPlugin.getWorkspace().getRoot());
+		job.runAndWait();
+		assertFalse(job.fParallel);
+		assertTrue(job.fStatus.toString(), job.fStatus.isOK());
+	}
+
+	public void testOverriddenValidationInCallingThread() throws Exception {
+		tearDown();
+		setUp(true);
+		ValidationJob job= new ValidationJob(null);
+		job.runAndWait();
+		assertTrue(job.fStatus.toString(), job.fStatus.isOK());
+		assertEquals(FILES, fThreads.size());
+		for (int i= 0; i < FILES; i++)
+			assertSame(job.fThread, fThreads.get(i));
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.UndoEdit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+
+public class PerformChangeOperationTest extends TestCase {
+
+	private static final int FILES= 120;
+
+	private static class CountingTextFileChange extends TextFileChange {
+		int fPerformEditsCount;
+
+		public CountingTextFileChange(String name, IFile file) {
+			super(name, file);
+		}
+
+		protected UndoEdit performEdits(IDocument document) throws BadLocationException, MalformedTreeException {
+			fPerformEditsCount++;
+			return super.performEdits(document);
+		}
+	}
+
+	private SimpleTestProject fProject;
+	private IFile[] fFiles;
+	private ITextFileBuffer[] fBuffers;
+
+	protected void setUp() throws Exception {
+		fProject= new SimpleTestProject();
+		IFolder folder= fProject.createFolder("folder");
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		fFiles= new IFile[FILES];
+		fBuffers= new ITextFileBuffer[FILES];
+		for (int i= 0; i < FILES; i++) {
+			fFiles[i]= fProject.createFile(folder, "file" + i + ".txt", "content " + i);
+			manager.connect(fFiles[i].getFullPath(), LocationKind.IFILE, null);
+			fBuffers[i]= manager.getTextFileBuffer(fFiles[i].getFullPath(), LocationKind.IFILE);
+			fBuffers[i].requestSynchronizationContext();
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		for (int i= 0; i < FILES; i++) {
+			fBuffers[i].releaseSynchronizationContext();
+			manager.disconnect(fFiles[i].getFullPath(), LocationKind.IFILE, null);
+		}
+		fProject.delete();
+	}
+
+	private CompositeChange createChange(int badEditIndex) {
+		return createChange(badEditIndex, false);
+	}
+
+	private CompositeChange createChange(int badEditIndex, boolean counting) {
+		CompositeChange result= new CompositeChange("composite");
+		for (int i= 0; i < FILES; i++) {
+			TextFileChange change= counting ? new CountingTextFileChange("change " + i, fFiles[i]) : new TextFileChange("change " + i, fFiles[i]);
+			int length= i == badEditIndex ? 1000 : 7;
+			change.setEdit(new ReplaceEdit(0, length, "changed"));
+			result.add(change);
+		}
+		result.initializeValidationData(new NullProgressMonitor());
+		return result;
+	}
+
+	public void testBatchedEdits() throws Exception {
+		PerformChangeOperation operation= new PerformChangeOperation(createChange(-1));
+		operation.setBatchSynchronizedEdits(true);
+		operation.run(new NullProgressMonitor());
+		assertTrue(operation.changeExecuted());
+		for (int i= 0; i < FILES; i++) {
+			assertEquals("changed " + i, fBuffers[i].getDocument().get());
+			assertEquals("changed " + i, fProject.getContent(fFiles[i]));
+		}
+
+		Change undo= operation.getUndoChange();
+		assertNotNull(undo);
+		undo.perform(new NullProgressMonitor());
+		for (int i= 0; i < FILES; i++) {
+			assertEquals("content " + i, fBuffers[i].getDocument().get());
+		}
+	}
+
+	public void testOverriddenPerformEditsNotBatched() throws Exception {
+		CompositeChange change= createChange(-1, true);
+		PerformChangeOperation operation= new PerformChangeOperation(change);
+		operation.setBatchSynchronizedEdits(true);
+		operation.run(new NullProgressMonitor());
+		assertTrue(operation.changeExecuted());
+		Change[] children= change.getChildren();
+		for (int i= 0; i < FILES; i++) {
+			assertEquals(1, ((CountingTextFileChange) children[i]).fPerformEditsCount);
+			assertEquals("changed " + i, fBuffers[i].getDocument().get());
+		}
+	}
+
+	public void testBatchedEditsFailure() throws Exception {
+		PerformChangeOperation operation= new PerformChangeOperation(createChange(FILES - 10));
+		operation.setBatchSynchronizedEdits(true);
+		try {
+			operation.run(new NullProgressMonitor());
+			fail("bad edit must fail");
+		} catch (CoreException e) {
+			// expected
+		}
+		assertFalse(operation.changeExecuted());
+		// the edits that have been executed ahead are reverted
+		for (int i= 0; i < FILES; i++) {
+			assertEquals("content " + i, fBuffers[i].getDocument().get());
+			assertEquals("content " + i, fProject.getContent(fFiles[i]));
+		}
+	}
+}
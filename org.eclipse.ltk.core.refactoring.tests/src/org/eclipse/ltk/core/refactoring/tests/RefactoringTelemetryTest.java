@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.IRefactoringTelemetryListener;
+import org.eclipse.ltk.core.refactoring.NullChange;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
+
+public class RefactoringTelemetryTest extends TestCase {
+
+	private static class TestRefactoring extends Refactoring {
+		RefactoringStatus fFinalConditionStatus= new RefactoringStatus();
+
+		public String getName() {
+			return "test Refactoring";
+		}
+
+		public RefactoringStatus checkInitialConditions(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+			return new RefactoringStatus();
+		}
+
+		public RefactoringStatus checkFinalConditions(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+			RefactoringTelemetry.getCurrent().increment(RefactoringTelemetry.COUNTER_SEARCH_MATCHES, 3);
+			RefactoringTelemetry.getCurrent().increment(RefactoringTelemetry.COUNTER_SEARCH_MATCHES, 2);
+			return fFinalConditionStatus;
+		}
+
+		public Change createChange(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+			return new NullChange();
+		}
+	}
+
+	private final List fRecorded= new ArrayList();
+
+	private final IRefactoringTelemetryListener fListener= new IRefactoringTelemetryListener() {
+		public void telemetryRecorded(RefactoringTelemetry telemetry) {
+			fRecorded.add(telemetry);
+		}
+	};
+
+	protected void setUp() throws Exception {
+		RefactoringCore.addTelemetryListener(fListener);
+	}
+
+	protected void tearDown() throws Exception {
+		RefactoringCore.removeTelemetryListener(fListener);
+	}
+
+	public void testSpansAndCounters() throws Exception {
+		RefactoringTelemetry telemetry= new RefactoringTelemetry("test");
+		PerformRefactoringOperation operation= new PerformRefactoringOperation(new TestRefactoring(), CheckConditionsOperation.ALL_CONDITIONS);
+		operation.setTelemetry(telemetry);
+		operation.run(null);
+
+		assertNull(RefactoringTelemetry.getCurrent());
+		assertEquals(1, fRecorded.size());
+		assertSame(telemetry, fRecorded.get(0));
+		List spans= Arrays.asList(telemetry.getSpans());
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_INITIAL_CONDITIONS));
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_FINAL_CONDITIONS));
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_CREATE_CHANGE));
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_VALIDATE));
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_PERFORM));
+		assertEquals(5, telemetry.getCount(RefactoringTelemetry.COUNTER_SEARCH_MATCHES));
+		assertEquals(0, telemetry.getCount(RefactoringTelemetry.COUNTER_FILES_TOUCHED));
+		assertTrue(telemetry.toString().indexOf(RefactoringTelemetry.COUNTER_SEARCH_MATCHES + "=5") != -1);
+	}
+
+	public void testConditionsFailed() throws Exception {
+		TestRefactoring refactoring= new TestRefactoring();
+		refactoring.fFinalConditionStatus.addFatalError("fail");
+		RefactoringTelemetry telemetry= new RefactoringTelemetry("test");
+		PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+		operation.setTelemetry(telemetry);
+		operation.run(null);
+
+		assertEquals(1, fRecorded.size());
+		List spans= Arrays.asList(telemetry.getSpans());
+		assertTrue(spans.contains(RefactoringTelemetry.SPAN_FINAL_CONDITIONS));
+		assertFalse(spans.contains(RefactoringTelemetry.SPAN_CREATE_CHANGE));
+		assertFalse(spans.contains(RefactoringTelemetry.SPAN_PERFORM));
+	}
+
+	public void testNoTelemetry() throws Exception {
+		new PerformRefactoringOperation(new TestRefactoring() {
+			public RefactoringStatus checkFinalConditions(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+				assertNull(RefactoringTelemetry.getCurrent());
+				return fFinalConditionStatus;
+			}
+		}, CheckConditionsOperation.ALL_CONDITIONS).run(null);
+		assertTrue(fRecorded.isEmpty());
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.UndoEdit;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.ltk.core.refactoring.NullChange;
+import org.eclipse.ltk.internal.core.refactoring.UndoDocumentChange;
+import org.eclipse.ltk.internal.core.refactoring.UndoManager2;
+
+public class UndoManager2Test extends TestCase {
+
+	private static final int TEXT_LENGTH= 10000;
+
+	private UndoManager2 fUndoManager;
+
+	protected void setUp() throws Exception {
+		fUndoManager= new UndoManager2();
+		fUndoManager.flush();
+	}
+
+	protected void tearDown() throws Exception {
+		fUndoManager.setMemoryLimit(-1);
+		fUndoManager.flush();
+	}
+
+	private IDocument performChange(String name) throws Exception {
+		StringBuffer buffer= new StringBuffer(TEXT_LENGTH);
+		for (int i= 0; i < TEXT_LENGTH; i++)
+			buffer.append((char) ('a' + i % 26));
+		IDocument document= new Document(buffer.toString());
+		NullChange change= new NullChange(name);
+		fUndoManager.aboutToPerformChange(change);
+		UndoEdit undo= new ReplaceEdit(0, document.getLength(), name).apply(document);
+		fUndoManager.changePerformed(change, true);
+		UndoDocumentChange undoChange= new UndoDocumentChange(name, document, undo);
+		undoChange.initializeValidationData(new NullProgressMonitor());
+		fUndoManager.addUndo(name, undoChange);
+		return document;
+	}
+
+	public void testMemoryLimit() throws Exception {
+		// each undo change retains the replaced text of TEXT_LENGTH characters
+		fUndoManager.setMemoryLimit(5 * TEXT_LENGTH);
+		performChange("first");
+		performChange("second");
+		assertTrue(fUndoManager.testHasNumberOfUndos(2));
+		IDocument document= performChange("third");
+		assertTrue("the oldest undo must be evicted", fUndoManager.testHasNumberOfUndos(2));
+		assertTrue(fUndoManager.testGetUndoMemoryCost() <= 5 * TEXT_LENGTH);
+
+		fUndoManager.setMemoryLimit(0);
+		assertTrue("the most recent undo must be kept", fUndoManager.testHasNumberOfUndos(1));
+		assertEquals("third", fUndoManager.peekUndoName());
+		fUndoManager.performUndo(null, new NullProgressMonitor());
+		assertEquals(TEXT_LENGTH, document.getLength());
+	}
+
+	public void testNoMemoryLimitExceeded() throws Exception {
+		fUndoManager.setMemoryLimit(1024 * 1024);
+		performChange("first");
+		performChange("second");
+		performChange("third");
+		assertTrue(fUndoManager.testHasNumberOfUndos(3));
+	}
+}
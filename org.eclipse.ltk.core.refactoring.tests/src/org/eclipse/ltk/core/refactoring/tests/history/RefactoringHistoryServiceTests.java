@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2008 IBM Corporation and others.
+ * Copyright (c) 2006, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.ltk.core.refactoring.tests.history;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -21,8 +24,11 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
 
@@ -31,6 +37,7 @@ import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
 import org.eclipse.ltk.core.refactoring.history.IRefactoringExecutionListener;
 import org.eclipse.ltk.core.refactoring.history.IRefactoringHistoryListener;
 import org.eclipse.ltk.core.refactoring.history.IRefactoringHistoryService;
@@ -38,8 +45,10 @@ import org.eclipse.ltk.core.refactoring.history.RefactoringExecutionEvent;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistoryEvent;
 import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringPreferenceConstants;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringDescriptorProxyAdapter;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryCache;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryImplementation;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
 
@@ -169,12 +178,21 @@ public class RefactoringHistoryServiceTests extends TestCase {
 	}
 
 	private RefactoringDescriptor executeRefactoring(String project, int index, int flags) throws CoreException {
+		return executeRefactoring(project, index, flags, (index + 1) * RefactoringHistoryServiceTests.STAMP_FACTOR);
+	}
+
+	private RefactoringDescriptor executeRefactoring(String project, int index, int flags, long stamp) throws CoreException {
+		return executeRefactoring(project, index, flags, stamp, null);
+	}
+
+	private RefactoringDescriptor executeRefactoring(String project, int index, int flags, long stamp, RefactoringTelemetry telemetry) throws CoreException {
 		RefactoringHistoryService service= RefactoringHistoryService.getInstance();
 		try {
-			service.setOverrideTimeStamp((index + 1) * RefactoringHistoryServiceTests.STAMP_FACTOR);
+			service.setOverrideTimeStamp(stamp);
 			MockRefactoring refactoring= new MockRefactoring(project, "A mock description number " + index, "A mock comment number " + index, Collections.EMPTY_MAP, flags);
 			RefactoringDescriptor descriptor= refactoring.createRefactoringDescriptor();
 			PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+			operation.setTelemetry(telemetry);
 			ResourcesPlugin.getWorkspace().run(operation, null);
 			return descriptor;
 		} finally {
@@ -182,6 +200,33 @@ public class RefactoringHistoryServiceTests extends TestCase {
 		}
 	}
 
+	private String readHistoryFiles() throws CoreException {
+		final StringBuffer buffer= new StringBuffer();
+		IFolder folder= fProject.getProject().getFolder(RefactoringHistoryService.NAME_HISTORY_FOLDER);
+		folder.refreshLocal(IResource.DEPTH_INFINITE, null);
+		folder.accept(new IResourceVisitor() {
+			public boolean visit(IResource resource) throws CoreException {
+				if (resource instanceof IFile && RefactoringHistoryService.NAME_HISTORY_FILE.equals(resource.getName())) {
+					try {
+						Reader reader= new InputStreamReader(((IFile) resource).getContents(), IRefactoringSerializationConstants.OUTPUT_ENCODING);
+						try {
+							char[] chars= new char[4096];
+							int read;
+							while ((read= reader.read(chars)) != -1)
+								buffer.append(chars, 0, read);
+						} finally {
+							reader.close();
+						}
+					} catch (IOException e) {
+						fail(e.getMessage());
+					}
+				}
+				return true;
+			}
+		});
+		return buffer.toString();
+	}
+
 	private void setSharedRefactoringHistory(boolean shared) throws BackingStoreException, CoreException {
 		final IEclipsePreferences preferences= new ProjectScope(fProject.getProject()).getNode(RefactoringCore.ID_PLUGIN);
 		preferences.put(RefactoringPreferenceConstants.PREFERENCE_SHARED_REFACTORING_HISTORY, Boolean.toString(shared));
@@ -564,6 +609,73 @@ public class RefactoringHistoryServiceTests extends TestCase {
 		assertEquals("Refactoring history has wrong size", 0, proxies.length);
 	}
 
+	public void testReadProjectHistory7() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		final long later= 130000L * STAMP_FACTOR;
+		executeRefactoring(fProject.getProject().getName(), 1000, RefactoringDescriptor.NONE, later);
+		RefactoringHistory history= service.getProjectHistory(fProject.getProject(), STAMP_FACTOR, STAMP_FACTOR * 5, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 5, history.getDescriptors().length);
+		history= service.getProjectHistory(fProject.getProject(), later - 1, later + 1, RefactoringDescriptor.NONE, null);
+		RefactoringDescriptorProxy[] proxies= history.getDescriptors();
+		assertEquals("Refactoring history has wrong size", 1, proxies.length);
+		assertEquals("Wrong time stamp", later, proxies[0].getTimeStamp());
+		history= service.getProjectHistory(fProject.getProject(), 0, Long.MAX_VALUE, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", TOTAL_PROJECT_NUMBER + 1, history.getDescriptors().length);
+		service.deleteRefactoringDescriptors(new RefactoringDescriptorProxy[] { proxies[0]}, null);
+		history= service.getProjectHistory(fProject.getProject(), later - 1, later + 1, RefactoringDescriptor.NONE, null);
+		assertTrue("Refactoring history should be empty", history.isEmpty());
+	}
+
+	public void testReadProjectHistory8() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		final long later= 130000L * STAMP_FACTOR;
+		RefactoringHistory history= service.getProjectHistory(fProject.getProject(), 0, Long.MAX_VALUE, RefactoringDescriptor.BREAKING_CHANGE, null);
+		assertEquals("Refactoring history has wrong size", BREAKING_NUMBER, history.getDescriptors().length);
+		executeRefactoring(fProject.getProject().getName(), 1000, RefactoringDescriptor.BREAKING_CHANGE | RefactoringDescriptor.MULTI_CHANGE, later);
+		history= service.getProjectHistory(fProject.getProject(), 0, Long.MAX_VALUE, RefactoringDescriptor.BREAKING_CHANGE, null);
+		assertEquals("Refactoring history has wrong size", BREAKING_NUMBER + 1, history.getDescriptors().length);
+		history= service.getProjectHistory(fProject.getProject(), later - 1, later + 1, RefactoringDescriptor.BREAKING_CHANGE | RefactoringDescriptor.MULTI_CHANGE, null);
+		RefactoringDescriptorProxy[] proxies= history.getDescriptors();
+		assertEquals("Refactoring history has wrong size", 1, proxies.length);
+		assertEquals("Wrong time stamp", later, proxies[0].getTimeStamp());
+		history= service.getRefactoringHistory(new IProject[] { fProject.getProject()}, 0, Long.MAX_VALUE, RefactoringDescriptor.STRUCTURAL_CHANGE, null);
+		assertEquals("Refactoring history has wrong size", STRUCTURAL_NUMBER, history.getDescriptors().length);
+		service.deleteRefactoringDescriptors(proxies, null);
+		history= service.getProjectHistory(fProject.getProject(), 0, Long.MAX_VALUE, RefactoringDescriptor.BREAKING_CHANGE, null);
+		assertEquals("Refactoring history has wrong size", BREAKING_NUMBER, history.getDescriptors().length);
+	}
+
+	public void testReadProjectHistory9() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		RefactoringHistory history= service.getProjectHistory(fProject.getProject(), MockRefactoringDescriptor.ID, 0, Long.MAX_VALUE, null);
+		assertEquals("Refactoring history has wrong size", TOTAL_PROJECT_NUMBER, history.getDescriptors().length);
+		history= service.getProjectHistory(fProject.getProject(), MockRefactoringDescriptor.ID, STAMP_FACTOR, STAMP_FACTOR * 5, null);
+		assertEquals("Refactoring history has wrong size", 5, history.getDescriptors().length);
+		history= service.getProjectHistory(fProject.getProject(), "org.eclipse.ltk.core.unknown", 0, Long.MAX_VALUE, null);
+		assertTrue("Refactoring history should be empty", history.isEmpty());
+	}
+
+	public void testRecordTelemetryInHistory() throws Exception {
+		final String attribute= IRefactoringSerializationConstants.ATTRIBUTE_TELEMETRY + "=\"";
+		final String name= fProject.getProject().getName();
+		RefactoringTelemetry telemetry= new RefactoringTelemetry("test");
+		executeRefactoring(name, 1000, RefactoringDescriptor.NONE, 130000L * STAMP_FACTOR, telemetry);
+		assertFalse(telemetry.isRecordInHistory());
+		assertTrue("Telemetry must not be recorded", readHistoryFiles().indexOf(attribute) == -1);
+
+		telemetry= new RefactoringTelemetry("test");
+		telemetry.setRecordInHistory(true);
+		executeRefactoring(name, 1001, RefactoringDescriptor.NONE, 130001L * STAMP_FACTOR, telemetry);
+		String history= readHistoryFiles();
+		int index= history.indexOf(attribute);
+		assertTrue("Telemetry must be recorded", index != -1);
+		assertEquals("Telemetry must be recorded once", -1, history.indexOf(attribute, index + 1));
+		assertTrue(history.startsWith(RefactoringTelemetry.SPAN_INITIAL_CONDITIONS + "=", index + attribute.length()));
+
+		RefactoringHistory refactorings= RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), 130001L * STAMP_FACTOR, 130001L * STAMP_FACTOR, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 1, refactorings.getDescriptors().length);
+	}
+
 	public void testReadRefactoringHistory0() throws Exception {
 		setUpWorkspaceRefactorings();
 		RefactoringHistory history= RefactoringHistoryService.getInstance().getWorkspaceHistory(null);
@@ -608,6 +720,24 @@ public class RefactoringHistoryServiceTests extends TestCase {
 		assertEquals("Refactoring history has wrong size", 3, proxies.length);
 	}
 
+	public void testRequestDescriptor0() throws Exception {
+		RefactoringHistoryCache cache= RefactoringHistoryCache.getInstance();
+		cache.clear();
+		RefactoringHistory history= RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), STAMP_FACTOR, STAMP_FACTOR, RefactoringDescriptor.NONE, null);
+		RefactoringDescriptorProxy[] proxies= history.getDescriptors();
+		assertEquals("Refactoring history has wrong size", 1, proxies.length);
+		long misses= cache.getMissCount();
+		long hits= cache.getHitCount();
+		RefactoringDescriptor first= proxies[0].requestDescriptor(null);
+		assertNotNull("Could not resolve refactoring descriptor", first);
+		assertEquals("History file should have been parsed", misses + 1, cache.getMissCount());
+		RefactoringDescriptor second= proxies[0].requestDescriptor(null);
+		assertSame("Parsed history file should have been cached", first, second);
+		assertEquals("History file should not have been parsed again", hits + 1, cache.getHitCount());
+		assertEquals("History file should not have been parsed again", misses + 1, cache.getMissCount());
+		assertTrue("Cache should not be empty", cache.getSize() > 0);
+	}
+
 	public void testSharing0() throws Exception {
 		final IProject project= fProject.getProject();
 		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.participants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
+import org.eclipse.ltk.core.refactoring.participants.RefactoringParticipant;
+import org.eclipse.ltk.core.refactoring.participants.RenameParticipant;
+import org.eclipse.ltk.internal.core.refactoring.ConcurrentParticipantChecker;
+
+public class ConcurrentParticipantCheckerTests extends TestCase {
+
+	private class CheckingParticipant extends RenameParticipant {
+		private final int fIndex;
+		private final long fDelay;
+
+		public CheckingParticipant(int index, long delay) {
+			fIndex= index;
+			fDelay= delay;
+		}
+
+		protected boolean initialize(Object element) {
+			return true;
+		}
+
+		public String getName() {
+			return "Participant " + fIndex;
+		}
+
+		public RefactoringStatus checkConditions(IProgressMonitor pm, CheckConditionsContext context) throws OperationCanceledException {
+			synchronized (fThreads) {
+				fThreads.add(Thread.currentThread());
+			}
+			try {
+				Thread.sleep(fDelay);
+			} catch (InterruptedException e) {
+				// continue
+			}
+			return check(fIndex, pm);
+		}
+
+		protected RefactoringStatus check(int index, IProgressMonitor pm) {
+			return RefactoringStatus.createInfoStatus(getName());
+		}
+
+		public Change createChange(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+			return null;
+		}
+	}
+
+	private final List fThreads= new ArrayList();
+
+	private ConcurrentParticipantChecker createChecker(RefactoringParticipant[] participants) {
+		PerformanceStats[] stats= new PerformanceStats[participants.length];
+		for (int i= 0; i < stats.length; i++)
+			stats[i]= PerformanceStats.getStats("org.eclipse.ltk.core.refactoring.tests/perf/checkConditions", participants[i].getName());
+		return new ConcurrentParticipantChecker(participants, new CheckConditionsContext(), stats);
+	}
+
+	public void testResultsInOrder() throws Exception {
+		RefactoringParticipant[] participants= new RefactoringParticipant[8];
+		for (int i= 0; i < participants.length; i++)
+			participants[i]= new CheckingParticipant(i, 10 * (participants.length - i));
+		ConcurrentParticipantChecker checker= createChecker(participants);
+		checker.checkConditions(new NullProgressMonitor());
+
+		RefactoringStatus result= new RefactoringStatus();
+		for (int i= 0; i < participants.length; i++) {
+			result.merge((RefactoringStatus) checker.getResult(i));
+			assertTrue(checker.getTime(i) >= 0);
+		}
+		assertEquals(participants.length, fThreads.size());
+		for (int i= 0; i < participants.length; i++)
+			assertEquals("Participant " + i, result.getEntryAt(i).getMessage());
+	}
+
+	public void testExceptionResult() throws Exception {
+		final RuntimeException exception= new IllegalStateException();
+		RefactoringParticipant[] participants= new RefactoringParticipant[] {
+			new CheckingParticipant(0, 0),
+			new CheckingParticipant(1, 0) {
+				protected RefactoringStatus check(int index, IProgressMonitor pm) {
+					throw exception;
+				}
+			},
+			new CheckingParticipant(2, 0)
+		};
+		ConcurrentParticipantChecker checker= createChecker(participants);
+		checker.checkConditions(new NullProgressMonitor());
+
+		assertTrue(checker.getResult(0) instanceof RefactoringStatus);
+		assertSame(exception, checker.getResult(1));
+		assertTrue(checker.getResult(2) instanceof RefactoringStatus);
+	}
+
+	public void testCancel() throws Exception {
+		NullProgressMonitor canceled= new NullProgressMonitor();
+		canceled.setCanceled(true);
+		RefactoringParticipant[] participants= new RefactoringParticipant[4];
+		for (int i= 0; i < participants.length; i++)
+			participants[i]= new CheckingParticipant(i, 0);
+		try {
+			createChecker(participants).checkConditions(canceled);
+			fail("checking not canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertEquals(0, fThreads.size());
+
+		final NullProgressMonitor monitor= new NullProgressMonitor();
+		participants= new RefactoringParticipant[50];
+		participants[0]= new CheckingParticipant(0, 0) {
+			protected RefactoringStatus check(int index, IProgressMonitor pm) {
+				monitor.setCanceled(true);
+				return super.check(index, pm);
+			}
+		};
+		for (int i= 1; i < participants.length; i++)
+			participants[i]= new CheckingParticipant(i, 20);
+		try {
+			createChecker(participants).checkConditions(monitor);
+			fail("checking not canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertTrue(fThreads.size() < participants.length);
+	}
+
+	public void testSequentialWithRule() throws Exception {
+		final ISchedulingRule rule= ResourcesPlugin.getWorkspace().getRoot();
+		RefactoringParticipant[] participants= new RefactoringParticipant[4];
+		for (int i= 0; i < participants.length; i++) {
+			participants[i]= new CheckingParticipant(i, 0) {
+				protected RefactoringStatus check(int index, IProgressMonitor pm) {
+					// would deadlock in a worker job while the calling thread owns the rule
+					Job.getJobManager().beginRule(rule, null);
+					try {
+						return super.check(index, pm);
+					} finally {
+						Job.getJobManager().endRule(rule);
+					}
+				}
+			};
+		}
+		Job.getJobManager().beginRule(rule, null);
+		try {
+			ConcurrentParticipantChecker checker= createChecker(participants);
+			checker.checkConditions(new NullProgressMonitor());
+			for (int i= 0; i < participants.length; i++)
+				assertTrue(checker.getResult(i) instanceof RefactoringStatus);
+		} finally {
+			Job.getJobManager().endRule(rule);
+		}
+		assertEquals(participants.length, fThreads.size());
+		for (int i= 0; i < fThreads.size(); i++)
+			assertSame(Thread.currentThread(), fThreads.get(i));
+	}
+}
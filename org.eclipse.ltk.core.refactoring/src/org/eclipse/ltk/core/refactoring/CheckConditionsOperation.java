@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,12 +77,20 @@ public class CheckConditionsOperation implements IWorkspaceRunnable {
 			pm= new NullProgressMonitor();
 		try {
 			fStatus= null;
-			if ((fStyle & ALL_CONDITIONS) == ALL_CONDITIONS)
+			RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+			long start= System.currentTimeMillis();
+			if ((fStyle & ALL_CONDITIONS) == ALL_CONDITIONS) {
+				// the spans are recorded by Refactoring#checkAllConditions
 				fStatus= fRefactoring.checkAllConditions(pm);
-			else if ((fStyle & INITIAL_CONDITONS) == INITIAL_CONDITONS)
+			} else if ((fStyle & INITIAL_CONDITONS) == INITIAL_CONDITONS) {
 				fStatus= fRefactoring.checkInitialConditions(pm);
-			else if ((fStyle & FINAL_CONDITIONS) == FINAL_CONDITIONS)
+				if (telemetry != null)
+					telemetry.addTime(RefactoringTelemetry.SPAN_INITIAL_CONDITIONS, System.currentTimeMillis() - start);
+			} else if ((fStyle & FINAL_CONDITIONS) == FINAL_CONDITIONS) {
 				fStatus= fRefactoring.checkFinalConditions(pm);
+				if (telemetry != null)
+					telemetry.addTime(RefactoringTelemetry.SPAN_FINAL_CONDITIONS, System.currentTimeMillis() - start);
+			}
 		} finally {
 			pm.done();
 		}
@@ -24,6 +24,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.ltk.internal.core.refactoring.ParallelChangeValidator;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
 
@@ -203,18 +204,30 @@ public class CompositeChange extends Change {
 	 * {@inheritDoc}
 	 * <p>
 	 * The composite change sends <code>initializeValidationData</code> to all its
-	 * children.
+	 * children. If the composite change has many consecutive {@link TextFileChange}
+	 * children, they may be initialized in parallel, see {@link #isValid(IProgressMonitor)}.
 	 * </p>
 	 * <p>
 	 * Client are allowed to extend this method.
 	 * </p>
 	 */
 	public void initializeValidationData(IProgressMonitor pm) {
-		pm.beginTask("", fChanges.size()); //$NON-NLS-1$
-		for (Iterator iter= fChanges.iterator(); iter.hasNext();) {
-			Change change= (Change)iter.next();
-			change.initializeValidationData(new SubProgressMonitor(pm, 1));
-			pm.worked(1);
+		int size= fChanges.size();
+		pm.beginTask("", size); //$NON-NLS-1$
+		boolean parallel= isValidatedInParallel();
+		for (int i= 0; i < size;) {
+			List run= new ArrayList();
+			int end= parallel ? collectParallelizableRun(i, false, run) : i;
+			if (run.size() >= ParallelChangeValidator.THRESHOLD) {
+				ParallelChangeValidator.initializeValidationData(run, new SubProgressMonitor(pm, end - i));
+				i= end;
+			} else {
+				do {
+					Change change= (Change)fChanges.get(i++);
+					change.initializeValidationData(new SubProgressMonitor(pm, 1));
+					pm.worked(1);
+				} while (i < end);
+			}
 		}
 	}
 
@@ -227,25 +240,72 @@ public class CompositeChange extends Change {
 	 * will not receive the <code>isValid</code> call.
 	 * </p>
 	 * <p>
+	 * If the composite change has many consecutive enabled {@link TextFileChange}
+	 * children that inherit the validation of <code>TextFileChange</code>, they
+	 * may be validated in parallel by worker jobs. This is only done if the calling
+	 * thread is a job that does not own a scheduling rule. Their results are merged
+	 * in the order of the children, with the same semantics as above. Children
+	 * which are already being validated when another child fails still complete.
+	 * </p>
+	 * <p>
 	 * Client are allowed to extend this method.
 	 * </p>
 	 */
 	public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException {
 		RefactoringStatus result= new RefactoringStatus();
-		pm.beginTask("", fChanges.size()); //$NON-NLS-1$
-		for (Iterator iter= fChanges.iterator(); iter.hasNext() && !result.hasFatalError();) {
-			Change change= (Change)iter.next();
-			if (change.isEnabled())
-				result.merge(change.isValid(new SubProgressMonitor(pm, 1)));
-			else
-				pm.worked(1);
-			if (pm.isCanceled())
-				throw new OperationCanceledException();
+		int size= fChanges.size();
+		pm.beginTask("", size); //$NON-NLS-1$
+		boolean parallel= isValidatedInParallel();
+		for (int i= 0; i < size && !result.hasFatalError();) {
+			List run= new ArrayList();
+			int end= parallel ? collectParallelizableRun(i, true, run) : i;
+			if (run.size() >= ParallelChangeValidator.THRESHOLD) {
+				Object[] results= ParallelChangeValidator.isValid(run, new SubProgressMonitor(pm, end - i));
+				for (int j= 0; j < results.length && !result.hasFatalError(); j++)
+					result.merge(ParallelChangeValidator.getStatus(results[j]));
+				i= end;
+			} else {
+				do {
+					Change change= (Change)fChanges.get(i++);
+					if (change.isEnabled())
+						result.merge(change.isValid(new SubProgressMonitor(pm, 1)));
+					else
+						pm.worked(1);
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+				} while (i < end && !result.hasFatalError());
+			}
 		}
 		pm.done();
 		return result;
 	}
 
+	private boolean isValidatedInParallel() {
+		return fChanges.size() >= ParallelChangeValidator.THRESHOLD && ParallelChangeValidator.canValidateInParallel();
+	}
+
+	/**
+	 * Collects the children starting at the given index that can be validated in
+	 * parallel, up to the first child that has to be validated by the calling thread.
+	 *
+	 * @param start the index of the first child
+	 * @param enabledOnly <code>true</code> to skip disabled children
+	 * @param run the list to add the children to
+	 * @return the index of the first child that has not been collected or skipped
+	 */
+	private int collectParallelizableRun(int start, boolean enabledOnly, List run) {
+		int i= start;
+		for (int size= fChanges.size(); i < size; i++) {
+			Change change= (Change)fChanges.get(i);
+			if (enabledOnly && !change.isEnabled())
+				continue;
+			if (!ParallelChangeValidator.isParallelizable(change))
+				break;
+			run.add(change);
+		}
+		return i;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
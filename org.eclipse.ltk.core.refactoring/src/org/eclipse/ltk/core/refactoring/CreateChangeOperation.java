@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -121,23 +121,32 @@ public class CreateChangeOperation implements IWorkspaceRunnable {
 				fCheckConditionOperation.run(new SubProgressMonitor(pm, conditionTicks));
 				RefactoringStatus status= fCheckConditionOperation.getStatus();
 				if (status != null && status.getSeverity() < fConditionCheckingFailedSeverity) {
-					fChange= fRefactoring.createChange(new SubProgressMonitor(pm, rtp.getCreateChangeTicks()));
-					fChange.initializeValidationData(new NotCancelableProgressMonitor(
-							new SubProgressMonitor(pm, rtp.getInitializeChangeTicks())));
+					createChange(pm, rtp);
 				} else {
 					pm.worked(rtp.getCreateChangeTicks() + rtp.getInitializeChangeTicks());
 				}
 			} else {
 				pm.beginTask("", rtp.getCreateChangeTicks() + rtp.getInitializeChangeTicks()); //$NON-NLS-1$
-				fChange= fRefactoring.createChange(new SubProgressMonitor(pm, rtp.getCreateChangeTicks()));
-				fChange.initializeValidationData(new NotCancelableProgressMonitor(
-					new SubProgressMonitor(pm, rtp.getInitializeChangeTicks())));
+				createChange(pm, rtp);
 			}
 		} finally {
 			pm.done();
 		}
 	}
 
+	private void createChange(IProgressMonitor pm, RefactoringTickProvider rtp) throws CoreException {
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		long start= System.currentTimeMillis();
+		fChange= fRefactoring.createChange(new SubProgressMonitor(pm, rtp.getCreateChangeTicks()));
+		long created= System.currentTimeMillis();
+		fChange.initializeValidationData(new NotCancelableProgressMonitor(
+			new SubProgressMonitor(pm, rtp.getInitializeChangeTicks())));
+		if (telemetry != null) {
+			telemetry.addTime(RefactoringTelemetry.SPAN_CREATE_CHANGE, created - start);
+			telemetry.addTime(RefactoringTelemetry.SPAN_VALIDATE, System.currentTimeMillis() - created);
+		}
+	}
+
 	/**
 	 * Returns the outcome of the operation or <code>null</code> if an exception
 	 * occurred when performing the operation or the operation hasn't been
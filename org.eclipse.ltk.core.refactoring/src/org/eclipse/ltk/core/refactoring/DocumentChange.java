@@ -132,22 +132,14 @@ public class DocumentChange extends TextChange {
 					} catch (BadLocationException e) {
 						exception[0]= e;
 					} finally {
-						completionLock.fDone= true;
-						completionLock.notifyAll();
+						completionLock.done();
 					}
 				}
 			}
 		};
 		
-		synchronized (completionLock) {
-			fileBufferManager.execute(runnable);
-			while (! completionLock.fDone) {
-				try {
-					completionLock.wait(500);
-				} catch (InterruptedException x) {
-				}
-			}
-		}
+		fileBufferManager.execute(runnable);
+		completionLock.awaitDone();
 		
 		if (exception[0] != null) {
 			throw exception[0];
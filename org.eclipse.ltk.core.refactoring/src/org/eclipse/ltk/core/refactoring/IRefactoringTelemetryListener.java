@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring;
+
+/**
+ * Interface for listeners which consume the performance telemetry of refactorings.
+ * Clients may register a telemetry listener with
+ * {@link RefactoringCore#addTelemetryListener(IRefactoringTelemetryListener)}.
+ * <p>
+ * Note: this interface is intended to be implemented by clients.
+ * </p>
+ *
+ * @see RefactoringTelemetry
+ *
+ * @since 3.6
+ */
+public interface IRefactoringTelemetryListener {
+
+	/**
+	 * Gets called after a refactoring operation that collected the given telemetry
+	 * has finished, whether or not the refactoring has been performed.
+	 *
+	 * @param telemetry the telemetry of the refactoring
+	 */
+	public void telemetryRecorded(RefactoringTelemetry telemetry);
+}
@@ -907,22 +907,14 @@ public class MultiStateTextFileChange extends TextEditBasedChange {
 					} catch (BadLocationException e) {
 						exception[0]= e;
 					} finally {
-						completionLock.fDone= true;
-						completionLock.notifyAll();
+						completionLock.done();
 					}
 				}
 			}
 		};
 		
-		synchronized (completionLock) {
-			fileBufferManager.execute(runnable);
-			while (! completionLock.fDone) {
-				try {
-					completionLock.wait(500);
-				} catch (InterruptedException x) {
-				}
-			}
-		}
+		fileBufferManager.execute(runnable);
+		completionLock.awaitDone();
 		
 		if (exception[0] != null) {
 			throw exception[0];
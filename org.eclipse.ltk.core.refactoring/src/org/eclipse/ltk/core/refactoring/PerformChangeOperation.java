@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.ltk.core.refactoring;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -18,6 +21,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -71,6 +75,7 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 	private boolean fChangeExecuted;
 	private boolean fChangeExecutionFailed;
 	private ISchedulingRule fSchedulingRule;
+	private boolean fBatchSynchronizedEdits;
 
 	/**
 	 * Creates a new perform change operation instance for the given change.
@@ -195,6 +200,25 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 		fSchedulingRule= rule;
 	}
 
+	/**
+	 * Sets whether the edits on files whose buffers request a synchronization
+	 * context (e.g. files that are open in editors) are executed in a few batches
+	 * before the change is performed, instead of executing each file's edits in
+	 * the synchronization context separately. The default is <code>false</code>.
+	 * <p>
+	 * Batching is only used if the change consists of {@link CompositeChange}s
+	 * and {@link TextFileChange}s on distinct files, and if none of the text file
+	 * changes overrides {@link TextChange#performEdits(org.eclipse.jface.text.IDocument)}.
+	 * Other changes are performed as if batching was disabled.
+	 * </p>
+	 *
+	 * @param batch <code>true</code> to batch the edits
+	 * @since 3.6
+	 */
+	public void setBatchSynchronizedEdits(boolean batch) {
+		fBatchSynchronizedEdits= batch;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -243,11 +267,18 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 			public void run(IProgressMonitor monitor) throws CoreException {
 				boolean undoInitialized= false;
 				try {
-					monitor.beginTask("", 10); //$NON-NLS-1$
+					monitor.beginTask("", 11); //$NON-NLS-1$
+					RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+					long start= System.currentTimeMillis();
 					fValidationStatus= fChange.isValid(new SubProgressMonitor(monitor, 1));
+					if (telemetry != null)
+						telemetry.addTime(RefactoringTelemetry.SPAN_VALIDATE, System.currentTimeMillis() - start);
 					if (fValidationStatus.hasFatalError())
 						return;
+					if (telemetry != null)
+						telemetry.increment(RefactoringTelemetry.COUNTER_FILES_TOUCHED, countAffectedResources(fChange));
 					boolean aboutToPerformChangeCalled= false;
+					SynchronizedEditBatch batch= null;
 					try {
 						if (fUndoManager != null) {
 							ResourcesPlugin.getWorkspace().checkpoint(false);
@@ -255,10 +286,23 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 							aboutToPerformChangeCalled= true;
 						}
 						fChangeExecutionFailed= true;
+						start= System.currentTimeMillis();
+						if (fBatchSynchronizedEdits)
+							batch= SynchronizedEditBatch.create(fChange);
+						if (batch != null)
+							batch.performEdits(new SubProgressMonitor(monitor, 1));
+						else
+							monitor.worked(1);
 						fUndoChange= fChange.perform(new SubProgressMonitor(monitor, 9));
 						fChangeExecutionFailed= false;
 						fChangeExecuted= true;
+						// record before the undo manager is notified, so that the span is
+						// available to the refactoring history
+						if (telemetry != null)
+							telemetry.addTime(RefactoringTelemetry.SPAN_PERFORM, System.currentTimeMillis() - start);
 					} finally {
+						if (batch != null)
+							batch.dispose();
 						if (fUndoManager != null) {
 							ResourcesPlugin.getWorkspace().checkpoint(false);
 							if (aboutToPerformChangeCalled)
@@ -306,6 +350,18 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 		ResourcesPlugin.getWorkspace().run(runnable, fSchedulingRule, IWorkspace.AVOID_UPDATE, pm);
 	}
 
+	private static int countAffectedResources(Change change) {
+		Object[] affected= change.getAffectedObjects();
+		if (affected == null)
+			return 0;
+		Set resources= new HashSet();
+		for (int i= 0; i < affected.length; i++) {
+			if (affected[i] instanceof IResource)
+				resources.add(affected[i]);
+		}
+		return resources.size();
+	}
+
 	private boolean createChange() {
 		return fCreateChangeOperation != null;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,13 @@ import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryServi
  * Operation that, when run, executes a series of refactoring sequentially.
  * Refactorings are executed using {@link PerformRefactoringOperation}.
  * <p>
+ * Each refactoring is created and its conditions are checked against the
+ * workspace produced by the refactorings preceding it in the history, and
+ * performing it records a new descriptor in the refactoring history.
+ * Therefore, the refactorings are neither created nor checked ahead of
+ * time or concurrently.
+ * </p>
+ * <p>
  * The operation should be executed via the run method offered by
  * <code>IWorkspace</code> to achieve proper delta batching.
  * </p>
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -45,6 +45,7 @@ public class PerformRefactoringOperation implements IWorkspaceRunnable {
 	private RefactoringStatus fPreconditionStatus;
 	private RefactoringStatus fValidationStatus;
 	private Change fUndo;
+	private RefactoringTelemetry fTelemetry;
 
 	/**
 	 * Create a new perform refactoring operation. The operation will not
@@ -114,10 +115,50 @@ public class PerformRefactoringOperation implements IWorkspaceRunnable {
 		return fUndo;
 	}
 
+	/**
+	 * Sets the telemetry which records where the time goes while the operation runs.
+	 * The telemetry is sent to the registered telemetry listeners when the operation
+	 * has finished.
+	 *
+	 * @param telemetry the telemetry to record, or <code>null</code> to not collect
+	 *  any telemetry
+	 *
+	 * @see RefactoringCore#addTelemetryListener(IRefactoringTelemetryListener)
+	 * @since 3.6
+	 */
+	public void setTelemetry(RefactoringTelemetry telemetry) {
+		fTelemetry= telemetry;
+	}
+
+	/**
+	 * Returns the telemetry of this operation.
+	 *
+	 * @return the telemetry, or <code>null</code> if no telemetry is collected
+	 *
+	 * @since 3.6
+	 */
+	public RefactoringTelemetry getTelemetry() {
+		return fTelemetry;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void run(IProgressMonitor monitor) throws CoreException {
+		if (fTelemetry == null) {
+			performRefactoring(monitor);
+			return;
+		}
+		RefactoringTelemetry previous= RefactoringTelemetry.setCurrent(fTelemetry);
+		try {
+			performRefactoring(monitor);
+		} finally {
+			RefactoringTelemetry.setCurrent(previous);
+			fTelemetry.fireTelemetryRecorded();
+		}
+	}
+
+	private void performRefactoring(IProgressMonitor monitor) throws CoreException {
 		try {
 			if (monitor == null)
 				monitor= new NullProgressMonitor();
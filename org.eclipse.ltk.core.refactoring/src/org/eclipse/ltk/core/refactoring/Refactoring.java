@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -155,11 +155,18 @@ public abstract class Refactoring extends PlatformObject {
 		RefactoringTickProvider refactoringTickProvider= getRefactoringTickProvider();
 		pm.beginTask("", refactoringTickProvider.getCheckAllConditionsTicks()); //$NON-NLS-1$
 		RefactoringStatus result= new RefactoringStatus();
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		long start= System.currentTimeMillis();
 		result.merge(checkInitialConditions(new SubProgressMonitor(pm, refactoringTickProvider.getCheckInitialConditionsTicks())));
+		if (telemetry != null)
+			telemetry.addTime(RefactoringTelemetry.SPAN_INITIAL_CONDITIONS, System.currentTimeMillis() - start);
 		if (!result.hasFatalError()) {
 			if (pm.isCanceled())
 				throw new OperationCanceledException();
+			start= System.currentTimeMillis();
 			result.merge(checkFinalConditions(new SubProgressMonitor(pm, refactoringTickProvider.getCheckFinalConditionsTicks())));
+			if (telemetry != null)
+				telemetry.addTime(RefactoringTelemetry.SPAN_FINAL_CONDITIONS, System.currentTimeMillis() - start);
 		}
 		pm.done();
 		return result;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -104,6 +104,32 @@ public class RefactoringCore {
 		return RefactoringStatus.WARNING;
 	}
 
+	/**
+	 * Adds a listener which consumes the performance telemetry of refactorings.
+	 * Adding a listener that is already registered has no effect.
+	 *
+	 * @param listener the listener to add
+	 *
+	 * @see PerformRefactoringOperation#setTelemetry(RefactoringTelemetry)
+	 *
+	 * @since 3.6
+	 */
+	public static void addTelemetryListener(IRefactoringTelemetryListener listener) {
+		RefactoringTelemetry.addListener(listener);
+	}
+
+	/**
+	 * Removes a telemetry listener. Removing a listener that is not registered has
+	 * no effect.
+	 *
+	 * @param listener the listener to remove
+	 *
+	 * @since 3.6
+	 */
+	public static void removeTelemetryListener(IRefactoringTelemetryListener listener) {
+		RefactoringTelemetry.removeListener(listener);
+	}
+
 	/**
 	 * Returns the query factory.
 	 *
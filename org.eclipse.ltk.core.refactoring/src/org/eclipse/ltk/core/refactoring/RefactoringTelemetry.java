@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.SafeRunner;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Performance telemetry of a single refactoring execution. The telemetry consists of
+ * timed spans, which accumulate the time spent in the phases of the refactoring, and of
+ * counters such as the number of files touched or the number of ASTs parsed.
+ * <p>
+ * A telemetry is collected by passing it to
+ * {@link PerformRefactoringOperation#setTelemetry(RefactoringTelemetry)}. While the
+ * operation runs, the telemetry is available to the refactoring, its processor and its
+ * participants via {@link #getCurrent()} in the thread running the operation. The
+ * framework records the standard spans defined by this class; refactorings may record
+ * additional spans and counters. Once the operation has finished, the telemetry is sent
+ * to the listeners registered with {@link RefactoringCore#addTelemetryListener(IRefactoringTelemetryListener)}.
+ * </p>
+ * <p>
+ * Clients that run the phases of a refactoring themselves, like the refactoring wizard,
+ * run each phase with {@link #run(IWorkspaceRunnable, IProgressMonitor)} and call
+ * {@link #fireTelemetryRecorded()} once the change has been performed. They should only
+ * do so if {@link #isEnabled()} returns <code>true</code>.
+ * </p>
+ * <p>
+ * Note: this class is not intended to be subclassed by clients.
+ * </p>
+ *
+ * @since 3.6
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ */
+public class RefactoringTelemetry {
+
+	/** Span for checking the initial conditions (value <code>"initialConditions"</code>) */
+	public static final String SPAN_INITIAL_CONDITIONS= "initialConditions"; //$NON-NLS-1$
+
+	/** Span for checking the final conditions (value <code>"finalConditions"</code>) */
+	public static final String SPAN_FINAL_CONDITIONS= "finalConditions"; //$NON-NLS-1$
+
+	/** Span for searches performed by the refactoring (value <code>"search"</code>) */
+	public static final String SPAN_SEARCH= "search"; //$NON-NLS-1$
+
+	/** Span for the work of the participants (value <code>"participants"</code>) */
+	public static final String SPAN_PARTICIPANTS= "participants"; //$NON-NLS-1$
+
+	/** Span for creating the change (value <code>"createChange"</code>) */
+	public static final String SPAN_CREATE_CHANGE= "createChange"; //$NON-NLS-1$
+
+	/** Span for initializing the validation data and validating the change (value <code>"validate"</code>) */
+	public static final String SPAN_VALIDATE= "validate"; //$NON-NLS-1$
+
+	/** Span for performing the change (value <code>"perform"</code>) */
+	public static final String SPAN_PERFORM= "perform"; //$NON-NLS-1$
+
+	/** Counter for the files touched by the change (value <code>"filesTouched"</code>) */
+	public static final String COUNTER_FILES_TOUCHED= "filesTouched"; //$NON-NLS-1$
+
+	/** Counter for the parsed ASTs (value <code>"astsParsed"</code>) */
+	public static final String COUNTER_ASTS_PARSED= "astsParsed"; //$NON-NLS-1$
+
+	/** Counter for the search matches (value <code>"searchMatches"</code>) */
+	public static final String COUNTER_SEARCH_MATCHES= "searchMatches"; //$NON-NLS-1$
+
+	private static final ThreadLocal fgCurrent= new ThreadLocal();
+
+	private static final ListenerList fgListeners= new ListenerList(ListenerList.IDENTITY);
+
+	private final String fName;
+	private boolean fRecordInHistory;
+
+	/** The spans in the order of their first recording (element type: &lt;String, long[]&gt;) */
+	private final Map fSpans= new LinkedHashMap();
+
+	/** The counters in the order of their first recording (element type: &lt;String, long[]&gt;) */
+	private final Map fCounters= new LinkedHashMap();
+
+	/**
+	 * Creates a new telemetry.
+	 *
+	 * @param name the name of the refactoring, used to identify the telemetry
+	 */
+	public RefactoringTelemetry(String name) {
+		Assert.isNotNull(name);
+		fName= name;
+	}
+
+	/**
+	 * Returns the telemetry of the refactoring operation running in the calling thread.
+	 *
+	 * @return the current telemetry, or <code>null</code> if no telemetry is collected
+	 */
+	public static RefactoringTelemetry getCurrent() {
+		return (RefactoringTelemetry) fgCurrent.get();
+	}
+
+	/**
+	 * Returns whether telemetry is enabled, that is, whether telemetry listeners are
+	 * registered or performance tracing is turned on.
+	 *
+	 * @return <code>true</code> if telemetry should be collected
+	 * @see PerformanceStats#ENABLED
+	 */
+	public static boolean isEnabled() {
+		return PerformanceStats.ENABLED || !fgListeners.isEmpty();
+	}
+
+	/**
+	 * Sets the telemetry of the calling thread.
+	 *
+	 * @param telemetry the telemetry, or <code>null</code>
+	 * @return the previous telemetry of the thread, or <code>null</code>
+	 */
+	/* package */ static RefactoringTelemetry setCurrent(RefactoringTelemetry telemetry) {
+		RefactoringTelemetry previous= (RefactoringTelemetry) fgCurrent.get();
+		fgCurrent.set(telemetry);
+		return previous;
+	}
+
+	/* package */ static void addListener(IRefactoringTelemetryListener listener) {
+		fgListeners.add(listener);
+	}
+
+	/* package */ static void removeListener(IRefactoringTelemetryListener listener) {
+		fgListeners.remove(listener);
+	}
+
+	/**
+	 * Runs the given runnable with this telemetry as the current telemetry of the
+	 * calling thread.
+	 *
+	 * @param runnable the runnable to run
+	 * @param monitor the progress monitor to pass to the runnable, or <code>null</code>
+	 * @throws CoreException if the runnable throws a core exception
+	 * @see #getCurrent()
+	 */
+	public void run(IWorkspaceRunnable runnable, IProgressMonitor monitor) throws CoreException {
+		RefactoringTelemetry previous= setCurrent(this);
+		try {
+			runnable.run(monitor);
+		} finally {
+			setCurrent(previous);
+		}
+	}
+
+	/**
+	 * Sends this telemetry to the listeners registered with
+	 * {@link RefactoringCore#addTelemetryListener(IRefactoringTelemetryListener)}.
+	 */
+	public void fireTelemetryRecorded() {
+		final Object[] listeners= fgListeners.getListeners();
+		for (int i= 0; i < listeners.length; i++) {
+			final IRefactoringTelemetryListener listener= (IRefactoringTelemetryListener) listeners[i];
+			SafeRunner.run(new ISafeRunnable() {
+
+				public void handleException(Throwable throwable) {
+					RefactoringCorePlugin.log(throwable);
+				}
+
+				public void run() throws Exception {
+					listener.telemetryRecorded(RefactoringTelemetry.this);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the name of the refactoring.
+	 *
+	 * @return the name of the refactoring
+	 */
+	public String getName() {
+		return fName;
+	}
+
+	/**
+	 * Sets whether the telemetry is appended to the refactoring descriptor that is
+	 * stored in the refactoring history when the change has been performed. The
+	 * default is <code>false</code>.
+	 *
+	 * @param record <code>true</code> to append the telemetry to the history
+	 */
+	public void setRecordInHistory(boolean record) {
+		fRecordInHistory= record;
+	}
+
+	/**
+	 * Returns whether the telemetry is appended to the refactoring history.
+	 *
+	 * @return <code>true</code> if the telemetry is appended to the history
+	 */
+	public boolean isRecordInHistory() {
+		return fRecordInHistory;
+	}
+
+	/**
+	 * Adds the given time to a span.
+	 *
+	 * @param span the name of the span
+	 * @param millis the time in milliseconds
+	 */
+	public synchronized void addTime(String span, long millis) {
+		add(fSpans, span, millis);
+	}
+
+	/**
+	 * Adds the given value to a counter.
+	 *
+	 * @param counter the name of the counter
+	 * @param delta the value to add
+	 */
+	public synchronized void increment(String counter, long delta) {
+		add(fCounters, counter, delta);
+	}
+
+	/**
+	 * Returns the time accumulated by a span.
+	 *
+	 * @param span the name of the span
+	 * @return the time in milliseconds, or <code>0</code> if the span has not been recorded
+	 */
+	public synchronized long getTime(String span) {
+		long[] value= (long[]) fSpans.get(span);
+		return value != null ? value[0] : 0;
+	}
+
+	/**
+	 * Returns the value of a counter.
+	 *
+	 * @param counter the name of the counter
+	 * @return the value, or <code>0</code> if the counter has not been recorded
+	 */
+	public synchronized long getCount(String counter) {
+		long[] value= (long[]) fCounters.get(counter);
+		return value != null ? value[0] : 0;
+	}
+
+	/**
+	 * Returns the names of the recorded spans in the order of their first recording.
+	 *
+	 * @return the names of the spans
+	 */
+	public synchronized String[] getSpans() {
+		return (String[]) fSpans.keySet().toArray(new String[fSpans.size()]);
+	}
+
+	/**
+	 * Returns the names of the recorded counters in the order of their first recording.
+	 *
+	 * @return the names of the counters
+	 */
+	public synchronized String[] getCounters() {
+		return (String[]) fCounters.keySet().toArray(new String[fCounters.size()]);
+	}
+
+	private static void add(Map map, String name, long delta) {
+		Assert.isNotNull(name);
+		long[] value= (long[]) map.get(name);
+		if (value == null) {
+			value= new long[1];
+			map.put(name, value);
+		}
+		value[0]+= delta;
+	}
+
+	/**
+	 * Returns the spans and counters as <code>name=value</code> pairs separated by
+	 * semicolons, with the times of the spans in milliseconds followed by <code>ms</code>.
+	 * This is also the format in which the telemetry is appended to the refactoring history.
+	 *
+	 * @return the string representation of the spans and counters
+	 */
+	public synchronized String toString() {
+		StringBuffer buffer= new StringBuffer();
+		for (Iterator iter= fSpans.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			if (buffer.length() > 0)
+				buffer.append(';');
+			buffer.append(entry.getKey()).append('=').append(((long[]) entry.getValue())[0]).append("ms"); //$NON-NLS-1$
+		}
+		for (Iterator iter= fCounters.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			if (buffer.length() > 0)
+				buffer.append(';');
+			buffer.append(entry.getKey()).append('=').append(((long[]) entry.getValue())[0]);
+		}
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.text.edits.MalformedTreeException;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.ltk.internal.core.refactoring.Changes;
+import org.eclipse.ltk.internal.core.refactoring.Lock;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Performs the edits of text file changes whose file buffers request a synchronization
+ * context (e.g. because the files are open in editors) ahead of
+ * {@link Change#perform(IProgressMonitor)}. The edits are grouped into a few runnables
+ * that are executed in the synchronization context, instead of one runnable per file.
+ * When the changes are performed afterwards, they save the already edited documents
+ * and create their undo changes as usual.
+ * <p>
+ * Edits can only be performed out of order if the change consists of composite changes
+ * and text file changes on distinct files, and if no text file change overrides
+ * {@link TextChange#performEdits(IDocument)}: the batch executes the edits directly and
+ * would bypass such an override. Edits that have not been taken over by their
+ * change when the batch is disposed (e.g. because a previous change failed) are reverted.
+ * </p>
+ *
+ * @since 3.6
+ */
+class SynchronizedEditBatch {
+
+	/**
+	 * The number of files that are edited in one runnable.
+	 */
+	private static final int BATCH_SIZE= 50;
+
+	/**
+	 * Map from a {@link TextFileChange} subclass ({@link Class}) to {@link Boolean#TRUE}
+	 * iff it overrides {@link TextChange#performEdits(IDocument)}.
+	 */
+	private static final Map fgOverridesPerformEdits= new WeakHashMap();
+
+	private final TextFileChange[] fChanges;
+	private final IDocument[] fDocuments;
+	private int fAcquired;
+
+	private SynchronizedEditBatch(List changes) {
+		fChanges= (TextFileChange[]) changes.toArray(new TextFileChange[changes.size()]);
+		fDocuments= new IDocument[fChanges.length];
+	}
+
+	/**
+	 * Creates a batch for the given change.
+	 *
+	 * @param change the change to perform
+	 * @return the batch, or <code>null</code> if the change does not edit files
+	 *  that request a synchronization context, or if its edits cannot be performed
+	 *  out of order
+	 */
+	public static SynchronizedEditBatch create(Change change) {
+		List changes= new ArrayList();
+		if (!collectChanges(change, changes, new HashSet()))
+			return null;
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		List synchronizedChanges= new ArrayList();
+		for (int i= 0; i < changes.size(); i++) {
+			TextFileChange textFileChange= (TextFileChange) changes.get(i);
+			ITextFileBuffer buffer= manager.getTextFileBuffer(textFileChange.getFile().getFullPath(), LocationKind.IFILE);
+			if (buffer != null && buffer.isSynchronizationContextRequested())
+				synchronizedChanges.add(textFileChange);
+		}
+		if (synchronizedChanges.isEmpty())
+			return null;
+		return new SynchronizedEditBatch(synchronizedChanges);
+	}
+
+	private static boolean collectChanges(Change change, List result, Set files) {
+		if (!change.isEnabled())
+			return true;
+		if (change instanceof CompositeChange) {
+			Change[] children= ((CompositeChange) change).getChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (!collectChanges(children[i], result, files))
+					return false;
+			}
+			return true;
+		}
+		if (change instanceof TextFileChange) {
+			TextFileChange textFileChange= (TextFileChange) change;
+			if (overridesPerformEdits(textFileChange.getClass()) || !files.add(textFileChange.getFile()))
+				return false;
+			result.add(textFileChange);
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean overridesPerformEdits(Class clazz) {
+		synchronized (fgOverridesPerformEdits) {
+			Boolean result= (Boolean) fgOverridesPerformEdits.get(clazz);
+			if (result == null) {
+				result= Boolean.FALSE;
+				for (Class current= clazz; current != TextFileChange.class; current= current.getSuperclass()) {
+					try {
+						current.getDeclaredMethod("performEdits", new Class[] { IDocument.class }); //$NON-NLS-1$
+						result= Boolean.TRUE;
+						break;
+					} catch (NoSuchMethodException e) {
+						// check the super class
+					} catch (SecurityException e) {
+						result= Boolean.TRUE;
+						break;
+					}
+				}
+				fgOverridesPerformEdits.put(clazz, result);
+			}
+			return result.booleanValue();
+		}
+	}
+
+	/**
+	 * Acquires the documents and performs the edits in the synchronization context.
+	 *
+	 * @param pm a progress monitor
+	 * @throws CoreException if an edit cannot be performed
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public void performEdits(IProgressMonitor pm) throws CoreException {
+		pm.beginTask("", fChanges.length * 2); //$NON-NLS-1$
+		try {
+			for (; fAcquired < fChanges.length; fAcquired++) {
+				fDocuments[fAcquired]= fChanges[fAcquired].acquireDocumentForBatch(new SubProgressMonitor(pm, 1));
+			}
+			for (int start= 0; start < fChanges.length; start+= BATCH_SIZE) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				int end= Math.min(start + BATCH_SIZE, fChanges.length);
+				performEdits(start, end);
+				pm.worked(end - start);
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	private void performEdits(final int start, final int end) throws CoreException {
+		final Lock completionLock= new Lock();
+		final Exception[] exception= new Exception[1];
+		Runnable runnable= new Runnable() {
+			public void run() {
+				try {
+					for (int i= start; i < end; i++) {
+						if (fDocuments[i] != null)
+							fChanges[i].performBatchedEdits(fDocuments[i]);
+					}
+				} catch (BadLocationException e) {
+					exception[0]= e;
+				} catch (MalformedTreeException e) {
+					exception[0]= e;
+				} finally {
+					completionLock.done();
+				}
+			}
+		};
+		FileBuffers.getTextFileBufferManager().execute(runnable);
+		completionLock.awaitDone();
+
+		if (exception[0] instanceof BadLocationException)
+			throw Changes.asCoreException((BadLocationException) exception[0]);
+		if (exception[0] instanceof MalformedTreeException)
+			throw Changes.asCoreException((MalformedTreeException) exception[0]);
+	}
+
+	/**
+	 * Reverts the edits that have not been taken over by their changes and releases
+	 * the documents.
+	 */
+	public void dispose() {
+		boolean hasBatchedEdits= false;
+		for (int i= 0; i < fAcquired; i++) {
+			if (fDocuments[i] != null && fChanges[i].hasBatchedEdits())
+				hasBatchedEdits= true;
+		}
+		if (hasBatchedEdits)
+			revertBatchedEdits();
+
+		for (int i= 0; i < fAcquired; i++) {
+			if (fDocuments[i] != null) {
+				try {
+					fChanges[i].releaseDocument(fDocuments[i], new NullProgressMonitor());
+				} catch (CoreException e) {
+					RefactoringCorePlugin.log(e);
+				}
+			}
+		}
+		fAcquired= 0;
+	}
+
+	private void revertBatchedEdits() {
+		final Lock completionLock= new Lock();
+		Runnable runnable= new Runnable() {
+			public void run() {
+				try {
+					for (int i= fAcquired - 1; i >= 0; i--) {
+						if (fDocuments[i] != null) {
+							try {
+								fChanges[i].revertBatchedEdits(fDocuments[i]);
+							} catch (BadLocationException e) {
+								RefactoringCorePlugin.log(e);
+							} catch (MalformedTreeException e) {
+								RefactoringCorePlugin.log(e);
+							}
+						}
+					}
+				} finally {
+					completionLock.done();
+				}
+			}
+		};
+		FileBuffers.getTextFileBufferManager().execute(runnable);
+		completionLock.awaitDone();
+	}
+}
@@ -27,6 +27,7 @@ import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.filebuffers.LocationKind;
 
 import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.TextEdit;
 import org.eclipse.text.edits.UndoEdit;
 
 import org.eclipse.jface.text.BadLocationException;
@@ -78,6 +79,12 @@ public class TextFileChange extends TextChange {
 
 	// the mapped text buffer
 	private int fAcquireCount;
+
+	/**
+	 * The undo of the edits that a {@link SynchronizedEditBatch} has performed ahead
+	 * of {@link #perform(IProgressMonitor)}, or <code>null</code>.
+	 */
+	private UndoEdit fBatchedUndo;
 	private ITextFileBuffer fBuffer;
 	private BufferValidationState fValidationState;
 	private ContentStamp fContentStamp;
@@ -258,6 +265,12 @@ public class TextFileChange extends TextChange {
 	 * @since 3.5
 	 */
 	protected UndoEdit performEdits(final IDocument document) throws BadLocationException, MalformedTreeException {
+		if (fBatchedUndo != null) {
+			// the edits have already been performed in the synchronization context
+			UndoEdit undo= fBatchedUndo;
+			fBatchedUndo= null;
+			return undo;
+		}
 		if (! fBuffer.isSynchronizationContextRequested()) {
 			return super.performEdits(document);
 		}
@@ -276,22 +289,14 @@ public class TextFileChange extends TextChange {
 					} catch (BadLocationException e) {
 						exception[0]= e;
 					} finally {
-						completionLock.fDone= true;
-						completionLock.notifyAll();
+						completionLock.done();
 					}
 				}
 			}
 		};
 		
-		synchronized (completionLock) {
-			fileBufferManager.execute(runnable);
-			while (! completionLock.fDone) {
-				try {
-					completionLock.wait(500);
-				} catch (InterruptedException x) {
-				}
-			}
-		}
+		fileBufferManager.execute(runnable);
+		completionLock.awaitDone();
 		
 		if (exception[0] != null) {
 			throw exception[0];
@@ -300,6 +305,59 @@ public class TextFileChange extends TextChange {
 		return result[0];
 	}
 
+	/**
+	 * Acquires the document for a {@link SynchronizedEditBatch}.
+	 *
+	 * @param pm a progress monitor
+	 * @return the document, or <code>null</code> if the file buffer does not request
+	 *  a synchronization context. In that case, the document has already been released.
+	 * @throws CoreException if the document cannot be acquired
+	 */
+	IDocument acquireDocumentForBatch(IProgressMonitor pm) throws CoreException {
+		IDocument document= acquireDocument(pm);
+		if (fBuffer.isSynchronizationContextRequested())
+			return document;
+		releaseDocument(document, new NullProgressMonitor());
+		return null;
+	}
+
+	/**
+	 * Performs the edits for a {@link SynchronizedEditBatch}. Must be called in the
+	 * synchronization context. {@link #perform(IProgressMonitor)} takes the edits over.
+	 *
+	 * @param document the document acquired by {@link #acquireDocumentForBatch(IProgressMonitor)}
+	 * @throws BadLocationException if an edit cannot be executed
+	 * @throws MalformedTreeException if the edit tree is not in a valid state
+	 */
+	void performBatchedEdits(IDocument document) throws BadLocationException, MalformedTreeException {
+		fBatchedUndo= super.performEdits(document);
+	}
+
+	/**
+	 * Reverts the edits of {@link #performBatchedEdits(IDocument)} if they have not
+	 * been taken over by {@link #perform(IProgressMonitor)}. Must be called in the
+	 * synchronization context.
+	 *
+	 * @param document the document
+	 * @throws BadLocationException if the undo cannot be executed
+	 * @throws MalformedTreeException if the undo is not in a valid state
+	 */
+	void revertBatchedEdits(IDocument document) throws BadLocationException, MalformedTreeException {
+		if (fBatchedUndo != null) {
+			UndoEdit undo= fBatchedUndo;
+			fBatchedUndo= null;
+			undo.apply(document, TextEdit.NONE);
+		}
+	}
+
+	/**
+	 * @return <code>true</code> iff edits of a {@link SynchronizedEditBatch} have not been
+	 *  taken over by {@link #perform(IProgressMonitor)} yet
+	 */
+	boolean hasBatchedEdits() {
+		return fBatchedUndo != null;
+	}
+
 	/**
 	 * Is the document currently acquired?
 	 *
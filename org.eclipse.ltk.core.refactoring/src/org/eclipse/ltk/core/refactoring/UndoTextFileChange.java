@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -142,6 +142,19 @@ public class UndoTextFileChange extends Change {
 		return new Object[] { modifiedElement };
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Since 3.6, the undo edit of this change is available as an adapter of type
+	 * {@link UndoEdit}, e.g. to estimate the memory retained by the change.
+	 * </p>
+	 */
+	public Object getAdapter(Class adapter) {
+		if (UndoEdit.class.equals(adapter))
+			return fUndo;
+		return super.getAdapter(adapter);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -248,22 +261,14 @@ public class UndoTextFileChange extends Change {
 					} catch (CoreException e) {
 						coreException[0]= e;
 					} finally {
-						completionLock.fDone= true;
-						completionLock.notifyAll();
+						completionLock.done();
 					}
 				}
 			}
 		};
 		
-		synchronized (completionLock) {
-			fileBufferManager.execute(runnable);
-			while (! completionLock.fDone) {
-				try {
-					completionLock.wait(500);
-				} catch (InterruptedException x) {
-				}
-			}
-		}
+		fileBufferManager.execute(runnable);
+		completionLock.awaitDone();
 		
 		if (badLocationException[0] != null) {
 			throw badLocationException[0];
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,7 +65,7 @@ public class CheckConditionsContext {
 	 * @return the condition checker or <code>null</code> if
 	 *  no checker is registered for the given type
 	 */
-	public IConditionChecker getChecker(Class clazz) {
+	public synchronized IConditionChecker getChecker(Class clazz) {
 		return (IConditionChecker)fCheckers.get(clazz);
 	}
 
@@ -78,7 +78,7 @@ public class CheckConditionsContext {
 	 * @throws CoreException if a checker of the same type already
 	 *  exists
 	 */
-	public void add(IConditionChecker checker) throws CoreException {
+	public synchronized void add(IConditionChecker checker) throws CoreException {
 		Object old= fCheckers.put(checker.getClass(), checker);
 		if (old != null) {
 			fCheckers.put(checker.getClass(), old);
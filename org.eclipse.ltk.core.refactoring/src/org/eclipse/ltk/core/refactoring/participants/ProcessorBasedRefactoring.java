@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
@@ -36,12 +37,15 @@ import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.IRefactoringCoreStatusCodes;
 import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
 import org.eclipse.ltk.core.refactoring.TextChange;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.internal.core.refactoring.ConcurrentParticipantChecker;
 import org.eclipse.ltk.internal.core.refactoring.Messages;
 import org.eclipse.ltk.internal.core.refactoring.ParticipantDescriptor;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringPreferenceConstants;
 
 /**
  * An base implementation for refactorings that are split into
@@ -245,33 +249,80 @@ public class ProcessorBasedRefactoring extends Refactoring {
 		}
 		IProgressMonitor sm= new SubProgressMonitor(pm, 2);
 
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		long participantsStart= System.currentTimeMillis();
 		sm.beginTask("", fParticipants.size()); //$NON-NLS-1$
+		boolean concurrent= Platform.getPreferencesService().getBoolean(RefactoringCorePlugin.getPluginId(), RefactoringPreferenceConstants.PREFERENCE_CONCURRENT_PARTICIPANT_CHECKING, false, null);
+		List/*<RefactoringParticipant>*/ threadSafeParticipants= new ArrayList();
+		if (concurrent) {
+			for (Iterator iter= fParticipants.iterator(); iter.hasNext();) {
+				RefactoringParticipant participant= (RefactoringParticipant) iter.next();
+				if (participant.getDescriptor() != null && participant.getDescriptor().isThreadSafe())
+					threadSafeParticipants.add(participant);
+			}
+		}
+		ConcurrentParticipantChecker checker= null;
+		if (threadSafeParticipants.size() > 1) {
+			PerformanceStats[] stats= new PerformanceStats[threadSafeParticipants.size()];
+			for (int i= 0; i < stats.length; i++)
+				stats[i]= PerformanceStats.getStats(PERF_CHECK_CONDITIONS, getName() + ", " + ((RefactoringParticipant) threadSafeParticipants.get(i)).getName()); //$NON-NLS-1$
+			checker= new ConcurrentParticipantChecker((RefactoringParticipant[]) threadSafeParticipants.toArray(new RefactoringParticipant[stats.length]), context, stats);
+			checker.checkConditions(new SubProgressMonitor(sm, stats.length));
+		}
+		// the results are merged in the order of the participants
 		for (Iterator iter= fParticipants.iterator(); iter.hasNext() && !result.hasFatalError(); ) {
 
 			RefactoringParticipant participant= (RefactoringParticipant) iter.next();
 
-			final PerformanceStats stats= PerformanceStats.getStats(PERF_CHECK_CONDITIONS, getName() + ", " + participant.getName()); //$NON-NLS-1$
-			stats.startRun();
+			int index= checker != null ? threadSafeParticipants.indexOf(participant) : -1;
+			long time;
+			Object participantResult;
+			if (index != -1) {
+				participantResult= checker.getResult(index);
+				time= checker.getTime(index);
+			} else {
+				final PerformanceStats stats= PerformanceStats.getStats(PERF_CHECK_CONDITIONS, getName() + ", " + participant.getName()); //$NON-NLS-1$
+				stats.startRun();
 
-			try {
-				result.merge(participant.checkConditions(new SubProgressMonitor(sm, 1), context));
-			} catch (OperationCanceledException e) {
-				throw e;
-			} catch (RuntimeException e) {
+				long start= System.currentTimeMillis();
+				try {
+					participantResult= participant.checkConditions(new SubProgressMonitor(sm, 1), context);
+				} catch (OperationCanceledException e) {
+					throw e;
+				} catch (RuntimeException e) {
+					participantResult= e;
+				}
+				time= System.currentTimeMillis() - start;
+
+				stats.endRun();
+			}
+
+			if (participantResult instanceof OperationCanceledException) {
+				throw (OperationCanceledException) participantResult;
+			} else if (participantResult instanceof RuntimeException) {
 				// remove the participant so that it will be ignored during change execution.
-				RefactoringCorePlugin.log(e);
+				RefactoringCorePlugin.log((RuntimeException) participantResult);
 				result.merge(RefactoringStatus.createErrorStatus(Messages.format(
 					RefactoringCoreMessages.ProcessorBasedRefactoring_check_condition_participant_failed,
 					participant.getName())));
 				iter.remove();
+			} else if (participantResult instanceof Error) {
+				throw (Error) participantResult;
+			} else {
+				result.merge((RefactoringStatus) participantResult);
+			}
+			if (concurrent) {
+				result.addInfo(Messages.format(
+					RefactoringCoreMessages.ProcessorBasedRefactoring_participant_time,
+					new String[] { participant.getName(), String.valueOf(time) }));
 			}
-
-			stats.endRun();
 
 			if (sm.isCanceled())
 				throw new OperationCanceledException();
 		}
 		sm.done();
+		if (telemetry != null)
+			telemetry.addTime(RefactoringTelemetry.SPAN_PARTICIPANTS, System.currentTimeMillis() - participantsStart);
 		if (result.hasFatalError()) {
 			pm.done();
 			return result;
@@ -299,6 +350,8 @@ public class ProcessorBasedRefactoring extends Refactoring {
 		List/*<Change>*/ changes= new ArrayList();
 		List/*<Change>*/ preChanges= new ArrayList();
 		Map/*<Change, RefactoringParticipant>*/ participantMap= new HashMap();
+		RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+		long start= System.currentTimeMillis();
 		for (Iterator iter= fParticipants.iterator(); iter.hasNext();) {
 			final RefactoringParticipant participant= (RefactoringParticipant) iter.next();
 
@@ -339,6 +392,9 @@ public class ProcessorBasedRefactoring extends Refactoring {
 				throw new OperationCanceledException();
 		}
 
+		if (telemetry != null)
+			telemetry.addTime(RefactoringTelemetry.SPAN_PARTICIPANTS, System.currentTimeMillis() - start);
+
 		fTextChangeMap= null;
 
 		Change postChange= getProcessor().postCreateChange(
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,7 +74,7 @@ public class ValidateEditChecker implements IConditionChecker {
 	 *
 	 * @param file the file to add
 	 */
-	public void addFile(IFile file) {
+	public synchronized void addFile(IFile file) {
 		Assert.isNotNull(file);
 		fFiles.add(file);
 	}
@@ -84,7 +84,7 @@ public class ValidateEditChecker implements IConditionChecker {
 	 *
 	 * @param files the array of files to add
 	 */
-	public void addFiles(IFile[] files) {
+	public synchronized void addFiles(IFile[] files) {
 		Assert.isNotNull(files);
 		fFiles.addAll(Arrays.asList(files));
 	}
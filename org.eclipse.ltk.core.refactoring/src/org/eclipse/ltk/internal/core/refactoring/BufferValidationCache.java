@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+/**
+ * Workspace wide cache of the character sets checked by {@link BufferValidationState},
+ * shared by all changes. Computing the character set may require reading the file
+ * content.
+ * <p>
+ * An entry is valid as long as the modification stamp and the local time stamp of the
+ * file are unchanged and no resource delta has been reported for the file. The read-only
+ * and synchronization states are not cached, since the file system can change them
+ * without a resource delta. The cache listens to resource changes only while it has
+ * entries. It keeps at most {@link #MAX_ENTRIES} entries, evicting the least recently used
+ * one, and a file's entry is removed when its validation state is disposed.
+ * </p>
+ */
+public final class BufferValidationCache {
+
+	private static final class Entry {
+		final long fModificationStamp;
+		final long fLocalTimeStamp;
+		String fCharset;
+
+		Entry(IFile file) {
+			fModificationStamp= file.getModificationStamp();
+			fLocalTimeStamp= file.getLocalTimeStamp();
+		}
+
+		boolean isValid(IFile file) {
+			return fModificationStamp == file.getModificationStamp()
+				&& fLocalTimeStamp == file.getLocalTimeStamp();
+		}
+	}
+
+	private class DeltaListener implements IResourceChangeListener, IResourceDeltaVisitor {
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta= event.getDelta();
+			if (delta == null)
+				return;
+			try {
+				delta.accept(this);
+			} catch (CoreException e) {
+				clear();
+			}
+		}
+
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			IResource resource= delta.getResource();
+			if (resource.getType() == IResource.FILE) {
+				remove(resource);
+				return false;
+			}
+			if ((delta.getFlags() & IResourceDelta.ENCODING) != 0 || delta.getKind() != IResourceDelta.CHANGED) {
+				// the default encoding of the container or its location has changed
+				clear();
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The maximum number of cached entries.
+	 */
+	private static final int MAX_ENTRIES= 1000;
+
+	private static final BufferValidationCache fgDefault= new BufferValidationCache();
+
+	/**
+	 * The entries in access order (element type: &lt;IFile, Entry&gt;)
+	 */
+	private final Map fEntries= new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private DeltaListener fListener;
+
+	public static BufferValidationCache getDefault() {
+		return fgDefault;
+	}
+
+	private BufferValidationCache() {
+	}
+
+	/**
+	 * Returns the character set of the file.
+	 *
+	 * @param file the file
+	 * @return the character set
+	 * @throws CoreException if the character set cannot be determined
+	 * @see IFile#getCharset(boolean)
+	 */
+	public String getCharset(IFile file) throws CoreException {
+		synchronized (this) {
+			Entry entry= getEntry(file);
+			if (entry != null)
+				return entry.fCharset;
+		}
+		// take the stamps first, so that a concurrent modification invalidates the entry
+		Entry entry= new Entry(file);
+		entry.fCharset= file.getCharset(true);
+		synchronized (this) {
+			fEntries.put(file, entry);
+			connect();
+		}
+		return entry.fCharset;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 *
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		disconnect();
+	}
+
+	private Entry getEntry(IFile file) {
+		Entry entry= (Entry) fEntries.get(file);
+		if (entry != null && !entry.isValid(file)) {
+			fEntries.remove(file);
+			entry= null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes the entry of the given file. The cache stops listening to resource changes
+	 * when it becomes empty.
+	 *
+	 * @param file the file
+	 */
+	public synchronized void remove(IResource file) {
+		fEntries.remove(file);
+		if (fEntries.isEmpty())
+			disconnect();
+	}
+
+	private void connect() {
+		if (fListener == null) {
+			fListener= new DeltaListener();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fListener, IResourceChangeEvent.POST_CHANGE);
+		}
+	}
+
+	private void disconnect() {
+		if (fListener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(fListener);
+			fListener= null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -128,7 +128,7 @@ public abstract class BufferValidationState {
 			return RefactoringStatus.createFatalErrorStatus(Messages.format(
 				RefactoringCoreMessages.BufferValidationState_no_character_encoding,
 				BasicElementLabels.getPathLabel(fFile.getFullPath(), false)));
-		} else if (!fEncoding.equals(fFile.getCharset(true))) {
+		} else if (!fEncoding.equals(BufferValidationCache.getDefault().getCharset(fFile))) {
 			return RefactoringStatus.createFatalErrorStatus(Messages.format(
 				RefactoringCoreMessages.BufferValidationState_character_encoding_changed,
 				BasicElementLabels.getPathLabel(fFile.getFullPath(), false)));
@@ -137,6 +137,7 @@ public abstract class BufferValidationState {
 	}
 
 	public void dispose() {
+		BufferValidationCache.getDefault().remove(fFile);
 	}
 
 
@@ -147,7 +148,7 @@ public abstract class BufferValidationState {
 		fWasDirty= isDirty(fFile);
 		String encoding;
 		try {
-			encoding= file.getCharset(true);
+			encoding= BufferValidationCache.getDefault().getCharset(file);
 		} catch (CoreException e) {
 			encoding= null;
 		}
@@ -278,6 +279,7 @@ class NoStampValidationState extends BufferValidationState {
 	}
 
 	public void dispose() {
+		super.dispose();
 		if (fFileBufferListener != null) {
 			FileBuffers.getTextFileBufferManager().removeFileBufferListener(fFileBufferListener);
 			// fix https://bugs.eclipse.org/bugs/show_bug.cgi?id=67821
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,15 +16,27 @@ import org.eclipse.core.runtime.Status;
 
 import org.eclipse.core.resources.IFile;
 
+import org.eclipse.text.edits.InsertEdit;
 import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.UndoEdit;
 
 import org.eclipse.jface.text.BadLocationException;
 
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.IRefactoringCoreStatusCodes;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 
 public class Changes {
 
+	/**
+	 * The estimated number of bytes used by a change or a text edit object,
+	 * without its text.
+	 */
+	private static final int OBJECT_COST= 64;
+
 	public static RefactoringStatus validateModifiesFiles(IFile[] filesToModify) {
 		RefactoringStatus result= new RefactoringStatus();
 		IStatus status= Resources.checkInSync(filesToModify);
@@ -61,4 +73,44 @@ public class Changes {
 			message= "MalformedTreeException"; //$NON-NLS-1$
 		return new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.BAD_LOCATION, message, e));
 	}
+
+	/**
+	 * Estimates the number of bytes retained by the given change. The estimate
+	 * is dominated by the text of the undo edits of the change and its children,
+	 * which changes adapt to {@link UndoEdit}.
+	 *
+	 * @param change the change, or <code>null</code>
+	 * @return the estimated memory cost in bytes
+	 */
+	public static long estimateMemoryCost(Change change) {
+		if (change == null)
+			return 0;
+		long result= OBJECT_COST;
+		if (change instanceof CompositeChange) {
+			Change[] children= ((CompositeChange) change).getChildren();
+			for (int i= 0; i < children.length; i++)
+				result+= estimateMemoryCost(children[i]);
+		} else if (change instanceof MultiStateUndoChange) {
+			UndoEdit[] edits= ((MultiStateUndoChange) change).getUndoEdits();
+			for (int i= 0; i < edits.length; i++)
+				result+= estimateMemoryCost(edits[i]);
+		} else {
+			Object edit= change.getAdapter(UndoEdit.class);
+			if (edit instanceof UndoEdit)
+				result+= estimateMemoryCost((UndoEdit) edit);
+		}
+		return result;
+	}
+
+	private static long estimateMemoryCost(TextEdit edit) {
+		long result= OBJECT_COST;
+		if (edit instanceof ReplaceEdit)
+			result+= 2 * ((ReplaceEdit) edit).getText().length();
+		else if (edit instanceof InsertEdit)
+			result+= 2 * ((InsertEdit) edit).getText().length();
+		TextEdit[] children= edit.getChildren();
+		for (int i= 0; i < children.length; i++)
+			result+= estimateMemoryCost(children[i]);
+		return result;
+	}
 }
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
+import org.eclipse.ltk.core.refactoring.participants.RefactoringParticipant;
+
+/**
+ * Checks the conditions of thread safe refactoring participants on a bounded number
+ * of worker jobs. The calling thread checks participants as well.
+ * <p>
+ * If the calling thread owns a scheduling rule, all participants are checked in the
+ * calling thread: a participant that acquires a rule in a worker job would wait for
+ * the calling thread, which in turn waits for the worker.
+ * </p>
+ * <p>
+ * The results and the times spent in the participants are reported in the order of
+ * the given participants.
+ * </p>
+ *
+ * @since 3.6
+ */
+public final class ConcurrentParticipantChecker extends WorkerPool {
+
+	/**
+	 * Progress monitor of the participants, which are canceled when the monitor of
+	 * the calling thread is canceled.
+	 */
+	private class ParticipantMonitor extends NullProgressMonitor {
+		public boolean isCanceled() {
+			return ConcurrentParticipantChecker.this.isCanceled();
+		}
+	}
+
+	private final RefactoringParticipant[] fParticipants;
+	private final CheckConditionsContext fContext;
+	private final PerformanceStats[] fStats;
+
+	/**
+	 * The time spent in the participants in milliseconds.
+	 */
+	private final long[] fTimes;
+
+	/**
+	 * Creates a new checker.
+	 *
+	 * @param participants the thread safe participants to check
+	 * @param context the condition checking context
+	 * @param stats the performance stats of the participants
+	 */
+	public ConcurrentParticipantChecker(RefactoringParticipant[] participants, CheckConditionsContext context, PerformanceStats[] stats) {
+		super(RefactoringCoreMessages.ConcurrentParticipantChecker_job_name, participants.length, Job.getJobManager().currentRule() != null ? 0 : participants.length - 1, true);
+		fParticipants= participants;
+		fContext= context;
+		fStats= stats;
+		fTimes= new long[participants.length];
+	}
+
+	/**
+	 * Checks the conditions of the participants.
+	 *
+	 * @param pm a progress monitor
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public void checkConditions(IProgressMonitor pm) {
+		run(pm);
+	}
+
+	/**
+	 * Returns the time spent in the participant with the given index.
+	 *
+	 * @param index the index of the participant
+	 * @return the time in milliseconds
+	 */
+	public synchronized long getTime(int index) {
+		return fTimes[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @return a {@link RefactoringStatus}
+	 */
+	protected Object perform(int index) {
+		long start= System.currentTimeMillis();
+		fStats[index].startRun();
+		try {
+			return fParticipants[index].checkConditions(new ParticipantMonitor(), fContext);
+		} finally {
+			fStats[index].endRun();
+			synchronized (this) {
+				fTimes[index]= System.currentTimeMillis() - start;
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,9 @@ public interface IRefactoringSerializationConstants {
 	/** The time stamp attribute */
 	public static final String ATTRIBUTE_STAMP= "stamp"; //$NON-NLS-1$
 
+	/** The telemetry attribute */
+	public static final String ATTRIBUTE_TELEMETRY= "telemetry"; //$NON-NLS-1$
+
 	/** The version attribute */
 	public static final String ATTRIBUTE_VERSION= "version"; //$NON-NLS-1$
 
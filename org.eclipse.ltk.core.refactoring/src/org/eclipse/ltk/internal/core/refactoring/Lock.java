@@ -11,7 +11,8 @@
 package org.eclipse.ltk.internal.core.refactoring;
 
 /**
- * A simple lock object with a <em>done</em> flag.
+ * A simple lock object with a <em>done</em> flag. It can be used as a latch:
+ * one thread waits in {@link #awaitDone()} until another thread calls {@link #done()}.
  * 
  * @since 3.5
  */
@@ -20,4 +21,33 @@ public class Lock {
 	 * <code>true</code> iff the operation is done.
 	 */
 	public boolean fDone;
+
+	/**
+	 * Marks the operation as done and wakes up the waiting threads.
+	 *
+	 * @since 3.6
+	 */
+	public synchronized void done() {
+		fDone= true;
+		notifyAll();
+	}
+
+	/**
+	 * Waits until the operation is done. Interrupts do not stop waiting,
+	 * but the interrupted state of the thread is restored afterwards.
+	 *
+	 * @since 3.6
+	 */
+	public synchronized void awaitDone() {
+		boolean interrupted= false;
+		while (!fDone) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted= true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
 }
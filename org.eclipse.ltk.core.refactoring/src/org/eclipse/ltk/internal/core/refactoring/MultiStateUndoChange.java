@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -120,6 +120,15 @@ public class MultiStateUndoChange extends Change {
 		return new MultiStateUndoChange(getName(), fFile, edits, stampToRestore, fSaveMode);
 	}
 
+	/**
+	 * Returns the undo edits of this change.
+	 *
+	 * @return the undo edits
+	 */
+	UndoEdit[] getUndoEdits() {
+		return fUndos;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
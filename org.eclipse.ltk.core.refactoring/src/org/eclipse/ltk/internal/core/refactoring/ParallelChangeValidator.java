@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+
+/**
+ * Initializes the validation data of independent changes and validates them on a
+ * bounded number of worker jobs. The calling thread works on the changes as well.
+ * <p>
+ * Only {@link TextFileChange}s that inherit the validation of {@link TextFileChange} are
+ * validated in parallel: each of them only reads the state of its own file, so the order
+ * in which they are validated does not matter. Subclasses that validate differently may
+ * call into the team provider or the UI and are validated by the calling thread.
+ * </p>
+ * <p>
+ * Validating a change may call <code>IWorkspace.validateEdit</code>, which may begin rules
+ * or run in the UI thread. Worker jobs are therefore only used if the calling thread is a job
+ * that neither owns a scheduling rule nor a lock, see {@link #canValidateInParallel()}.
+ * </p>
+ * <p>
+ * The results are reported in the order of the given changes. Like in a sequential loop,
+ * no further changes are validated once a change fails or returns a fatal status; changes
+ * that are already being validated by other worker jobs complete nevertheless.
+ * </p>
+ *
+ * @since 3.6
+ */
+public final class ParallelChangeValidator extends WorkerPool {
+
+	/**
+	 * The minimal number of changes that are validated in parallel. Validating fewer
+	 * changes is not worth scheduling worker jobs.
+	 */
+	public static final int THRESHOLD= 32;
+
+	private static final int INITIALIZE= 1;
+	private static final int VALIDATE= 2;
+
+	/**
+	 * Maps a subclass of {@link TextFileChange} to a {@link Boolean} telling whether it
+	 * overrides the validation of {@link TextFileChange}.
+	 */
+	private static final Map fgOverridesValidation= new WeakHashMap();
+
+	private final Change[] fChanges;
+	private final int fOperation;
+
+	private ParallelChangeValidator(Change[] changes, int operation) {
+		super(RefactoringCoreMessages.ParallelChangeValidator_job_name, changes.length, changes.length / (THRESHOLD / 2), operation == VALIDATE);
+		fChanges= changes;
+		fOperation= operation;
+	}
+
+	/**
+	 * Returns whether the given change can be validated in parallel to other changes.
+	 *
+	 * @param change the change
+	 * @return <code>true</code> iff the change is a {@link TextFileChange} that does not
+	 *  override its validation
+	 */
+	public static boolean isParallelizable(Change change) {
+		return change instanceof TextFileChange && !overridesValidation(change.getClass());
+	}
+
+	/**
+	 * Returns whether the calling thread may validate changes on worker jobs. This is only
+	 * the case for a job that does not own a scheduling rule or a lock: the validation of a
+	 * change on a worker job may have to begin a rule or to synchronize with the UI thread,
+	 * which would block forever if the calling thread held the conflicting rule or was the
+	 * UI thread itself.
+	 *
+	 * @return <code>true</code> iff the changes may be validated in parallel
+	 */
+	public static boolean canValidateInParallel() {
+		IJobManager manager= Job.getJobManager();
+		return manager.currentJob() != null && manager.currentRule() == null && !manager.isLockOwner();
+	}
+
+	private static boolean overridesValidation(Class clazz) {
+		synchronized (fgOverridesValidation) {
+			Boolean overrides= (Boolean) fgOverridesValidation.get(clazz);
+			if (overrides == null) {
+				overrides= Boolean.valueOf(declaresValidation(clazz));
+				fgOverridesValidation.put(clazz, overrides);
+			}
+			return overrides.booleanValue();
+		}
+	}
+
+	private static boolean declaresValidation(Class clazz) {
+		Class[] parameters= new Class[] { IProgressMonitor.class };
+		for (Class current= clazz; current != TextFileChange.class; current= current.getSuperclass()) {
+			try {
+				current.getDeclaredMethod("isValid", parameters); //$NON-NLS-1$
+				return true;
+			} catch (NoSuchMethodException e) {
+				// look further
+			} catch (SecurityException e) {
+				return true;
+			}
+			try {
+				current.getDeclaredMethod("initializeValidationData", parameters); //$NON-NLS-1$
+				return true;
+			} catch (NoSuchMethodException e) {
+				// look further
+			} catch (SecurityException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calls {@link Change#initializeValidationData(IProgressMonitor)} on the given changes.
+	 * Like in a sequential loop, initializing the changes is not cancelable and stops at
+	 * the first change that fails.
+	 *
+	 * @param changes the changes, see {@link #isParallelizable(Change)}
+	 * @param pm a progress monitor
+	 * @throws RuntimeException the exception of the first change that failed
+	 */
+	public static void initializeValidationData(List changes, IProgressMonitor pm) {
+		ParallelChangeValidator validator= new ParallelChangeValidator((Change[]) changes.toArray(new Change[changes.size()]), INITIALIZE);
+		validator.run(pm);
+		for (int i= 0; i < validator.fChanges.length; i++) {
+			Object result= validator.getResult(i);
+			if (result != null)
+				rethrowUnchecked((Throwable) result);
+		}
+	}
+
+	/**
+	 * Calls {@link Change#isValid(IProgressMonitor)} on the given changes.
+	 *
+	 * @param changes the changes, see {@link #isParallelizable(Change)}
+	 * @param pm a progress monitor
+	 * @return the results, in the order of the changes: a {@link RefactoringStatus} or the
+	 *  {@link CoreException} or {@link RuntimeException} thrown by the change. Use
+	 *  {@link #getStatus(Object)} to access a result. The results after the first exception
+	 *  or fatal status may be <code>null</code>.
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public static Object[] isValid(List changes, IProgressMonitor pm) {
+		ParallelChangeValidator validator= new ParallelChangeValidator((Change[]) changes.toArray(new Change[changes.size()]), VALIDATE);
+		validator.run(pm);
+		Object[] results= new Object[validator.fChanges.length];
+		for (int i= 0; i < results.length; i++)
+			results[i]= validator.getResult(i);
+		return results;
+	}
+
+	/**
+	 * Returns the status of a result returned by {@link #isValid(List, IProgressMonitor)}.
+	 *
+	 * @param result the result
+	 * @return the status
+	 * @throws CoreException if the change threw a core exception
+	 */
+	public static RefactoringStatus getStatus(Object result) throws CoreException {
+		if (result instanceof Throwable)
+			rethrow((Throwable) result);
+		return (RefactoringStatus) result;
+	}
+
+	private static void rethrow(Throwable t) throws CoreException {
+		if (t instanceof CoreException)
+			throw (CoreException) t;
+		if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		throw (Error) t;
+	}
+
+	private static void rethrowUnchecked(Throwable t) {
+		if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		throw (Error) t;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	protected boolean stops(Object result) {
+		return result instanceof Throwable || result instanceof RefactoringStatus && ((RefactoringStatus) result).hasFatalError();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	protected Object perform(int index) throws CoreException {
+		if (fOperation == INITIALIZE) {
+			fChanges[index].initializeValidationData(new NullProgressMonitor());
+			return null;
+		}
+		return fChanges[index].isValid(new NullProgressMonitor());
+	}
+}
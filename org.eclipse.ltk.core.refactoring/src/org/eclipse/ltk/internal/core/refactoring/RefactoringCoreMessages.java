@@ -30,12 +30,16 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String CompositeChange_performingChangesTask_name;
 
+	public static String ConcurrentParticipantChecker_job_name;
+
 	public static String CreateChangeOperation_unknown_Refactoring;
 
 	public static String DefaultRefactoringDescriptor_cannot_create_refactoring;
 
 	public static String MoveResourceChange_name;
 
+	public static String ParallelChangeValidator_job_name;
+
 	public static String MoveResourceChange_progress_delete_destination;
 
 	public static String MoveResourceChange_progress_restore_source;
@@ -138,6 +142,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String ProcessorBasedRefactoring_initial_conditions;
 
+	public static String ProcessorBasedRefactoring_participant_time;
+
 	public static String ProcessorBasedRefactoring_prechange_participants_removed;
 
 	public static String Refactoring_execute_label;
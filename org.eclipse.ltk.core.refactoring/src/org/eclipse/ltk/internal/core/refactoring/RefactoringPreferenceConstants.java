@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,20 @@ public final class RefactoringPreferenceConstants {
 	/** The shared refactoring history preference */
 	public static final String PREFERENCE_SHARED_REFACTORING_HISTORY= "org.eclipse.ltk.core.refactoring.enable.project.refactoring.history"; //$NON-NLS-1$
 
+	/**
+	 * The memory limit of the refactoring undo stack in kilobytes
+	 *
+	 * @since 3.6
+	 */
+	public static final String PREFERENCE_UNDO_MEMORY_LIMIT= "org.eclipse.ltk.core.refactoring.undo.memory.limit"; //$NON-NLS-1$
+
+	/**
+	 * The concurrent participant condition checking preference
+	 *
+	 * @since 3.6
+	 */
+	public static final String PREFERENCE_CONCURRENT_PARTICIPANT_CHECKING= "org.eclipse.ltk.core.refactoring.participants.concurrent"; //$NON-NLS-1$
+
 	private RefactoringPreferenceConstants() {
 		// Not for instantiation
 	}
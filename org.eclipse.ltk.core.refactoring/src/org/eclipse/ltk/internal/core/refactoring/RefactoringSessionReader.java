@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -211,6 +211,8 @@ public final class RefactoringSessionReader extends DefaultHandler {
 						comment= value;
 				} else if (IRefactoringSerializationConstants.ATTRIBUTE_PROJECT.equals(name)) {
 					project= value;
+				} else if (IRefactoringSerializationConstants.ATTRIBUTE_TELEMETRY.equals(name)) {
+					// the telemetry is not part of the refactoring arguments
 				} else if (!"".equals(name)) { //$NON-NLS-1$
 					map.put(name, value);
 				}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -55,6 +55,15 @@ public class UndoDocumentChange extends Change {
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public Object getAdapter(Class adapter) {
+		if (UndoEdit.class.equals(adapter))
+			return fUndo;
+		return super.getAdapter(adapter);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -109,22 +118,14 @@ public class UndoDocumentChange extends Change {
 					} catch (BadLocationException e) {
 						exception[0]= e;
 					} finally {
-						completionLock.fDone= true;
-						completionLock.notifyAll();
+						completionLock.done();
 					}
 				}
 			}
 		};
 		
-		synchronized (completionLock) {
-			fileBufferManager.execute(runnable);
-			while (! completionLock.fDone) {
-				try {
-					completionLock.wait(500);
-				} catch (InterruptedException x) {
-				}
-			}
-		}
+		fileBufferManager.execute(runnable);
+		completionLock.awaitDone();
 		
 		if (exception[0] != null) {
 			throw exception[0];
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
@@ -99,9 +100,19 @@ public class UndoManager2 implements IUndoManager {
 		}
 	}
 
+	/**
+	 * The default memory limit of the undo stack in kilobytes.
+	 */
+	private static final int DEFAULT_MEMORY_LIMIT= 64 * 1024;
+
 	private IOperationHistory fOperationHistory;
 	private IOperationHistoryListener fOperationHistoryListener;
 
+	/**
+	 * The memory limit of the undo stack in bytes, or <code>-1</code> to use the preference.
+	 */
+	private long fMemoryLimit= -1;
+
 	private boolean fIsOpen;
 	private TriggeredOperations fActiveOperation;
 
@@ -162,6 +173,50 @@ public class UndoManager2 implements IUndoManager {
 			operation.setLabel(name);
 			fOperationHistory.add(fActiveOperation);
 			fActiveOperation= null;
+			enforceMemoryLimit();
+		}
+	}
+
+	/**
+	 * Sets the memory limit of the undo stack.
+	 *
+	 * @param limit the limit in bytes, or <code>-1</code> to use the limit
+	 *  configured by {@link RefactoringPreferenceConstants#PREFERENCE_UNDO_MEMORY_LIMIT}
+	 */
+	public void setMemoryLimit(long limit) {
+		fMemoryLimit= limit;
+		enforceMemoryLimit();
+	}
+
+	private long getMemoryLimit() {
+		if (fMemoryLimit >= 0)
+			return fMemoryLimit;
+		return 1024L * Platform.getPreferencesService().getInt(RefactoringCorePlugin.getPluginId(), RefactoringPreferenceConstants.PREFERENCE_UNDO_MEMORY_LIMIT, DEFAULT_MEMORY_LIMIT, null);
+	}
+
+	/**
+	 * Removes the oldest undo operations until the estimated memory cost of the undo stack
+	 * is within the memory limit. The most recent undo operation is always kept.
+	 */
+	private void enforceMemoryLimit() {
+		IUndoableOperation[] operations= fOperationHistory.getUndoHistory(RefactoringCorePlugin.getUndoContext());
+		long[] costs= new long[operations.length];
+		long total= 0;
+		for (int i= 0; i < operations.length; i++) {
+			UndoableOperation2ChangeAdapter changeOperation= getUnwrappedOperation(operations[i]);
+			if (changeOperation != null) {
+				costs[i]= changeOperation.getMemoryCost();
+				total+= costs[i];
+			}
+		}
+		long limit= getMemoryLimit();
+		// the undo history is ordered from the oldest to the most recent operation
+		for (int i= 0; i < operations.length - 1 && total > limit; i++) {
+			if (costs[i] > 0) {
+				fOperationHistory.replaceOperation(operations[i], new IUndoableOperation[0]);
+				operations[i].dispose();
+				total-= costs[i];
+			}
 		}
 	}
 
@@ -341,4 +396,15 @@ public class UndoManager2 implements IUndoManager {
 	public boolean testHasNumberOfRedos(int number) {
 		return fOperationHistory.getRedoHistory(RefactoringCorePlugin.getUndoContext()).length == number;
 	}
+
+	public long testGetUndoMemoryCost() {
+		IUndoableOperation[] operations= fOperationHistory.getUndoHistory(RefactoringCorePlugin.getUndoContext());
+		long result= 0;
+		for (int i= 0; i < operations.length; i++) {
+			UndoableOperation2ChangeAdapter changeOperation= getUnwrappedOperation(operations[i]);
+			if (changeOperation != null)
+				result+= changeOperation.getMemoryCost();
+		}
+		return result;
+	}
 }
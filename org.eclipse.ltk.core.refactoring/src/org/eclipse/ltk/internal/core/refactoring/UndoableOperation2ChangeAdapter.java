@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,9 @@ public class UndoableOperation2ChangeAdapter implements IUndoableOperation, IAdv
 	private Change fRedoChange;
 	private Change fActiveChange;
 
+	private Change fCostChange;
+	private long fCost;
+
 	private ChangeDescriptor fChangeDescriptor;
 
 	private List fContexts= new ArrayList();
@@ -90,6 +93,20 @@ public class UndoableOperation2ChangeAdapter implements IUndoableOperation, IAdv
 		return fActiveChange;
 	}
 
+	/**
+	 * Returns the estimated number of bytes retained by the active change.
+	 *
+	 * @return the memory cost
+	 * @see Changes#estimateMemoryCost(Change)
+	 */
+	public long getMemoryCost() {
+		if (fActiveChange != fCostChange) {
+			fCost= Changes.estimateMemoryCost(fActiveChange);
+			fCostChange= fActiveChange;
+		}
+		return fCost;
+	}
+
 	public ChangeDescriptor getChangeDescriptor() {
 		return fChangeDescriptor;
 	}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Performs independent tasks on a bounded number of worker jobs. The calling thread
+ * performs tasks as well and waits until all of them are done.
+ * <p>
+ * The results are stored in the order of the tasks. An exception or error thrown by
+ * a task is stored as its result. Once a result stops the pool, see {@link #stops(Object)},
+ * no further tasks are started; the results of the tasks that have not been started are
+ * <code>null</code>.
+ * </p>
+ *
+ * @since 3.6
+ */
+public abstract class WorkerPool {
+
+	/**
+	 * The maximal number of worker jobs of a pool.
+	 */
+	public static final int MAX_WORKERS= Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 7));
+
+	private class Worker extends Job {
+		/**
+		 * <code>true</code> iff the worker has started. Guarded by the pool.
+		 */
+		private boolean fStarted;
+		/**
+		 * <code>true</code> iff the worker has been withdrawn before it started. Guarded by the pool.
+		 */
+		private boolean fWithdrawn;
+
+		public Worker(String name) {
+			super(name);
+			setSystem(true);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			synchronized (WorkerPool.this) {
+				if (fWithdrawn)
+					return Status.OK_STATUS;
+				fStarted= true;
+			}
+			work(null);
+			return Status.OK_STATUS;
+		}
+	}
+
+	private final String fJobName;
+	private final int fWorkers;
+	private final boolean fCancelable;
+
+	/**
+	 * The results, in the order of the tasks: the value returned by
+	 * {@link #perform(int)}, or the {@link Throwable} thrown by it.
+	 */
+	private final Object[] fResults;
+
+	private int fNext;
+	private int fDone;
+	private int fActiveWorkers;
+	private boolean fCanceled;
+	private boolean fStopped;
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param jobName the name of the worker jobs
+	 * @param tasks the number of tasks
+	 * @param workers the number of worker jobs to schedule, at most {@link #MAX_WORKERS}.
+	 *  If <code>0</code>, the calling thread performs all tasks.
+	 * @param cancelable <code>true</code> if the tasks are not started anymore once the
+	 *  monitor of the calling thread is canceled
+	 */
+	protected WorkerPool(String jobName, int tasks, int workers, boolean cancelable) {
+		fJobName= jobName;
+		fWorkers= Math.max(0, Math.min(MAX_WORKERS, workers));
+		fCancelable= cancelable;
+		fResults= new Object[tasks];
+	}
+
+	/**
+	 * Performs the task with the given index. Called by the calling thread or by a
+	 * worker job.
+	 *
+	 * @param index the index of the task
+	 * @return the result of the task
+	 * @throws CoreException if the task fails
+	 */
+	protected abstract Object perform(int index) throws CoreException;
+
+	/**
+	 * Returns whether the given result stops the pool. The default implementation
+	 * returns <code>false</code>.
+	 *
+	 * @param result the result of a task, see {@link #getResult(int)}
+	 * @return <code>true</code> if no further tasks should be started
+	 */
+	protected boolean stops(Object result) {
+		return false;
+	}
+
+	/**
+	 * Performs all tasks and waits until they are done.
+	 *
+	 * @param pm a progress monitor
+	 * @throws OperationCanceledException if the pool is cancelable and the monitor has
+	 *  been canceled
+	 */
+	public final void run(IProgressMonitor pm) {
+		pm.beginTask("", fResults.length); //$NON-NLS-1$
+		try {
+			Worker[] workers= new Worker[fWorkers];
+			for (int i= 0; i < workers.length; i++) {
+				workers[i]= new Worker(fJobName);
+				synchronized (this) {
+					fActiveWorkers++;
+				}
+				workers[i].schedule();
+			}
+
+			int reported= work(pm);
+			synchronized (this) {
+				// do not wait for workers that could not start yet, e.g. because the job manager is suspended
+				for (int i= 0; i < workers.length; i++) {
+					if (!workers[i].fStarted) {
+						workers[i].fWithdrawn= true;
+						workers[i].cancel();
+						fActiveWorkers--;
+					}
+				}
+				while (fActiveWorkers > 0) {
+					if (fCancelable && pm.isCanceled())
+						fCanceled= true;
+					try {
+						wait(100);
+					} catch (InterruptedException e) {
+						// check again
+					}
+					pm.worked(fDone - reported);
+					reported= fDone;
+				}
+				if (fCanceled)
+					throw new OperationCanceledException();
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Returns the result of the task with the given index.
+	 *
+	 * @param index the index of the task
+	 * @return the value returned by {@link #perform(int)}, or the {@link CoreException},
+	 *  {@link RuntimeException} or {@link Error} thrown by it
+	 */
+	public final synchronized Object getResult(int index) {
+		return fResults[index];
+	}
+
+	/**
+	 * Returns whether the monitor of the calling thread has been canceled.
+	 *
+	 * @return <code>true</code> iff the pool is cancelable and has been canceled
+	 */
+	protected final synchronized boolean isCanceled() {
+		return fCanceled;
+	}
+
+	/**
+	 * Performs tasks until all of them are taken.
+	 *
+	 * @param pm the monitor of the calling thread, or <code>null</code> for a worker job
+	 * @return the number of done tasks that has been reported to the monitor
+	 */
+	private int work(IProgressMonitor pm) {
+		int reported= 0;
+		try {
+			int index;
+			while ((index= next(pm)) != -1) {
+				Object result;
+				try {
+					result= perform(index);
+				} catch (CoreException e) {
+					result= e;
+				} catch (RuntimeException e) {
+					result= e;
+				} catch (Error e) {
+					result= e;
+				}
+				boolean stops= stops(result);
+				synchronized (this) {
+					fResults[index]= result;
+					fDone++;
+					if (stops)
+						fStopped= true;
+					if (pm != null) {
+						pm.worked(fDone - reported);
+						reported= fDone;
+					}
+				}
+			}
+		} finally {
+			if (pm == null) {
+				synchronized (this) {
+					fActiveWorkers--;
+					notifyAll();
+				}
+			}
+		}
+		return reported;
+	}
+
+	private synchronized int next(IProgressMonitor pm) {
+		if (fCancelable && pm != null && pm.isCanceled())
+			fCanceled= true;
+		if (fCanceled || fStopped || fNext == fResults.length)
+			return -1;
+		return fNext++;
+	}
+}
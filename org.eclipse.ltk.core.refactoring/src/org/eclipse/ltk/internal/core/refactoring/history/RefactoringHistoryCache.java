@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+
+/**
+ * Least recently used cache of parsed refactoring history files, shared by all
+ * refactoring history managers.
+ * <p>
+ * Entries are keyed by the file store of the history file and are only valid
+ * as long as the modification stamp and the length of the file do not change.
+ * The cache is bounded by the total length of the cached files, which is a
+ * reasonable estimate of the memory used by the parsed representations.
+ * </p>
+ */
+public final class RefactoringHistoryCache {
+
+	/** Cache entry */
+	private static final class Entry {
+
+		/** The modification stamp of the file */
+		private final long fModified;
+
+		/** The length of the file */
+		private final long fLength;
+
+		/** The parsed representation */
+		private final Object fValue;
+
+		private Entry(final long modified, final long length, final Object value) {
+			fModified= modified;
+			fLength= length;
+			fValue= value;
+		}
+	}
+
+	/** The kind of cached DOM documents */
+	static final int KIND_DOCUMENT= 0;
+
+	/** The kind of cached refactoring session descriptors */
+	static final int KIND_SESSION= 1;
+
+	/** The default maximal total length of the cached files */
+	private static final long MAX_WEIGHT= 2 * 1024 * 1024;
+
+	/** The cache instance */
+	private static final RefactoringHistoryCache fgInstance= new RefactoringHistoryCache(MAX_WEIGHT);
+
+	/**
+	 * Returns the cache instance.
+	 *
+	 * @return the cache instance
+	 */
+	public static RefactoringHistoryCache getInstance() {
+		return fgInstance;
+	}
+
+	/** The entries in access order (element type: &lt;String, Entry&gt;) */
+	private final LinkedHashMap fEntries= new LinkedHashMap(16, 0.75f, true);
+
+	/** The number of evictions */
+	private long fEvictions= 0;
+
+	/** The number of cache hits */
+	private long fHits= 0;
+
+	/** The maximal total length of the cached files */
+	private final long fMaxWeight;
+
+	/** The number of cache misses */
+	private long fMisses= 0;
+
+	/** The total length of the cached files */
+	private long fWeight= 0;
+
+	/**
+	 * Creates a new refactoring history cache.
+	 *
+	 * @param maxWeight
+	 *            the maximal total length of the cached files
+	 */
+	RefactoringHistoryCache(final long maxWeight) {
+		fMaxWeight= maxWeight;
+	}
+
+	/**
+	 * Removes all entries from the cache. The statistics are not reset.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	/**
+	 * Returns the cached parsed representation of the specified file.
+	 *
+	 * @param kind
+	 *            the kind of representation
+	 * @param store
+	 *            the file store
+	 * @param info
+	 *            the current file info of the file store
+	 * @return the cached representation, or <code>null</code> if the file is
+	 *         not cached or has changed
+	 */
+	synchronized Object get(final int kind, final IFileStore store, final IFileInfo info) {
+		final String key= getKey(kind, store);
+		final Entry entry= (Entry) fEntries.get(key);
+		if (entry != null) {
+			if (entry.fModified == info.getLastModified() && entry.fLength == info.getLength()) {
+				fHits++;
+				return entry.fValue;
+			}
+			fEntries.remove(key);
+			fWeight-= entry.fLength;
+		}
+		fMisses++;
+		return null;
+	}
+
+	/**
+	 * Returns the number of entries which have been evicted.
+	 *
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		return fEvictions;
+	}
+
+	/**
+	 * Returns the number of lookups which have been answered by the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	private static String getKey(final int kind, final IFileStore store) {
+		return String.valueOf(kind) + ':' + store.toURI().toString();
+	}
+
+	/**
+	 * Returns the number of lookups which have not been answered by the cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 *
+	 * @return the number of entries
+	 */
+	public synchronized int getSize() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Returns the total length of the cached files.
+	 *
+	 * @return the weight of the cache
+	 */
+	public synchronized long getWeight() {
+		return fWeight;
+	}
+
+	/**
+	 * Removes all representations of the specified file from the cache.
+	 *
+	 * @param store
+	 *            the file store
+	 */
+	synchronized void invalidate(final IFileStore store) {
+		remove(getKey(KIND_DOCUMENT, store));
+		remove(getKey(KIND_SESSION, store));
+	}
+
+	/**
+	 * Caches the parsed representation of the specified file. Representations
+	 * of files which exceed the bounds of the cache are not cached.
+	 *
+	 * @param kind
+	 *            the kind of representation
+	 * @param store
+	 *            the file store
+	 * @param info
+	 *            the file info of the file store when it has been parsed
+	 * @param value
+	 *            the parsed representation
+	 */
+	synchronized void put(final int kind, final IFileStore store, final IFileInfo info, final Object value) {
+		final String key= getKey(kind, store);
+		remove(key);
+		final long length= info.getLength();
+		if (length > fMaxWeight)
+			return;
+		fEntries.put(key, new Entry(info.getLastModified(), length, value));
+		fWeight+= length;
+		for (final Iterator iterator= fEntries.values().iterator(); fWeight > fMaxWeight && iterator.hasNext();) {
+			final Entry entry= (Entry) iterator.next();
+			iterator.remove();
+			fWeight-= entry.fLength;
+			fEvictions++;
+		}
+	}
+
+	private void remove(final String key) {
+		final Entry entry= (Entry) fEntries.remove(key);
+		if (entry != null)
+			fWeight-= entry.fLength;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized String toString() {
+		final StringBuffer buffer= new StringBuffer(128);
+		buffer.append(getClass().getName());
+		buffer.append("[entries="); //$NON-NLS-1$
+		buffer.append(fEntries.size());
+		buffer.append(", weight="); //$NON-NLS-1$
+		buffer.append(fWeight);
+		buffer.append(", hits="); //$NON-NLS-1$
+		buffer.append(fHits);
+		buffer.append(", misses="); //$NON-NLS-1$
+		buffer.append(fMisses);
+		buffer.append(", evictions="); //$NON-NLS-1$
+		buffer.append(fEvictions);
+		buffer.append(']');
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,712 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.xml.sax.InputSource;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.core.refactoring.RefactoringSessionDescriptor;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringSessionReader;
+
+/**
+ * Binary index of a refactoring history.
+ * <p>
+ * There is one index per history file store, i.e. per project and for the workspace.
+ * The index caches the contents of the <code>refactorings.index</code> files of a
+ * history, together with their modification stamps and lengths, in a compact binary
+ * file in the state location of the plug-in. For each refactoring, it also caches the
+ * id and the flags of the descriptor from the <code>refactorings.history</code> file
+ * next to the index file, so that queries for an id or for flags do not have to
+ * resolve the descriptors. Before the index answers a query for a time range, the index
+ * files of the years and months intersecting with the range are compared against
+ * the cache, and only changed files are read again. The first query of an existing
+ * history therefore migrates its text index and history files.
+ * </p>
+ * <p>
+ * The XML history files and the text index files remain the reference format of
+ * the history: they can be shared with a project, and refactoring scripts are
+ * still exported as XML.
+ * </p>
+ * <p>
+ * The indexes of a project are evicted when the project is closed or deleted. The
+ * binary index file of a deleted project is deleted as well.
+ * </p>
+ */
+final class RefactoringHistoryIndex {
+
+	/** The index file entries of a history */
+	private static final class IndexFile {
+
+		/** The modification stamp of the index file */
+		private final long fModified;
+
+		/** The length of the index file */
+		private final long fLength;
+
+		/** The time stamps of the refactorings */
+		private final long[] fStamps;
+
+		/** The descriptions of the refactorings */
+		private final String[] fDescriptions;
+
+		/** The descriptor ids of the refactorings, or the empty string if unknown */
+		private final String[] fIds;
+
+		/** The descriptor flags of the refactorings, or {@link RefactoringHistoryIndex#UNKNOWN_FLAGS} */
+		private final int[] fFlags;
+
+		private IndexFile(final long modified, final long length, final long[] stamps, final String[] descriptions, final String[] ids, final int[] flags) {
+			fModified= modified;
+			fLength= length;
+			fStamps= stamps;
+			fDescriptions= descriptions;
+			fIds= ids;
+			fFlags= flags;
+		}
+	}
+
+	/** An entry of the sorted index */
+	private static final class Entry {
+
+		private final long fStamp;
+
+		private final String fDescription;
+
+		private final String fId;
+
+		private final int fFlags;
+
+		private Entry(final long stamp, final String description, final String id, final int flags) {
+			fStamp= stamp;
+			fDescription= description;
+			fId= id;
+			fFlags= flags;
+		}
+	}
+
+	/** The magic number of binary index files */
+	private static final int MAGIC= 0x52484958;
+
+	/** The version of the binary format */
+	private static final int VERSION= 2;
+
+	/** The flags of refactorings whose descriptor could not be read */
+	private static final int UNKNOWN_FLAGS= -1;
+
+	/** The name of the folder with the binary index files in the state location */
+	static final String NAME_INDEX_FOLDER= ".indexes"; //$NON-NLS-1$
+
+	/** The extension of binary index files */
+	private static final String EXTENSION_INDEX= ".bin"; //$NON-NLS-1$
+
+	/** The indexes, keyed by history file store */
+	private static final Map fgIndexes= new HashMap();
+
+	/** The resource listener evicting indexes, or <code>null</code> if there are no indexes */
+	private static IResourceChangeListener fgResourceListener= null;
+
+	/** The calendar instance */
+	private static final Calendar fgCalendar= Calendar.getInstance(TimeZone.getTimeZone("GMT+00:00")); //$NON-NLS-1$
+
+	/**
+	 * Returns the index of the specified refactoring history.
+	 *
+	 * @param store
+	 *            the history file store
+	 * @return the index
+	 */
+	static RefactoringHistoryIndex getIndex(final IFileStore store) {
+		synchronized (fgIndexes) {
+			RefactoringHistoryIndex index= (RefactoringHistoryIndex) fgIndexes.get(store);
+			if (index == null) {
+				index= new RefactoringHistoryIndex(store);
+				fgIndexes.put(store, index);
+				if (fgResourceListener == null) {
+					fgResourceListener= new IResourceChangeListener() {
+
+						public void resourceChanged(final IResourceChangeEvent event) {
+							final IResource resource= event.getResource();
+							if (resource != null && resource.getType() == IResource.PROJECT)
+								evictIndexes((IProject) resource, event.getType() == IResourceChangeEvent.PRE_DELETE);
+						}
+					};
+					ResourcesPlugin.getWorkspace().addResourceChangeListener(fgResourceListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+				}
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Evicts the indexes of the shared and the unshared history of the specified
+	 * project.
+	 *
+	 * @param project
+	 *            the project which is closed or deleted
+	 * @param delete
+	 *            <code>true</code> to delete the binary index files as well
+	 */
+	private static void evictIndexes(final IProject project, final boolean delete) {
+		final List stores= new ArrayList(2);
+		final RefactoringCorePlugin plugin= RefactoringCorePlugin.getDefault();
+		if (plugin != null)
+			stores.add(EFS.getLocalFileSystem().getStore(plugin.getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(project.getName()));
+		final URI uri= project.getLocationURI();
+		if (uri != null) {
+			try {
+				stores.add(EFS.getStore(uri).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER));
+			} catch (CoreException exception) {
+				// No shared history
+			}
+		}
+		synchronized (fgIndexes) {
+			for (final Iterator iterator= stores.iterator(); iterator.hasNext();) {
+				final IFileStore store= (IFileStore) iterator.next();
+				final RefactoringHistoryIndex index= (RefactoringHistoryIndex) fgIndexes.remove(store);
+				if (delete) {
+					if (index != null) {
+						synchronized (index) {
+							deleteBinaryFile(store);
+						}
+					} else
+						deleteBinaryFile(store);
+				}
+			}
+			if (fgIndexes.isEmpty() && fgResourceListener != null) {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(fgResourceListener);
+				fgResourceListener= null;
+			}
+		}
+	}
+
+	private static void deleteBinaryFile(final IFileStore store) {
+		final File file= getBinaryFile(store);
+		if (file != null)
+			file.delete();
+	}
+
+	/** The history file store */
+	private final IFileStore fHistoryStore;
+
+	/**
+	 * The cached index files, keyed by path relative to the history store
+	 * (element type: &lt;String, IndexFile&gt;), or <code>null</code> if not
+	 * loaded yet
+	 */
+	private Map fIndexFiles= null;
+
+	/** The time stamps of all index files in ascending order, or <code>null</code> */
+	private long[] fStamps= null;
+
+	/** The descriptions corresponding to {@link #fStamps}, or <code>null</code> */
+	private String[] fDescriptions= null;
+
+	/** The flags corresponding to {@link #fStamps}, or <code>null</code> */
+	private int[] fFlags= null;
+
+	/**
+	 * The positions in {@link #fStamps} in ascending order, keyed by descriptor id
+	 * (element type: &lt;String, int[]&gt;), or <code>null</code>
+	 */
+	private Map fIdPositions= null;
+
+	/**
+	 * Creates a new refactoring history index.
+	 *
+	 * @param store
+	 *            the history file store
+	 */
+	private RefactoringHistoryIndex(final IFileStore store) {
+		fHistoryStore= store;
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies in the specified time range.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs while reading the text index files
+	 */
+	void readRefactoringDescriptorProxies(final String project, final long start, final long end, final Collection collection, final IProgressMonitor monitor) throws CoreException {
+		readRefactoringDescriptorProxies(project, start, end, null, RefactoringDescriptor.NONE, collection, monitor);
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies in the specified time range whose
+	 * descriptors have the specified id and flags.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param id
+	 *            the id of the refactoring descriptors, or <code>null</code>
+	 *            for any id
+	 * @param flags
+	 *            the refactoring descriptor flags which must be present, or
+	 *            {@link RefactoringDescriptor#NONE}
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs while reading the text index files
+	 */
+	synchronized void readRefactoringDescriptorProxies(final String project, final long start, final long end, final String id, final int flags, final Collection collection, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask("", 1); //$NON-NLS-1$
+			if (fIndexFiles == null)
+				load();
+			final Set seen= new HashSet();
+			boolean changed= update(fHistoryStore, "", 0, start, end, seen, monitor); //$NON-NLS-1$
+			for (final Iterator iterator= fIndexFiles.keySet().iterator(); iterator.hasNext();) {
+				final String path= (String) iterator.next();
+				if (!seen.contains(path) && intersects(path, start, end)) {
+					iterator.remove();
+					changed= true;
+				}
+			}
+			if (changed) {
+				sort();
+				save();
+			}
+			if (id != null) {
+				final int[] positions= (int[]) fIdPositions.get(id);
+				if (positions != null) {
+					for (int index= lowerBound(positions, start); index < positions.length && fStamps[positions[index]] <= end; index++)
+						addProxy(positions[index], project, flags, collection);
+				}
+			} else {
+				for (int index= lowerBound(null, start); index < fStamps.length && fStamps[index] <= end; index++)
+					addProxy(index, project, flags, collection);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private void addProxy(final int position, final String project, final int flags, final Collection collection) {
+		if (flags > RefactoringDescriptor.NONE && (fFlags[position] == UNKNOWN_FLAGS || (fFlags[position] & flags) != flags))
+			return;
+		collection.add(new DefaultRefactoringDescriptorProxy(fDescriptions[position], project, fStamps[position]));
+	}
+
+	/**
+	 * Updates the cached index files below the specified folder.
+	 *
+	 * @return <code>true</code> if a cached index file has changed
+	 */
+	private boolean update(final IFileStore folder, final String path, final int depth, final long start, final long end, final Set seen, final IProgressMonitor monitor) throws CoreException {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		boolean changed= false;
+		final IFileInfo[] infos= folder.childInfos(EFS.NONE, null);
+		for (int index= 0; index < infos.length; index++) {
+			final IFileInfo info= infos[index];
+			if (!info.exists())
+				continue;
+			final String name= info.getName();
+			final String childPath= path.length() == 0 ? name : path + IPath.SEPARATOR + name;
+			if (info.isDirectory()) {
+				if (depth < 2 && !intersects(childPath, start, end))
+					continue;
+				if (update(folder.getChild(name), childPath, depth + 1, start, end, seen, monitor))
+					changed= true;
+			} else if (name.equalsIgnoreCase(RefactoringHistoryService.NAME_INDEX_FILE)) {
+				seen.add(childPath);
+				final IndexFile cached= (IndexFile) fIndexFiles.get(childPath);
+				if (cached == null || cached.fModified != info.getLastModified() || cached.fLength != info.getLength()) {
+					fIndexFiles.put(childPath, readIndexFile(folder, folder.getChild(name), info));
+					changed= true;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Reads a text index file, and the ids and flags of its refactorings from the
+	 * history file in the same folder.
+	 */
+	private static IndexFile readIndexFile(final IFileStore folder, final IFileStore store, final IFileInfo info) throws CoreException {
+		InputStream stream= null;
+		try {
+			stream= store.openInputStream(EFS.NONE, null);
+			final RefactoringDescriptorProxy[] proxies= RefactoringHistoryManager.readRefactoringDescriptorProxies(stream, null, 0, Long.MAX_VALUE);
+			final Map descriptors= readDescriptors(folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE));
+			final long[] stamps= new long[proxies.length];
+			final String[] descriptions= new String[proxies.length];
+			final String[] ids= new String[proxies.length];
+			final int[] flags= new int[proxies.length];
+			for (int index= 0; index < proxies.length; index++) {
+				stamps[index]= proxies[index].getTimeStamp();
+				descriptions[index]= proxies[index].getDescription();
+				final RefactoringDescriptor descriptor= (RefactoringDescriptor) descriptors.get(new Long(stamps[index]));
+				if (descriptor != null) {
+					ids[index]= descriptor.getID();
+					flags[index]= descriptor.getFlags();
+				} else {
+					ids[index]= ""; //$NON-NLS-1$
+					flags[index]= UNKNOWN_FLAGS;
+				}
+			}
+			return new IndexFile(info.getLastModified(), info.getLength(), stamps, descriptions, ids, flags);
+		} catch (IOException exception) {
+			throw RefactoringHistoryManager.createCoreException(exception);
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException exception) {
+					// Do nothing
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the descriptors of a history file. An unreadable history file is logged
+	 * and results in an empty map, so that its refactorings have unknown ids and flags.
+	 *
+	 * @return the descriptors, keyed by time stamp (element type: &lt;Long, RefactoringDescriptor&gt;)
+	 */
+	private static Map readDescriptors(final IFileStore store) {
+		final Map result= new HashMap();
+		if (!store.fetchInfo().exists())
+			return result;
+		InputStream stream= null;
+		try {
+			stream= new BufferedInputStream(store.openInputStream(EFS.NONE, null));
+			final RefactoringSessionDescriptor session= new RefactoringSessionReader(false, null).readSession(new InputSource(stream));
+			if (session != null) {
+				final RefactoringDescriptor[] descriptors= session.getRefactorings();
+				for (int index= 0; index < descriptors.length; index++)
+					result.put(new Long(descriptors[index].getTimeStamp()), descriptors[index]);
+			}
+		} catch (CoreException exception) {
+			RefactoringCorePlugin.log(exception);
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException exception) {
+					// Do nothing
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the time span of the year and month segments of the
+	 * specified path intersects with the time range. Paths whose segments are no
+	 * years and months always intersect.
+	 */
+	private static boolean intersects(final String path, final long start, final long end) {
+		final String[] segments= path.split(String.valueOf(IPath.SEPARATOR));
+		try {
+			final int year= Integer.parseInt(segments[0]);
+			int firstMonth= 0;
+			int lastMonth= 11;
+			if (segments.length > 1 && !segments[1].equalsIgnoreCase(RefactoringHistoryService.NAME_INDEX_FILE)) {
+				firstMonth= Integer.parseInt(segments[1]) - 1;
+				lastMonth= firstMonth;
+			}
+			synchronized (fgCalendar) {
+				fgCalendar.clear();
+				fgCalendar.set(year, firstMonth, 1);
+				final long spanStart= fgCalendar.getTimeInMillis();
+				fgCalendar.set(year, lastMonth + 1, 1);
+				final long spanEnd= fgCalendar.getTimeInMillis() - 1;
+				return spanStart <= end && spanEnd >= start;
+			}
+		} catch (NumberFormatException exception) {
+			return true;
+		}
+	}
+
+	/**
+	 * Merges the cached index files into the sorted arrays and the id index.
+	 */
+	private void sort() {
+		int size= 0;
+		for (final Iterator iterator= fIndexFiles.values().iterator(); iterator.hasNext();)
+			size+= ((IndexFile) iterator.next()).fStamps.length;
+		final Entry[] entries= new Entry[size];
+		int offset= 0;
+		for (final Iterator iterator= fIndexFiles.values().iterator(); iterator.hasNext();) {
+			final IndexFile file= (IndexFile) iterator.next();
+			for (int index= 0; index < file.fStamps.length; index++)
+				entries[offset++]= new Entry(file.fStamps[index], file.fDescriptions[index], file.fIds[index], file.fFlags[index]);
+		}
+		Arrays.sort(entries, new Comparator() {
+
+			public final int compare(final Object first, final Object second) {
+				final long delta= ((Entry) first).fStamp - ((Entry) second).fStamp;
+				if (delta > 0)
+					return 1;
+				else if (delta < 0)
+					return -1;
+				return 0;
+			}
+		});
+		fStamps= new long[size];
+		fDescriptions= new String[size];
+		fFlags= new int[size];
+		final Map positions= new HashMap();
+		for (int index= 0; index < size; index++) {
+			fStamps[index]= entries[index].fStamp;
+			fDescriptions[index]= entries[index].fDescription;
+			fFlags[index]= entries[index].fFlags;
+			if (entries[index].fId.length() > 0) {
+				List list= (List) positions.get(entries[index].fId);
+				if (list == null) {
+					list= new ArrayList();
+					positions.put(entries[index].fId, list);
+				}
+				list.add(new Integer(index));
+			}
+		}
+		fIdPositions= new HashMap(positions.size());
+		for (final Iterator iterator= positions.entrySet().iterator(); iterator.hasNext();) {
+			final Map.Entry entry= (Map.Entry) iterator.next();
+			final List list= (List) entry.getValue();
+			final int[] array= new int[list.size()];
+			for (int index= 0; index < array.length; index++)
+				array[index]= ((Integer) list.get(index)).intValue();
+			fIdPositions.put(entry.getKey(), array);
+		}
+	}
+
+	/**
+	 * Returns the index of the first time stamp which is not less than the
+	 * specified one.
+	 *
+	 * @param positions
+	 *            the positions in {@link #fStamps} to search, or
+	 *            <code>null</code> to search all time stamps
+	 * @param stamp
+	 *            the time stamp
+	 * @return the index in <code>positions</code>, or in {@link #fStamps}
+	 */
+	private int lowerBound(final int[] positions, final long stamp) {
+		int low= 0;
+		int high= positions != null ? positions.length : fStamps.length;
+		while (low < high) {
+			final int middle= (low + high) >>> 1;
+			if (fStamps[positions != null ? positions[middle] : middle] < stamp)
+				low= middle + 1;
+			else
+				high= middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the binary index file of the specified history.
+	 *
+	 * @param store
+	 *            the history file store
+	 * @return the file, or <code>null</code> if the plug-in has no state location
+	 */
+	private static File getBinaryFile(final IFileStore store) {
+		final RefactoringCorePlugin plugin= RefactoringCorePlugin.getDefault();
+		if (plugin == null)
+			return null;
+		final String name= Integer.toHexString(store.toURI().toString().hashCode()) + EXTENSION_INDEX;
+		return plugin.getStateLocation().append(NAME_INDEX_FOLDER).append(name).toFile();
+	}
+
+	/**
+	 * Loads the binary index file and sorts its entries. A missing or unreadable
+	 * file results in an empty cache, which is filled from the text index files.
+	 * <p>
+	 * The file is read into a heap buffer rather than memory-mapped: a mapping would
+	 * keep the file open until the buffer is garbage collected, and {@link #save()}
+	 * could not replace it on all platforms.
+	 * </p>
+	 */
+	private void load() {
+		fIndexFiles= new HashMap();
+		final File file= getBinaryFile(fHistoryStore);
+		if (file != null && file.isFile()) {
+			FileInputStream stream= null;
+			try {
+				stream= new FileInputStream(file);
+				final FileChannel channel= stream.getChannel();
+				final ByteBuffer buffer= ByteBuffer.allocate((int) channel.size());
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// Read the whole file
+				}
+				buffer.flip();
+				read(buffer);
+			} catch (IOException exception) {
+				fIndexFiles.clear();
+			} catch (BufferUnderflowException exception) {
+				fIndexFiles.clear();
+			} finally {
+				if (stream != null) {
+					try {
+						stream.close();
+					} catch (IOException exception) {
+						// Do nothing
+					}
+				}
+			}
+		}
+		sort();
+	}
+
+	private void read(final ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			return;
+		if (!fHistoryStore.toURI().toString().equals(readString(buffer)))
+			return;
+		final int files= buffer.getInt();
+		for (int file= 0; file < files; file++) {
+			final String path= readString(buffer);
+			final long modified= buffer.getLong();
+			final long length= buffer.getLong();
+			final int count= buffer.getInt();
+			final long[] stamps= new long[count];
+			final String[] descriptions= new String[count];
+			final String[] ids= new String[count];
+			final int[] flags= new int[count];
+			for (int index= 0; index < count; index++) {
+				stamps[index]= buffer.getLong();
+				descriptions[index]= readString(buffer);
+				ids[index]= readString(buffer);
+				flags[index]= buffer.getInt();
+			}
+			fIndexFiles.put(path, new IndexFile(modified, length, stamps, descriptions, ids, flags));
+		}
+	}
+
+	private static String readString(final ByteBuffer buffer) throws IOException {
+		final byte[] bytes= new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, IRefactoringSerializationConstants.OUTPUT_ENCODING);
+	}
+
+	/**
+	 * Saves the binary index file. Failures are logged, since the index can
+	 * always be recreated from the text index files.
+	 */
+	private void save() {
+		final File file= getBinaryFile(fHistoryStore);
+		if (file == null)
+			return;
+		final File temp= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream output= null;
+		try {
+			file.getParentFile().mkdirs();
+			output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			writeString(output, fHistoryStore.toURI().toString());
+			output.writeInt(fIndexFiles.size());
+			for (final Iterator iterator= fIndexFiles.entrySet().iterator(); iterator.hasNext();) {
+				final Map.Entry entry= (Map.Entry) iterator.next();
+				final IndexFile indexFile= (IndexFile) entry.getValue();
+				writeString(output, (String) entry.getKey());
+				output.writeLong(indexFile.fModified);
+				output.writeLong(indexFile.fLength);
+				output.writeInt(indexFile.fStamps.length);
+				for (int index= 0; index < indexFile.fStamps.length; index++) {
+					output.writeLong(indexFile.fStamps[index]);
+					writeString(output, indexFile.fDescriptions[index]);
+					writeString(output, indexFile.fIds[index]);
+					output.writeInt(indexFile.fFlags[index]);
+				}
+			}
+			output.close();
+			output= null;
+			if (!temp.renameTo(file)) {
+				file.delete();
+				if (!temp.renameTo(file))
+					throw new IOException(file.getPath());
+			}
+		} catch (IOException exception) {
+			RefactoringCorePlugin.log(exception);
+		} finally {
+			if (output != null) {
+				try {
+					output.close();
+				} catch (IOException exception) {
+					// Do nothing
+				}
+			}
+			temp.delete();
+		}
+	}
+
+	private static void writeString(final DataOutputStream output, final String string) throws IOException {
+		final byte[] bytes= string.getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -73,6 +73,7 @@ import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
 import org.eclipse.ltk.core.refactoring.RefactoringSessionDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
 import org.eclipse.ltk.internal.core.refactoring.BasicElementLabels;
 import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
@@ -140,7 +141,7 @@ public final class RefactoringHistoryManager {
 	 *            the throwable to wrap
 	 * @return the core exception
 	 */
-	private static CoreException createCoreException(final Throwable exception) {
+	static CoreException createCoreException(final Throwable exception) {
 		return new CoreException(new Status(IStatus.ERROR, RefactoringCore.ID_PLUGIN, IRefactoringCoreStatusCodes.REFACTORING_HISTORY_IO_ERROR, exception.getLocalizedMessage(), exception));
 	}
 
@@ -491,6 +492,10 @@ public final class RefactoringHistoryManager {
 						transformer.createArgument((String) entry.getKey(), (String) entry.getValue());
 					}
 				}
+				// the refactoring is recorded while its change is performed
+				final RefactoringTelemetry telemetry= RefactoringTelemetry.getCurrent();
+				if (telemetry != null && telemetry.isRecordInHistory() && (arguments == null || !arguments.containsKey(IRefactoringSerializationConstants.ATTRIBUTE_TELEMETRY)))
+					transformer.createArgument(IRefactoringSerializationConstants.ATTRIBUTE_TELEMETRY, telemetry.toString());
 			} finally {
 				transformer.endRefactoring();
 			}
@@ -768,18 +773,6 @@ public final class RefactoringHistoryManager {
 		writer.flush();
 	}
 
-	/** The cached session descriptor, or <code>null</code> */
-	private RefactoringSessionDescriptor fCachedDescriptor= null;
-
-	/** The cached document, or <code>null</code> */
-	private Document fCachedDocument= null;
-
-	/** The cached path, or <code>null</code> */
-	private IPath fCachedPath= null;
-
-	/** The cached file store, or <code>null</code> */
-	private IFileStore fCachedStore= null;
-
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
@@ -830,11 +823,12 @@ public final class RefactoringHistoryManager {
 				final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 				final IFileStore index= folder.getChild(RefactoringHistoryService.NAME_INDEX_FILE);
 				final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[] { new DefaultRefactoringDescriptorProxy(descriptor.getDescription(), descriptor.getProject(), descriptor.getTimeStamp())};
-				if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
+				final IFileInfo info= history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				if (info.exists()) {
 					InputStream input= null;
 					try {
 						input= new BufferedInputStream(history.openInputStream(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
-						final Document document= getCachedDocument(path, input);
+						final Document document= getCachedDocument(history, info, input);
 						try {
 							input.close();
 							input= null;
@@ -904,8 +898,10 @@ public final class RefactoringHistoryManager {
 	/**
 	 * Returns the cached refactoring history document.
 	 *
-	 * @param path
-	 *            the path of the document
+	 * @param store
+	 *            the file store of the document
+	 * @param info
+	 *            the file info of the file store
 	 * @param input
 	 *            the input stream where to read the document
 	 * @return the cached refactoring history document
@@ -916,14 +912,15 @@ public final class RefactoringHistoryManager {
 	 * @throws ParserConfigurationException
 	 *             if an error occurs in the parser configuration
 	 */
-	private Document getCachedDocument(final IPath path, final InputStream input) throws SAXException, IOException, ParserConfigurationException {
-		if (path.equals(fCachedPath) && fCachedDocument != null)
-			return fCachedDocument;
+	private static Document getCachedDocument(final IFileStore store, final IFileInfo info, final InputStream input) throws SAXException, IOException, ParserConfigurationException {
+		final RefactoringHistoryCache cache= RefactoringHistoryCache.getInstance();
+		final Document cached= (Document) cache.get(RefactoringHistoryCache.KIND_DOCUMENT, store, info);
+		if (cached != null)
+			return cached;
 		DocumentBuilder parser= DocumentBuilderFactory.newInstance().newDocumentBuilder();
 		parser.setErrorHandler(new DefaultHandler());
 		final Document document= parser.parse(new InputSource(input));
-		fCachedDocument= document;
-		fCachedPath= path;
+		cache.put(RefactoringHistoryCache.KIND_DOCUMENT, store, info, document);
 		return document;
 	}
 
@@ -932,22 +929,28 @@ public final class RefactoringHistoryManager {
 	 *
 	 * @param store
 	 *            the file store of the descriptor
+	 * @param info
+	 *            the file info of the file store
 	 * @param projectName
 	 *            project name, or <code>null</code> for the workspace
-	 * @param input
-	 *            the input stream where to read the descriptor
+	 * @param monitor
+	 *            the progress monitor to use
 	 * @return the cached refactoring session descriptor
 	 * @throws CoreException
 	 *             if an error occurs while reading the session
 	 */
-	private RefactoringSessionDescriptor getCachedSession(final IFileStore store, String projectName, final InputStream input) throws CoreException {
-		if (store.equals(fCachedStore) && fCachedDescriptor != null)
-			return fCachedDescriptor;
-		final RefactoringSessionDescriptor descriptor;
+	private static RefactoringSessionDescriptor getCachedSession(final IFileStore store, final IFileInfo info, String projectName, final IProgressMonitor monitor) throws CoreException {
+		final RefactoringHistoryCache cache= RefactoringHistoryCache.getInstance();
+		final RefactoringSessionDescriptor cached= (RefactoringSessionDescriptor) cache.get(RefactoringHistoryCache.KIND_SESSION, store, info);
+		if (cached != null) {
+			monitor.done();
+			return cached;
+		}
+		InputStream input= null;
 		try {
-			descriptor= new RefactoringSessionReader(false, projectName).readSession(new InputSource(input));
-			fCachedDescriptor= descriptor;
-			fCachedStore= store;
+			input= new BufferedInputStream(store.openInputStream(EFS.NONE, monitor));
+			final RefactoringSessionDescriptor descriptor= new RefactoringSessionReader(false, projectName).readSession(new InputSource(input));
+			cache.put(RefactoringHistoryCache.KIND_SESSION, store, info, descriptor);
 			return descriptor;
 		} catch (CoreException e) {
 			throw new CoreException(new MultiStatus(
@@ -956,6 +959,14 @@ public final class RefactoringHistoryManager {
 					new IStatus[] { e.getStatus() },
 					Messages.format(RefactoringCoreMessages.RefactoringHistoryManager_error_reading_file, BasicElementLabels.getURLPart(store.toURI().toString())),
 					null));
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException exception) {
+					RefactoringCorePlugin.log(exception);
+				}
+			}
 		}
 	}
 
@@ -971,15 +982,38 @@ public final class RefactoringHistoryManager {
 	 * @return the refactoring history
 	 */
 	RefactoringHistory readRefactoringHistory(final long start, final long end, final IProgressMonitor monitor) {
+		return readRefactoringHistory(start, end, null, RefactoringDescriptor.NONE, monitor);
+	}
+
+	/**
+	 * Reads the refactoring history from disk. The ids and flags are looked up in
+	 * the {@link RefactoringHistoryIndex}, without resolving the descriptors.
+	 *
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param id
+	 *            the id of the refactoring descriptors to return, or
+	 *            <code>null</code> for any id
+	 * @param flags
+	 *            the refactoring descriptor flags which must be present in
+	 *            order to be returned in the refactoring history, or
+	 *            {@link RefactoringDescriptor#NONE}
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return the refactoring history
+	 */
+	RefactoringHistory readRefactoringHistory(final long start, final long end, final String id, final int flags, final IProgressMonitor monitor) {
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 200);
 			final Set set= new HashSet();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					RefactoringHistoryIndex.getIndex(fHistoryStore).readRefactoringDescriptorProxies(fProjectName, start, end, id, flags, set, new SubProgressMonitor(monitor, 80));
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					RefactoringHistoryIndex.getIndex(store).readRefactoringDescriptorProxies(null, start, end, id, flags, set, new SubProgressMonitor(monitor, 80));
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -1021,12 +1055,13 @@ public final class RefactoringHistoryManager {
 					removeIndexTree(folder, new SubProgressMonitor(monitor, 1), task);
 				else {
 					final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
-					if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
+					final IFileInfo info= history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+					if (info.exists()) {
 						InputStream input= null;
 						Document document= null;
 						try {
 							input= new BufferedInputStream(history.openInputStream(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
-							document= getCachedDocument(path, input);
+							document= getCachedDocument(history, info, input);
 						} catch (ParserConfigurationException exception) {
 							throw createCoreException(exception);
 						} catch (IOException exception) {
@@ -1140,13 +1175,12 @@ public final class RefactoringHistoryManager {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_resolving_information, 2);
 			final long stamp= proxy.getTimeStamp();
 			if (stamp >= 0) {
-				InputStream input= null;
 				try {
 					final IFileStore folder= fHistoryStore.getFileStore(stampToPath(stamp));
 					final IFileStore file= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
-					if (file.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
-						input= new BufferedInputStream(file.openInputStream(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
-						final RefactoringSessionDescriptor descriptor= getCachedSession(file, fProjectName, input);
+					final IFileInfo info= file.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+					if (info.exists()) {
+						final RefactoringSessionDescriptor descriptor= getCachedSession(file, info, fProjectName, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 						if (descriptor != null) {
 							final RefactoringDescriptor[] descriptors= descriptor.getRefactorings();
 							for (int index= 0; index < descriptors.length; index++) {
@@ -1159,13 +1193,6 @@ public final class RefactoringHistoryManager {
 					}
 				} catch (CoreException exception) {
 					RefactoringCorePlugin.log(exception);
-				} finally {
-					try {
-						if (input != null)
-							input.close();
-					} catch (IOException exception) {
-						RefactoringCorePlugin.log(exception);
-					}
 				}
 			}
 		} finally {
@@ -1194,11 +1221,12 @@ public final class RefactoringHistoryManager {
 				final IPath path= stampToPath(stamp);
 				final IFileStore folder= fHistoryStore.getFileStore(path);
 				final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
-				if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
+				final IFileInfo info= history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				if (info.exists()) {
 					InputStream input= null;
 					try {
 						input= new BufferedInputStream(history.openInputStream(EFS.NONE, new SubProgressMonitor(monitor, 40, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
-						final Document document= getCachedDocument(path, input);
+						final Document document= getCachedDocument(history, info, input);
 						try {
 							input.close();
 							input= null;
@@ -1259,10 +1287,6 @@ public final class RefactoringHistoryManager {
 				output= new BufferedOutputStream(file.openOutputStream(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
 			writeNode(output, document);
 				} finally {
-					fCachedDocument= null;
-					fCachedPath= null;
-					fCachedDescriptor= null;
-					fCachedStore= null;
 				if (output != null) {
 					try {
 						output.close();
@@ -1270,6 +1294,7 @@ public final class RefactoringHistoryManager {
 						// Do nothing
 					}
 				}
+				RefactoringHistoryCache.getInstance().invalidate(file);
 			monitor.done();
 		}
 	}
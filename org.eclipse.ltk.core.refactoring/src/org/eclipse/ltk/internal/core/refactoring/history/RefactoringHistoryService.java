@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -134,50 +134,6 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	/** The no history constant */
 	private static final NullRefactoringHistory NO_HISTORY= new NullRefactoringHistory();
 
-	/**
-	 * Filters the given array of refactoring proxies and returns the result in
-	 * the specified refactoring descriptor proxy set.
-	 * <p>
-	 * Clients wishing to benefit from the resolving of refactoring descriptors
-	 * to determine its flags can set resolve to <code>true</code> if they
-	 * would like to have resolved refactoring descriptor proxies as result.
-	 * </p>
-	 *
-	 * @param proxies
-	 *            the refactoring descriptor proxies
-	 * @param set
-	 *            the result set
-	 * @param resolve
-	 *            <code>true</code> to return the filtered refactoring
-	 *            descriptors as resolved refactoring proxies,
-	 *            <code>false</code> otherwise
-	 * @param flags
-	 *            the refactoring descriptor flags which must be present in
-	 *            order to be returned in the refactoring history object
-	 * @param monitor
-	 *            the progress monitor to use
-	 */
-	private static void filterRefactoringDescriptors(final RefactoringDescriptorProxy[] proxies, final Set set, final boolean resolve, final int flags, final IProgressMonitor monitor) {
-		Assert.isTrue(flags > RefactoringDescriptor.NONE);
-		try {
-			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, proxies.length);
-			for (int offset= 0; offset < proxies.length; offset++) {
-				final RefactoringDescriptor descriptor= proxies[offset].requestDescriptor(new SubProgressMonitor(monitor, 1));
-				if (descriptor != null) {
-					final int filter= descriptor.getFlags();
-					if ((filter | flags) == filter) {
-						if (resolve)
-							set.add(new RefactoringDescriptorProxyAdapter(descriptor));
-						else
-							set.add(proxies[offset]);
-					}
-				}
-			}
-		} finally {
-			monitor.done();
-		}
-	}
-
 	/**
 	 * Returns the singleton instance of the refactoring history.
 	 *
@@ -656,13 +612,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 				final String name= project.getName();
 				final RefactoringHistoryManager manager= getManager(name);
 				if (manager != null) {
-					RefactoringHistory history= manager.readRefactoringHistory(start, end, new SubProgressMonitor(monitor, 20));
-					if (flags > RefactoringDescriptor.NONE) {
-						final Set set= new HashSet();
-						filterRefactoringDescriptors(history.getDescriptors(), set, false, flags, new SubProgressMonitor(monitor, 100));
-						history= new RefactoringHistoryImplementation((RefactoringDescriptorProxy[]) set.toArray(new RefactoringDescriptorProxy[set.size()]));
-					}
-					return history;
+					return manager.readRefactoringHistory(start, end, null, flags, new SubProgressMonitor(monitor, 120));
 				}
 			} finally {
 				monitor.done();
@@ -671,6 +621,43 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		return NO_HISTORY;
 	}
 
+	/**
+	 * Returns the project history of the refactorings with the specified id in
+	 * the specified time range. The refactoring descriptors are not resolved.
+	 *
+	 * @param project
+	 *            the project, which must exist
+	 * @param id
+	 *            the id of the refactoring descriptors
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use, or <code>null</code>
+	 * @return the project refactoring history
+	 */
+	public RefactoringHistory getProjectHistory(final IProject project, final String id, final long start, final long end, IProgressMonitor monitor) {
+		Assert.isNotNull(project);
+		Assert.isNotNull(id);
+		Assert.isTrue(project.exists());
+		Assert.isTrue(start >= 0);
+		Assert.isTrue(end >= 0);
+		if (project.isOpen()) {
+			if (monitor == null)
+				monitor= new NullProgressMonitor();
+			try {
+				monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 120);
+				final RefactoringHistoryManager manager= getManager(project.getName());
+				if (manager != null)
+					return manager.readRefactoringHistory(start, end, id, RefactoringDescriptor.NONE, new SubProgressMonitor(monitor, 120));
+			} finally {
+				monitor.done();
+			}
+		}
+		return NO_HISTORY;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -691,22 +678,12 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 3 * projects.length);
 			final Set set= new HashSet();
-			if (flags > RefactoringDescriptor.NONE) {
-				for (int index= 0; index < projects.length; index++) {
-					final IProject project= projects[index];
-					if (project.isAccessible()) {
-						final RefactoringDescriptorProxy[] proxies= getProjectHistory(project, start, end, flags, new SubProgressMonitor(monitor, 1)).getDescriptors();
-						filterRefactoringDescriptors(proxies, set, false, flags, new SubProgressMonitor(monitor, 2));
-					}
-				}
-			} else {
-				for (int index= 0; index < projects.length; index++) {
-					final IProject project= projects[index];
-					if (project.isAccessible()) {
-						final RefactoringDescriptorProxy[] proxies= getProjectHistory(project, start, end, RefactoringDescriptor.NONE, new SubProgressMonitor(monitor, 3)).getDescriptors();
-						for (int offset= 0; offset < proxies.length; offset++)
-							set.add(proxies[offset]);
-					}
+			for (int index= 0; index < projects.length; index++) {
+				final IProject project= projects[index];
+				if (project.isAccessible()) {
+					final RefactoringDescriptorProxy[] proxies= getProjectHistory(project, start, end, flags, new SubProgressMonitor(monitor, 3)).getDescriptors();
+					for (int offset= 0; offset < proxies.length; offset++)
+						set.add(proxies[offset]);
 				}
 			}
 			final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[set.size()];
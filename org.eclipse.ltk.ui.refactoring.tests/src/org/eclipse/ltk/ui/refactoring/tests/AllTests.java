@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ public class AllTests {
 	public static Test suite() {
 		TestSuite suite= new TestSuite("All LTK Refactoring UI Tests"); //$NON-NLS-1$
 		suite.addTestSuite(EmptySuite.class);
+		suite.addTestSuite(TextEditChangePreviewViewerTest.class);
 		return suite;
 	}
 }
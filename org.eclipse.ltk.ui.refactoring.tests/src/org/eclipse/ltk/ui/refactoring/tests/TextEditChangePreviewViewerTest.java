@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.ui.refactoring.tests;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEditGroup;
+
+import org.eclipse.compare.CompareViewerSwitchingPane;
+
+import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.internal.ui.refactoring.TextEditChangePreviewViewer;
+
+public class TextEditChangePreviewViewerTest extends TestCase {
+
+	private static final long TIMEOUT= 10000;
+	private static final int LINES= 500;
+	private static final int GROUPS= 5;
+
+	private IProject fProject;
+	private IFile fFile;
+	private Shell fShell;
+
+	protected void setUp() throws Exception {
+		fProject= ResourcesPlugin.getWorkspace().getRoot().getProject("PreviewProject");
+		fProject.create(null);
+		fProject.open(null);
+		StringBuffer content= new StringBuffer();
+		for (int i= 0; i < LINES; i++)
+			content.append("line ").append(i).append('\n');
+		fFile= fProject.getFile("file.txt");
+		fFile.create(new ByteArrayInputStream(content.toString().getBytes("US-ASCII")), true, null);
+		fShell= new Shell(Display.getCurrent());
+	}
+
+	protected void tearDown() throws Exception {
+		TextEditChangePreviewViewer.cancelComputeJobs();
+		fShell.dispose();
+		fProject.delete(true, true, null);
+	}
+
+	private TextFileChange createChange(TextEditGroup[] groups) {
+		TextFileChange change= new TextFileChange("change", fFile);
+		MultiTextEdit root= new MultiTextEdit();
+		change.setEdit(root);
+		for (int i= 0; i < groups.length; i++) {
+			// replaces the "line" of every hundredth line
+			ReplaceEdit edit= new ReplaceEdit(offsetOfLine(i * 100), 4, "LINE");
+			root.addChild(edit);
+			groups[i]= new TextEditGroup("group" + i, edit);
+			change.addTextEditGroup(groups[i]);
+		}
+		return change;
+	}
+
+	private static int offsetOfLine(int line) {
+		int offset= 0;
+		for (int i= 0; i < line; i++)
+			offset+= ("line " + i + "\n").length();
+		return offset;
+	}
+
+	private TextEditChangePreviewViewer createViewer() {
+		TextEditChangePreviewViewer viewer= new TextEditChangePreviewViewer();
+		viewer.createControl(fShell);
+		return viewer;
+	}
+
+	private static Object getInput(TextEditChangePreviewViewer viewer) {
+		return ((CompareViewerSwitchingPane) viewer.getControl()).getInput();
+	}
+
+	private void waitForComputeJobs() throws InterruptedException {
+		Display display= fShell.getDisplay();
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (Job.getJobManager().find(TextEditChangePreviewViewer.COMPUTE_JOB_FAMILY).length > 0) {
+			assertTrue("preview not computed", System.currentTimeMillis() < end);
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+		}
+		while (display.readAndDispatch()) {
+			// run the pending updates of the viewers
+		}
+	}
+
+	private void assertDocumentReleased() {
+		assertNull("document not released", FileBuffers.getTextFileBufferManager().getTextFileBuffer(fFile.getFullPath(), LocationKind.IFILE));
+	}
+
+	public void testBackgroundPreview() throws Exception {
+		TextFileChange change= createChange(new TextEditGroup[GROUPS]);
+		TextEditChangePreviewViewer viewer= createViewer();
+		viewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		assertNull(getInput(viewer));
+
+		waitForComputeJobs();
+		assertNotNull(getInput(viewer));
+		assertDocumentReleased();
+
+		// the contents are cached
+		TextEditChangePreviewViewer other= createViewer();
+		other.setInput(TextEditChangePreviewViewer.createInput(change));
+		assertNotNull(getInput(other));
+	}
+
+	public void testConcurrentPreviews() throws Exception {
+		TextEditGroup[] groups= new TextEditGroup[GROUPS];
+		TextFileChange change= createChange(groups);
+		TextEditChangePreviewViewer[] viewers= new TextEditChangePreviewViewer[GROUPS];
+		for (int i= 0; i < viewers.length; i++) {
+			viewers[i]= createViewer();
+			viewers[i].setInput(TextEditChangePreviewViewer.createInput(change, new TextEditBasedChangeGroup(change, groups[i]), 2));
+		}
+
+		waitForComputeJobs();
+		for (int i= 0; i < viewers.length; i++)
+			assertNotNull(getInput(viewers[i]));
+		// the jobs acquired and released the document of the same change
+		assertDocumentReleased();
+	}
+
+	public void testCancelComputeJobs() throws Exception {
+		TextEditGroup[] groups= new TextEditGroup[GROUPS];
+		TextFileChange change= createChange(groups);
+		TextEditChangePreviewViewer[] viewers= new TextEditChangePreviewViewer[GROUPS];
+		for (int i= 0; i < viewers.length; i++) {
+			viewers[i]= createViewer();
+			viewers[i].setInput(TextEditChangePreviewViewer.createInput(change, new TextEditBasedChangeGroup(change, groups[i]), 2));
+		}
+
+		TextEditChangePreviewViewer.cancelComputeJobs();
+		assertEquals(0, Job.getJobManager().find(TextEditChangePreviewViewer.COMPUTE_JOB_FAMILY).length);
+		assertDocumentReleased();
+
+		// the change can be performed once the previews are canceled
+		change.perform(new NullProgressMonitor());
+		assertEquals("LINE 0", new TextFileChange("read", fFile).getCurrentContent(new NullProgressMonitor()).substring(0, 6));
+		assertDocumentReleased();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -83,6 +83,22 @@ public abstract class AbstractChangeNode extends PreviewNode {
 
 	abstract PreviewNode[] doCreateChildren();
 
+	boolean hasChildren() {
+		if (fChildren != null)
+			return fChildren.length > 0;
+		return doHasChildren();
+	}
+
+	/**
+	 * Returns whether the node has children, before the children have been created.
+	 * The default implementation creates the children.
+	 *
+	 * @return whether the node has children
+	 */
+	boolean doHasChildren() {
+		return getChildren().length > 0;
+	}
+
 	public String getText() {
 		return fChange.getName();
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -45,8 +45,7 @@ class ChangeElementContentProvider  implements ITreeContentProvider {
 	 * @see ITreeContentProvider#hasChildren
 	 */
 	public boolean hasChildren(Object element){
-		Object[] children= getChildren(element);
-		return children != null && children.length > 0;
+		return ((PreviewNode)element).hasChildren();
 	}
 
 	/* non Java-doc
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,7 +56,9 @@ class ChangeElementTreeViewer extends CheckboxTreeViewer {
 	private List fDeferredTreeItemUpdates;
 
 	public ChangeElementTreeViewer(Composite parentComposite) {
-		super(parentComposite, SWT.NONE);
+		// virtual, so that only the items of visible nodes are created for large changes
+		super(parentComposite, SWT.VIRTUAL);
+		setUseHashlookup(true);
 		addFilter(new GroupCategoryFilter());
 		addCheckStateListener(new ICheckStateListener() {
 			public void checkStateChanged(CheckStateChangedEvent event){
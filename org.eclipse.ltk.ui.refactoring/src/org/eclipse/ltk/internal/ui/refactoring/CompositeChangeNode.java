@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,22 @@ public class CompositeChangeNode extends AbstractChangeNode {
 		return (PreviewNode[])children.toArray(new PreviewNode[children.size()]);
 	}
 
+	boolean doHasChildren() {
+		return hasSelectedChild((CompositeChange)getChange());
+	}
+
+	private boolean hasSelectedChild(CompositeChange focus) {
+		Change[] changes= focus.getChildren();
+		for (int i= 0; i < changes.length; i++) {
+			Change change= changes[i];
+			if (fFilter == null || fFilter.select(change)) {
+				if (!(change instanceof CompositeChange) || !((CompositeChange) change).isSynthetic() || hasSelectedChild((CompositeChange) change))
+					return true;
+			}
+		}
+		return false;
+	}
+
 	private void getFlattendedChildren(List result, CompositeChangeNode parent, CompositeChange focus) {
 		Change[] changes= focus.getChildren();
 		for (int i= 0; i < changes.length; i++) {
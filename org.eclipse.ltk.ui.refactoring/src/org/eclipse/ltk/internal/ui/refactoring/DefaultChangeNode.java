@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,4 +25,8 @@ public class DefaultChangeNode extends AbstractChangeNode {
 	PreviewNode[] doCreateChildren() {
 		return EMPTY_CHILDREN;
 	}
+
+	boolean doHasChildren() {
+		return false;
+	}
 }
\ No newline at end of file
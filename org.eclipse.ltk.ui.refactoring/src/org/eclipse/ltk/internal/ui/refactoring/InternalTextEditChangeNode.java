@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.ltk.internal.ui.refactoring;
 import java.util.List;
 
 import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.MultiStateTextFileChange;
 import org.eclipse.ltk.core.refactoring.TextEditBasedChange;
 import org.eclipse.ltk.ui.refactoring.TextEditChangeNode;
 import org.eclipse.ltk.ui.refactoring.TextEditChangeNode.ChildNode;
@@ -39,6 +40,13 @@ public abstract class InternalTextEditChangeNode extends AbstractChangeNode {
 		return createChildNodes();
 	}
 
+	boolean doHasChildren() {
+		// the child nodes are created from the change groups, which are not
+		// sorted or grouped before the node gets expanded
+		TextEditBasedChange change= getTextEditBasedChange();
+		return !(change instanceof MultiStateTextFileChange) && change.getChangeGroups().length > 0;
+	}
+
 	protected static TextEditChangeNode internalGetTextEditChangeNode(PreviewNode node) {
 		PreviewNode element= node.getParent();
 		while(!(element instanceof TextEditChangeNode) && element != null) {
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.ui.refactoring;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.jface.text.IRegion;
+
+import org.eclipse.ltk.core.refactoring.TextEditBasedChange;
+import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
+
+/**
+ * Least recently used cache of the contents shown by the text edit change preview
+ * viewer. The cache is bounded by the total length of the cached contents.
+ * <p>
+ * The entries depend on the activation state of the change and its groups, which
+ * is part of the key. The cache is cleared when the preview page gets a new change
+ * or is disposed, so that it does not retain changes.
+ * </p>
+ */
+final class PreviewContentCache {
+
+	static final class Key {
+		private final TextEditBasedChange fChange;
+		private final TextEditBasedChangeGroup[] fGroups;
+		private final int fOffset;
+		private final int fLength;
+		private final int fSurroundingLines;
+		private final String fState;
+
+		/**
+		 * Creates a key for the preview of a change.
+		 *
+		 * @param change the change
+		 * @param groups the previewed groups, or <code>null</code> for the whole change
+		 * @param range the previewed range, or <code>null</code> for the whole change
+		 * @param surroundingLines the number of surrounding lines
+		 */
+		Key(TextEditBasedChange change, TextEditBasedChangeGroup[] groups, IRegion range, int surroundingLines) {
+			fChange= change;
+			fGroups= groups;
+			fOffset= range != null ? range.getOffset() : -1;
+			fLength= range != null ? range.getLength() : -1;
+			fSurroundingLines= surroundingLines;
+			fState= computeState(change);
+		}
+
+		private static String computeState(TextEditBasedChange change) {
+			TextEditBasedChangeGroup[] groups= change.getChangeGroups();
+			StringBuffer buffer= new StringBuffer(groups.length + 1);
+			buffer.append(change.isEnabled() ? '1' : '0');
+			for (int i= 0; i < groups.length; i++)
+				buffer.append(groups[i].isEnabled() ? '1' : '0');
+			return buffer.toString();
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			if (fChange != other.fChange || fOffset != other.fOffset || fLength != other.fLength
+					|| fSurroundingLines != other.fSurroundingLines || !fState.equals(other.fState))
+				return false;
+			if (fGroups == null || other.fGroups == null)
+				return fGroups == other.fGroups;
+			if (fGroups.length != other.fGroups.length)
+				return false;
+			for (int i= 0; i < fGroups.length; i++) {
+				if (fGroups[i] != other.fGroups[i])
+					return false;
+			}
+			return true;
+		}
+
+		public int hashCode() {
+			return System.identityHashCode(fChange) * 31 + fOffset * 17 + fState.hashCode();
+		}
+	}
+
+	/** The maximal total number of cached characters */
+	private static final long MAX_WEIGHT= 4 * 1024 * 1024;
+
+	private static final PreviewContentCache fgDefault= new PreviewContentCache();
+
+	/** The entries in access order (element type: &lt;Key, String[]&gt;) */
+	private final LinkedHashMap fEntries= new LinkedHashMap(16, 0.75f, true);
+
+	private long fWeight;
+
+	static PreviewContentCache getDefault() {
+		return fgDefault;
+	}
+
+	/**
+	 * Returns the cached contents for the given key.
+	 *
+	 * @param key the key
+	 * @return the current and the preview content, or <code>null</code>
+	 */
+	synchronized String[] get(Key key) {
+		return (String[]) fEntries.get(key);
+	}
+
+	/**
+	 * Caches the contents for the given key.
+	 *
+	 * @param key the key
+	 * @param contents the current and the preview content
+	 */
+	synchronized void put(Key key, String[] contents) {
+		long weight= getWeight(contents);
+		if (weight > MAX_WEIGHT)
+			return;
+		String[] previous= (String[]) fEntries.put(key, contents);
+		if (previous != null)
+			fWeight-= getWeight(previous);
+		fWeight+= weight;
+		for (Iterator iter= fEntries.values().iterator(); fWeight > MAX_WEIGHT && iter.hasNext();) {
+			fWeight-= getWeight((String[]) iter.next());
+			iter.remove();
+		}
+	}
+
+	synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	private static long getWeight(String[] contents) {
+		return contents[0].length() + contents[1].length();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -149,6 +149,17 @@ public abstract class PreviewNode {
 	 */
 	abstract PreviewNode[] getChildren();
 
+	/**
+	 * Returns whether the change element has children. Implementors should
+	 * answer this without creating the children where possible, since the
+	 * tree asks every visible node.
+	 *
+	 * @return whether the change element has children
+	 */
+	boolean hasChildren() {
+		return getChildren().length > 0;
+	}
+
 	/**
 	 * Returns <code>true</code> if the change node has
 	 * one of the given group categories. Otherwise,
@@ -315,6 +315,7 @@ public class PreviewWizardPage extends RefactoringWizardPage implements IPreview
 			return;
 
 		fChange= change;
+		PreviewContentCache.getDefault().clear();
 		if (fChange instanceof CompositeChange) {
 			fTreeViewerInputChange= (CompositeChange)fChange;
 		} else {
@@ -746,4 +747,12 @@ public class PreviewWizardPage extends RefactoringWizardPage implements IPreview
 	public Change getChange() {
 		return fChange;
 	}
+
+	/* (Non-Javadoc)
+	 * Method defined in IDialogPage
+	 */
+	public void dispose() {
+		PreviewContentCache.getDefault().clear();
+		super.dispose();
+	}
 }
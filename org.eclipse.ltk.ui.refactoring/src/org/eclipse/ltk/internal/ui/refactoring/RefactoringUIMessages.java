@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -346,6 +346,8 @@ public final class RefactoringUIMessages extends NLS {
 
 	public static String ShowRefactoringHistoryControl_delete_label;
 
+	public static String TextEditChangePreviewViewer_computing_preview;
+
 	public static String UndoManagerAction_internal_error_message;
 
 	public static String UndoManagerAction_internal_error_title;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,11 +20,17 @@ import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.AssertionFailedException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
-import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IResource;
 
@@ -54,8 +60,33 @@ import org.eclipse.ltk.ui.refactoring.IChangePreviewViewer;
 
 public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 
+	/**
+	 * The family of the jobs computing preview contents.
+	 */
+	public static final Object COMPUTE_JOB_FAMILY= new Object();
+
+	/**
+	 * Runs the jobs computing preview contents one after the other. Computing the
+	 * contents acquires and releases the document of the change, which is not thread safe.
+	 */
+	private static final ISchedulingRule COMPUTE_RULE= new ISchedulingRule() {
+		public boolean contains(ISchedulingRule rule) {
+			return rule == this;
+		}
+
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule == this;
+		}
+	};
+
 	private ComparePreviewer fViewer;
 
+	/**
+	 * The job computing the contents of the current input, or <code>null</code>.
+	 * Only accessed in the UI thread.
+	 */
+	private Job fComputeJob;
+
 	private static class TextEditBasedChangeInput extends ChangePreviewViewerInput {
 		TextEditBasedChangeGroup group;
 		int surroundingLines;
@@ -155,6 +186,20 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 		}
 	}
 
+	/**
+	 * Cancels the jobs computing preview contents and waits until they are done.
+	 * Must be called before a change that may have been previewed is performed.
+	 */
+	public static void cancelComputeJobs() {
+		IJobManager manager= Job.getJobManager();
+		manager.cancel(COMPUTE_JOB_FAMILY);
+		try {
+			manager.join(COMPUTE_JOB_FAMILY, null);
+		} catch (InterruptedException e) {
+			// the jobs have been canceled
+		}
+	}
+
 	public static ChangePreviewViewerInput createInput(TextEditBasedChange change) {
 		return new ChangePreviewViewerInput(change);
 	}
@@ -175,6 +220,14 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 
 	public void createControl(Composite parent) {
 		fViewer= new ComparePreviewer(parent);
+		fViewer.addDisposeListener(new DisposeListener() {
+			public void widgetDisposed(DisposeEvent e) {
+				if (fComputeJob != null) {
+					fComputeJob.cancel();
+					fComputeJob= null;
+				}
+			}
+		});
 	}
 
 	public Control getControl() {
@@ -182,42 +235,99 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 	}
 
 	public void setInput(ChangePreviewViewerInput input) {
-		try {
-			Change change= input.getChange();
-			if (input instanceof TextEditBasedChangeInput) {
-				TextEditBasedChangeInput extended= (TextEditBasedChangeInput)input;
-				if (extended.group != null && extended.surroundingLines >= 0) {
-					TextEditBasedChangeGroup group= extended.group;
-					TextEditBasedChange editChange= group.getTextEditChange();
-					setInput(editChange, editChange.getCurrentContent(group.getRegion(), true, 2, new NullProgressMonitor()),
-						editChange.getPreviewContent(new TextEditBasedChangeGroup[] { group }, group.getRegion(), true, 2, new NullProgressMonitor()),
-						editChange.getTextType());
-					return;
-				} else if (extended.groups != null && extended.groups.length > 0 && extended.range != null) {
-					TextEditBasedChange editChange= extended.groups[0].getTextEditChange();
-					TextEditBasedChangeGroup[] groups= extended.groups;
-					if (extended.groupCategory != null) {
-
-					}
-					setInput(editChange, editChange.getCurrentContent(extended.range, true, 0, new NullProgressMonitor()),
-						editChange.getPreviewContent(groups, extended.range, true, 0, new NullProgressMonitor()),
-						editChange.getTextType());
-					return;
-				}
-			} else if (change instanceof TextEditBasedChange) {
-				TextEditBasedChange editChange= (TextEditBasedChange)change;
-				setInput(editChange, editChange.getCurrentContent(new NullProgressMonitor()), editChange.getPreviewContent(new NullProgressMonitor()), editChange.getTextType());
-				return;
+		if (fComputeJob != null) {
+			fComputeJob.cancel();
+			fComputeJob= null;
+		}
+		final TextEditBasedChange editChange;
+		final TextEditBasedChangeGroup[] groups;
+		final IRegion range;
+		final int surroundingLines;
+		Change change= input.getChange();
+		if (input instanceof TextEditBasedChangeInput) {
+			TextEditBasedChangeInput extended= (TextEditBasedChangeInput)input;
+			if (extended.group != null && extended.surroundingLines >= 0) {
+				editChange= extended.group.getTextEditChange();
+				groups= new TextEditBasedChangeGroup[] { extended.group };
+				range= extended.group.getRegion();
+				surroundingLines= 2;
+			} else if (extended.groups != null && extended.groups.length > 0 && extended.range != null) {
+				editChange= extended.groups[0].getTextEditChange();
+				groups= extended.groups;
+				range= extended.range;
+				surroundingLines= 0;
 			} else {
-				fViewer.setInput(null);
+				return;
 			}
-		} catch (CoreException e) {
-			RefactoringUIPlugin.log(e);
+		} else if (change instanceof TextEditBasedChange) {
+			editChange= (TextEditBasedChange)change;
+			groups= null;
+			range= null;
+			surroundingLines= 0;
+		} else {
 			fViewer.setInput(null);
+			return;
+		}
+
+		final PreviewContentCache.Key key;
+		try {
+			key= new PreviewContentCache.Key(editChange, groups, range, surroundingLines);
 		} catch (AssertionFailedException e) {
 			RefactoringUIPlugin.log(e);
 			fViewer.setInput(null);
+			return;
 		}
+		String[] contents= PreviewContentCache.getDefault().get(key);
+		if (contents != null) {
+			setInput(editChange, contents[0], contents[1], editChange.getTextType());
+			return;
+		}
+
+		// computing the contents of large files takes a while, so do it in the background
+		fViewer.setInput(null);
+		final Display display= fViewer.getDisplay();
+		fComputeJob= new Job(RefactoringUIMessages.TextEditChangePreviewViewer_computing_preview) {
+			protected IStatus run(IProgressMonitor monitor) {
+				final String[] result;
+				try {
+					if (groups == null) {
+						result= new String[] { editChange.getCurrentContent(monitor), editChange.getPreviewContent(monitor) };
+					} else {
+						result= new String[] {
+							editChange.getCurrentContent(range, true, surroundingLines, monitor),
+							editChange.getPreviewContent(groups, range, true, surroundingLines, monitor) };
+					}
+				} catch (CoreException e) {
+					RefactoringUIPlugin.log(e);
+					return Status.OK_STATUS;
+				} catch (AssertionFailedException e) {
+					RefactoringUIPlugin.log(e);
+					return Status.OK_STATUS;
+				}
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				PreviewContentCache.getDefault().put(key, result);
+				final Job job= this;
+				if (!display.isDisposed()) {
+					display.asyncExec(new Runnable() {
+						public void run() {
+							if (fComputeJob == job && !fViewer.isDisposed()) {
+								fComputeJob= null;
+								setInput(editChange, result[0], result[1], editChange.getTextType());
+							}
+						}
+					});
+				}
+				return Status.OK_STATUS;
+			}
+
+			public boolean belongsTo(Object family) {
+				return family == COMPUTE_JOB_FAMILY;
+			}
+		};
+		fComputeJob.setRule(COMPUTE_RULE);
+		fComputeJob.setSystem(true);
+		fComputeJob.schedule();
 	}
 
 	public void refresh() {
@@ -37,12 +37,14 @@ public class UIPerformChangeOperation extends PerformChangeOperation {
 		super(change);
 		fDisplay= display;
 		fWizardContainer= container;
+		setBatchSynchronizedEdits(true);
 	}
 
 	public UIPerformChangeOperation(Display display, CreateChangeOperation op, IWizardContainer container) {
 		super(op);
 		fDisplay= display;
 		fWizardContainer= container;
+		setBatchSynchronizedEdits(true);
 	}
 
 	protected void executeChange(final IProgressMonitor pm) throws CoreException {
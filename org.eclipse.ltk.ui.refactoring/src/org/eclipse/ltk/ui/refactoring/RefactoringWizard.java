@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.jface.operation.IRunnableContext;
@@ -36,6 +37,7 @@ import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringContext;
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringTelemetry;
 import org.eclipse.ltk.internal.ui.refactoring.ChangeExceptionHandler;
 import org.eclipse.ltk.internal.ui.refactoring.ErrorWizardPage;
 import org.eclipse.ltk.internal.ui.refactoring.ExceptionHandler;
@@ -48,6 +50,7 @@ import org.eclipse.ltk.internal.ui.refactoring.PreviewWizardPage;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringPluginImages;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringUIMessages;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringUIPlugin;
+import org.eclipse.ltk.internal.ui.refactoring.TextEditChangePreviewViewer;
 import org.eclipse.ltk.internal.ui.refactoring.WorkbenchRunnableAdapter;
 
 /**
@@ -172,6 +175,8 @@ public abstract class RefactoringWizard extends Wizard {
 
 	private IRunnableContext fRunnableContext;
 
+	private RefactoringTelemetry fTelemetry;
+
 	/**
 	 * Creates a new refactoring wizard for the given refactoring.
 	 *
@@ -531,6 +536,30 @@ public abstract class RefactoringWizard extends Wizard {
 		return super.canFinish();
 	}
 
+	//---- Telemetry ---------------------------------------------------------------------
+
+	/**
+	 * Returns a runnable that runs the given operation with the telemetry of this wizard.
+	 * The telemetry is sent to the listeners once the change has been performed.
+	 *
+	 * @param operation the operation
+	 * @return the runnable to run instead of the operation, or the operation itself
+	 *  if telemetry is not enabled
+	 */
+	/* package */ final IWorkspaceRunnable withTelemetry(final IWorkspaceRunnable operation) {
+		if (fTelemetry == null) {
+			if (!RefactoringTelemetry.isEnabled())
+				return operation;
+			fTelemetry= new RefactoringTelemetry(fRefactoring.getName());
+		}
+		final RefactoringTelemetry telemetry= fTelemetry;
+		return new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				telemetry.run(operation, monitor);
+			}
+		};
+	}
+
 	//---- Condition checking ------------------------------------------------------------
 
 	/* package */ final RefactoringStatus checkFinalConditions() {
@@ -544,7 +573,7 @@ public abstract class RefactoringWizard extends Wizard {
 		Exception exception= null;
 		try {
 			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(
-				new WorkbenchRunnableAdapter(op, ResourcesPlugin.getWorkspace().getRoot()));
+				new WorkbenchRunnableAdapter(withTelemetry(op), ResourcesPlugin.getWorkspace().getRoot()));
 		} catch (InterruptedException e) {
 			exception= e;
 		} catch (InvocationTargetException e) {
@@ -632,9 +661,10 @@ public abstract class RefactoringWizard extends Wizard {
 	 */
 	public final FinishResult internalPerformFinish(InternalAPI api, PerformChangeOperation op) {
 		op.setUndoManager(RefactoringCore.getUndoManager(), getRefactoring().getName());
+		TextEditChangePreviewViewer.cancelComputeJobs();
 		Shell parent= getContainer().getShell();
 		try{
-			getContainer().run(true, true, new WorkbenchRunnableAdapter(op, ResourcesPlugin.getWorkspace().getRoot()));
+			getContainer().run(true, true, new WorkbenchRunnableAdapter(withTelemetry(op), ResourcesPlugin.getWorkspace().getRoot()));
 		} catch (InvocationTargetException e) {
 			Throwable inner= e.getTargetException();
 			if (op.changeExecutionFailed()) {
@@ -654,6 +684,10 @@ public abstract class RefactoringWizard extends Wizard {
 		} catch (InterruptedException e) {
 			return FinishResult.createInterrupted();
 		}
+		if (fTelemetry != null) {
+			fTelemetry.fireTelemetryRecorded();
+			fTelemetry= null;
+		}
 		return FinishResult.createOK();
 	}
 
@@ -661,7 +695,7 @@ public abstract class RefactoringWizard extends Wizard {
 		InvocationTargetException exception= null;
 		try {
 			context.run(true, fIsChangeCreationCancelable, new WorkbenchRunnableAdapter(
-				operation, ResourcesPlugin.getWorkspace().getRoot()));
+				withTelemetry(operation), ResourcesPlugin.getWorkspace().getRoot()));
 		} catch (InterruptedException e) {
 			setConditionCheckingStatus(null);
 			return null;
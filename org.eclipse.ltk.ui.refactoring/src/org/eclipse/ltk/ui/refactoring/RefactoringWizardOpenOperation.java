@@ -210,7 +210,7 @@ public class RefactoringWizardOpenOperation {
 	private RefactoringStatus checkInitialConditions(Refactoring refactoring, Shell parent, String title, IRunnableContext context) throws InterruptedException {
 		try {
 			CheckConditionsOperation cco= new CheckConditionsOperation(refactoring, CheckConditionsOperation.INITIAL_CONDITONS);
-			WorkbenchRunnableAdapter workbenchRunnableAdapter= new WorkbenchRunnableAdapter(cco, ResourcesPlugin.getWorkspace().getRoot());
+			WorkbenchRunnableAdapter workbenchRunnableAdapter= new WorkbenchRunnableAdapter(fWizard.withTelemetry(cco), ResourcesPlugin.getWorkspace().getRoot());
 			if (context == null) {
 				PlatformUI.getWorkbench().getProgressService().busyCursorWhile(workbenchRunnableAdapter);
 			} else if (context instanceof IProgressService) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -80,6 +80,7 @@ import org.eclipse.ltk.internal.ui.refactoring.RefactoringPreviewChangeFilter;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringStatusEntryFilter;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringUIMessages;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringUIPlugin;
+import org.eclipse.ltk.internal.ui.refactoring.TextEditChangePreviewViewer;
 import org.eclipse.ltk.internal.ui.refactoring.UIPerformChangeOperation;
 import org.eclipse.ltk.internal.ui.refactoring.WorkbenchRunnableAdapter;
 import org.eclipse.ltk.internal.ui.refactoring.history.RefactoringHistoryErrorPage;
@@ -1195,6 +1196,7 @@ public class RefactoringHistoryWizard extends Wizard {
 		Assert.isNotNull(operation);
 		Assert.isNotNull(refactoring);
 		operation.setUndoManager(RefactoringCore.getUndoManager(), refactoring.getName());
+		TextEditChangePreviewViewer.cancelComputeJobs();
 		final IWizardContainer wizard= getContainer();
 		final Shell shell= wizard.getShell();
 		try {